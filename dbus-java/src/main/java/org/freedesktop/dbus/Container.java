@@ -15,8 +15,8 @@ package org.freedesktop.dbus;
 import java.lang.reflect.Field;
 import java.lang.reflect.Type;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.freedesktop.dbus.annotations.Position;
 
@@ -25,14 +25,14 @@ import org.freedesktop.dbus.annotations.Position;
  * and holds common methods.
  */
 public abstract class Container {
-    private static Map<Type, Type[]> typecache = new HashMap<Type, Type[]>();
+    private static final Map<Type, Type[]> TYPE_CACHE = new ConcurrentHashMap<>();
 
     static void putTypeCache(Type k, Type[] v) {
-        typecache.put(k, v);
+        TYPE_CACHE.put(k, v);
     }
 
     static Type[] getTypeCache(Type k) {
-        return typecache.get(k);
+        return TYPE_CACHE.get(k);
     }
 
     private Object[] parameters = null;
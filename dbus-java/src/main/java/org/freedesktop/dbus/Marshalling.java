@@ -23,11 +23,12 @@ import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.freedesktop.dbus.annotations.Position;
 import org.freedesktop.dbus.connections.AbstractConnection;
@@ -51,7 +52,17 @@ import org.slf4j.LoggerFactory;
 public final class Marshalling {
     private static final Logger LOGGER = LoggerFactory.getLogger(Marshalling.class);
 
-    private static final Map<Type, String[]> TYPE_CACHE = new HashMap<>();
+    /** Maximum number of entries per signature cache, a cache is cleared when it is full. */
+    private static final int MAX_CACHE_SIZE = 1024;
+
+    /** DBus types of Java types (compound types allowed). */
+    private static final BoundedCache<Type, String[]> TYPE_CACHE = new BoundedCache<>();
+    /** DBus types of Java types (basic types only). */
+    private static final BoundedCache<Type, String[]> BASIC_TYPE_CACHE = new BoundedCache<>();
+    /** Java types of complete DBus signatures. */
+    private static final BoundedCache<String, ParsedSignature> SIGNATURE_CACHE = new BoundedCache<>();
+    /** Java type of the first type of DBus signatures. */
+    private static final BoundedCache<String, ParsedSignature> FIRST_TYPE_CACHE = new BoundedCache<>();
 
     private static final Map<Class<?>, Byte> CLASS_TO_ARGUMENTTYPE = new LinkedHashMap<>();
     static {
@@ -107,7 +118,7 @@ public final class Marshalling {
     * @throws DBusException If the given type cannot be converted to a DBus type.
     */
     public static String getDBusType(Type[] _javaType) throws DBusException {
-        StringBuffer sb = new StringBuffer();
+        StringBuilder sb = new StringBuilder();
         for (Type t : _javaType) {
             for (String s : getDBusType(t)) {
                 sb.append(s);
@@ -125,13 +136,7 @@ public final class Marshalling {
     * @throws DBusException If the given type cannot be converted to a DBus type.
     */
     public static String[] getDBusType(Type _javaType) throws DBusException {
-        String[] cached = TYPE_CACHE.get(_javaType);
-        if (null != cached) {
-            return cached;
-        }
-        cached = getDBusType(_javaType, false);
-        TYPE_CACHE.put(_javaType, cached);
-        return cached;
+        return getDBusType(_javaType, false);
     }
 
     /**
@@ -144,12 +149,19 @@ public final class Marshalling {
     * @throws DBusException If the given type cannot be converted to a DBus type.
     */
     public static String[] getDBusType(Type _dataType, boolean _basic) throws DBusException {
-        return recursiveGetDBusType(new StringBuffer[10], _dataType, _basic, 0);
+        BoundedCache<Type, String[]> cache = _basic ? BASIC_TYPE_CACHE : TYPE_CACHE;
+        String[] cached = cache.get(_dataType);
+        if (null != cached) {
+            return cached;
+        }
+        cached = recursiveGetDBusType(new StringBuffer[10], _dataType, _basic, 0);
+        cache.put(_dataType, cached);
+        return cached;
     }
 
     private static String[] recursiveGetDBusType(StringBuffer[] _out, Type _dataType, boolean _basic, int _level) throws DBusException {
         if (_out.length <= _level) {
-            StringBuffer[] newout = new StringBuffer[_out.length];
+            StringBuffer[] newout = new StringBuffer[Math.max(_out.length * 2, _level + 1)];
             System.arraycopy(_out, 0, newout, 0, _out.length);
             _out = newout;
         }
@@ -326,98 +338,172 @@ public final class Marshalling {
         if (null == _dbusType || "".equals(_dbusType) || 0 == _limit) {
             return 0;
         }
+        if (-1 != _limit && _limit <= _resultValue.size()) {
+            return 0;
+        }
+        int remaining = -1 == _limit ? -1 : _limit - _resultValue.size();
+
+        // whole signatures and single types are parsed very often (message bodies, variants), cache them
+        BoundedCache<String, ParsedSignature> cache = -1 == remaining ? SIGNATURE_CACHE : 1 == remaining ? FIRST_TYPE_CACHE : null;
+        ParsedSignature parsed = null == cache ? null : cache.get(_dbusType);
+        if (null == parsed) {
+            try {
+                List<Type> types = new ArrayList<>();
+                int length = parseJavaTypes(_dbusType, 0, _dbusType.length(), types, remaining);
+                parsed = new ParsedSignature(types.toArray(new Type[0]), length);
+            } catch (IndexOutOfBoundsException _ex) {
+                LOGGER.debug("Failed to parse DBus type signature.", _ex);
+                throw new DBusException("Failed to parse DBus type signature: " + _dbusType);
+            }
+            if (null != cache) {
+                cache.put(_dbusType, parsed);
+            }
+        }
+        Collections.addAll(_resultValue, parsed.types);
+        return parsed.length;
+    }
 
-        try {
-            int idx = 0;
-            for (; idx < _dbusType.length() && (-1 == _limit || _limit > _resultValue.size()); idx++) {
-                switch (_dbusType.charAt(idx)) {
-                case Message.ArgumentType.STRUCT1:
-                    int structIdx = idx + 1;
-                    for (int structLen = 1; structLen > 0; structIdx++) {
-                        if (Message.ArgumentType.STRUCT2 == _dbusType.charAt(structIdx)) {
-                            structLen--;
-                        } else if (Message.ArgumentType.STRUCT1 == _dbusType.charAt(structIdx)) {
-                            structLen++;
-                        }
+    /**
+     * Parses the types of the given part of a signature.
+     *
+     * @param _dbusType signature
+     * @param _start index of the first character to parse
+     * @param _end index after the last character which may be parsed
+     * @param _resultValue List to return the types in
+     * @param _limit Maximum number of types to parse (-1 == nolimit)
+     * @return number of characters parsed
+     * @throws DBusException on unknown type codes
+     * @throws IndexOutOfBoundsException if the signature is truncated
+     */
+    private static int parseJavaTypes(String _dbusType, int _start, int _end, List<Type> _resultValue, int _limit) throws DBusException {
+        int idx = _start;
+        for (; idx < _end && (-1 == _limit || _limit > _resultValue.size()); idx++) {
+            switch (_dbusType.charAt(idx)) {
+            case Message.ArgumentType.STRUCT1:
+                int structIdx = idx + 1;
+                for (int structLen = 1; structLen > 0; structIdx++) {
+                    char c = charAt(_dbusType, structIdx, _end);
+                    if (Message.ArgumentType.STRUCT2 == c) {
+                        structLen--;
+                    } else if (Message.ArgumentType.STRUCT1 == c) {
+                        structLen++;
                     }
+                }
 
-                    List<Type> contained = new ArrayList<>();
-                    int javaType = getJavaType(_dbusType.substring(idx + 1, structIdx - 1), contained, -1);
-                    _resultValue.add(new DBusStructType(contained.toArray(new Type[0])));
-                    idx = structIdx - 1; //-1 because j already points to the next signature char
-                    break;
-                case Message.ArgumentType.ARRAY:
-                    if (Message.ArgumentType.DICT_ENTRY1 == _dbusType.charAt(idx + 1)) {
-                        contained = new ArrayList<>();
-                        javaType = getJavaType(_dbusType.substring(idx + 2), contained, 2);
-                        _resultValue.add(new DBusMapType(contained.get(0), contained.get(1)));
-                        idx += (javaType + 2);
-                    } else {
-                        contained = new ArrayList<>();
-                        javaType = getJavaType(_dbusType.substring(idx + 1), contained, 1);
-                        _resultValue.add(new DBusListType(contained.get(0)));
-                        idx += javaType;
-                    }
-                    break;
-                case Message.ArgumentType.VARIANT:
-                    _resultValue.add(Variant.class);
-                    break;
-                case Message.ArgumentType.BOOLEAN:
-                    _resultValue.add(Boolean.class);
-                    break;
-                case Message.ArgumentType.INT16:
-                    _resultValue.add(Short.class);
-                    break;
-                case Message.ArgumentType.BYTE:
-                    _resultValue.add(Byte.class);
-                    break;
-                case Message.ArgumentType.OBJECT_PATH:
-                    _resultValue.add(DBusInterface.class);
-                    break;
-                case Message.ArgumentType.UINT16:
-                    _resultValue.add(UInt16.class);
-                    break;
-                case Message.ArgumentType.INT32:
-                    _resultValue.add(Integer.class);
-                    break;
-                case Message.ArgumentType.UINT32:
-                    _resultValue.add(UInt32.class);
-                    break;
-                case Message.ArgumentType.INT64:
-                    _resultValue.add(Long.class);
-                    break;
-                case Message.ArgumentType.UINT64:
-                    _resultValue.add(UInt64.class);
-                    break;
-                case Message.ArgumentType.DOUBLE:
-                    _resultValue.add(Double.class);
-                    break;
-                case Message.ArgumentType.FLOAT:
-                    _resultValue.add(Float.class);
-                    break;
-                case Message.ArgumentType.STRING:
-                    _resultValue.add(CharSequence.class);
-                    break;
-                case Message.ArgumentType.FILEDESCRIPTOR:
-                    _resultValue.add(FileDescriptor.class);
-                    break;
-                case Message.ArgumentType.SIGNATURE:
-                    _resultValue.add(Type[].class);
-                    break;
-                case Message.ArgumentType.DICT_ENTRY1:
-                    _resultValue.add(Map.Entry.class);
+                List<Type> contained = new ArrayList<>();
+                parseJavaTypes(_dbusType, idx + 1, structIdx - 1, contained, -1);
+                _resultValue.add(new DBusStructType(contained.toArray(new Type[0])));
+                idx = structIdx - 1; //-1 because j already points to the next signature char
+                break;
+            case Message.ArgumentType.ARRAY:
+                int javaType;
+                if (Message.ArgumentType.DICT_ENTRY1 == charAt(_dbusType, idx + 1, _end)) {
                     contained = new ArrayList<>();
-                    javaType = getJavaType(_dbusType.substring(idx + 1), contained, 2);
-                    idx += javaType + 1;
-                    break;
-                default:
-                    throw new DBusException(String.format("Failed to parse DBus type signature: %s (%s).", _dbusType, _dbusType.charAt(idx)));
+                    javaType = parseJavaTypes(_dbusType, idx + 2, _end, contained, 2);
+                    _resultValue.add(new DBusMapType(contained.get(0), contained.get(1)));
+                    idx += (javaType + 2);
+                } else {
+                    contained = new ArrayList<>();
+                    javaType = parseJavaTypes(_dbusType, idx + 1, _end, contained, 1);
+                    _resultValue.add(new DBusListType(contained.get(0)));
+                    idx += javaType;
                 }
+                break;
+            case Message.ArgumentType.VARIANT:
+                _resultValue.add(Variant.class);
+                break;
+            case Message.ArgumentType.BOOLEAN:
+                _resultValue.add(Boolean.class);
+                break;
+            case Message.ArgumentType.INT16:
+                _resultValue.add(Short.class);
+                break;
+            case Message.ArgumentType.BYTE:
+                _resultValue.add(Byte.class);
+                break;
+            case Message.ArgumentType.OBJECT_PATH:
+                _resultValue.add(DBusInterface.class);
+                break;
+            case Message.ArgumentType.UINT16:
+                _resultValue.add(UInt16.class);
+                break;
+            case Message.ArgumentType.INT32:
+                _resultValue.add(Integer.class);
+                break;
+            case Message.ArgumentType.UINT32:
+                _resultValue.add(UInt32.class);
+                break;
+            case Message.ArgumentType.INT64:
+                _resultValue.add(Long.class);
+                break;
+            case Message.ArgumentType.UINT64:
+                _resultValue.add(UInt64.class);
+                break;
+            case Message.ArgumentType.DOUBLE:
+                _resultValue.add(Double.class);
+                break;
+            case Message.ArgumentType.FLOAT:
+                _resultValue.add(Float.class);
+                break;
+            case Message.ArgumentType.STRING:
+                _resultValue.add(CharSequence.class);
+                break;
+            case Message.ArgumentType.FILEDESCRIPTOR:
+                _resultValue.add(FileDescriptor.class);
+                break;
+            case Message.ArgumentType.SIGNATURE:
+                _resultValue.add(Type[].class);
+                break;
+            case Message.ArgumentType.DICT_ENTRY1:
+                _resultValue.add(Map.Entry.class);
+                contained = new ArrayList<>();
+                javaType = parseJavaTypes(_dbusType, idx + 1, _end, contained, 2);
+                idx += javaType + 1;
+                break;
+            default:
+                throw new DBusException(String.format("Failed to parse DBus type signature: %s (%s).", _dbusType, _dbusType.charAt(idx)));
             }
-            return idx;
-        } catch (IndexOutOfBoundsException _ex) {
+        }
+        return idx - _start;
+    }
+
+    /**
+     * Character of a signature, only accepting characters before the given end index.
+     */
+    private static char charAt(String _dbusType, int _idx, int _end) {
+        if (_idx >= _end) {
+            throw new StringIndexOutOfBoundsException(_idx);
+        }
+        return _dbusType.charAt(_idx);
+    }
+
+    /**
+    * Returns the length of the first complete type in a signature without creating any Java types.
+    * @param _signature The DBus signature.
+    * @param _offset Index of the first character of the type.
+    * @return number of characters of the type.
+    * @throws DBusException if the signature is truncated
+    */
+    public static int getSingleTypeLength(byte[] _signature, int _offset) throws DBusException {
+        try {
+            int idx = _offset;
+            while (Message.ArgumentType.ARRAY == _signature[idx]) {
+                idx++;
+            }
+            if (Message.ArgumentType.STRUCT1 == _signature[idx] || Message.ArgumentType.DICT_ENTRY1 == _signature[idx]) {
+                for (int depth = 1; depth > 0;) {
+                    idx++;
+                    if (Message.ArgumentType.STRUCT1 == _signature[idx] || Message.ArgumentType.DICT_ENTRY1 == _signature[idx]) {
+                        depth++;
+                    } else if (Message.ArgumentType.STRUCT2 == _signature[idx] || Message.ArgumentType.DICT_ENTRY2 == _signature[idx]) {
+                        depth--;
+                    }
+                }
+            }
+            return idx - _offset + 1;
+        } catch (ArrayIndexOutOfBoundsException _ex) {
             LOGGER.debug("Failed to parse DBus type signature.", _ex);
-            throw new DBusException("Failed to parse DBus type signature: " + _dbusType);
+            throw new DBusException("Failed to parse DBus type signature: " + new String(_signature));
         }
     }
 
@@ -629,7 +715,9 @@ public final class Marshalling {
 
     @SuppressWarnings("unchecked")
     public static Object[] deSerializeParameters(Object[] _parameters, Type[] _types, AbstractConnection _conn) throws Exception {
-        LOGGER.trace("Deserializing from {} to {} ", Arrays.deepToString(_parameters), Arrays.deepToString(_types));
+        if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace("Deserializing from {} to {} ", Arrays.deepToString(_parameters), Arrays.deepToString(_types));
+        }
         if (null == _parameters) {
             return null;
         }
@@ -686,4 +774,37 @@ public final class Marshalling {
         }
         return _parameters;
     }
+
+    /**
+     * Java types parsed from a DBus signature.
+     */
+    private static final class ParsedSignature {
+        private final Type[] types;
+        /** Number of characters parsed. */
+        private final int    length;
+
+        ParsedSignature(Type[] _types, int _length) {
+            types = _types;
+            length = _length;
+        }
+    }
+
+    /**
+     * Thread-safe cache which is cleared when it reaches {@link #MAX_CACHE_SIZE} entries.
+     * Signatures are received from remote peers, so the number of entries must be limited.
+     */
+    private static final class BoundedCache<K, V> {
+        private final Map<K, V> cache = new ConcurrentHashMap<>();
+
+        V get(K _key) {
+            return cache.get(_key);
+        }
+
+        void put(K _key, V _value) {
+            if (cache.size() >= MAX_CACHE_SIZE) {
+                cache.clear();
+            }
+            cache.put(_key, _value);
+        }
+    }
 }
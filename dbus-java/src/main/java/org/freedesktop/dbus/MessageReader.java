@@ -12,7 +12,6 @@
 
 package org.freedesktop.dbus;
 
-import java.io.BufferedInputStream;
 import java.io.Closeable;
 import java.io.EOFException;
 import java.io.IOException;
@@ -20,168 +19,133 @@ import java.io.InputStream;
 import java.net.SocketTimeoutException;
 
 import org.freedesktop.dbus.exceptions.DBusException;
-import org.freedesktop.dbus.exceptions.MessageProtocolVersionException;
 import org.freedesktop.dbus.messages.Message;
 import org.freedesktop.dbus.messages.MessageFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Reads messages from an input stream.
+ * <p>
+ * Data is read into a single reusable buffer. One read may return several messages
+ * (or only a part of a message), complete messages are taken from the buffer one by one.
+ * Every message is copied exactly once into an array of its own size, which is
+ * then parsed by the {@link Message} without further copying.
+ * </p>
+ */
 public class MessageReader implements Closeable {
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private InputStream inputStream;
-    private byte[]      buf    = null;
-    private byte[]      tbuf   = null;
-    private byte[]      header = null;
-    private byte[]      body   = null;
-    private int[]       len    = new int[4];
+    private byte[]      readBuffer;
+    /** Start of the data not yet returned as message. */
+    private int         readPosition;
+    /** End of the data read so far. */
+    private int         readLimit;
 
     public MessageReader(InputStream _in) {
-        this.inputStream = new BufferedInputStream(_in);
+        this.inputStream = _in;
+        this.readBuffer = new byte[INITIAL_BUFFER_SIZE];
     }
 
     public Message readMessage() throws IOException, DBusException {
-        int rv;
-        /* Read the 12 byte fixed header, retrying as necessary */
-        if (null == buf) {
-            buf = new byte[12];
-            len[0] = 0;
-        }
-        if (len[0] < 12) {
-            try {
-                rv = inputStream.read(buf, len[0], 12 - len[0]);
-            } catch (SocketTimeoutException exSt) {
-                return null;
-            } catch (EOFException _ex) {
-                return null;
-            } catch (IOException _ex) {
-                throw _ex;
-            }
-            if (-1 == rv) {
-                throw new EOFException("Underlying transport returned EOF (1)");
+        byte[] data = nextMessage();
+        if (data == null) {
+            if (readPosition > 0 && (readPosition == readLimit || readLimit == readBuffer.length)) {
+                compact();
             }
-            len[0] += rv;
-        }
-        if (len[0] == 0) {
-            return null;
-        }
-        if (len[0] < 12) {
-            logger.debug("Only got {} of 12 bytes of header", len[0]);
-            return null;
-        }
 
-        /* Parse the details from the header */
-        byte endian = buf[0];
-        byte type = buf[1];
-        byte protover = buf[3];
-        if (protover > Message.PROTOCOL) {
-            buf = null;
-            throw new MessageProtocolVersionException(String.format("Protocol version %s is unsupported", protover));
-        }
-
-        /* Read the length of the variable header */
-        if (null == tbuf) {
-            tbuf = new byte[4];
-            len[1] = 0;
-        }
-        if (len[1] < 4) {
+            int rv;
             try {
-                rv = inputStream.read(tbuf, len[1], 4 - len[1]);
-            } catch (SocketTimeoutException exSt) {
+                rv = inputStream.read(readBuffer, readLimit, readBuffer.length - readLimit);
+            } catch (SocketTimeoutException | EOFException _ex) {
                 return null;
             }
             if (-1 == rv) {
-                throw new EOFException("Underlying transport returned EOF (2)");
+                throw new EOFException("Underlying transport returned EOF");
             }
-            len[1] += rv;
-        }
-        if (len[1] < 4) {
-            logger.debug("Only got {} of 4 bytes of header", len[1]);
-            return null;
-        }
+            readLimit += rv;
 
-        /* Parse the variable header length */
-        int headerlen = 0;
-        if (null == header) {
-            headerlen = (int) Message.demarshallint(tbuf, 0, endian, 4);
-            if (0 != headerlen % 8) {
-                headerlen += 8 - (headerlen % 8);
+            data = nextMessage();
+            if (data == null) {
+                logger.debug("Only got {} bytes of the next message", readLimit - readPosition);
+                return null;
             }
-        } else {
-            headerlen = header.length - 8;
         }
 
-        /* Read the variable header */
-        if (null == header) {
-            header = new byte[headerlen + 8];
-            System.arraycopy(tbuf, 0, header, 0, 4);
-            len[2] = 0;
-        }
-        if (len[2] < headerlen) {
-            try {
-                rv = inputStream.read(header, 8 + len[2], headerlen - len[2]);
-            } catch (SocketTimeoutException exSt) {
-                return null;
-            }
-            if (-1 == rv) {
-                throw new EOFException("Underlying transport returned EOF (3)");
-            }
-            len[2] += rv;
+        Message m;
+        try {
+            m = MessageFactory.createMessage(data);
+        } catch (DBusException | RuntimeException _ex) {
+            logger.debug("", _ex);
+            throw _ex;
         }
-        if (len[2] < headerlen) {
-            logger.debug("Only got {} of {} bytes of header", len[2], headerlen);
+        logger.debug("=> {}", m);
+        return m;
+    }
+
+    /**
+     * Take the next complete message from the read buffer.
+     * If the next message is larger than the buffer, the buffer will be enlarged.
+     *
+     * @return message data or null if the buffer does not contain a complete message
+     * @throws IOException if the protocol version is unsupported or the message is too large
+     */
+    private byte[] nextMessage() throws IOException {
+        int available = readLimit - readPosition;
+        if (available < Message.FIXED_HEADER_LENGTH) {
             return null;
         }
 
-        /* Read the body */
-        int bodylen = 0;
-        if (null == body) {
-            bodylen = (int) Message.demarshallint(buf, 4, endian, 4);
-        }
-        if (null == body) {
-            body = new byte[bodylen];
-            len[3] = 0;
-        }
-        if (len[3] < body.length) {
-            try {
-                rv = inputStream.read(body, len[3], body.length - len[3]);
-            } catch (SocketTimeoutException exSt) {
-                return null;
-            }
-            if (-1 == rv) {
-                throw new EOFException("Underlying transport returned EOF (4)");
+        long length;
+        try {
+            length = Message.getMessageLength(readBuffer, readPosition);
+        } catch (IOException _ex) {
+            // the stream can not be framed any longer
+            readPosition = 0;
+            readLimit = 0;
+            throw _ex;
+        }
+        if (length > Message.MAXIMUM_MESSAGE_LENGTH) {
+            readPosition = 0;
+            readLimit = 0;
+            throw new IOException("Message of " + length + " bytes exceeds maximum message length");
+        }
+
+        if (available < length) {
+            if (length > readBuffer.length) {
+                logger.trace("Growing read buffer from {} to {} bytes", readBuffer.length, length);
+                byte[] larger = new byte[(int) length];
+                System.arraycopy(readBuffer, readPosition, larger, 0, available);
+                readBuffer = larger;
+                readPosition = 0;
+                readLimit = available;
             }
-            len[3] += rv;
-        }
-        if (len[3] < body.length) {
-            logger.debug("Only got {} of {} bytes of body", len[3], body.length);
             return null;
         }
 
-        Message m;
-        try {
-            m = MessageFactory.createMessage(type, buf, header, body);
-        } catch (DBusException dbe) {
-            logger.debug("", dbe);
-            buf = null;
-            tbuf = null;
-            body = null;
-            header = null;
-            throw dbe;
-        } catch (RuntimeException exRe) { // this really smells badly!
-            logger.debug("", exRe);
-            buf = null;
-            tbuf = null;
-            body = null;
-            header = null;
-            throw exRe;
+        byte[] data = new byte[(int) length];
+        System.arraycopy(readBuffer, readPosition, data, 0, data.length);
+        readPosition += data.length;
+        if (readPosition == readLimit && readBuffer.length > INITIAL_BUFFER_SIZE) {
+            // the oversized message has been consumed, do not keep the large buffer for the lifetime of the connection
+            readBuffer = new byte[INITIAL_BUFFER_SIZE];
+            readPosition = 0;
+            readLimit = 0;
         }
-        logger.debug("=> {}", m);
-        buf = null;
-        tbuf = null;
-        body = null;
-        header = null;
-        return m;
+        return data;
+    }
+
+    /**
+     * Move the remaining data to the beginning of the read buffer.
+     */
+    private void compact() {
+        int available = readLimit - readPosition;
+        System.arraycopy(readBuffer, readPosition, readBuffer, 0, available);
+        readPosition = 0;
+        readLimit = available;
     }
 
     @Override
@@ -15,53 +15,236 @@ package org.freedesktop.dbus;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 import org.freedesktop.Hexdump;
 import org.freedesktop.dbus.messages.Message;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import jnr.unixsocket.UnixSocketChannel;
+
 public class MessageWriter implements Closeable {
+    /** Initial size of the buffer used to join message fragments. */
+    private static final int INITIAL_BUFFER_SIZE      = 8192;
+    /** Messages larger than this are joined in a temporary buffer which is not kept for further writes. */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+    /** Time in milliseconds after which a writer waiting for a non-blocking channel checks whether it was closed. */
+    private static final long WRITE_POLL_INTERVAL     = 500;
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
-    private OutputStream outputStream;
+    private OutputStream  outputStream;
+    private SocketChannel channel;
+    /** Selector used to wait until a non-blocking channel is writable again, created on demand. */
+    private volatile Selector writeSelector;
+    /** Whether the channel writes multiple buffers using a single system call. */
+    private boolean       gathering;
+    /** Buffer used to join all fragments of a message if the channel does not support gathering writes. */
+    private ByteBuffer    coalesceBuffer;
+    /** Set by {@link #close()}, a writer waiting for the channel gives up. */
+    private volatile boolean closed;
 
     public MessageWriter(OutputStream _out) {
         this.outputStream = _out;
     }
 
-    public void writeMessage(Message m) throws IOException {
-        logger.debug("<= {}", m);
-        if (null == m) {
+    /**
+     * Create a writer working directly on a channel.
+     * The channel may be in blocking or non-blocking mode.
+     * In non-blocking mode writing a message still blocks the calling thread until
+     * all data has been written.
+     *
+     * @param _channel channel to write to
+     */
+    public MessageWriter(SocketChannel _channel) {
+        this.channel = _channel;
+        // jnr-unixsocket emulates gathering writes by writing each buffer separately
+        // (and continues with the next buffer after a partial write), so fragments are coalesced instead
+        this.gathering = !(_channel instanceof UnixSocketChannel);
+    }
+
+    public synchronized void writeMessage(Message m) throws IOException {
+        writeMessages(Collections.singletonList(m));
+    }
+
+    /**
+     * Write several messages at once.
+     * On channels all messages are written using a single (gathering) write if possible,
+     * streams are only flushed once after writing all messages.
+     *
+     * @param _messages messages to write, null elements are ignored
+     * @throws IOException on write error
+     */
+    public synchronized void writeMessages(Collection<? extends Message> _messages) throws IOException {
+        List<byte[]> fragments = new ArrayList<>();
+        for (Message m : _messages) {
+            logger.debug("<= {}", m);
+            if (null == m) {
+                continue;
+            }
+            byte[][] wiredata = m.getWireData();
+            if (null == wiredata) {
+                logger.warn("Message {} wire-data was null!", m);
+                continue;
+            }
+
+            logger.debug("Writing {} bytes for signature '{}' simultaneously to Unix Socket", wiredata.length, m.getSig());
+            for (byte[] buf : wiredata) {
+                if (null == buf) {
+                    break;
+                }
+                if (logger.isTraceEnabled()) {
+                    logger.trace("({}):{}", buf, Hexdump.format(buf));
+                }
+                fragments.add(buf);
+            }
+        }
+        if (fragments.isEmpty()) {
             return;
         }
-        if (null == m.getWireData()) {
-            logger.warn("Message {} wire-data was null!", m);
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+
+        if (channel != null) {
+            writeToChannel(fragments);
             return;
         }
 
-        logger.debug("Writing {} bytes for signature '{}' simultaneously to Unix Socket", m.getWireData().length, m.getSig());
-        for (byte[] buf : m.getWireData()) {
-            logger.trace("({}):{}", buf, (null == buf ? "" : Hexdump.format(buf)));
-            if (null == buf) {
-                break;
-            }
+        for (byte[] buf : fragments) {
             outputStream.write(buf);
         }
         outputStream.flush();
     }
 
+    /**
+     * Write all fragments to the channel.
+     * <p>
+     * If the channel supports real gathering writes, all fragments are passed to the channel at once
+     * and are written with a single system call (writev) without copying.
+     * Otherwise the fragments are collected in a reusable buffer which is written at once.
+     * </p>
+     */
+    private void writeToChannel(List<byte[]> _fragments) throws IOException {
+        if (gathering) {
+            ByteBuffer[] buffers = new ByteBuffer[_fragments.size()];
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = ByteBuffer.wrap(_fragments.get(i));
+            }
+            writeFully(buffers);
+        } else {
+            int length = 0;
+            for (byte[] buf : _fragments) {
+                length += buf.length;
+            }
+            ByteBuffer buffer = length > MAX_RETAINED_BUFFER_SIZE ? ByteBuffer.allocate(length) : getCoalesceBuffer(length);
+            for (byte[] buf : _fragments) {
+                buffer.put(buf);
+            }
+            buffer.flip();
+            writeFully(buffer);
+        }
+    }
+
+    private ByteBuffer getCoalesceBuffer(int _length) {
+        if (coalesceBuffer == null || coalesceBuffer.capacity() < _length) {
+            coalesceBuffer = ByteBuffer.allocate(Math.max(_length, INITIAL_BUFFER_SIZE));
+        }
+        coalesceBuffer.clear();
+        return coalesceBuffer;
+    }
+
+    /**
+     * Write all buffers to the channel using gathering writes.
+     * If the channel is non-blocking and its send buffer is full, wait until it is writable again.
+     */
+    private void writeFully(ByteBuffer[] _buffers) throws IOException {
+        int offset = 0;
+        while (offset < _buffers.length) {
+            if (channel.write(_buffers, offset, _buffers.length - offset) == 0 && _buffers[offset].hasRemaining()) {
+                awaitWritable();
+            }
+            while (offset < _buffers.length && !_buffers[offset].hasRemaining()) {
+                offset++;
+            }
+        }
+    }
+
+    /**
+     * Write the complete buffer to the channel.
+     * If the channel is non-blocking and its send buffer is full, wait until it is writable again.
+     */
+    private void writeFully(ByteBuffer _buf) throws IOException {
+        while (_buf.hasRemaining()) {
+            if (channel.write(_buf) == 0) {
+                awaitWritable();
+            }
+        }
+    }
+
+    /**
+     * Wait until the channel is writable again.
+     * The wait is interrupted regularly to check whether the writer or the channel has been closed meanwhile.
+     *
+     * @throws IOException if the writer or the channel was closed
+     */
+    private void awaitWritable() throws IOException {
+        if (writeSelector == null) {
+            writeSelector = channel.provider().openSelector();
+            channel.register(writeSelector, SelectionKey.OP_WRITE);
+        }
+        while (!closed && channel.isOpen()) {
+            if (writeSelector.select(WRITE_POLL_INTERVAL) > 0) {
+                writeSelector.selectedKeys().clear();
+                return;
+            }
+        }
+        throw new ClosedChannelException();
+    }
+
+    /**
+     * Close the writer and the underlying stream or channel.
+     * A thread waiting in {@link #writeMessage(Message)} for the channel to become writable is woken up
+     * and fails, the selector used for waiting is closed after that thread has left.
+     */
     @Override
     public void close() throws IOException {
         logger.debug("Closing Message Writer");
-        if (outputStream != null) {
-            outputStream.close();
+        closed = true;
+        try {
+            if (outputStream != null) {
+                outputStream.close();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } finally {
+            Selector selector = writeSelector;
+            if (selector != null) {
+                selector.wakeup();
+            }
+            synchronized (this) {
+                if (writeSelector != null) {
+                    writeSelector.close();
+                }
+                outputStream = null;
+                channel = null;
+                writeSelector = null;
+                coalesceBuffer = null;
+            }
         }
-        outputStream = null;
     }
 
     public boolean isClosed() {
-        return outputStream == null;
+        return closed;
     }
 }
@@ -0,0 +1,131 @@
+/*
+   D-Bus Java Implementation
+   Copyright (c) 2017-2019 David M.
+
+   This program is free software; you can redistribute it and/or modify it
+   under the terms of either the GNU Lesser General Public License Version 2 or the
+   Academic Free Licence Version 2.1.
+
+   Full licence texts are included in the LICENSE file with this program.
+*/
+
+package org.freedesktop.dbus;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+
+import org.freedesktop.dbus.annotations.DBusInterfaceName;
+import org.freedesktop.dbus.annotations.DBusMemberName;
+import org.freedesktop.dbus.annotations.MethodNoReply;
+import org.freedesktop.dbus.connections.AbstractConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBusInterface;
+import org.freedesktop.dbus.interfaces.DBusSerializable;
+import org.freedesktop.dbus.messages.Message;
+
+/**
+ * Everything needed to call a method of a {@link RemoteObject} which does not depend on the arguments.
+ * <p>
+ * Plans are created on the first call of a method and cached by the {@link RemoteObject},
+ * so further calls do not need reflection, annotation lookups or signature computation.
+ * </p>
+ */
+final class RemoteCallPlan {
+    private final Type[]  parameterTypes;
+    private final String  signature;
+    private final String  interfaceName;
+    private final String  member;
+    private final byte    flags;
+    private final boolean noReply;
+    private final boolean convertArguments;
+
+    RemoteCallPlan(RemoteObject _ro, Method _method) throws DBusException {
+        parameterTypes = _method.getGenericParameterTypes();
+        signature = parameterTypes.length > 0 ? Marshalling.getDBusType(parameterTypes) : null;
+
+        boolean convert = false;
+        for (Type t : parameterTypes) {
+            convert |= needsConversion(t);
+        }
+        convertArguments = convert;
+
+        noReply = _method.isAnnotationPresent(MethodNoReply.class);
+        byte f = 0;
+        if (!_ro.isAutostart()) {
+            f |= Message.Flags.NO_AUTO_START;
+        }
+        if (noReply) {
+            f |= Message.Flags.NO_REPLY_EXPECTED;
+        }
+        flags = f;
+
+        if (_method.isAnnotationPresent(DBusMemberName.class)) {
+            member = _method.getAnnotation(DBusMemberName.class).value();
+        } else {
+            member = _method.getName();
+        }
+
+        Class<?> iface = _ro.getInterface();
+        if (null == iface) {
+            interfaceName = null;
+        } else if (null != iface.getAnnotation(DBusInterfaceName.class)) {
+            interfaceName = iface.getAnnotation(DBusInterfaceName.class).value();
+        } else {
+            interfaceName = AbstractConnection.DOLLAR_PATTERN.matcher(iface.getName()).replaceAll(".");
+        }
+    }
+
+    /**
+     * Arguments of primitive, array or final types (like String or UInt32) can be sent as they are.
+     * Everything else may be a variant, tuple, serializable or exported object and has to be
+     * converted by {@link Marshalling#convertParameters(Object[], Type[], AbstractConnection)}.
+     */
+    private static boolean needsConversion(Type _type) {
+        if (!(_type instanceof Class)) {
+            return true;
+        }
+        Class<?> c = (Class<?>) _type;
+        if (c.isPrimitive() || c.isArray()) {
+            return false;
+        }
+        return !Modifier.isFinal(c.getModifiers())
+                || Tuple.class.isAssignableFrom(c)
+                || DBusSerializable.class.isAssignableFrom(c)
+                || DBusInterface.class.isAssignableFrom(c);
+    }
+
+    /**
+     * Convert the arguments of a call to the types sent on the bus.
+     * @param _args arguments, may be modified
+     * @param _conn connection
+     * @return converted arguments
+     * @throws DBusException if conversion fails
+     */
+    Object[] convertArguments(Object[] _args, AbstractConnection _conn) throws DBusException {
+        if (!convertArguments) {
+            return _args;
+        }
+        return Marshalling.convertParameters(_args, parameterTypes, _conn);
+    }
+
+    String getSignature() {
+        return signature;
+    }
+
+    String getInterfaceName() {
+        return interfaceName;
+    }
+
+    String getMember() {
+        return member;
+    }
+
+    byte getFlags() {
+        return flags;
+    }
+
+    boolean isNoReply() {
+        return noReply;
+    }
+}
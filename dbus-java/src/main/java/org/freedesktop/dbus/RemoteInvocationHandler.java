@@ -15,13 +15,13 @@ package org.freedesktop.dbus;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
-import org.freedesktop.dbus.annotations.DBusInterfaceName;
-import org.freedesktop.dbus.annotations.DBusMemberName;
-import org.freedesktop.dbus.annotations.MethodNoReply;
 import org.freedesktop.dbus.connections.AbstractConnection;
 import org.freedesktop.dbus.errors.Error;
 import org.freedesktop.dbus.errors.NoReply;
@@ -39,13 +39,28 @@ public class RemoteInvocationHandler implements InvocationHandler {
     public static final int CALL_TYPE_SYNC     = 0;
     public static final int CALL_TYPE_ASYNC    = 1;
     public static final int CALL_TYPE_CALLBACK = 2;
+    public static final int CALL_TYPE_FUTURE   = 3;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RemoteInvocationHandler.class);
 
 
 
     public static Object convertRV(String sig, Object[] rp, Method m, AbstractConnection conn) throws DBusException {
-        Class<? extends Object> c = m.getReturnType();
+        return convertRV(sig, rp, m.getReturnType(), m.getGenericReturnType(), conn);
+    }
+
+    /**
+     * Convert the return parameters of a method call to the given return type.
+     *
+     * @param sig signature of the return parameters
+     * @param rp return parameters
+     * @param c expected return class
+     * @param genericType expected (generic) return type
+     * @param conn connection
+     * @return converted value, a {@link Tuple} if multiple values were returned
+     * @throws DBusException if the parameters could not be converted
+     */
+    public static Object convertRV(String sig, Object[] rp, Class<?> c, Type genericType, AbstractConnection conn) throws DBusException {
 
         if (null == rp) {
             if (null == c || Void.TYPE.equals(c)) {
@@ -55,9 +70,9 @@ public class RemoteInvocationHandler implements InvocationHandler {
             }
         } else {
             try {
-                LOGGER.trace("Converting return parameters from {} to type {}",Arrays.deepToString(rp), m.getGenericReturnType());
+                LOGGER.trace("Converting return parameters from {} to type {}",Arrays.deepToString(rp), genericType);
                 rp = Marshalling.deSerializeParameters(rp, new Type[] {
-                        m.getGenericReturnType()
+                        genericType
                 }, conn);
             } catch (Exception e) {
                 LOGGER.debug("Wrong return type.", e);
@@ -81,7 +96,7 @@ public class RemoteInvocationHandler implements InvocationHandler {
                 throw new DBusException("Wrong return type (not expecting Tuple)");
             }
 
-            Constructor<? extends Object> cons = c.getConstructors()[0];
+            Constructor<?> cons = c.getConstructors()[0];
             try {
                 return cons.newInstance(rp);
             } catch (Exception e) {
@@ -92,43 +107,20 @@ public class RemoteInvocationHandler implements InvocationHandler {
     }
 
     public static Object executeRemoteMethod(RemoteObject ro, Method m, AbstractConnection conn, int syncmethod, CallbackHandler<?> callback, Object... args) throws DBusException {
-        Type[] ts = m.getGenericParameterTypes();
-        String sig = null;
-        if (ts.length > 0) {
-            try {
-                sig = Marshalling.getDBusType(ts);
-                args = Marshalling.convertParameters(args, ts, conn);
-            } catch (DBusException exDbe) {
-                throw new DBusExecutionException("Failed to construct D-Bus type: " + exDbe.getMessage());
-            }
+        RemoteCallPlan plan;
+        try {
+            plan = ro.getCallPlan(m);
+            args = plan.convertArguments(args, conn);
+        } catch (DBusException exDbe) {
+            throw new DBusExecutionException("Failed to construct D-Bus type: " + exDbe.getMessage());
         }
         MethodCall call;
-        byte flags = 0;
-        if (!ro.isAutostart()) {
-            flags |= Message.Flags.NO_AUTO_START;
-        }
-        if (syncmethod == CALL_TYPE_ASYNC) {
+        byte flags = plan.getFlags();
+        if (syncmethod == CALL_TYPE_ASYNC || syncmethod == CALL_TYPE_FUTURE) {
             flags |= Message.Flags.ASYNC;
         }
-        if (m.isAnnotationPresent(MethodNoReply.class)) {
-            flags |= Message.Flags.NO_REPLY_EXPECTED;
-        }
         try {
-            String name;
-            if (m.isAnnotationPresent(DBusMemberName.class)) {
-                name = m.getAnnotation(DBusMemberName.class).value();
-            } else {
-                name = m.getName();
-            }
-            if (null == ro.getInterface()) {
-                call = new MethodCall(ro.getBusName(), ro.getObjectPath(), null, name, flags, sig, args);
-            } else {
-                if (null != ro.getInterface().getAnnotation(DBusInterfaceName.class)) {
-                    call = new MethodCall(ro.getBusName(), ro.getObjectPath(), ro.getInterface().getAnnotation(DBusInterfaceName.class).value(), name, flags, sig, args);
-                } else {
-                    call = new MethodCall(ro.getBusName(), ro.getObjectPath(), AbstractConnection.DOLLAR_PATTERN.matcher(ro.getInterface().getName()).replaceAll("."), name, flags, sig, args);
-                }
-            }
+            call = new MethodCall(ro.getBusName(), ro.getObjectPath(), plan.getInterfaceName(), plan.getMember(), flags, plan.getSignature(), args);
         } catch (DBusException dbe) {
             LOGGER.debug("Failed to construct outgoing method call.", dbe);
             throw new DBusExecutionException("Failed to construct outgoing method call: " + dbe.getMessage());
@@ -145,13 +137,17 @@ public class RemoteInvocationHandler implements InvocationHandler {
                 conn.queueCallback(call, m, callback);
                 conn.sendMessage(call);
                 return null;
+            case CALL_TYPE_FUTURE:
+                CompletableFuture<Object> future = createReplyFuture(call, m, plan.isNoReply(), conn);
+                conn.sendMessage(call);
+                return future;
             case CALL_TYPE_SYNC:
                 conn.sendMessage(call);
                 break;
         }
 
         // get reply
-        if (m.isAnnotationPresent(MethodNoReply.class)) {
+        if (plan.isNoReply()) {
             return null;
         }
 
@@ -172,6 +168,65 @@ public class RemoteInvocationHandler implements InvocationHandler {
         }
     }
 
+    /**
+     * Create a future which is completed with the converted return value when the reply to the given call is received.
+     * If the method returns a {@link CompletableFuture} or {@link CompletionStage}, its type argument is used as return type.
+     */
+    private static CompletableFuture<Object> createReplyFuture(MethodCall call, Method m, boolean noReply, AbstractConnection conn) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        if (noReply) {
+            result.complete(null);
+            return result;
+        }
+
+        Class<?> c = m.getReturnType();
+        Type genericType = m.getGenericReturnType();
+        if (isFutureType(c)) {
+            genericType = genericType instanceof ParameterizedType
+                    ? ((ParameterizedType) genericType).getActualTypeArguments()[0] : Object.class;
+            c = getRawClass(genericType);
+        }
+        final Class<?> returnClass = Void.class.equals(c) ? Void.TYPE : c;
+        final Type returnType = genericType;
+
+        // the result has to be completed in any case, otherwise the caller would wait forever
+        call.getReplyFuture().whenComplete((reply, ex) -> {
+            if (null != ex) {
+                result.completeExceptionally(ex);
+                return;
+            }
+            try {
+                if (reply instanceof Error) {
+                    result.completeExceptionally(((Error) reply).getException());
+                } else {
+                    result.complete(convertRV(reply.getSig(), reply.getParameters(), returnClass, returnType, conn));
+                }
+            } catch (DBusExecutionException exDee) {
+                result.completeExceptionally(exDee);
+            } catch (DBusException exDe) {
+                LOGGER.debug("", exDe);
+                result.completeExceptionally(new DBusExecutionException(exDe.getMessage()));
+            } catch (RuntimeException exRe) {
+                LOGGER.debug("Unable to convert reply {}", reply, exRe);
+                result.completeExceptionally(exRe);
+            }
+        });
+        return result;
+    }
+
+    private static boolean isFutureType(Class<?> c) {
+        return CompletableFuture.class.equals(c) || CompletionStage.class.equals(c);
+    }
+
+    private static Class<?> getRawClass(Type t) {
+        if (t instanceof Class) {
+            return (Class<?>) t;
+        } else if (t instanceof ParameterizedType) {
+            return getRawClass(((ParameterizedType) t).getRawType());
+        }
+        return Object.class;
+    }
+
     // CHECKSTYLE:OFF
     AbstractConnection conn;
     RemoteObject       remote;
@@ -225,6 +280,9 @@ public class RemoteInvocationHandler implements InvocationHandler {
             return remote.toString();
         }
 
+        if (isFutureType(method.getReturnType())) {
+            return executeRemoteMethod(remote, method, conn, CALL_TYPE_FUTURE, null, args);
+        }
         return executeRemoteMethod(remote, method, conn, CALL_TYPE_SYNC, null, args);
     }
 }
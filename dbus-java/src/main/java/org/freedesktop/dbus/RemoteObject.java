@@ -12,6 +12,11 @@
 
 package org.freedesktop.dbus;
 
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.freedesktop.dbus.exceptions.DBusException;
 import org.freedesktop.dbus.interfaces.DBusInterface;
 
 public class RemoteObject {
@@ -20,6 +25,8 @@ public class RemoteObject {
     private Class<? extends DBusInterface> iface;
     private boolean                        autostart;
 
+    private final Map<Method, RemoteCallPlan> callPlans = new ConcurrentHashMap<>();
+
     public RemoteObject(String _busname, String _objectpath, Class<? extends DBusInterface> _iface, boolean _autostart) {
         this.busname = _busname;
         this.objectpath = _objectpath;
@@ -82,6 +89,21 @@ public class RemoteObject {
         return iface;
     }
 
+    /**
+     * Returns the (cached) plan to call the given method on this object.
+     */
+    RemoteCallPlan getCallPlan(Method _method) throws DBusException {
+        RemoteCallPlan plan = callPlans.get(_method);
+        if (null == plan) {
+            plan = new RemoteCallPlan(this, _method);
+            RemoteCallPlan existing = callPlans.putIfAbsent(_method, plan);
+            if (null != existing) {
+                plan = existing;
+            }
+        }
+        return plan;
+    }
+
     @Override
     public String toString() {
         return busname + ":" + objectpath + ":" + iface;
@@ -25,14 +25,7 @@ public class TypeSignature {
     }
 
     public TypeSignature(Type[] types) throws DBusException {
-        StringBuffer sb = new StringBuffer();
-        for (Type t : types) {
-            String[] ts = Marshalling.getDBusType(t);
-            for (String s : ts) {
-                sb.append(s);
-            }
-        }
-        this.sig = sb.toString();
+        this.sig = Marshalling.getDBusType(types);
     }
 
     public String getSig() {
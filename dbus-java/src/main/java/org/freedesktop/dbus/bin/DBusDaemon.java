@@ -16,34 +16,43 @@ import java.io.Closeable;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationTargetException;
 import java.net.InetAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.SelectorProvider;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.freedesktop.DBus;
 import org.freedesktop.Hexdump;
 import org.freedesktop.dbus.Marshalling;
-import org.freedesktop.dbus.MessageReader;
-import org.freedesktop.dbus.MessageWriter;
 import org.freedesktop.dbus.connections.BusAddress;
 import org.freedesktop.dbus.connections.impl.DirectConnection;
+import org.freedesktop.dbus.connections.transports.IMessageHandler;
+import org.freedesktop.dbus.connections.transports.NonBlockingMessageReader;
+import org.freedesktop.dbus.connections.transports.SelectorEventLoop;
 import org.freedesktop.dbus.connections.transports.TransportFactory;
 import org.freedesktop.dbus.errors.Error;
 import org.freedesktop.dbus.errors.MatchRuleInvalid;
+import org.freedesktop.dbus.errors.MatchRuleNotFound;
 import org.freedesktop.dbus.exceptions.DBusException;
 import org.freedesktop.dbus.exceptions.DBusExecutionException;
-import org.freedesktop.dbus.interfaces.FatalException;
 import org.freedesktop.dbus.interfaces.Introspectable;
 import org.freedesktop.dbus.interfaces.Peer;
 import org.freedesktop.dbus.messages.DBusSignal;
@@ -55,104 +64,165 @@ import org.freedesktop.dbus.types.Variant;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import jnr.unixsocket.UnixSocket;
+import jnr.unixsocket.UnixSocketChannel;
 
 /**
  * A replacement DBusDaemon
+ * <p>
+ * All client connections are non-blocking and operated by a small fixed number of {@link DaemonEventLoop}s,
+ * which read, route and write messages. No thread is created per connection.
+ * </p>
  */
 public class DBusDaemon extends Thread implements Closeable {
     public static final int     QUEUE_POLL_WAIT = 500;
 
+    /** Maximum number of messages written to a connection using one gathering write. */
+    private static final int    MAX_WRITE_BATCH = 64;
+
     private static final Logger LOGGER          = LoggerFactory.getLogger(DBusDaemon.class);
 
-    static class Connstruct {
+    static class Connstruct implements IMessageHandler {
         // CHECKSTYLE:OFF
-        public UnixSocket    usock;
-        public Socket        tsock;
-        public MessageReader min;
-        public MessageWriter mout;
-        public String        unique;
+        final SocketChannel            channel;
+        final NonBlockingMessageReader reader;
+        final AtomicBoolean            writeScheduled = new AtomicBoolean();
+        public volatile String         unique;
         // CHECKSTYLE:ON
 
-        Connstruct(UnixSocket sock) throws IOException {
-            this.usock = sock;
-            min = new MessageReader(sock.getInputStream());
-            mout = new MessageWriter(sock.getOutputStream());
-        }
-
-        Connstruct(Socket sock) throws IOException {
-            this.tsock = sock;
-            min = new MessageReader(sock.getInputStream());
-            mout = new MessageWriter(sock.getOutputStream());
+        private final DBusDaemon       daemon;
+        private final DaemonEventLoop  loop;
+        /** Fragments of each message waiting to be written. */
+        private final Queue<ByteBuffer[]> outbound = new ConcurrentLinkedQueue<>();
+        /** Whether the channel writes multiple buffers using a single system call. */
+        private final boolean          gathering;
+        /** Set by the event loop when the channel is registered. */
+        volatile SelectionKey          key;
+        /** Buffers which could not be written completely yet, only used by the event loop thread. */
+        private ByteBuffer[]           pending;
+
+        /** Used for the daemon itself as owner of its name. */
+        Connstruct(String _unique) {
+            channel = null;
+            reader = null;
+            daemon = null;
+            loop = null;
+            gathering = false;
+            unique = _unique;
+        }
+
+        Connstruct(DBusDaemon _daemon, SocketChannel _channel, DaemonEventLoop _loop) {
+            daemon = _daemon;
+            channel = _channel;
+            loop = _loop;
+            reader = new NonBlockingMessageReader(_channel, this);
+            // jnr-unixsocket emulates gathering writes and continues with the next buffer after a partial write
+            gathering = !(_channel instanceof UnixSocketChannel);
         }
 
         @Override
-        public String toString() {
-            return null == unique ? ":?-?" : unique;
-        }
-    }
-
-    static class MagicMap<A, B> {
-        private final Logger          logger = LoggerFactory.getLogger(getClass());
-
-        private Map<A, LinkedList<B>> m;
-        private LinkedList<A>         q;
-        private String                name;
-
-        MagicMap(String _name) {
-            m = new HashMap<>();
-            q = new LinkedList<>();
-            this.name = _name;
+        public void handleMessage(Message _message) throws DBusException {
+            daemon.route(this, _message);
         }
 
-        public A head() {
-            return q.getFirst();
+        @Override
+        public void handleReadError(Exception _ex) {
+            daemon.removeConnection(this);
         }
 
-        public void putFirst(A a, B b) {
-            logger.debug("<{}> Queueing {{} => {}}", name, a, b);
-
-            if (m.containsKey(a)) {
-                m.get(a).add(b);
-            } else {
-                LinkedList<B> l = new LinkedList<>();
-                l.add(b);
-                m.put(a, l);
+        /**
+         * Queue a message to be written by the event loop of this connection.
+         *
+         * @param _m message
+         */
+        void queue(Message _m) {
+            if (null == channel) {
+                return;
+            }
+            // routed messages consist of their new header and the unchanged body of the received data
+            outbound.add(_m.getWireBuffers());
+            loop.scheduleWrite(this);
+        }
+
+        /**
+         * Write queued messages until the queue is empty or the channel does not take more data.
+         * Must only be called by the event loop thread.
+         *
+         * @return true if everything was written
+         * @throws IOException on write error
+         */
+        boolean flush() throws IOException {
+            while (true) {
+                if (null == pending) {
+                    pending = nextBatch();
+                    if (null == pending) {
+                        return true;
+                    }
+                }
+                if (gathering) {
+                    channel.write(pending);
+                } else {
+                    for (ByteBuffer buf : pending) {
+                        if (buf.hasRemaining() && channel.write(buf) >= 0 && buf.hasRemaining()) {
+                            break;
+                        }
+                    }
+                }
+                if (pending[pending.length - 1].hasRemaining()) {
+                    return false;
+                }
+                pending = null;
             }
-            q.addFirst(a);
         }
 
-        public void putLast(A a, B b) {
-            logger.debug("<{}> Queueing {{} => {}}", name, a, b);
-
-            if (m.containsKey(a)) {
-                m.get(a).add(b);
-            } else {
-                LinkedList<B> l = new LinkedList<>();
-                l.add(b);
-                m.put(a, l);
+        private ByteBuffer[] nextBatch() {
+            ByteBuffer[] first = outbound.poll();
+            if (null == first) {
+                return null;
+            }
+            ByteBuffer[] next = outbound.poll();
+            if (null == next) {
+                return first;
+            }
+            List<ByteBuffer> batch = new ArrayList<>();
+            int messages = 0;
+            do {
+                for (ByteBuffer buf : first) {
+                    batch.add(buf);
+                }
+                first = next;
+                next = ++messages < MAX_WRITE_BATCH ? outbound.poll() : null;
+            } while (null != first && null != next);
+            for (ByteBuffer buf : first) {
+                batch.add(buf);
             }
-            q.addLast(a);
+            return batch.toArray(new ByteBuffer[batch.size()]);
         }
 
-        public List<B> remove(A a) {
-            logger.debug("<{}> Removing {{}}", name, a);
-
-            q.remove(a);
-            return m.remove(a);
+        void close() {
+            if (null != channel) {
+                try {
+                    channel.close();
+                } catch (IOException _ex) {
+                    LOGGER.debug("Unable to close channel of {}", this, _ex);
+                }
+            }
         }
 
-        public int size() {
-            return q.size();
+        @Override
+        public String toString() {
+            return null == unique ? ":?-?" : unique;
         }
     }
 
-    public class DBusServer extends Thread implements DBus, Introspectable, Peer {
+    /**
+     * Implementation of the org.freedesktop.DBus interface.
+     * Calls are handled by the event loop thread which received them, one call at a time.
+     */
+    public class DBusServer implements DBus, Introspectable, Peer {
 
         private final String machineId;
 
         public DBusServer() {
-            setName("Server");
             String ascii;
             try {
                 ascii = Hexdump.toAscii(MessageDigest.getInstance("MD5").digest(InetAddress.getLocalHost().getHostName().getBytes()));
@@ -188,16 +258,14 @@ public class DBusDaemon extends Thread implements Closeable {
                     c.unique = ":1." + (++nextUnique);
                 }
             }
-            synchronized (names) {
-                names.put(c.unique, c);
-            }
+            names.put(c.unique, c);
 
             LOGGER.warn("Client {} registered", c.unique);
 
             try {
                 send(c, new DBusSignal("org.freedesktop.DBus", "/org/freedesktop/DBus", "org.freedesktop.DBus", "NameAcquired", "s", c.unique));
                 DBusSignal s = new DBusSignal("org.freedesktop.DBus", "/org/freedesktop/DBus", "org.freedesktop.DBus", "NameOwnerChanged", "sss", c.unique, "", c.unique);
-                send(null, s);
+                sendSignal(null, s);
             } catch (DBusException dbe) {
                 LOGGER.debug("", dbe);
             }
@@ -210,11 +278,8 @@ public class DBusDaemon extends Thread implements Closeable {
         @Override
         public String[] ListNames() {
             LOGGER.debug("enter");
-            String[] ns;
-            synchronized (names) {
-                Set<String> nss = names.keySet();
-                ns = nss.toArray(new String[0]);
-            }
+            Set<String> nss = names.keySet();
+            String[] ns = nss.toArray(new String[0]);
 
             LOGGER.debug("exit");
 
@@ -226,10 +291,7 @@ public class DBusDaemon extends Thread implements Closeable {
 
             LOGGER.debug("enter");
 
-            boolean rv;
-            synchronized (names) {
-                rv = names.containsKey(name);
-            }
+            boolean rv = names.containsKey(name);
 
             LOGGER.debug("exit");
 
@@ -273,12 +335,7 @@ public class DBusDaemon extends Thread implements Closeable {
         public UInt32 RequestName(String name, UInt32 flags) {
             LOGGER.debug("enter");
 
-            boolean exists = false;
-            synchronized (names) {
-                if (!(exists = names.containsKey(name))) {
-                    names.put(name, c);
-                }
-            }
+            boolean exists = null != names.putIfAbsent(name, c);
 
             int rv;
             if (exists) {
@@ -290,7 +347,7 @@ public class DBusDaemon extends Thread implements Closeable {
                 rv = DBus.DBUS_REQUEST_NAME_REPLY_PRIMARY_OWNER;
                 try {
                     send(c, new DBusSignal("org.freedesktop.DBus", "/org/freedesktop/DBus", "org.freedesktop.DBus", "NameAcquired", "s", name));
-                    send(null, new DBusSignal("org.freedesktop.DBus", "/org/freedesktop/DBus", "org.freedesktop.DBus", "NameOwnerChanged", "sss", name, "", c.unique));
+                    sendSignal(null, new DBusSignal("org.freedesktop.DBus", "/org/freedesktop/DBus", "org.freedesktop.DBus", "NameOwnerChanged", "sss", name, "", c.unique));
                 } catch (DBusException dbe) {
                     LOGGER.debug("", dbe);
                 }
@@ -305,12 +362,7 @@ public class DBusDaemon extends Thread implements Closeable {
         public UInt32 ReleaseName(String name) {
             LOGGER.debug("enter");
 
-            boolean exists = false;
-            synchronized (names) {
-                if (names.containsKey(name) && names.get(name).equals(c)) {
-                	exists = names.remove(name) != null;
-                }
-            }
+            boolean exists = names.remove(name, c);
 
             int rv;
             if (!exists) {
@@ -320,7 +372,7 @@ public class DBusDaemon extends Thread implements Closeable {
                 rv = DBus.DBUS_RELEASE_NAME_REPLY_RELEASED;
                 try {
                     send(c, new DBusSignal("org.freedesktop.DBus", "/org/freedesktop/DBus", "org.freedesktop.DBus", "NameLost", "s", name));
-                    send(null, new DBusSignal("org.freedesktop.DBus", "/org/freedesktop/DBus", "org.freedesktop.DBus", "NameOwnerChanged", "sss", name, c.unique, ""));
+                    sendSignal(null, new DBusSignal("org.freedesktop.DBus", "/org/freedesktop/DBus", "org.freedesktop.DBus", "NameOwnerChanged", "sss", name, c.unique, ""));
                 } catch (DBusException dbe) {
                     LOGGER.debug("", dbe);
                 }
@@ -338,11 +390,7 @@ public class DBusDaemon extends Thread implements Closeable {
 
             LOGGER.trace("Adding match rule: {}", matchrule);
 
-            synchronized (sigrecips) {
-                if (!sigrecips.contains(c)) {
-                    sigrecips.add(c);
-                }
-            }
+            matchRules.add(c, MatchRule.parse(matchrule));
 
             LOGGER.debug("exit");
 
@@ -356,6 +404,10 @@ public class DBusDaemon extends Thread implements Closeable {
 
             LOGGER.trace("Removing match rule: {}", matchrule);
 
+            if (!matchRules.remove(c, MatchRule.parse(matchrule))) {
+                throw new MatchRuleNotFound("The given match rule wasn't found and can't be removed");
+            }
+
             LOGGER.debug("exit");
 
             return;
@@ -419,10 +471,10 @@ public class DBusDaemon extends Thread implements Closeable {
                     this.m = _m;
                     rv = meth.invoke(dbusServer, args);
                     if (null == rv) {
-                        send(_c, new MethodReturn("org.freedesktop.DBus", (MethodCall) _m, null), true);
+                        send(_c, new MethodReturn("org.freedesktop.DBus", (MethodCall) _m, null));
                     } else {
                         String sig = Marshalling.getDBusType(meth.getGenericReturnType())[0];
-                        send(_c, new MethodReturn("org.freedesktop.DBus", (MethodCall) _m, sig, rv), true);
+                        send(_c, new MethodReturn("org.freedesktop.DBus", (MethodCall) _m, sig, rv));
                     }
                 } catch (InvocationTargetException ite) {
                     LOGGER.debug("", ite);
@@ -466,49 +518,6 @@ public class DBusDaemon extends Thread implements Closeable {
         public void Ping() {
         }
 
-        @Override
-        public void run() {
-
-            LOGGER.debug("enter");
-
-            while (isRunning()) {
-                Message msg;
-                List<WeakReference<Connstruct>> wcs;
-                // block on outqueue
-                synchronized (localqueue) {
-                    while (localqueue.size() == 0) {
-                        try {
-                            localqueue.wait();
-                        } catch (InterruptedException ex) {
-                            return;
-                        }
-                    }
-                    msg = localqueue.head();
-                    wcs = localqueue.remove(msg);
-                }
-                if (null != wcs) {
-                    try {
-                        for (WeakReference<Connstruct> wc : wcs) {
-                            Connstruct constructor = wc.get();
-                            if (null != constructor) {
-
-                                LOGGER.trace("<localqueue> Got message {} from {}", msg, constructor);
-
-                                handleMessage(constructor, msg);
-                            }
-                        }
-                    } catch (DBusException dbe) {
-                        LOGGER.debug("", dbe);
-                    }
-                } else if (LOGGER.isDebugEnabled()) {
-                    LOGGER.info("Discarding {} connection reaped", msg);
-                }
-            }
-
-            LOGGER.debug("exit");
-
-        }
-
         @Override
         public String[] ListActivatableNames() {
             return null;
@@ -541,302 +550,139 @@ public class DBusDaemon extends Thread implements Closeable {
 
     }
 
-    public class Sender extends Thread {
-        private final Logger logger = LoggerFactory.getLogger(getClass());
-
-        public Sender() {
-            setName("Sender");
-        }
-
-        @Override
-        public void run() {
-
-            logger.debug("enter");
-
-            while (isRunning()) {
-
-                logger.trace("Acquiring lock on outqueue and blocking for data");
-
-                Message m = null;
-                List<WeakReference<Connstruct>> wcs = null;
-                // block on outqueue
-                synchronized (outqueue) {
-                    while (outqueue.size() == 0) {
-                        try {
-                            outqueue.wait();
-                        } catch (InterruptedException ex) {
-                            return;
-                        }
-                    }
-
-                    m = outqueue.head();
-                    wcs = outqueue.remove(m);
-                }
-                if (null != wcs) {
-                    for (WeakReference<Connstruct> wc : wcs) {
-                        Connstruct c = wc.get();
-                        if (null != c) {
-
-                            logger.trace("<outqueue> Got message {} for {}", m, c.unique);
-                            logger.info("Sending message {} to {}", m, c.unique);
-
-                            try {
-                                c.mout.writeMessage(m);
-                            } catch (IOException ioe) {
-                                logger.debug("", ioe);
-                                removeConnection(c);
-                            }
-                        }
-                    }
-                } else {
-                    logger.info("Discarding {} connection reaped", m);
-                }
-            }
-
-            logger.debug("exit");
-
-        }
-    }
-
-    public class Reader extends Thread {
-        private Connstruct                conn;
-        private WeakReference<Connstruct> weakconn;
-        private boolean                   lrun = true;
-
-        public Reader(Connstruct _conn) {
-            this.conn = _conn;
-            weakconn = new WeakReference<>(_conn);
-            setName("Reader");
-        }
-
-        public void stopRunning() {
-            lrun = false;
-        }
-
-        @Override
-        public void run() {
-
-            LOGGER.debug("enter");
-
-            while (isRunning() && lrun) {
-
-                Message m = null;
-                try {
-                    m = conn.min.readMessage();
-                } catch (IOException ioe) {
-                    LOGGER.debug("", ioe);
-                    removeConnection(conn);
-                } catch (DBusException dbe) {
-                    LOGGER.debug("", dbe);
-                    if (dbe instanceof FatalException) {
-                        removeConnection(conn);
-                    }
-                }
-
-                if (null != m) {
-                    LOGGER.info("Read {} from {}", m, conn.unique);
-
-                    synchronized (inqueue) {
-                        inqueue.putLast(m, weakconn);
-                        inqueue.notifyAll();
-                    }
-                }
-            }
-            conn = null;
-
-            LOGGER.debug("exit");
-
-        }
-    }
-
-    private Map<Connstruct, Reader>                      conns       = new HashMap<>();
-    private HashMap<String, Connstruct>                  names       = new HashMap<>();
-    private MagicMap<Message, WeakReference<Connstruct>> outqueue    = new MagicMap<>("out");
-    private MagicMap<Message, WeakReference<Connstruct>> inqueue     = new MagicMap<>("in");
-    private MagicMap<Message, WeakReference<Connstruct>> localqueue  = new MagicMap<>("local");
-    private List<Connstruct>                             sigrecips   = new ArrayList<>();
-    private final AtomicBoolean                          run        = new AtomicBoolean(true);
-    private int                                          nextUnique = 0;
-    private Object                                       uniqueLock = new Object();
+    /** Connections by their unique name and all names they own. */
+    private final Map<String, Connstruct>                          names          = new ConcurrentHashMap<>();
+    private final Set<Connstruct>                                  conns          = ConcurrentHashMap.newKeySet();
+    private final MatchRuleIndex                                   matchRules     = new MatchRuleIndex(names);
+    private final Map<SelectorProvider, List<DaemonEventLoop>>     loops          = new HashMap<>();
+    private final AtomicInteger                                    nextLoop       = new AtomicInteger();
+    private final int                                              eventLoopCount;
+    private final AtomicBoolean                                    run            = new AtomicBoolean(true);
+    private final CountDownLatch                                   closed         = new CountDownLatch(1);
+    private int                                                    nextUnique     = 0;
+    private Object                                                 uniqueLock     = new Object();
     //CHECKSTYLE:OFF
-    DBusServer                                           dbusServer = new DBusServer();
-    Sender                                               sender      = new Sender();
+    DBusServer                                                     dbusServer     = new DBusServer();
     //CHECKSTYLE:ON
 
     public DBusDaemon() {
+        this(SelectorEventLoop.DEFAULT_LOOP_COUNT);
+    }
+
+    /**
+     * Create a daemon.
+     *
+     * @param _eventLoopCount number of threads reading, routing and writing messages of the clients
+     */
+    public DBusDaemon(int _eventLoopCount) {
         setName("Daemon");
-        synchronized (names) {
-            names.put("org.freedesktop.DBus", null);
-        }
+        eventLoopCount = Math.max(1, _eventLoopCount);
+        names.put("org.freedesktop.DBus", new Connstruct("org.freedesktop.DBus"));
     }
 
     private void send(Connstruct c, Message m) {
-        send(c, m, false);
+        LOGGER.trace("Queing message {} for {}", m, c.unique);
+        c.queue(m);
     }
 
-    private void send(Connstruct c, Message m, boolean head) {
+    /**
+     * Send a signal without destination to all connections with a matching rule.
+     *
+     * @param c sender, null for signals of the daemon itself
+     * @param sig signal
+     */
+    private void sendSignal(Connstruct c, DBusSignal sig) {
+        for (Connstruct d : matchRules.findMatches(sig, null == c ? names.get("org.freedesktop.DBus") : c)) {
+            send(d, sig);
+        }
+    }
 
-        LOGGER.debug("enter");
-        if (null == c) {
-            LOGGER.trace("Queing message {} for all connections", m);
-        } else {
-            LOGGER.trace("Queing message {} for {}", m, c.unique);
-        }
-
-        // send to all connections
-        if (null == c) {
-            synchronized (conns) {
-                synchronized (outqueue) {
-                    for (Connstruct d : conns.keySet()) {
-                        if (head) {
-                            outqueue.putFirst(m, new WeakReference<>(d));
-                        } else {
-                            outqueue.putLast(m, new WeakReference<>(d));
-                        }
-                    }
-                    outqueue.notifyAll();
-                }
+    /**
+     * Route a message received from a client. Called by the event loop of the client.
+     *
+     * @param c sender
+     * @param m message
+     */
+    void route(Connstruct c, Message m) {
+        LOGGER.info("<inqueue> Got message {} from {}", m, c.unique);
+        try {
+            // check if they have hello'd
+            if (null == c.unique && (!(m instanceof MethodCall) || !"org.freedesktop.DBus".equals(m.getDestination()) || !"Hello".equals(m.getName()))) {
+                send(c, new Error("org.freedesktop.DBus", null, "org.freedesktop.DBus.Error.AccessDenied", m.getSerial(), "s", "You must send a Hello message"));
+                return;
             }
-        } else {
-            synchronized (outqueue) {
-                if (head) {
-                    outqueue.putFirst(m, new WeakReference<>(c));
-                } else {
-                    outqueue.putLast(m, new WeakReference<>(c));
+            try {
+                if (null != c.unique) {
+                    m.setSource(c.unique);
                 }
-                outqueue.notifyAll();
+            } catch (DBusException dbe) {
+                LOGGER.debug("", dbe);
+                send(c, new Error("org.freedesktop.DBus", null, "org.freedesktop.DBus.Error.GeneralError", m.getSerial(), "s", "Sending message failed"));
             }
-        }
-
-        LOGGER.debug("exit");
 
-    }
-
-    private List<Connstruct> findSignalMatches(DBusSignal sig) {
-
-        LOGGER.debug("enter");
+            if ("org.freedesktop.DBus".equals(m.getDestination())) {
+                synchronized (dbusServer) {
+                    dbusServer.handleMessage(c, m);
+                }
+            } else if (m instanceof DBusSignal && null == m.getDestination()) {
+                sendSignal(c, (DBusSignal) m);
+            } else {
+                Connstruct dest = null == m.getDestination() ? null : names.get(m.getDestination());
 
-        List<Connstruct> l;
-        synchronized (sigrecips) {
-            l = new ArrayList<>(sigrecips);
+                if (null == dest) {
+                    send(c, new Error("org.freedesktop.DBus", null, "org.freedesktop.DBus.Error.ServiceUnknown", m.getSerial(), "s", String.format("The name `%s' does not exist", m.getDestination())));
+                } else {
+                    send(dest, m);
+                }
+            }
+        } catch (DBusException dbe) {
+            LOGGER.debug("", dbe);
         }
-
-        LOGGER.debug("exit");
-
-        return l;
     }
 
+    /**
+     * Waits until the daemon is closed, then stops all event loops.
+     */
     @Override
     public void run() {
 
         LOGGER.debug("enter");
 
-        while (isRunning()) {
+        while (run.get()) {
             try {
-                Message m;
-                List<WeakReference<Connstruct>> wcs;
-                synchronized (inqueue) {
-                    while (0 == inqueue.size()) {
-                        try {
-                            inqueue.wait();
-                        } catch (InterruptedException ex) {
-                            return;
-                        }
-                    }
-
-                    m = inqueue.head();
-                    wcs = inqueue.remove(m);
-                }
-                if (null != wcs) {
-                    for (WeakReference<Connstruct> wc : wcs) {
-                        Connstruct c = wc.get();
-                        if (null != c) {
-                            LOGGER.info("<inqueue> Got message {} from {}", m, c.unique);
-                            // check if they have hello'd
-                            if (null == c.unique && (!(m instanceof MethodCall) || !"org.freedesktop.DBus".equals(m.getDestination()) || !"Hello".equals(m.getName()))) {
-                                send(c, new Error("org.freedesktop.DBus", null, "org.freedesktop.DBus.Error.AccessDenied", m.getSerial(), "s", "You must send a Hello message"));
-                            } else {
-                                try {
-                                    if (null != c.unique) {
-                                        m.setSource(c.unique);
-                                    }
-                                } catch (DBusException dbe) {
-                                    LOGGER.debug("", dbe);
-                                    send(c, new Error("org.freedesktop.DBus", null, "org.freedesktop.DBus.Error.GeneralError", m.getSerial(), "s", "Sending message failed"));
-                                }
-
-                                if ("org.freedesktop.DBus".equals(m.getDestination())) {
-                                    synchronized (localqueue) {
-                                        localqueue.putLast(m, wc);
-                                        localqueue.notifyAll();
-                                    }
-                                } else {
-                                    if (m instanceof DBusSignal) {
-                                        List<Connstruct> list = findSignalMatches((DBusSignal) m);
-                                        for (Connstruct d : list) {
-                                            send(d, m);
-                                        }
-                                    } else {
-                                        Connstruct dest = names.get(m.getDestination());
-
-                                        if (null == dest) {
-                                            send(c, new Error("org.freedesktop.DBus", null, "org.freedesktop.DBus.Error.ServiceUnknown", m.getSerial(), "s", String.format("The name `%s' does not exist", m.getDestination())));
-                                        } else {
-                                            send(dest, m);
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
+                closed.await();
+            } catch (InterruptedException ex) {
+                break;
+            }
+        }
+        synchronized (loops) {
+            for (List<DaemonEventLoop> l : loops.values()) {
+                for (DaemonEventLoop loop : l) {
+                    loop.close();
                 }
-            } catch (DBusException dbe) {
-                LOGGER.debug("", dbe);
             }
+            loops.clear();
         }
 
         LOGGER.debug("exit");
 
     }
 
-    private void removeConnection(Connstruct c) {
+    void removeConnection(Connstruct c) {
 
         LOGGER.debug("enter");
 
-        boolean exists = false;
-        synchronized (conns) {
-            if (conns.containsKey(c)) {
-                Reader r = conns.get(c);
-                exists = true;
-                r.stopRunning();
-                conns.remove(c);
-            }
-        }
-        if (exists) {
-            try {
-                if (null != c.usock) {
-                    c.usock.close();
-                }
-                if (null != c.tsock) {
-                    c.tsock.close();
-                }
-            } catch (IOException exIo) {
-            }
-            synchronized (names) {
-                List<String> toRemove = new ArrayList<>();
-                for (String name : names.keySet()) {
-                    if (names.get(name) == c) {
-                        toRemove.add(name);
-                        try {
-                            send(null, new DBusSignal("org.freedesktop.DBus", "/org/freedesktop/DBus", "org.freedesktop.DBus", "NameOwnerChanged", "sss", name, c.unique, ""));
-                        } catch (DBusException dbe) {
-                            LOGGER.debug("", dbe);
-                        }
+        if (conns.remove(c)) {
+            c.close();
+            matchRules.removeAll(c);
+            for (Entry<String, Connstruct> e : names.entrySet()) {
+                if (e.getValue() == c && names.remove(e.getKey(), c)) {
+                    try {
+                        sendSignal(null, new DBusSignal("org.freedesktop.DBus", "/org/freedesktop/DBus", "org.freedesktop.DBus", "NameOwnerChanged", "sss", e.getKey(), c.unique, ""));
+                    } catch (DBusException dbe) {
+                        LOGGER.debug("", dbe);
                     }
                 }
-                for (String name : toRemove) {
-                    names.remove(name);
-                }
             }
         }
 
@@ -844,27 +690,62 @@ public class DBusDaemon extends Thread implements Closeable {
 
     }
 
+    /**
+     * Add the socket of an authenticated client.
+     * The socket must be backed by a channel (created by a {@link java.nio.channels.ServerSocketChannel}).
+     *
+     * @param s socket
+     * @throws IOException if the socket has no channel or could not be switched to non-blocking mode
+     */
     public void addSock(Socket s) throws IOException {
+        if (null == s.getChannel()) {
+            throw new IOException("Socket is not backed by a channel");
+        }
+        addSock(s.getChannel());
+    }
 
-        LOGGER.debug("enter");
+    /**
+     * Add the channel of an authenticated client.
+     * The channel is switched to non-blocking mode and operated by one of the event loops of the daemon.
+     *
+     * @param _channel connected channel
+     * @throws IOException if the channel could not be switched to non-blocking mode
+     */
+    public void addSock(SocketChannel _channel) throws IOException {
 
         LOGGER.debug("New Client");
 
-        Connstruct c = new Connstruct(s);
-        Reader r = new Reader(c);
-        synchronized (conns) {
-            conns.put(c, r);
-        }
-        r.start();
-
-        LOGGER.debug("exit");
+        DaemonEventLoop loop = getEventLoop(_channel.provider());
+        _channel.configureBlocking(false);
+        Connstruct c = new Connstruct(this, _channel, loop);
+        conns.add(c);
+        loop.register(c);
+    }
 
+    private DaemonEventLoop getEventLoop(SelectorProvider _provider) throws IOException {
+        synchronized (loops) {
+            if (!run.get()) {
+                throw new IOException("Daemon has been closed");
+            }
+            List<DaemonEventLoop> l = loops.get(_provider);
+            if (null == l) {
+                l = new ArrayList<>();
+                loops.put(_provider, l);
+            }
+            if (l.size() < eventLoopCount) {
+                DaemonEventLoop loop = new DaemonEventLoop(this, _provider, l.size());
+                l.add(loop);
+                loop.start();
+                return loop;
+            }
+            return l.get(Math.floorMod(nextLoop.getAndIncrement(), l.size()));
+        }
     }
 
     @Override
     public void close() {
         run.set(false);
-        interrupt();
+        closed.countDown();
     }
 
     public boolean isRunning() {
@@ -0,0 +1,170 @@
+/*
+   D-Bus Java Implementation
+   Copyright (c) 2017-2019 David M.
+
+   This program is free software; you can redistribute it and/or modify it
+   under the terms of either the GNU Lesser General Public License Version 2 or the
+   Academic Free Licence Version 2.1.
+
+   Full licence texts are included in the LICENSE file with this program.
+*/
+
+package org.freedesktop.dbus.bin;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.freedesktop.dbus.bin.DBusDaemon.Connstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Event loop of the {@link DBusDaemon}, reading, routing and writing the messages of many client
+ * connections with a single thread.
+ * <p>
+ * Received messages are routed on the loop thread of the sending connection and queued at the
+ * receiving connection. Writing is always done by the loop thread owning the receiving connection:
+ * queueing a message schedules a write task on that loop. If a connection cannot take all data,
+ * the loop waits until the channel is writable again, without blocking other connections.
+ * </p>
+ */
+final class DaemonEventLoop implements Runnable {
+    private final Logger          logger       = LoggerFactory.getLogger(getClass());
+
+    private final DBusDaemon      daemon;
+    private final Selector        selector;
+    private final Thread          thread;
+    private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+    private volatile boolean      running      = true;
+
+    DaemonEventLoop(DBusDaemon _daemon, SelectorProvider _provider, int _index) throws IOException {
+        daemon = _daemon;
+        selector = _provider.openSelector();
+        thread = new Thread(this, "DBusDaemon Loop-" + _index);
+        thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Stop the loop and close all connections still registered.
+     */
+    void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Start reading from a connection. The channel must be in non-blocking mode.
+     *
+     * @param _c connection
+     */
+    void register(Connstruct _c) {
+        execute(() -> {
+            try {
+                _c.key = _c.channel.register(selector, SelectionKey.OP_READ, _c);
+            } catch (ClosedChannelException _ex) {
+                daemon.removeConnection(_c);
+            }
+        });
+    }
+
+    /**
+     * Write the queued messages of a connection on the loop thread, unless a write is already scheduled.
+     *
+     * @param _c connection owned by this loop
+     */
+    void scheduleWrite(Connstruct _c) {
+        if (_c.writeScheduled.compareAndSet(false, true)) {
+            execute(() -> write(_c));
+        }
+    }
+
+    private void execute(Runnable _task) {
+        pendingTasks.add(_task);
+        // tasks added by the loop itself are run before the next select
+        if (Thread.currentThread() != thread) {
+            selector.wakeup();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select();
+            } catch (IOException _ex) {
+                logger.error("Selector failed, stopping event loop.", _ex);
+                break;
+            }
+
+            runTasks();
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Connstruct c = (Connstruct) key.attachment();
+                if (key.isValid() && key.isWritable()) {
+                    write(c);
+                }
+                if (key.isValid() && key.isReadable()) {
+                    read(key, c);
+                }
+            }
+
+            // write messages routed while reading
+            runTasks();
+        }
+
+        for (SelectionKey key : selector.keys()) {
+            daemon.removeConnection((Connstruct) key.attachment());
+        }
+        try {
+            selector.close();
+        } catch (IOException _ex) {
+            logger.debug("Unable to close selector", _ex);
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = pendingTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void read(SelectionKey _key, Connstruct _c) {
+        try {
+            _c.reader.readAvailable();
+        } catch (IOException | RuntimeException _ex) {
+            logger.debug("Reading from {} failed", _c, _ex);
+            _key.cancel();
+            daemon.removeConnection(_c);
+        }
+    }
+
+    private void write(Connstruct _c) {
+        _c.writeScheduled.set(false);
+        SelectionKey key = _c.key;
+        if (null == key || !key.isValid()) {
+            return;
+        }
+        try {
+            boolean complete = _c.flush();
+            key.interestOps(complete ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        } catch (IOException | RuntimeException _ex) {
+            logger.debug("Writing to {} failed", _c, _ex);
+            key.cancel();
+            daemon.removeConnection(_c);
+        }
+    }
+}
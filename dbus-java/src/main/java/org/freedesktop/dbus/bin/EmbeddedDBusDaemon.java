@@ -3,13 +3,16 @@ package org.freedesktop.dbus.bin;
 import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetAddress;
-import java.net.ServerSocket;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.freedesktop.dbus.connections.BusAddress;
 import org.freedesktop.dbus.connections.SASL;
+import org.freedesktop.dbus.connections.transports.SelectorEventLoop;
 import org.freedesktop.dbus.exceptions.DBusException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +34,8 @@ public class EmbeddedDBusDaemon implements Closeable {
 
     private int authTypes = SASL.AUTH_EXTERNAL;
 
+    private int eventLoopCount = SelectorEventLoop.DEFAULT_LOOP_COUNT;
+
     private Closeable listenSocket;
 
     private final AtomicBoolean closed = new AtomicBoolean(false);
@@ -47,8 +52,6 @@ public class EmbeddedDBusDaemon implements Closeable {
         }
         if (daemonThread != null) {
             daemonThread.close();
-            daemonThread.dbusServer.interrupt();
-            daemonThread.sender.interrupt();
             daemonThread = null;
         }
     }
@@ -57,10 +60,8 @@ public class EmbeddedDBusDaemon implements Closeable {
 
         Objects.requireNonNull(address, "busAddress not set");
 
-        daemonThread = new DBusDaemon();
+        daemonThread = new DBusDaemon(eventLoopCount);
         daemonThread.start();
-        daemonThread.sender.start();
-        daemonThread.dbusServer.start();
 
         try {
             listen();
@@ -107,8 +108,7 @@ public class EmbeddedDBusDaemon implements Closeable {
         while (daemonThread.isRunning()) {
              UnixSocketChannel s = uss.accept();
             if ((new SASL()).auth(SASL.SaslMode.SERVER, authTypes, address.getGuid(), s.socket().getOutputStream(), s.socket().getInputStream(), s.socket())) {
-                // s.setBlocking(false);
-                daemonThread.addSock(s.socket());
+                daemonThread.addSock(s);
             } else {
                 s.close();
             }
@@ -122,15 +122,17 @@ public class EmbeddedDBusDaemon implements Closeable {
 
         LOGGER.debug("enter");
 
-        try (ServerSocket ss = new ServerSocket(address.getPort(), 10, InetAddress.getByName(address.getHost()))) {
+        try (ServerSocketChannel ss = ServerSocketChannel.open()) {
+            ss.bind(new InetSocketAddress(InetAddress.getByName(address.getHost()), address.getPort()), 10);
             listenSocket = ss;
 
             // accept new connections
             while (daemonThread.isRunning()) {
-                Socket s = ss.accept();
+                SocketChannel s = ss.accept();
                 boolean authOK = false;
                 try {
-                    authOK = (new SASL()).auth(SASL.SaslMode.SERVER, authTypes, address.getGuid(), s.getOutputStream(), s.getInputStream(), null);
+                    Socket sock = s.socket();
+                    authOK = (new SASL()).auth(SASL.SaslMode.SERVER, authTypes, address.getGuid(), sock.getOutputStream(), sock.getInputStream(), null);
                 } catch (Exception e) {
                     LOGGER.debug("", e);
                 }
@@ -155,4 +157,16 @@ public class EmbeddedDBusDaemon implements Closeable {
     public void setAuthTypes(int authTypes) {
         this.authTypes = authTypes;
     }
+
+    /**
+     * Set the number of threads reading, routing and writing the messages of all clients.
+     * Must be called before the daemon is started. Defaults to {@link SelectorEventLoop#DEFAULT_LOOP_COUNT}.
+     *
+     * @param _eventLoopCount number of threads, at least 1
+     */
+    public void setEventLoopCount(int _eventLoopCount) {
+        if (_eventLoopCount > 0) {
+            eventLoopCount = _eventLoopCount;
+        }
+    }
 }
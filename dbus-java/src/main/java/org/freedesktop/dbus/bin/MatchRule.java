@@ -0,0 +1,373 @@
+/*
+   D-Bus Java Implementation
+   Copyright (c) 2017-2019 David M.
+
+   This program is free software; you can redistribute it and/or modify it
+   under the terms of either the GNU Lesser General Public License Version 2 or the
+   Academic Free Licence Version 2.1.
+
+   Full licence texts are included in the LICENSE file with this program.
+*/
+
+package org.freedesktop.dbus.bin;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.errors.Error;
+import org.freedesktop.dbus.errors.MatchRuleInvalid;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.messages.DBusSignal;
+import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.messages.MethodCall;
+import org.freedesktop.dbus.messages.MethodReturn;
+
+/**
+ * Match rule added by a client of the {@link DBusDaemon} (e.g. type='signal',interface='org.freedesktop.DBus',member='NameOwnerChanged').
+ * <p>
+ * Supported keys are type, sender, interface, member, path, path_namespace, destination, argN, argNpath and arg0namespace.
+ * Rules are compared by their keys and values, so the same rule added twice is equal.
+ * </p>
+ */
+final class MatchRule {
+    private static final int MAX_ARGS = 64;
+
+    private final String     type;
+    private final String     sender;
+    private final String     iface;
+    private final String     member;
+    private final String     path;
+    private final String     pathNamespace;
+    private final String     destination;
+    private final String     arg0Namespace;
+    /** Values of argN keys by N, null if the rule has no argN keys. */
+    private final String[]   args;
+    /** Values of argNpath keys by N, null if the rule has no argNpath keys. */
+    private final String[]   argPaths;
+
+    private MatchRule(Builder _builder) {
+        type = _builder.type;
+        sender = _builder.sender;
+        iface = _builder.iface;
+        member = _builder.member;
+        path = _builder.path;
+        pathNamespace = _builder.pathNamespace;
+        destination = _builder.destination;
+        arg0Namespace = _builder.arg0Namespace;
+        args = _builder.args;
+        argPaths = _builder.argPaths;
+    }
+
+    /**
+     * Parse a match rule.
+     *
+     * @param _rule rule as given to AddMatch, null or empty matches all messages
+     * @return rule
+     * @throws MatchRuleInvalid if the rule is malformed or contains unknown keys
+     */
+    static MatchRule parse(String _rule) throws MatchRuleInvalid {
+        Builder builder = new Builder();
+        if (null == _rule) {
+            return new MatchRule(builder);
+        }
+
+        int pos = 0;
+        int len = _rule.length();
+        while (pos < len) {
+            while (pos < len && Character.isWhitespace(_rule.charAt(pos))) {
+                pos++;
+            }
+            if (pos == len) {
+                break;
+            }
+            int eq = _rule.indexOf('=', pos);
+            if (-1 == eq) {
+                throw new MatchRuleInvalid("Missing '=' in match rule: " + _rule);
+            }
+            String key = _rule.substring(pos, eq).trim();
+
+            // values may be quoted with apostrophes, outside of quotes \' is an escaped apostrophe
+            StringBuilder value = new StringBuilder();
+            boolean quoted = false;
+            pos = eq + 1;
+            for (; pos < len; pos++) {
+                char ch = _rule.charAt(pos);
+                if (quoted) {
+                    if ('\'' == ch) {
+                        quoted = false;
+                    } else {
+                        value.append(ch);
+                    }
+                } else if ('\'' == ch) {
+                    quoted = true;
+                } else if ('\\' == ch && pos + 1 < len && '\'' == _rule.charAt(pos + 1)) {
+                    value.append('\'');
+                    pos++;
+                } else if (',' == ch) {
+                    break;
+                } else {
+                    value.append(ch);
+                }
+            }
+            if (quoted) {
+                throw new MatchRuleInvalid("Unterminated quote in match rule: " + _rule);
+            }
+            pos++;
+            builder.set(key, value.toString());
+        }
+
+        if (null != builder.path && null != builder.pathNamespace) {
+            throw new MatchRuleInvalid("path and path_namespace must not be combined: " + _rule);
+        }
+        return new MatchRule(builder);
+    }
+
+    String getInterface() {
+        return iface;
+    }
+
+    String getMember() {
+        return member;
+    }
+
+    String getSender() {
+        return sender;
+    }
+
+    /**
+     * Whether the message matches all keys of this rule except the sender.
+     * The sender may be a well-known name and has to be resolved by the caller.
+     *
+     * @param _m message
+     * @return true if the message matches
+     * @throws DBusException if an argument could not be read from the message
+     */
+    boolean matches(Message _m) throws DBusException {
+        if (null != type && !type.equals(getTypeName(_m))
+                || null != iface && !iface.equals(_m.getInterface())
+                || null != member && !member.equals(_m.getName())
+                || null != destination && !destination.equals(_m.getDestination())) {
+            return false;
+        }
+        if (null != path && !path.equals(_m.getPath())) {
+            return false;
+        }
+        if (null != pathNamespace && !isInNamespace(_m.getPath(), pathNamespace, '/')) {
+            return false;
+        }
+        if (null != args || null != argPaths || null != arg0Namespace) {
+            return matchesArguments(_m);
+        }
+        return true;
+    }
+
+    private boolean matchesArguments(Message _m) throws DBusException {
+        int count = _m.getParameterCount();
+        if (null != arg0Namespace) {
+            if (0 == count) {
+                return false;
+            }
+            Object arg = _m.getParameter(0);
+            if (!(arg instanceof String) || !isInNamespace((String) arg, arg0Namespace, '.')) {
+                return false;
+            }
+        }
+        if (null != args) {
+            for (int i = 0; i < args.length; i++) {
+                if (null != args[i] && (i >= count || !args[i].equals(_m.getParameter(i)))) {
+                    return false;
+                }
+            }
+        }
+        if (null != argPaths) {
+            for (int i = 0; i < argPaths.length; i++) {
+                if (null == argPaths[i]) {
+                    continue;
+                }
+                if (i >= count) {
+                    return false;
+                }
+                Object arg = _m.getParameter(i);
+                String value = arg instanceof DBusPath ? ((DBusPath) arg).getPath() : arg instanceof String ? (String) arg : null;
+                if (null == value || !isPathMatch(argPaths[i], value)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the value is equal to the namespace or one of its children.
+     */
+    private static boolean isInNamespace(String _value, String _namespace, char _separator) {
+        if (null == _value) {
+            return false;
+        }
+        if ('/' == _separator && "/".equals(_namespace)) {
+            return true;
+        }
+        return _value.startsWith(_namespace)
+                && (_value.length() == _namespace.length() || _value.charAt(_namespace.length()) == _separator);
+    }
+
+    /**
+     * argNpath matching: both are equal or one of them ends with '/' and is a prefix of the other.
+     */
+    private static boolean isPathMatch(String _rule, String _value) {
+        return _rule.equals(_value)
+                || _rule.endsWith("/") && _value.startsWith(_rule)
+                || _value.endsWith("/") && _rule.startsWith(_value);
+    }
+
+    private static String getTypeName(Message _m) {
+        if (_m instanceof DBusSignal) {
+            return "signal";
+        } else if (_m instanceof MethodCall) {
+            return "method_call";
+        } else if (_m instanceof Error) {
+            return "error";
+        } else if (_m instanceof MethodReturn) {
+            return "method_return";
+        }
+        return null;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, sender, iface, member, path, pathNamespace, destination, arg0Namespace)
+                + 31 * Arrays.hashCode(args) + Arrays.hashCode(argPaths);
+    }
+
+    @Override
+    public boolean equals(Object _obj) {
+        if (this == _obj) {
+            return true;
+        }
+        if (!(_obj instanceof MatchRule)) {
+            return false;
+        }
+        MatchRule other = (MatchRule) _obj;
+        return Objects.equals(type, other.type) && Objects.equals(sender, other.sender)
+                && Objects.equals(iface, other.iface) && Objects.equals(member, other.member)
+                && Objects.equals(path, other.path) && Objects.equals(pathNamespace, other.pathNamespace)
+                && Objects.equals(destination, other.destination) && Objects.equals(arg0Namespace, other.arg0Namespace)
+                && Arrays.equals(args, other.args) && Arrays.equals(argPaths, other.argPaths);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        append(sb, "type", type);
+        append(sb, "sender", sender);
+        append(sb, "interface", iface);
+        append(sb, "member", member);
+        append(sb, "path", path);
+        append(sb, "path_namespace", pathNamespace);
+        append(sb, "destination", destination);
+        append(sb, "arg0namespace", arg0Namespace);
+        for (int i = 0; null != args && i < args.length; i++) {
+            append(sb, "arg" + i, args[i]);
+        }
+        for (int i = 0; null != argPaths && i < argPaths.length; i++) {
+            append(sb, "arg" + i + "path", argPaths[i]);
+        }
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder _sb, String _key, String _value) {
+        if (null != _value) {
+            if (_sb.length() > 0) {
+                _sb.append(',');
+            }
+            _sb.append(_key).append("='").append(_value).append('\'');
+        }
+    }
+
+    /**
+     * Collects the keys while parsing.
+     */
+    private static final class Builder {
+        private String   type;
+        private String   sender;
+        private String   iface;
+        private String   member;
+        private String   path;
+        private String   pathNamespace;
+        private String   destination;
+        private String   arg0Namespace;
+        private String[] args;
+        private String[] argPaths;
+
+        void set(String _key, String _value) throws MatchRuleInvalid {
+            switch (_key) {
+                case "type":
+                    if (!"signal".equals(_value) && !"method_call".equals(_value) && !"method_return".equals(_value) && !"error".equals(_value)) {
+                        throw new MatchRuleInvalid("Unknown message type in match rule: " + _value);
+                    }
+                    type = _value;
+                    break;
+                case "sender":
+                    sender = _value;
+                    break;
+                case "interface":
+                    iface = _value;
+                    break;
+                case "member":
+                    member = _value;
+                    break;
+                case "path":
+                    path = _value;
+                    break;
+                case "path_namespace":
+                    pathNamespace = _value;
+                    break;
+                case "destination":
+                    destination = _value;
+                    break;
+                case "arg0namespace":
+                    arg0Namespace = _value;
+                    break;
+                case "eavesdrop":
+                    // eavesdropping is not supported, the key is accepted for compatibility
+                    break;
+                default:
+                    setArgument(_key, _value);
+            }
+        }
+
+        private void setArgument(String _key, String _value) throws MatchRuleInvalid {
+            if (!_key.startsWith("arg")) {
+                throw new MatchRuleInvalid("Unknown key in match rule: " + _key);
+            }
+            boolean isPath = _key.endsWith("path");
+            String number = _key.substring(3, isPath ? _key.length() - 4 : _key.length());
+            int index;
+            try {
+                index = Integer.parseInt(number);
+            } catch (NumberFormatException _ex) {
+                throw new MatchRuleInvalid("Unknown key in match rule: " + _key);
+            }
+            if (index < 0 || index >= MAX_ARGS || number.length() > 2) {
+                throw new MatchRuleInvalid("Argument index out of range in match rule: " + _key);
+            }
+            if (isPath) {
+                argPaths = set(argPaths, index, _value);
+            } else {
+                args = set(args, index, _value);
+            }
+        }
+
+        private static String[] set(String[] _values, int _index, String _value) {
+            String[] values = _values;
+            if (null == values) {
+                values = new String[_index + 1];
+            } else if (values.length <= _index) {
+                values = Arrays.copyOf(values, _index + 1);
+            }
+            values[_index] = _value;
+            return values;
+        }
+    }
+}
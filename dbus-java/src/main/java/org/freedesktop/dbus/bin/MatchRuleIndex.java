@@ -0,0 +1,202 @@
+/*
+   D-Bus Java Implementation
+   Copyright (c) 2017-2019 David M.
+
+   This program is free software; you can redistribute it and/or modify it
+   under the terms of either the GNU Lesser General Public License Version 2 or the
+   Academic Free Licence Version 2.1.
+
+   Full licence texts are included in the LICENSE file with this program.
+*/
+
+package org.freedesktop.dbus.bin;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.freedesktop.dbus.bin.DBusDaemon.Connstruct;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.messages.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Match rules of all clients of the {@link DBusDaemon}, indexed by interface and member.
+ * <p>
+ * Finding the recipients of a signal only checks the rules registered for its interface and member and
+ * the rules which do not restrict the interface or the member, so the cost scales with the number of
+ * interested clients instead of all clients. Lookups do not lock, the rule lists are replaced on change.
+ * A client may add the same rule several times, it has to remove it as often as it was added.
+ * </p>
+ */
+final class MatchRuleIndex {
+    /** Key of rules matching all interfaces or members. */
+    private static final String                                  ANY          = "";
+    private static final Subscription[]                          EMPTY        = new Subscription[0];
+
+    private final Logger                                         logger       = LoggerFactory.getLogger(getClass());
+
+    /** Subscriptions by interface and member. */
+    private final Map<String, Map<String, Subscription[]>>       index        = new ConcurrentHashMap<>();
+    /** Rules of each connection with the number of times they were added, guarded by this. */
+    private final Map<Connstruct, Map<MatchRule, Integer>>       byConnection = new HashMap<>();
+    /** Owners of all names, used to resolve well-known names used as sender. */
+    private final Map<String, Connstruct>                        names;
+
+    MatchRuleIndex(Map<String, Connstruct> _names) {
+        names = _names;
+    }
+
+    /**
+     * Add a rule of a connection.
+     *
+     * @param _c connection
+     * @param _rule rule
+     */
+    synchronized void add(Connstruct _c, MatchRule _rule) {
+        Map<MatchRule, Integer> rules = byConnection.computeIfAbsent(_c, k -> new HashMap<>());
+        if (1 == rules.merge(_rule, 1, Integer::sum)) {
+            Map<String, Subscription[]> members = index.computeIfAbsent(keyOf(_rule.getInterface()), k -> new ConcurrentHashMap<>());
+            String member = keyOf(_rule.getMember());
+            Subscription[] subs = members.getOrDefault(member, EMPTY);
+            Subscription[] added = Arrays.copyOf(subs, subs.length + 1);
+            added[subs.length] = new Subscription(_c, _rule);
+            members.put(member, added);
+        }
+    }
+
+    /**
+     * Remove a rule of a connection once.
+     *
+     * @param _c connection
+     * @param _rule rule
+     * @return false if the connection did not add this rule
+     */
+    synchronized boolean remove(Connstruct _c, MatchRule _rule) {
+        Map<MatchRule, Integer> rules = byConnection.get(_c);
+        Integer count = null == rules ? null : rules.get(_rule);
+        if (null == count) {
+            return false;
+        }
+        if (count > 1) {
+            rules.put(_rule, count - 1);
+            return true;
+        }
+        rules.remove(_rule);
+        if (rules.isEmpty()) {
+            byConnection.remove(_c);
+        }
+        unindex(_c, _rule);
+        return true;
+    }
+
+    /**
+     * Remove all rules of a connection.
+     *
+     * @param _c connection
+     */
+    synchronized void removeAll(Connstruct _c) {
+        Map<MatchRule, Integer> rules = byConnection.remove(_c);
+        if (null != rules) {
+            for (MatchRule rule : rules.keySet()) {
+                unindex(_c, rule);
+            }
+        }
+    }
+
+    private void unindex(Connstruct _c, MatchRule _rule) {
+        String iface = keyOf(_rule.getInterface());
+        Map<String, Subscription[]> members = index.get(iface);
+        if (null == members) {
+            return;
+        }
+        String member = keyOf(_rule.getMember());
+        Subscription[] subs = members.getOrDefault(member, EMPTY);
+        int remaining = 0;
+        Subscription[] kept = new Subscription[subs.length];
+        for (Subscription sub : subs) {
+            if (sub.connection != _c || !sub.rule.equals(_rule)) {
+                kept[remaining++] = sub;
+            }
+        }
+        if (0 == remaining) {
+            members.remove(member);
+            if (members.isEmpty()) {
+                index.remove(iface);
+            }
+        } else {
+            members.put(member, Arrays.copyOf(kept, remaining));
+        }
+    }
+
+    /**
+     * Find all connections with at least one rule matching the message.
+     *
+     * @param _m message
+     * @param _sender connection which sent the message
+     * @return matching connections, each contained once
+     */
+    Set<Connstruct> findMatches(Message _m, Connstruct _sender) {
+        Map<String, Subscription[]> byIface = index.get(keyOf(_m.getInterface()));
+        Map<String, Subscription[]> anyIface = index.get(ANY);
+        if (null == byIface && null == anyIface) {
+            return Collections.emptySet();
+        }
+
+        Set<Connstruct> matches = new LinkedHashSet<>();
+        String member = keyOf(_m.getName());
+        if (null != byIface) {
+            collect(byIface.get(member), _m, _sender, matches);
+            collect(byIface.get(ANY), _m, _sender, matches);
+        }
+        if (null != anyIface && byIface != anyIface) {
+            collect(anyIface.get(member), _m, _sender, matches);
+            collect(anyIface.get(ANY), _m, _sender, matches);
+        }
+        return matches;
+    }
+
+    private void collect(Subscription[] _subs, Message _m, Connstruct _sender, Set<Connstruct> _matches) {
+        if (null == _subs) {
+            return;
+        }
+        for (Subscription sub : _subs) {
+            if (_matches.contains(sub.connection) || !isSender(sub.rule.getSender(), _m, _sender)) {
+                continue;
+            }
+            try {
+                if (sub.rule.matches(_m)) {
+                    _matches.add(sub.connection);
+                }
+            } catch (DBusException | RuntimeException _ex) {
+                logger.debug("Unable to check match rule {} for {}", sub.rule, _m, _ex);
+            }
+        }
+    }
+
+    private boolean isSender(String _ruleSender, Message _m, Connstruct _sender) {
+        return null == _ruleSender || _ruleSender.equals(_m.getSource()) || null != _sender && names.get(_ruleSender) == _sender;
+    }
+
+    private static String keyOf(String _name) {
+        return null == _name ? ANY : _name;
+    }
+
+    /**
+     * Rule of a connection.
+     */
+    private static final class Subscription {
+        private final Connstruct connection;
+        private final MatchRule  rule;
+
+        Subscription(Connstruct _connection, MatchRule _rule) {
+            connection = _connection;
+            rule = _rule;
+        }
+    }
+}
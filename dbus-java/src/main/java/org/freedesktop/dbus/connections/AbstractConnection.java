@@ -15,28 +15,30 @@ package org.freedesktop.dbus.connections;
 import java.io.Closeable;
 import java.io.EOFException;
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.lang.reflect.Type;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Pattern;
 
@@ -44,14 +46,19 @@ import org.freedesktop.dbus.DBusAsyncReply;
 import org.freedesktop.dbus.DBusCallInfo;
 import org.freedesktop.dbus.DBusMatchRule;
 import org.freedesktop.dbus.InternalSignal;
-import org.freedesktop.dbus.Marshalling;
 import org.freedesktop.dbus.MethodTuple;
 import org.freedesktop.dbus.RemoteInvocationHandler;
 import org.freedesktop.dbus.RemoteObject;
 import org.freedesktop.dbus.SignalTuple;
+import org.freedesktop.dbus.connections.PartitionedExecutor.PartitionKey;
+import org.freedesktop.dbus.connections.WorkQueueLimiter.Category;
+import org.freedesktop.dbus.connections.WorkQueueLimiter.OverflowPolicy;
 import org.freedesktop.dbus.connections.transports.AbstractTransport;
+import org.freedesktop.dbus.connections.transports.IMessageHandler;
 import org.freedesktop.dbus.connections.transports.TransportFactory;
 import org.freedesktop.dbus.errors.Error;
+import org.freedesktop.dbus.errors.LimitsExceeded;
+import org.freedesktop.dbus.errors.NoReply;
 import org.freedesktop.dbus.errors.UnknownMethod;
 import org.freedesktop.dbus.errors.UnknownObject;
 import org.freedesktop.dbus.exceptions.DBusException;
@@ -62,6 +69,7 @@ import org.freedesktop.dbus.interfaces.CallbackHandler;
 import org.freedesktop.dbus.interfaces.DBusInterface;
 import org.freedesktop.dbus.interfaces.DBusSigHandler;
 import org.freedesktop.dbus.messages.DBusSignal;
+import org.freedesktop.dbus.messages.ExportedMethod;
 import org.freedesktop.dbus.messages.ExportedObject;
 import org.freedesktop.dbus.messages.Message;
 import org.freedesktop.dbus.messages.MethodCall;
@@ -77,7 +85,8 @@ import com.github.hypfvieh.threads.NameableThreadFactory;
  */
 public abstract class AbstractConnection implements Closeable {
 
-    private static final Map<Thread, DBusCallInfo> INFOMAP     = new ConcurrentHashMap<>();
+    /** Information on the call handled by the current task, set while a method or callback is invoked */
+    private static final ThreadLocal<DBusCallInfo> CALL_INFO   = new ThreadLocal<>();
     /**
      * Default thread pool size
      */
@@ -89,16 +98,39 @@ public abstract class AbstractConnection implements Closeable {
 
     /** Lame method to setup endianness used on DBus messages */
     private static byte              endianness       = getSystemEndianness();
+
+    /** Read incoming messages using the shared selector threads instead of a dedicated reader thread */
+    private static volatile boolean  sharedSelector   = false;
+
+    /** Part of received messages used to keep the handling of related messages in order */
+    private static volatile PartitionKey partitionKey = PartitionKey.NONE;
+
+    /** Run method calls, callbacks and signal handlers on virtual threads instead of a fixed thread pool */
+    private static volatile boolean  virtualThreads   = false;
+
+    /** Maximum number of received messages per category waiting for a worker thread, 0 for no limit */
+    private static final int[]            QUEUE_CAPACITIES  = new int[Category.values().length];
+    private static final OverflowPolicy[] OVERFLOW_POLICIES = new OverflowPolicy[Category.values().length];
+
+    /** Thread limits of the adaptive worker pool, 0 if the pool has a fixed size */
+    private static int               adaptiveMinThreads = 0;
+    private static int               adaptiveMaxThreads = 0;
     
     public static final boolean      FLOAT_SUPPORT    =    (null != System.getenv("DBUS_JAVA_FLOATS"));
     public static final String       BUSNAME_REGEX    = "^[-_a-zA-Z][-_a-zA-Z0-9]*(\\.[-_a-zA-Z][-_a-zA-Z0-9]*)*$";
     public static final String       CONNID_REGEX     = "^:[0-9]*\\.[0-9]*$";
     public static final String       OBJECT_REGEX     = "^/([-_a-zA-Z0-9]+(/[-_a-zA-Z0-9]+)*)?$";
+    public static final Pattern      OBJECT_REGEX_PATTERN = Pattern.compile(OBJECT_REGEX);
     public static final Pattern      DOLLAR_PATTERN   = Pattern.compile("[$]");
 
     public static final int          MAX_ARRAY_LENGTH = 67108864;
     public static final int          MAX_NAME_LENGTH  = 255;
 
+    /** Maximum number of queued messages written to the transport at once. */
+    private static final int         MAX_SEND_BATCH_SIZE = 1024;
+    /** Time in seconds disconnecting waits for the sender thread to finish its current write. */
+    private static final int         SENDER_STOP_TIMEOUT = 10;
+
     private final Logger        logger = LoggerFactory.getLogger(getClass());
     
     private final ObjectTree                                                   objectTree;
@@ -112,9 +144,13 @@ public abstract class AbstractConnection implements Closeable {
 
     private final Queue<Error>                                                 pendingErrorQueue;
 
-    private final Map<SignalTuple, List<DBusSigHandler<? extends DBusSignal>>> handledSignals;
-    private final Map<SignalTuple, List<DBusSigHandler<DBusSignal>>>           genericHandledSignals;
-    private final Map<Long, MethodCall>                                        pendingCalls;
+    private final SignalHandlerIndex<DBusSigHandler<? extends DBusSignal>>     handledSignals;
+    private final SignalHandlerIndex<DBusSigHandler<DBusSignal>>               genericHandledSignals;
+    private final PendingCallTable                                             pendingCalls;
+    /** Expires pending calls which did not receive a reply within the method call timeout. */
+    private final TimeoutWheel                                                 replyTimeouts;
+    /** Number of method calls which were expired because they did not receive a reply in time. */
+    private final AtomicLong                                                   expiredCalls     = new AtomicLong();
 
     private final IncomingMessageThread                                        readerThread;
     //private final SenderThread                                                 senderThread;
@@ -122,6 +158,12 @@ public abstract class AbstractConnection implements Closeable {
     private final BusAddress                                                   busAddress;
 
     private final ExecutorService                                              senderService;
+    /** Messages waiting to be written by the sender service. */
+    private final Queue<Message>                                               outgoingQueue    = new ConcurrentLinkedQueue<>();
+    /** Whether the sender service already has a task to write queued messages. */
+    private final AtomicBoolean                                                senderScheduled  = new AtomicBoolean();
+    /** Held while taking messages from the outgoing queue, so only one thread writes them. */
+    private final ReentrantLock                                                sendLock         = new ReentrantLock();
     
     private volatile boolean                                                   run;
 
@@ -129,8 +171,16 @@ public abstract class AbstractConnection implements Closeable {
     private boolean                                                            connected        = false;
 
     private AbstractTransport                                                  transport;
-    private volatile ThreadPoolExecutor                                        workerThreadPool;
+    private final ExecutorService                                              workerThreadPool;
+    /** Adjusts the size of the worker thread pool, null if the pool has a fixed size. */
+    private final AdaptiveWorkerPool                                           adaptiveWorkerPool;
+    /** Limits the number of tasks waiting for a worker thread. */
+    private final WorkQueueLimiter                                             workQueueLimiter;
     private final ReadWriteLock                                                workerThreadPoolLock = new ReentrantReadWriteLock();
+    /** Key used to partition work, NONE if all work is passed to the worker thread pool directly. */
+    private final PartitionKey                                                 workerPartitionKey;
+    /** Keeps tasks for messages with the same key in order, null if not used. */
+    private final PartitionedExecutor                                          partitionedExecutor;
     
     
     protected AbstractConnection(String address, int timeout) throws DBusException {
@@ -139,14 +189,41 @@ public abstract class AbstractConnection implements Closeable {
 
         exportedObjects.put(null, new ExportedObject(new GlobalHandler(this), weakreferences));
 
-        handledSignals = new ConcurrentHashMap<>();
-        genericHandledSignals = new ConcurrentHashMap<>();
-        pendingCalls = Collections.synchronizedMap(new LinkedHashMap<>());
+        handledSignals = new SignalHandlerIndex<>(false);
+        genericHandledSignals = new SignalHandlerIndex<>(true);
+        pendingCalls = new PendingCallTable();
         callbackManager = new PendingCallbackManager();
+        replyTimeouts = new TimeoutWheel("DBus Reply Timeout Thread");
 
         pendingErrorQueue = new ConcurrentLinkedQueue<>();
-        workerThreadPool = (ThreadPoolExecutor) Executors.newFixedThreadPool(THREADCOUNT,
+        workerPartitionKey = partitionKey;
+        int threadCount = THREADCOUNT;
+        if (workerPartitionKey != PartitionKey.NONE) {
+            // tasks with different keys can run in parallel, so use all cores
+            threadCount = Math.max(THREADCOUNT, Runtime.getRuntime().availableProcessors());
+            partitionedExecutor = new PartitionedExecutor(this::executeInWorkerThreadPool, PartitionedExecutor.DEFAULT_LANES);
+        } else {
+            partitionedExecutor = null;
+        }
+        ExecutorService virtualThreadPool = virtualThreads ? createVirtualThreadPool() : null;
+        synchronized (AbstractConnection.class) {
+            if (null == virtualThreadPool && adaptiveMaxThreads > 0) {
+                adaptiveWorkerPool = new AdaptiveWorkerPool(adaptiveMinThreads, adaptiveMaxThreads,
                         new NameableThreadFactory("DBus Worker Thread-", false));
+                workerThreadPool = adaptiveWorkerPool.getExecutor();
+            } else {
+                adaptiveWorkerPool = null;
+                workerThreadPool = null != virtualThreadPool ? virtualThreadPool
+                        : Executors.newFixedThreadPool(threadCount, new NameableThreadFactory("DBus Worker Thread-", false));
+            }
+            workQueueLimiter = new WorkQueueLimiter(adaptiveWorkerPool);
+            for (Category category : Category.values()) {
+                workQueueLimiter.setLimit(category, QUEUE_CAPACITIES[category.ordinal()], OVERFLOW_POLICIES[category.ordinal()]);
+            }
+        }
+        if (null != adaptiveWorkerPool) {
+            replyTimeouts.schedule(this::adjustWorkerPool, AdaptiveWorkerPool.ADJUST_INTERVAL_MILLIS);
+        }
 
         senderService =
                 Executors.newFixedThreadPool(1, new NameableThreadFactory("DBus Sender Thread-", false));
@@ -158,7 +235,7 @@ public abstract class AbstractConnection implements Closeable {
 
         try {
             busAddress = new BusAddress(address);
-            transport = TransportFactory.createTransport(busAddress, timeout);
+            transport = TransportFactory.createTransport(busAddress, timeout, sharedSelector);
             connected = true;
         } catch (IOException | DBusException ioe) {
             logger.debug("Error creating transport", ioe);
@@ -183,8 +260,18 @@ public abstract class AbstractConnection implements Closeable {
 
     /**
      * Start reading and sending messages.
+     * If shared selector mode is enabled and supported by the transport, incoming messages are
+     * read by a shared event loop thread, otherwise a dedicated reader thread is started.
      */
     protected void listen() {
+        if (sharedSelector && transport != null && transport.isNonBlockingSupported()) {
+            try {
+                transport.listenNonBlocking(new SelectorMessageHandler());
+                return;
+            } catch (IOException _ex) {
+                logger.warn("Unable to use shared selector, falling back to reader thread", _ex);
+            }
+        }
         readerThread.start();
     }
 
@@ -195,20 +282,40 @@ public abstract class AbstractConnection implements Closeable {
      *            The new number of worker Threads to use.
      */
     public void changeThreadCount(byte _newPoolSize) {
-        if (workerThreadPool.getMaximumPoolSize() != _newPoolSize) {
-            workerThreadPoolLock.writeLock().lock();
-            try {
-                List<Runnable> remainingTasks = workerThreadPool.shutdownNow(); // kill previous threadpool
-                workerThreadPool = (ThreadPoolExecutor) Executors.newFixedThreadPool(_newPoolSize,
-                    new NameableThreadFactory("DbusWorkerThreads", false));
-                // re-schedule previously waiting tasks
-                for (Runnable runnable : remainingTasks) {
-                    workerThreadPool.execute(runnable);
-                }
-            } finally {
-                workerThreadPoolLock.writeLock().unlock();
-            }
-            
+        if (!(workerThreadPool instanceof ThreadPoolExecutor) || null != adaptiveWorkerPool) {
+            logger.debug("Worker thread pool is not of fixed size, ignoring new thread count {}", _newPoolSize);
+            return;
+        }
+        // resize the running pool, waiting tasks are kept
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) workerThreadPool;
+        if (_newPoolSize > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(_newPoolSize);
+            pool.setCorePoolSize(_newPoolSize);
+        } else if (_newPoolSize < pool.getMaximumPoolSize()) {
+            pool.setCorePoolSize(_newPoolSize);
+            pool.setMaximumPoolSize(_newPoolSize);
+        }
+    }
+
+    /**
+     * Create a pool starting a virtual thread per task.
+     * @return pool or null if virtual threads are not supported by this JVM
+     */
+    private ExecutorService createVirtualThreadPool() {
+        ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor("DBus Worker Thread-");
+        if (null == executor) {
+            logger.warn("Virtual threads are not supported by this JVM, using platform worker threads");
+        }
+        return executor;
+    }
+
+    /**
+     * Periodically called by the timer wheel to adjust the size of the adaptive worker pool.
+     */
+    private void adjustWorkerPool() {
+        adaptiveWorkerPool.adjust();
+        if (!workerThreadPool.isShutdown()) {
+            replyTimeouts.schedule(this::adjustWorkerPool, AdaptiveWorkerPool.ADJUST_INTERVAL_MILLIS);
         }
     }
 
@@ -259,7 +366,7 @@ public abstract class AbstractConnection implements Closeable {
         if (null == objectpath || "".equals(objectpath)) {
             throw new DBusException("Must Specify an Object Path");
         }
-        if (!objectpath.matches(OBJECT_REGEX) || objectpath.length() > MAX_NAME_LENGTH) {
+        if (!OBJECT_REGEX_PATTERN.matcher(objectpath).matches() || objectpath.length() > MAX_NAME_LENGTH) {
             throw new DBusException("Invalid object path: " + objectpath);
         }
         synchronized (getExportedObjects()) {
@@ -290,7 +397,7 @@ public abstract class AbstractConnection implements Closeable {
         if (null == objectprefix || "".equals(objectprefix)) {
             throw new DBusException("Must Specify an Object Path");
         }
-        if (!objectprefix.matches(OBJECT_REGEX) || objectprefix.length() > MAX_NAME_LENGTH) {
+        if (!OBJECT_REGEX_PATTERN.matcher(objectprefix).matches() || objectprefix.length() > MAX_NAME_LENGTH) {
             throw new DBusException("Invalid object path: " + objectprefix);
         }
         ExportedObject eo = new ExportedObject(object, weakreferences);
@@ -325,14 +432,76 @@ public abstract class AbstractConnection implements Closeable {
      * @param _message message to send
      */
     public void sendMessage(Message _message) {
-    	Runnable runnable = new Runnable() {
-			@Override
-			public void run() {
-				sendMessageInternally(_message);
-			}
-    	};
+        outgoingQueue.add(_message);
+        scheduleSender();
+    }
 
-    	senderService.execute(runnable);
+    /**
+     * Send several messages or signals to the DBus daemon.
+     * <p>
+     * The messages are queued at once and will be sent in the given order.
+     * Messages waiting to be sent are written together, so sending many messages
+     * requires only a few writes to the underlying socket.
+     * </p>
+     * @param _messages messages to send
+     */
+    public void sendMessages(Collection<? extends Message> _messages) {
+        outgoingQueue.addAll(_messages);
+        scheduleSender();
+    }
+
+    /**
+     * Ensure the sender service will write all queued messages.
+     * If the sender service is already shut down, the queued messages are processed in the calling thread
+     * once the sender thread has finished writing.
+     */
+    private void scheduleSender() {
+        if (senderScheduled.compareAndSet(false, true)) {
+            try {
+                senderService.execute(this::sendQueuedMessages);
+            } catch (RejectedExecutionException _ex) {
+                senderScheduled.set(false);
+                sendQueuedMessages();
+            }
+        }
+    }
+
+    /**
+     * Send all queued messages and disconnect if writing to the transport failed.
+     * The connection is disconnected after the send lock was released, disconnecting sends the queued messages as well.
+     */
+    private void sendQueuedMessages() {
+        if (drainOutgoingQueue()) {
+            disconnect();
+        }
+    }
+
+    /**
+     * Take all messages from the outgoing queue and send them in batches of at most {@link #MAX_SEND_BATCH_SIZE} messages.
+     * Only one thread at a time drains the queue, otherwise messages could be written out of order.
+     * @return true if writing to the transport failed
+     */
+    private boolean drainOutgoingQueue() {
+        senderScheduled.set(false);
+        boolean failed = false;
+        sendLock.lock();
+        try {
+            List<Message> batch = new ArrayList<>();
+            Message m;
+            while ((m = outgoingQueue.poll()) != null) {
+                batch.add(m);
+                if (batch.size() == MAX_SEND_BATCH_SIZE) {
+                    failed |= sendMessagesInternally(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                failed |= sendMessagesInternally(batch);
+            }
+        } finally {
+            sendLock.unlock();
+        }
+        return failed;
     }
 
     /**
@@ -379,7 +548,7 @@ public abstract class AbstractConnection implements Closeable {
             throw new ClassCastException("Not A DBus Signal");
         }
         String objectpath = getImportedObjects().get(object).getObjectPath();
-        if (!objectpath.matches(OBJECT_REGEX) || objectpath.length() > MAX_NAME_LENGTH) {
+        if (!OBJECT_REGEX_PATTERN.matcher(objectpath).matches() || objectpath.length() > MAX_NAME_LENGTH) {
             throw new DBusException("Invalid object path: " + objectpath);
         }
         removeSigHandler(new DBusMatchRule(type, null, objectpath), handler);
@@ -434,7 +603,7 @@ public abstract class AbstractConnection implements Closeable {
             throw new DBusException("Not an object exported or imported by this connection");
         }
         String objectpath = rObj.getObjectPath();
-        if (!objectpath.matches(OBJECT_REGEX) || objectpath.length() > MAX_NAME_LENGTH) {
+        if (!OBJECT_REGEX_PATTERN.matcher(objectpath).matches() || objectpath.length() > MAX_NAME_LENGTH) {
             throw new DBusException("Invalid object path: " + objectpath);
         }
         addSigHandler(new DBusMatchRule(type, null, objectpath), handler);
@@ -444,16 +613,7 @@ public abstract class AbstractConnection implements Closeable {
             DBusSigHandler<T> handler) throws DBusException {
         DBusMatchRule rule = new DBusMatchRule(signal);
         SignalTuple key = new SignalTuple(rule.getInterface(), rule.getMember(), rule.getObject(), rule.getSource());
-        synchronized (getHandledSignals()) {
-            List<DBusSigHandler<? extends DBusSignal>> v = getHandledSignals().get(key);
-            if (null == v) {
-                v = new ArrayList<>();
-                v.add(handler);
-                getHandledSignals().put(key, v);
-            } else {
-                v.add(handler);
-            }
-        }
+        getHandledSignals().add(key, handler);
     }
 
     /**
@@ -507,9 +667,11 @@ public abstract class AbstractConnection implements Closeable {
         }
 
         // shutdown sender executor service, send all remaining messages in main thread
-        for (Runnable runnable : senderService.shutdownNow()) {
-            runnable.run();
-        }
+        // the sender thread is not interrupted, interrupting a write would close the channel
+        senderService.shutdown();
+        stopSending();
+
+        replyTimeouts.stop();
 
         // stop the main thread
         run = false;
@@ -538,6 +700,34 @@ public abstract class AbstractConnection implements Closeable {
         }
     }
     
+    /**
+     * Send the remaining queued messages once the sender thread finished its current write.
+     * If the sender thread does not finish in time (e.g. the peer stopped reading), the queued messages fail.
+     */
+    private void stopSending() {
+        boolean locked = false;
+        try {
+            locked = sendLock.tryLock(SENDER_STOP_TIMEOUT, TimeUnit.SECONDS);
+        } catch (InterruptedException _ex) {
+            logger.debug("Interrupted while waiting for the sender thread.", _ex);
+            Thread.currentThread().interrupt();
+        }
+        if (!locked) {
+            logger.warn("Sender thread did not finish writing, queued messages are not sent.");
+            NotConnected notConnected = new NotConnected("Disconnected");
+            Message m;
+            while ((m = outgoingQueue.poll()) != null) {
+                handleSendFailure(m, notConnected);
+            }
+            return;
+        }
+        try {
+            drainOutgoingQueue();
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
     /**
      * Disconnect from the Bus.
      */
@@ -624,6 +814,49 @@ public abstract class AbstractConnection implements Closeable {
         }
     }
 
+    /**
+     * Call a method asynchronously and get a future which is completed with the reply.
+     * <p>
+     * No thread is blocked while waiting for the reply, the future is completed by the thread
+     * receiving the reply. Dependent actions should therefore be short or use one of the
+     * async methods of {@link CompletableFuture}.
+     * If the remote side answers with an error, the future is completed exceptionally
+     * with the corresponding {@link DBusExecutionException}.
+     * </p>
+     *
+     * @param <T>
+     *            return type of the method
+     * @param object
+     *            The remote object on which to call the method.
+     * @param m
+     *            The name of the method on the interface to call.
+     * @param parameters
+     *            The parameters to call the method with.
+     * @return future completed with the return value of the call
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> callMethodAsFuture(DBusInterface object, String m, Object... parameters) {
+        Class<?>[] types = createTypesArray( parameters );
+        RemoteObject ro = getImportedObjects().get(object);
+
+        try {
+            Method me;
+            if (null == ro.getInterface()) {
+                me = object.getClass().getMethod(m, types);
+            } else {
+                me = ro.getInterface().getMethod(m, types);
+            }
+            return (CompletableFuture<T>) RemoteInvocationHandler.executeRemoteMethod(ro, me, this,
+                    RemoteInvocationHandler.CALL_TYPE_FUTURE, null, parameters);
+        } catch (DBusExecutionException exDee) {
+            logger.debug("", exDee);
+            throw exDee;
+        } catch (Exception e) {
+            logger.debug("", e);
+            throw new DBusExecutionException(e.getMessage());
+        }
+    }
+
     private Class<?>[] createTypesArray(Object... parameters) {
         if (parameters == null) {
             return null;
@@ -677,7 +910,7 @@ public abstract class AbstractConnection implements Closeable {
         logger.debug("Handling incoming method call: {}", m);
 
         ExportedObject eo = null;
-        Method meth = null;
+        ExportedMethod meth = null;
         Object o = null;
 
         if (null == m.getInterface() || m.getInterface().equals("org.freedesktop.DBus.Peer")
@@ -688,7 +921,7 @@ public abstract class AbstractConnection implements Closeable {
                 eo = null;
             }
             if (null != eo) {
-                meth = eo.getMethods().get(new MethodTuple(m.getName(), m.getSig()));
+                meth = eo.getExportedMethod(new MethodTuple(m.getName(), m.getSig()));
             }
             if (null != meth) {
                 o = new GlobalHandler(this, m.getPath());
@@ -722,7 +955,7 @@ public abstract class AbstractConnection implements Closeable {
                     logger.trace("   {} => {}", mt, eo.getMethods().get(mt));
                 }
             }
-            meth = eo.getMethods().get(new MethodTuple(m.getName(), m.getSig()));
+            meth = eo.getExportedMethod(new MethodTuple(m.getName(), m.getSig()));
             if (null == meth) {
                 sendMessage(new Error(m, new UnknownMethod(String.format(
                         "The method `%s.%s' does not exist on this object.", m.getInterface(), m.getName()))));
@@ -732,7 +965,7 @@ public abstract class AbstractConnection implements Closeable {
         }
 
         // now execute it
-        final Method me = meth;
+        final ExportedMethod me = meth;
         final Object ob = o;
         final boolean noreply = (1 == (m.getFlags() & Message.Flags.NO_REPLY_EXPECTED));
         final DBusCallInfo info = new DBusCallInfo(m);
@@ -749,9 +982,10 @@ public abstract class AbstractConnection implements Closeable {
                 	return;
                 }
                 try {
-                    Type[] ts = me.getGenericParameterTypes();
-                    m.setArgs(Marshalling.deSerializeParameters(m.getParameters(), ts, conn));
-                    logger.trace("Deserialised {} to types {}", Arrays.deepToString(m.getParameters()), Arrays.deepToString(ts));
+                    m.setArgs(me.deSerializeParameters(m.getParameters(), conn));
+                    if (logger.isTraceEnabled()) {
+                        logger.trace("Deserialised {} for {}", Arrays.deepToString(m.getParameters()), me);
+                    }
                 } catch (Exception e) {
                     logger.debug("", e);
                     handleException(conn, m, new UnknownMethod("Failure in de-serializing message: " + e));
@@ -759,32 +993,23 @@ public abstract class AbstractConnection implements Closeable {
                 }
 
                 try {
-                    INFOMAP.put(Thread.currentThread(), info);
                     Object result;
-                    try {
+                    if (logger.isTraceEnabled()) {
                         logger.trace("Invoking Method: {} on {} with parameters {}", me, ob, Arrays.deepToString(m.getParameters()));
+                    }
+                    CALL_INFO.set(info);
+                    try {
                         result = me.invoke(ob, m.getParameters());
-                    } catch (InvocationTargetException ite) {
-                        logger.debug(ite.getMessage(), ite);
-                        throw ite.getCause();
+                    } finally {
+                        CALL_INFO.remove();
                     }
-                    INFOMAP.remove(Thread.currentThread());
                     if (!noreply) {
                         MethodReturn reply;
-                        if (Void.TYPE.equals(me.getReturnType())) {
+                        if (me.isVoid()) {
                             reply = new MethodReturn(m, null);
                         } else {
-                            StringBuffer sb = new StringBuffer();
-                            for (String s : Marshalling.getDBusType(me.getGenericReturnType())) {
-                                sb.append(s);
-                            }
-                            Object[] nr = Marshalling.convertParameters(new Object[] {
-                                    result
-                            }, new Type[] {
-                                    me.getGenericReturnType()
-                            }, conn);
-
-                            reply = new MethodReturn(m, sb.toString(), nr);
+                            Object[] nr = me.convertResult(result, conn);
+                            reply = new MethodReturn(m, me.getReplySignature(), nr);
                         }
                         conn.sendMessage(reply);
                     }
@@ -799,7 +1024,9 @@ public abstract class AbstractConnection implements Closeable {
                 }
             }
         };
-        executeInWorkerThreadPool(r);
+        if (!executeInWorkerThreadPool(m, null, r) && !noreply) {
+            sendMessage(new Error(m, new LimitsExceeded("Too many method calls waiting to be handled")));
+        }
     }
 
     /**
@@ -814,38 +1041,11 @@ public abstract class AbstractConnection implements Closeable {
     private void handleMessage(final DBusSignal _signal, boolean _useThreadPool) {
         logger.debug("Handling incoming signal: {}", _signal);
 
-        List<DBusSigHandler<? extends DBusSignal>> handlers = new ArrayList<>();
-        List<DBusSigHandler<DBusSignal>> genericHandlers = new ArrayList<>();
+        List<DBusSigHandler<? extends DBusSignal>> handlers = getHandledSignals().getHandlers(_signal.getInterface(),
+                _signal.getName(), _signal.getPath(), _signal.getSource());
+        List<DBusSigHandler<DBusSignal>> genericHandlers = getGenericHandledSignals().getHandlers(_signal.getInterface(),
+                _signal.getName(), _signal.getPath(), _signal.getSource());
 
-        synchronized (getHandledSignals()) {
-            List<DBusSigHandler<? extends DBusSignal>> t;
-            t = getHandledSignals().get(new SignalTuple(_signal.getInterface(), _signal.getName(), null, null));
-            if (null != t) {
-                handlers.addAll(t);
-            }
-            t = getHandledSignals().get(new SignalTuple(_signal.getInterface(), _signal.getName(), _signal.getPath(), null));
-            if (null != t) {
-                handlers.addAll(t);
-            }
-            t = getHandledSignals().get(new SignalTuple(_signal.getInterface(), _signal.getName(), null, _signal.getSource()));
-            if (null != t) {
-                handlers.addAll(t);
-            }
-            t = getHandledSignals().get(new SignalTuple(_signal.getInterface(), _signal.getName(), _signal.getPath(), _signal.getSource()));
-            if (null != t) {
-                handlers.addAll(t);
-            }
-        }
-        synchronized (getGenericHandledSignals()) {
-            List<DBusSigHandler<DBusSignal>> t;
-            Set<SignalTuple> allTuples = SignalTuple.getAllPossibleTuples(_signal.getInterface(), _signal.getName(), _signal.getPath(), _signal.getSource());
-            for( SignalTuple tuple : allTuples ){
-                t = getGenericHandledSignals().get(tuple);
-                if (null != t) {
-                    genericHandlers.addAll(t);
-                }
-            }
-        }
         if (handlers.isEmpty() && genericHandlers.isEmpty()) {
             return;
         }
@@ -873,7 +1073,9 @@ public abstract class AbstractConnection implements Closeable {
                 }
             };
             if (_useThreadPool) {
-                executeInWorkerThreadPool(command);
+                if (!executeInWorkerThreadPool(_signal, null, command)) {
+                    logger.debug("Too many signals waiting to be handled, dropped {} for handler {}", _signal, h);
+                }
             } else {
                 command.run();
             }
@@ -889,13 +1091,39 @@ public abstract class AbstractConnection implements Closeable {
                 }
             };
             if (_useThreadPool) {
-                executeInWorkerThreadPool(command);
+                if (!executeInWorkerThreadPool(_signal, null, command)) {
+                    logger.debug("Too many signals waiting to be handled, dropped {} for handler {}", _signal, h);
+                }
             } else {
                 command.run();
             }
         }
     }
     
+    /**
+     * Execute the task handling a received message.
+     * If a partition key is used, the task is run after all previous tasks of messages with the same key.
+     *
+     * @param _message received message
+     * @param _call call the message is a reply to, null if the message is no reply
+     * @param _task task
+     * @return false if the task was rejected or dropped because too many tasks are waiting
+     */
+    private boolean executeInWorkerThreadPool(Message _message, MethodCall _call, Runnable _task) {
+        Runnable task = workQueueLimiter.admit(null == _call ? Category.of(_message) : Category.CALLBACK, _task);
+        if (null == task) {
+            return false;
+        }
+        if (null == partitionedExecutor) {
+            executeInWorkerThreadPool(task);
+            return true;
+        }
+        // replies only carry the sender, object path and interface are taken from the call
+        Message keyMessage = null == _call || workerPartitionKey == PartitionKey.SENDER ? _message : _call;
+        partitionedExecutor.execute(workerPartitionKey.getKey(keyMessage), task);
+        return true;
+    }
+
     private void executeInWorkerThreadPool(Runnable task) {
         workerThreadPoolLock.readLock().lock();
         try {
@@ -907,64 +1135,73 @@ public abstract class AbstractConnection implements Closeable {
 
     private void handleMessage(final Error err) {
         logger.debug("Handling incoming error: {}", err);
-        MethodCall m = null;
-        if (getPendingCalls() == null) {
-            return;
-        }
-        synchronized (getPendingCalls()) {
-            if (getPendingCalls().containsKey(err.getReplySerial())) {
-                m = getPendingCalls().remove(err.getReplySerial());
-            }
-        }
+        MethodCall m = getPendingCalls().remove(err.getReplySerial());
         if (m != null) {
-            m.setReply(err);
-            CallbackHandler<?> cbh = null;
-            cbh = callbackManager.removeCallback(m);
-            logger.trace("{} = pendingCallbacks.remove({})", cbh, m);
+            handleErrorReply(m, err);
+        } else {
+            getPendingErrorQueue().add(err);
+        }
+    }
 
-            // queue callback for execution
-            if (null != cbh) {
-                final CallbackHandler<?> fcbh = cbh;
-                logger.trace("Adding Error Runnable with callback handler {}", fcbh);
-                Runnable command = new Runnable() {
+    /**
+     * Set the error as reply of the given (no longer pending) call and run the error callback, if any.
+     * @param m method call
+     * @param err error reply
+     */
+    private void handleErrorReply(MethodCall m, final Error err) {
+        m.setReply(err);
+        CallbackHandler<?> cbh = null;
+        cbh = callbackManager.removeCallback(m);
+        logger.trace("{} = pendingCallbacks.remove({})", cbh, m);
+
+        // queue callback for execution
+        if (null != cbh) {
+            final CallbackHandler<?> fcbh = cbh;
+            logger.trace("Adding Error Runnable with callback handler {}", fcbh);
+            Runnable command = new Runnable() {
 
-                    @Override
-                    public synchronized void run() {
-                        try {
-                            logger.trace("Running Error Callback for {}", err);
-                            DBusCallInfo info = new DBusCallInfo(err);
-                            INFOMAP.put(Thread.currentThread(), info);
+                @Override
+                public void run() {
+                    try {
+                        logger.trace("Running Error Callback for {}", err);
+                        CALL_INFO.set(new DBusCallInfo(err));
 
-                            fcbh.handleError(err.getException());
-                            INFOMAP.remove(Thread.currentThread());
+                        fcbh.handleError(err.getException());
 
-                        } catch (Exception e) {
-                            logger.debug("Exception while running error callback.", e);
-                        }
+                    } catch (Exception e) {
+                        logger.debug("Exception while running error callback.", e);
+                    } finally {
+                        CALL_INFO.remove();
                     }
-                };
-                executeInWorkerThreadPool(command);
-            }
+                }
+            };
+            executeInWorkerThreadPool(err, m, command);
+        }
+    }
 
-        } else {
-            getPendingErrorQueue().add(err);
+    /**
+     * Called by the timeout wheel if a call did not receive a reply in time.
+     * Removes the call from the pending calls and completes it with a {@link NoReply} error.
+     * @param m method call
+     */
+    private void expirePendingCall(MethodCall m) {
+        if (!getPendingCalls().remove(m.getSerial(), m)) {
+            return;
+        }
+        expiredCalls.incrementAndGet();
+        logger.debug("No reply received for {} in time", m);
+        try {
+            handleErrorReply(m, new Error("org.freedesktop.DBus.Local", "org.freedesktop.DBus.Error.NoReply",
+                    m.getSerial(), "s", "No reply within specified time"));
+        } catch (DBusException exDe) {
+            logger.debug("Unable to create NoReply error.", exDe);
         }
     }
 
     @SuppressWarnings("unchecked")
     private void handleMessage(final MethodReturn mr) {
         logger.debug("Handling incoming method return: {}", mr);
-        MethodCall m = null;
-
-        if (null == getPendingCalls()) {
-            return;
-        }
-
-        synchronized (getPendingCalls()) {
-            if (getPendingCalls().containsKey(mr.getReplySerial())) {
-                m = getPendingCalls().remove(mr.getReplySerial());
-            }
-        }
+        MethodCall m = getPendingCalls().remove(mr.getReplySerial());
 
         if (null != m) {
             m.setReply(mr);
@@ -987,22 +1224,22 @@ public abstract class AbstractConnection implements Closeable {
                 Runnable r = new Runnable() {
 
                     @Override
-                    public synchronized void run() {
+                    public void run() {
                         try {
                             logger.trace("Running Callback for {}", mr);
-                            DBusCallInfo info = new DBusCallInfo(mr);
-                            INFOMAP.put(Thread.currentThread(), info);
+                            CALL_INFO.set(new DBusCallInfo(mr));
                             Object convertRV = RemoteInvocationHandler.convertRV(mr.getSig(), mr.getParameters(),
                                     fasr.getMethod(), fasr.getConnection());
                             fcbh.handle(convertRV);
-                            INFOMAP.remove(Thread.currentThread());
 
                         } catch (Exception e) {
                             logger.debug("Exception while running callback.", e);
+                        } finally {
+                            CALL_INFO.remove();
                         }
                     }
                 };
-                executeInWorkerThreadPool(r);
+                executeInWorkerThreadPool(mr, m, r);
             }
 
         } else
@@ -1018,65 +1255,134 @@ public abstract class AbstractConnection implements Closeable {
     }
 
     /**
-     * Send a message to DBus.
-     * @param m
+     * Send messages to DBus.
+     * All messages which could be prepared successfully are written at once.
+     * @param _messages messages to send
+     * @return true if writing to the transport failed, the caller has to disconnect
      */
-    private void sendMessageInternally(Message m) {
+    private boolean sendMessagesInternally(List<Message> _messages) {
+        List<Message> prepared = new ArrayList<>(_messages.size());
+        for (Message m : _messages) {
+            try {
+                prepareMessage(m);
+                prepared.add(m);
+            } catch (Exception e) {
+                handleSendFailure(m, e);
+            }
+        }
+        if (prepared.isEmpty()) {
+            return false;
+        }
+
         try {
             if (!connected) {
                 throw new NotConnected("Disconnected");
             }
-            if (m instanceof DBusSignal) {
-                ((DBusSignal) m).appendbody(this);
+            transport.writeMessages(prepared);
+        } catch (Exception e) {
+            for (Message m : prepared) {
+                handleSendFailure(m, e);
             }
+            return e instanceof IOException;
+        }
+        return false;
+    }
 
-            if (m instanceof MethodCall) {
-                if (0 == (m.getFlags() & Message.Flags.NO_REPLY_EXPECTED)) {
-                    if (null == getPendingCalls()) {
-                        ((MethodCall) m).setReply(new Error("org.freedesktop.DBus.Local",
-                                "org.freedesktop.DBus.Local.Disconnected", 0, "s", "Disconnected"));
-                    } else {
-                        synchronized (getPendingCalls()) {
-                            getPendingCalls().put(m.getSerial(), (MethodCall) m);
-                        }
-                    }
-                }
+    /**
+     * Prepare a message for sending: append the body of signals and register method calls expecting a reply.
+     * @param m message
+     * @throws DBusException if the message could not be prepared or the connection is closed
+     */
+    private void prepareMessage(Message m) throws DBusException {
+        if (!connected) {
+            throw new NotConnected("Disconnected");
+        }
+        if (m instanceof DBusSignal) {
+            ((DBusSignal) m).appendbody(this);
+        }
+
+        if (m instanceof MethodCall) {
+            if (0 == (m.getFlags() & Message.Flags.NO_REPLY_EXPECTED)) {
+                getPendingCalls().put(m.getSerial(), (MethodCall) m);
+                scheduleReplyTimeout((MethodCall) m);
             }
+        }
+    }
 
-            transport.writeMessage(m);
+    /**
+     * Expire the given call if it does not receive a reply within its timeout ({@link MethodCall#getTimeout()}).
+     * Calls with a timeout of 0 never expire. The timeout is cancelled as soon as the call receives any reply.
+     * @param m method call
+     */
+    private void scheduleReplyTimeout(MethodCall m) {
+        long delay = m.startTimeout();
+        if (delay > 0) {
+            scheduleExpiry(m, delay);
+        }
+    }
 
-        } catch (Exception e) {
-            logger.debug("Exception while sending message.", e);
-            if (m instanceof MethodCall && e instanceof NotConnected) {
-                try {
-                    ((MethodCall) m).setReply(new Error("org.freedesktop.DBus.Local",
-                            "org.freedesktop.DBus.Local.Disconnected", 0, "s", "Disconnected"));
-                } catch (DBusException exDe) {
-                }
+    private void scheduleExpiry(MethodCall m, long delay) {
+        TimeoutWheel.Timeout timeout = replyTimeouts.schedule(() -> expireIfDue(m), delay);
+        if (null != timeout) {
+            m.getReplyFuture().thenRun(timeout::cancel);
+        }
+    }
+
+    /**
+     * Expire the call unless its timeout was extended in the meantime by waiting longer for the reply.
+     * @param m method call
+     */
+    private void expireIfDue(MethodCall m) {
+        long remaining = m.getRemainingTime();
+        if (0 == remaining) {
+            expirePendingCall(m);
+        } else if (Long.MAX_VALUE != remaining) {
+            scheduleExpiry(m, remaining);
+        }
+    }
+
+    /**
+     * Returns the number of method calls which did not receive a reply in time.
+     * @return long
+     */
+    public long getExpiredCallCount() {
+        return expiredCalls.get();
+    }
+
+    /**
+     * Handle a message which could not be sent.
+     * Method calls will receive an error as reply, for method returns an error is sent instead.
+     * @param m message
+     * @param e cause
+     */
+    private void handleSendFailure(Message m, Exception e) {
+        logger.debug("Exception while sending message.", e);
+        if (m instanceof MethodCall && e instanceof NotConnected) {
+            try {
+                ((MethodCall) m).setReply(new Error("org.freedesktop.DBus.Local",
+                        "org.freedesktop.DBus.Local.Disconnected", 0, "s", "Disconnected"));
+            } catch (DBusException exDe) {
             }
-            if (m instanceof MethodCall && e instanceof DBusExecutionException) {
-                try {
-                    ((MethodCall) m).setReply(new Error(m, e));
-                } catch (DBusException exDe) {
-                }
-            } else if (m instanceof MethodCall) {
-                try {
-                    logger.info("Setting reply to {} as an error", m);
-                    ((MethodCall) m).setReply(
-                            new Error(m, new DBusExecutionException("Message Failed to Send: " + e.getMessage())));
-                } catch (DBusException exDe) {
-                }
-            } else if (m instanceof MethodReturn) {
-                try {
-                    transport.writeMessage(new Error(m, e));
-                } catch (IOException exIo) {
-                    logger.debug("", exIo);
-                } catch (DBusException exDe) {
-                    logger.debug("", exDe);
-                }
+        }
+        if (m instanceof MethodCall && e instanceof DBusExecutionException) {
+            try {
+                ((MethodCall) m).setReply(new Error(m, e));
+            } catch (DBusException exDe) {
+            }
+        } else if (m instanceof MethodCall) {
+            try {
+                logger.info("Setting reply to {} as an error", m);
+                ((MethodCall) m).setReply(
+                        new Error(m, new DBusExecutionException("Message Failed to Send: " + e.getMessage())));
+            } catch (DBusException exDe) {
             }
-            if (e instanceof IOException) {
-                disconnect();
+        } else if (m instanceof MethodReturn) {
+            try {
+                transport.writeMessage(new Error(m, e));
+            } catch (IOException exIo) {
+                logger.debug("", exIo);
+            } catch (DBusException exDe) {
+                logger.debug("", exDe);
             }
         }
     }
@@ -1114,7 +1420,7 @@ public abstract class AbstractConnection implements Closeable {
      * @return the DBusCallInfo for this method call, or null if we are not in a method call.
      */
     public static DBusCallInfo getCallInfo() {
-        return INFOMAP.get(Thread.currentThread());
+        return CALL_INFO.get();
     }
 
     /**
@@ -1147,15 +1453,15 @@ public abstract class AbstractConnection implements Closeable {
         return pendingErrorQueue;
     }
 
-    protected Map<SignalTuple, List<DBusSigHandler<? extends DBusSignal>>> getHandledSignals() {
+    protected SignalHandlerIndex<DBusSigHandler<? extends DBusSignal>> getHandledSignals() {
         return handledSignals;
     }
 
-    protected Map<SignalTuple, List<DBusSigHandler<DBusSignal>>> getGenericHandledSignals() {
+    protected SignalHandlerIndex<DBusSigHandler<DBusSignal>> getGenericHandledSignals() {
         return genericHandledSignals;
     }
 
-    protected Map<Long, MethodCall> getPendingCalls() {
+    protected PendingCallTable getPendingCalls() {
         return pendingCalls;
     }
 
@@ -1187,6 +1493,135 @@ public abstract class AbstractConnection implements Closeable {
         return endianness;
     }
     
+    /**
+     * Use shared selector threads to read incoming messages for all connections created afterwards.
+     * This avoids one blocking reader thread per connection, which is useful for processes
+     * holding many connections at the same time.
+     * Shared selector mode cannot be combined with a work queue limit using {@link OverflowPolicy#BLOCK},
+     * as blocking a shared selector thread would stop reading for all connections.
+     * Defaults to false.
+     *
+     * @param _sharedSelector true to enable shared selector mode
+     * @throws IllegalStateException if a work queue limit with {@link OverflowPolicy#BLOCK} is set
+     */
+    public static synchronized void setSharedSelector(boolean _sharedSelector) {
+        if (_sharedSelector) {
+            for (Category category : Category.values()) {
+                if (QUEUE_CAPACITIES[category.ordinal()] > 0 && OVERFLOW_POLICIES[category.ordinal()] == OverflowPolicy.BLOCK) {
+                    throw new IllegalStateException("Shared selector mode cannot be used with a blocking work queue limit for " + category);
+                }
+            }
+        }
+        sharedSelector = _sharedSelector;
+    }
+
+    /**
+     * Whether new connections will read incoming messages using the shared selector threads.
+     * @return true if enabled
+     */
+    public static boolean isSharedSelector() {
+        return sharedSelector;
+    }
+
+    /**
+     * Handle received messages in order per sender, object path or interface for all connections created afterwards.
+     * Method calls, signals and callbacks with the same key are handled one after another in the order they
+     * were received, while messages with different keys are usually handled in parallel using all available cores.
+     * Keys are hashed onto {@link PartitionedExecutor#DEFAULT_LANES} lanes, so messages with different keys
+     * may share a lane and are then handled one after another as well.
+     * Handlers must therefore not wait for any other received message (e.g. call a method of an object exported
+     * by the same connection or wait for a signal), not only for messages with the same key: if the other message
+     * was queued on the same lane, it will only be handled after the waiting handler returned, which deadlocks.
+     * Defaults to {@link PartitionKey#NONE}, which handles all messages in parallel without any ordering.
+     *
+     * @param _partitionKey key to use, null for {@link PartitionKey#NONE}
+     */
+    public static void setPartitionKey(PartitionKey _partitionKey) {
+        partitionKey = null == _partitionKey ? PartitionKey.NONE : _partitionKey;
+    }
+
+    /**
+     * Key used to partition the handling of received messages by new connections.
+     * @return {@link PartitionKey}, never null
+     */
+    public static PartitionKey getPartitionKey() {
+        return partitionKey;
+    }
+
+    /**
+     * Limit the number of received messages of a category waiting for a worker thread for all connections created afterwards.
+     * Without a limit, a flood of messages which cannot be handled fast enough fills the memory.
+     * <ul>
+     * <li>{@link OverflowPolicy#BLOCK} stops reading messages until a waiting message was taken by a worker thread
+     * (this also delays replies to calls made by the handlers), not allowed in shared selector mode</li>
+     * <li>{@link OverflowPolicy#DROP_OLDEST} (signals only) drops the oldest waiting signal</li>
+     * <li>{@link OverflowPolicy#REJECT} (method calls only) answers the new call with a {@link LimitsExceeded} error</li>
+     * </ul>
+     * Callbacks only support {@link OverflowPolicy#BLOCK}. Defaults to no limit.
+     *
+     * @param _category message category
+     * @param _capacity maximum number of waiting messages, 0 for no limit
+     * @param _policy what to do if the limit is reached
+     * @throws IllegalArgumentException if the policy is not supported by the category,
+     *          or if it is {@link OverflowPolicy#BLOCK} and shared selector mode is enabled
+     */
+    public static synchronized void setWorkQueueLimit(Category _category, int _capacity, OverflowPolicy _policy) {
+        if (_capacity > 0) {
+            _category.checkPolicy(_policy);
+            if (sharedSelector && _policy == OverflowPolicy.BLOCK) {
+                // blocking would stop the shared selector thread, which also reads all other connections
+                throw new IllegalArgumentException("Blocking work queue limits cannot be used in shared selector mode");
+            }
+        }
+        QUEUE_CAPACITIES[_category.ordinal()] = Math.max(0, _capacity);
+        OVERFLOW_POLICIES[_category.ordinal()] = _policy;
+    }
+
+    /**
+     * Let the worker thread pool of connections created afterwards grow and shrink between the given limits,
+     * depending on how long received messages wait for a worker thread.
+     * {@link #changeThreadCount(byte)} has no effect on adaptive pools.
+     *
+     * @param _minThreads minimum number of worker threads
+     * @param _maxThreads maximum number of worker threads, 0 to use a fixed size pool (default)
+     */
+    public static synchronized void setAdaptiveWorkerThreads(int _minThreads, int _maxThreads) {
+        if (_maxThreads > 0 && (_minThreads <= 0 || _minThreads > _maxThreads)) {
+            throw new IllegalArgumentException("Invalid thread limits " + _minThreads + "/" + _maxThreads);
+        }
+        adaptiveMinThreads = _minThreads;
+        adaptiveMaxThreads = Math.max(0, _maxThreads);
+    }
+
+    /**
+     * Run exported methods, callbacks and signal handlers of connections created afterwards on virtual threads.
+     * Every task gets its own thread, so handlers which block on I/O or wait for other DBus calls do not
+     * limit the number of messages handled concurrently. {@link #changeThreadCount(byte)} has no effect in this mode.
+     * Requires Java 21 or later, older JVMs keep using a fixed thread pool.
+     * Defaults to false.
+     *
+     * @param _virtualThreads true to use virtual threads
+     */
+    public static void setVirtualThreads(boolean _virtualThreads) {
+        virtualThreads = _virtualThreads;
+    }
+
+    /**
+     * Whether new connections will use virtual threads for handling received messages.
+     * @return true if enabled
+     */
+    public static boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Whether the running JVM supports virtual threads.
+     * @return true if supported
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return VirtualThreads.isSupported();
+    }
+
     /**
      * Get the default system endianness.
      * 
@@ -1197,4 +1632,29 @@ public abstract class AbstractConnection implements Closeable {
                 Message.Endian.BIG 
                 : Message.Endian.LITTLE;
     }
+
+    /**
+     * Receives messages from the shared selector thread when the transport is operated in non-blocking mode.
+     * Behaves like {@link IncomingMessageThread}.
+     */
+    private class SelectorMessageHandler implements IMessageHandler {
+
+        @Override
+        public void handleMessage(Message _message) throws DBusException {
+            logger.trace("Got Incoming Message: {}", _message);
+            AbstractConnection.this.handleMessage(_message);
+        }
+
+        @Override
+        public void handleReadError(Exception _ex) {
+            if (!run) { // connection is already shutting down
+                return;
+            }
+            logger.error("Exception while reading from transport, disconnecting.", _ex);
+            // never block the shared selector thread with a disconnect
+            Thread disconnectThread = new Thread(AbstractConnection.this::disconnect, "DBus Disconnect Thread");
+            disconnectThread.setDaemon(true);
+            disconnectThread.start();
+        }
+    }
 }
@@ -0,0 +1,116 @@
+/*
+   D-Bus Java Implementation
+   Copyright (c) 2017-2019 David M.
+
+   This program is free software; you can redistribute it and/or modify it
+   under the terms of either the GNU Lesser General Public License Version 2 or the
+   Academic Free Licence Version 2.1.
+
+   Full licence texts are included in the LICENSE file with this program.
+*/
+
+package org.freedesktop.dbus.connections;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Worker thread pool which adjusts its number of threads to the time tasks wait for a thread.
+ * <p>
+ * {@link #adjust()} has to be called periodically. It adds threads if the average waiting time
+ * since the last call exceeded {@link #GROW_WAIT_MILLIS} or if no task was completed while tasks
+ * were waiting (all threads blocked), and removes a thread if tasks were started almost immediately
+ * and some threads were idle.
+ * </p>
+ */
+public class AdaptiveWorkerPool implements LongConsumer {
+    /** Interval in which {@link #adjust()} should be called. */
+    public static final long   ADJUST_INTERVAL_MILLIS = 200;
+    /** Average waiting time above which threads are added. */
+    public static final long   GROW_WAIT_MILLIS       = 20;
+    /** Average waiting time below which idle threads are removed. */
+    public static final long   SHRINK_WAIT_MILLIS     = 2;
+
+    private final Logger             logger          = LoggerFactory.getLogger(getClass());
+
+    private final ThreadPoolExecutor pool;
+    private final int                minThreads;
+    private final int                maxThreads;
+
+    private final AtomicLong         waitSum         = new AtomicLong();
+    private final AtomicLong         waitCount       = new AtomicLong();
+    private long                     lastCompleted;
+
+    /**
+     * Create a new pool starting with the minimum number of threads.
+     *
+     * @param _minThreads minimum number of threads
+     * @param _maxThreads maximum number of threads
+     * @param _threadFactory factory for the worker threads
+     */
+    public AdaptiveWorkerPool(int _minThreads, int _maxThreads, ThreadFactory _threadFactory) {
+        if (_minThreads <= 0 || _maxThreads < _minThreads) {
+            throw new IllegalArgumentException("Invalid thread limits " + _minThreads + "/" + _maxThreads);
+        }
+        minThreads = _minThreads;
+        maxThreads = _maxThreads;
+        // the queue is unbounded, so the pool only grows by increasing the core size
+        pool = new ThreadPoolExecutor(_minThreads, _maxThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), _threadFactory);
+    }
+
+    public ThreadPoolExecutor getExecutor() {
+        return pool;
+    }
+
+    /**
+     * Record the time a task waited for a worker thread.
+     * @param _waitNanos waiting time in nanoseconds
+     */
+    @Override
+    public void accept(long _waitNanos) {
+        waitSum.addAndGet(_waitNanos);
+        waitCount.incrementAndGet();
+    }
+
+    /**
+     * Adjust the number of threads to the waiting times recorded since the last call.
+     */
+    public void adjust() {
+        if (pool.isShutdown()) {
+            return;
+        }
+        long count = waitCount.getAndSet(0);
+        long sum = waitSum.getAndSet(0);
+        long avgWaitMillis = count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(sum / count);
+
+        long completed = pool.getCompletedTaskCount();
+        boolean waiting = !pool.getQueue().isEmpty();
+        boolean stalled = waiting && completed == lastCompleted;
+        lastCompleted = completed;
+
+        int threads = pool.getCorePoolSize();
+        if ((avgWaitMillis > GROW_WAIT_MILLIS || stalled) && threads < maxThreads) {
+            int newThreads = Math.min(maxThreads, threads + Math.max(1, threads / 4));
+            logger.debug("Tasks waited {} ms on average (stalled: {}), increasing worker threads to {}", avgWaitMillis, stalled, newThreads);
+            pool.setCorePoolSize(newThreads);
+        } else if (avgWaitMillis < SHRINK_WAIT_MILLIS && !waiting && pool.getActiveCount() < threads && threads > minThreads) {
+            logger.debug("Worker threads idle, decreasing worker threads to {}", threads - 1);
+            pool.setCorePoolSize(threads - 1);
+        }
+    }
+
+    public int getMinThreads() {
+        return minThreads;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+}
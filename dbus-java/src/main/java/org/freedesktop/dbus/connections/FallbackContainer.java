@@ -1,10 +1,7 @@
 package org.freedesktop.dbus.connections;
 
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
-
 import org.freedesktop.dbus.messages.ExportedObject;
+import org.freedesktop.dbus.messages.PathTrie;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,39 +13,28 @@ public class FallbackContainer {
     FallbackContainer() {
     }
 
-    private final Logger                  logger    = LoggerFactory.getLogger(getClass());
-    private Map<String[], ExportedObject> fallbacks = new HashMap<>();
+    private final Logger                     logger    = LoggerFactory.getLogger(getClass());
+    private final PathTrie<ExportedObject>   fallbacks = new PathTrie<>();
 
-    public synchronized void add(String path, ExportedObject eo) {
+    public void add(String path, ExportedObject eo) {
         logger.debug("Adding fallback on {} of {}", path, eo);
-        fallbacks.put(path.split("/"), eo);
+        fallbacks.put(path, eo);
     }
 
-    public synchronized void remove(String path) {
+    public void remove(String path) {
         logger.debug("Removing fallback on {}", path);
-        fallbacks.remove(path.split("/"));
+        fallbacks.remove(path);
     }
 
-    public synchronized ExportedObject get(String path) {
-        int best = 0;
-        int i = 0;
-        ExportedObject bestobject = null;
-        String[] pathel = path.split("/");
-        for (String[] fbpath : fallbacks.keySet()) {
-            logger.trace("Trying fallback path {} to match {}",
-                    Arrays.deepToString(fbpath), Arrays.deepToString(pathel));
-            for (i = 0; i < pathel.length && i < fbpath.length; i++) {
-                if (!pathel[i].equals(fbpath[i])) {
-                    break;
-                }
-            }
-            if (i > 0 && i == fbpath.length && i > best) {
-                bestobject = fallbacks.get(fbpath);
-            }
-            logger.trace("Matches {} bestobject now {}", i, bestobject);
-        }
-
+    /**
+     * Get the fallback registered for the longest prefix of the given path.
+     *
+     * @param path object path
+     * @return fallback or null
+     */
+    public ExportedObject get(String path) {
+        ExportedObject bestobject = fallbacks.getLongestPrefix(path);
         logger.debug("Found fallback for {} of {}", path, bestobject);
         return bestobject;
     }
-}
\ No newline at end of file
+}
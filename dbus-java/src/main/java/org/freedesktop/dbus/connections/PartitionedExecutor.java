@@ -0,0 +1,176 @@
+/*
+   D-Bus Java Implementation
+   Copyright (c) 2017-2019 David M.
+
+   This program is free software; you can redistribute it and/or modify it
+   under the terms of either the GNU Lesser General Public License Version 2 or the
+   Academic Free Licence Version 2.1.
+
+   Full licence texts are included in the LICENSE file with this program.
+*/
+
+package org.freedesktop.dbus.connections;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.freedesktop.dbus.messages.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes tasks in order of submission per key while tasks with different keys run in parallel.
+ * <p>
+ * Keys are hashed onto a fixed number of lanes. Each lane is a serial queue which is drained by
+ * at most one thread of the backing executor at a time, so tasks with the same key never run
+ * concurrently or out of order. Tasks with different keys may share a lane and are then serialized as well.
+ * </p>
+ * A task must not wait for another task with the same key, this would block the lane forever.
+ */
+public class PartitionedExecutor {
+    /** Default number of lanes. */
+    public static final int  DEFAULT_LANES     = 64;
+
+    /** Maximum number of tasks a lane runs before giving the thread back to the backing executor. */
+    private static final int MAX_TASKS_PER_RUN = 64;
+
+    private final Logger     logger            = LoggerFactory.getLogger(getClass());
+
+    private final Executor   executor;
+    private final Lane[]     lanes;
+
+    /**
+     * Create a new executor.
+     *
+     * @param _executor executor running the lanes
+     * @param _lanes number of lanes, rounded up to the next power of two
+     */
+    public PartitionedExecutor(Executor _executor, int _lanes) {
+        if (_lanes <= 0 || _lanes > 1 << 16) {
+            throw new IllegalArgumentException("Invalid number of lanes " + _lanes);
+        }
+        int laneCount = Integer.highestOneBit(_lanes);
+        if (laneCount < _lanes) {
+            laneCount <<= 1;
+        }
+        executor = _executor;
+        lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane();
+        }
+    }
+
+    /**
+     * Execute a task after all previously submitted tasks with the same key.
+     *
+     * @param _key key, null is a valid key
+     * @param _task task
+     */
+    public void execute(Object _key, Runnable _task) {
+        int h = null == _key ? 0 : _key.hashCode();
+        h ^= h >>> 16;
+        lanes[h & (lanes.length - 1)].execute(_task);
+    }
+
+    /**
+     * Number of tasks waiting in all lanes.
+     * @return int
+     */
+    public int getQueuedTaskCount() {
+        int count = 0;
+        for (Lane lane : lanes) {
+            count += lane.queue.size();
+        }
+        return count;
+    }
+
+    /**
+     * Serial queue of tasks.
+     */
+    private final class Lane implements Runnable {
+        private final Queue<Runnable> queue     = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean   scheduled = new AtomicBoolean();
+
+        void execute(Runnable _task) {
+            queue.add(_task);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RuntimeException _ex) {
+                    scheduled.set(false);
+                    throw _ex;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                for (int i = 0; i < MAX_TASKS_PER_RUN; i++) {
+                    Runnable task = queue.poll();
+                    if (null == task) {
+                        break;
+                    }
+                    try {
+                        task.run();
+                    } catch (Throwable _ex) {
+                        // a failing task must not stop the lane, otherwise all further tasks of its keys would be lost
+                        logger.warn("Task failed", _ex);
+                    }
+                }
+                scheduled.set(false);
+                // tasks added while the flag was still set have not been scheduled
+                if (queue.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    executor.execute(this);
+                    return;
+                } catch (RejectedExecutionException _ex) {
+                    // executor is shutting down, run the remaining tasks in this thread
+                    logger.debug("Unable to reschedule lane, continuing in current thread");
+                }
+            }
+        }
+    }
+
+    /**
+     * Part of a message used to select the lane of the tasks handling it.
+     */
+    public enum PartitionKey {
+        /** No ordering, tasks are directly passed to the worker thread pool. */
+        NONE,
+        /** Messages from the same sender are handled in order. */
+        SENDER,
+        /** Messages for the same object path are handled in order. */
+        OBJECT_PATH,
+        /** Messages for the same interface are handled in order. */
+        INTERFACE;
+
+        /**
+         * Get the key of the given message.
+         *
+         * @param _message received message
+         * @return key, may be null
+         */
+        public Object getKey(Message _message) {
+            switch (this) {
+                case SENDER:
+                    return _message.getSource();
+                case OBJECT_PATH:
+                    return _message.getPath();
+                case INTERFACE:
+                    return _message.getInterface();
+                default:
+                    return null;
+            }
+        }
+    }
+}
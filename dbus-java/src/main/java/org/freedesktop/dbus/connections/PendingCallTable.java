@@ -0,0 +1,238 @@
+/*
+   D-Bus Java Implementation
+   Copyright (c) 2017-2019 David M.
+
+   This program is free software; you can redistribute it and/or modify it
+   under the terms of either the GNU Lesser General Public License Version 2 or the
+   Academic Free Licence Version 2.1.
+
+   Full licence texts are included in the LICENSE file with this program.
+*/
+
+package org.freedesktop.dbus.connections;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.freedesktop.dbus.messages.MethodCall;
+
+/**
+ * Concurrent table of method calls waiting for a reply, keyed by their serial.
+ * <p>
+ * Serials are stored as primitive longs (no boxing). The table is split into stripes,
+ * each stripe is an open addressing hash table with its own lock, so sending a call and
+ * receiving the reply of another call rarely contend.
+ * </p>
+ * Serial 0 is not a valid serial and is used to mark free slots.
+ */
+public class PendingCallTable {
+    private static final int    STRIPES          = 16;
+    private static final int    INITIAL_CAPACITY = 16;
+    private static final long   GOLDEN_RATIO     = 0x9E3779B97F4A7C15L;
+
+    private final Stripe[]      stripes          = new Stripe[STRIPES];
+
+    public PendingCallTable() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    private Stripe stripe(long _serial) {
+        // serials are mostly sequential, so the lowest bits distribute calls evenly
+        return stripes[(int) (_serial & (STRIPES - 1))];
+    }
+
+    /**
+     * Add a call waiting for a reply.
+     *
+     * @param _serial serial of the call, must not be 0
+     * @param _call call
+     */
+    public void put(long _serial, MethodCall _call) {
+        if (_serial == 0) {
+            throw new IllegalArgumentException("Serial must not be 0");
+        }
+        stripe(_serial).put(_serial, _call);
+    }
+
+    /**
+     * Get the call with the given serial.
+     *
+     * @param _serial serial
+     * @return call or null
+     */
+    public MethodCall get(long _serial) {
+        return _serial == 0 ? null : stripe(_serial).get(_serial);
+    }
+
+    /**
+     * Remove the call with the given serial.
+     *
+     * @param _serial serial
+     * @return removed call or null if no call with that serial was pending
+     */
+    public MethodCall remove(long _serial) {
+        return _serial == 0 ? null : stripe(_serial).remove(_serial, null);
+    }
+
+    /**
+     * Remove the call with the given serial if it is the given call.
+     *
+     * @param _serial serial
+     * @param _call expected call
+     * @return true if the call was removed
+     */
+    public boolean remove(long _serial, MethodCall _call) {
+        return _serial != 0 && _call != null && stripe(_serial).remove(_serial, _call) != null;
+    }
+
+    /**
+     * Remove all pending calls.
+     *
+     * @return removed calls
+     */
+    public List<MethodCall> removeAll() {
+        List<MethodCall> removed = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.removeAll(removed);
+        }
+        return removed;
+    }
+
+    /**
+     * Number of pending calls.
+     * @return int
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Open addressing hash table using linear probing.
+     * Removed entries are filled by moving following entries back, so no tombstones are needed.
+     */
+    private static final class Stripe {
+        private long[]       keys   = new long[INITIAL_CAPACITY];
+        private MethodCall[] values = new MethodCall[INITIAL_CAPACITY];
+        private int          shift  = 64 - Integer.numberOfTrailingZeros(INITIAL_CAPACITY);
+        private int          size;
+
+        private int index(long _key) {
+            return (int) ((_key * GOLDEN_RATIO) >>> shift);
+        }
+
+        synchronized void put(long _key, MethodCall _value) {
+            int mask = keys.length - 1;
+            int i = index(_key);
+            while (keys[i] != 0) {
+                if (keys[i] == _key) {
+                    values[i] = _value;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = _key;
+            values[i] = _value;
+            // keep the load factor at or below 1/2
+            if (++size > keys.length >>> 1) {
+                resize(keys.length << 1);
+            }
+        }
+
+        synchronized MethodCall get(long _key) {
+            int i = find(_key);
+            return i < 0 ? null : values[i];
+        }
+
+        /**
+         * Remove the entry with the given key, if _expected is not null only if it is mapped to _expected.
+         */
+        synchronized MethodCall remove(long _key, MethodCall _expected) {
+            int i = find(_key);
+            if (i < 0 || _expected != null && values[i] != _expected) {
+                return null;
+            }
+            MethodCall value = values[i];
+            delete(i);
+            // release memory after bursts of outstanding calls
+            if (--size < keys.length >>> 3 && keys.length > INITIAL_CAPACITY) {
+                resize(keys.length >>> 1);
+            }
+            return value;
+        }
+
+        synchronized void removeAll(List<MethodCall> _removed) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0) {
+                    _removed.add(values[i]);
+                }
+            }
+            keys = new long[INITIAL_CAPACITY];
+            values = new MethodCall[INITIAL_CAPACITY];
+            shift = 64 - Integer.numberOfTrailingZeros(INITIAL_CAPACITY);
+            size = 0;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private int find(long _key) {
+            int mask = keys.length - 1;
+            int i = index(_key);
+            while (keys[i] != 0) {
+                if (keys[i] == _key) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void delete(int _index) {
+            int mask = keys.length - 1;
+            int free = _index;
+            int i = (free + 1) & mask;
+            while (keys[i] != 0) {
+                int home = index(keys[i]);
+                // move the entry back if the free slot lies between its home slot and its current slot
+                if (((i - home) & mask) >= ((i - free) & mask)) {
+                    keys[free] = keys[i];
+                    values[free] = values[i];
+                    free = i;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[free] = 0;
+            values[free] = null;
+        }
+
+        private void resize(int _capacity) {
+            long[] oldKeys = keys;
+            MethodCall[] oldValues = values;
+            keys = new long[_capacity];
+            values = new MethodCall[_capacity];
+            shift = 64 - Integer.numberOfTrailingZeros(_capacity);
+            int mask = _capacity - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] != 0) {
+                    int i = index(oldKeys[j]);
+                    while (keys[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+   D-Bus Java Implementation
+   Copyright (c) 2017-2019 David M.
+
+   This program is free software; you can redistribute it and/or modify it
+   under the terms of either the GNU Lesser General Public License Version 2 or the
+   Academic Free Licence Version 2.1.
+
+   Full licence texts are included in the LICENSE file with this program.
+*/
+
+package org.freedesktop.dbus.connections;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.freedesktop.dbus.SignalTuple;
+
+/**
+ * Registered signal handlers, indexed by the interface, member, object path and source of their match rule.
+ * <p>
+ * Handlers are added and removed under a lock, while signals are dispatched using an immutable
+ * snapshot of the index. The snapshot is rebuilt on the first lookup after the handlers changed,
+ * so looking up the handlers of a signal requires neither locking nor copying the handler lists.
+ * </p>
+ * A null value in a {@link SignalTuple} matches every value of that field.
+ *
+ * @param <T> handler type
+ */
+public class SignalHandlerIndex<T> {
+    private final boolean                  wildcardMember;
+
+    private final Map<SignalTuple, List<T>> handlers = new HashMap<>();
+    private volatile Node<T>               snapshot;
+
+    /**
+     * Create a new index.
+     *
+     * @param _wildcardMember if false, only handlers registered with interface and member will be found,
+     *          if true, every rule with at least one field set may match
+     */
+    public SignalHandlerIndex(boolean _wildcardMember) {
+        wildcardMember = _wildcardMember;
+    }
+
+    /**
+     * Add a handler.
+     *
+     * @param _key match rule of the handler
+     * @param _handler handler
+     * @return true if this is the first handler for the given match rule
+     */
+    public synchronized boolean add(SignalTuple _key, T _handler) {
+        List<T> v = handlers.get(_key);
+        boolean first = null == v;
+        if (first) {
+            v = new ArrayList<>();
+            handlers.put(_key, v);
+        }
+        v.add(_handler);
+        snapshot = null;
+        return first;
+    }
+
+    /**
+     * Remove a handler.
+     *
+     * @param _key match rule of the handler
+     * @param _handler handler
+     * @return true if the last handler of the given match rule was removed
+     */
+    public synchronized boolean remove(SignalTuple _key, T _handler) {
+        List<T> v = handlers.get(_key);
+        if (null == v || !v.remove(_handler)) {
+            return false;
+        }
+        snapshot = null;
+        if (v.isEmpty()) {
+            handlers.remove(_key);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get all handlers matching a signal.
+     * The returned list must not be modified.
+     *
+     * @param _interface interface of the signal
+     * @param _member name of the signal
+     * @param _path object path of the signal
+     * @param _source source of the signal
+     * @return matching handlers, maybe empty, never null
+     */
+    public List<T> getHandlers(String _interface, String _member, String _path, String _source) {
+        Node<T> root = snapshot;
+        if (null == root) {
+            root = rebuild();
+        }
+        List<T> found = null;
+        if (wildcardMember) {
+            found = collect(root, 0, _interface, _member, _path, _source, true, null);
+        } else if (null != _interface && null != _member) {
+            Node<T> member = root.child(_interface);
+            member = null == member ? null : member.child(_member);
+            if (null != member) {
+                found = collect(member, 2, _interface, _member, _path, _source, false, null);
+            }
+        }
+        return null == found ? Collections.emptyList() : found;
+    }
+
+    /**
+     * Visit the children for the actual value and the wildcard of the given level and
+     * add the handlers of all reached leaves to _found.
+     * If all levels used the wildcard, the rule has no fields set and never matches.
+     */
+    private static <T> List<T> collect(Node<T> _node, int _level, String _interface, String _member, String _path, String _source,
+            boolean _allWildcards, List<T> _found) {
+        if (_level == 4) {
+            return _allWildcards ? _found : merge(_found, _node.handlers);
+        }
+        String value = _level == 0 ? _interface : _level == 1 ? _member : _level == 2 ? _path : _source;
+
+        List<T> found = _found;
+        Node<T> wildcard = _node.child(null);
+        if (null != wildcard) {
+            found = collect(wildcard, _level + 1, _interface, _member, _path, _source, _allWildcards, found);
+        }
+        if (null != value) {
+            Node<T> exact = _node.child(value);
+            if (null != exact) {
+                found = collect(exact, _level + 1, _interface, _member, _path, _source, false, found);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * A single matching handler list is returned as it is, a new list is only created
+     * if handlers of several match rules have to be combined.
+     */
+    private static <T> List<T> merge(List<T> _found, List<T> _handlers) {
+        if (null == _found) {
+            return _handlers;
+        }
+        List<T> merged = _found instanceof MergedList ? _found : new MergedList<>(_found);
+        merged.addAll(_handlers);
+        return merged;
+    }
+
+    private synchronized Node<T> rebuild() {
+        Node<T> root = snapshot;
+        if (null != root) {
+            return root;
+        }
+        root = new Node<>();
+        for (Entry<SignalTuple, List<T>> e : handlers.entrySet()) {
+            SignalTuple key = e.getKey();
+            Node<T> leaf = root.getOrCreate(key.getType())
+                    .getOrCreate(key.getName())
+                    .getOrCreate(key.getObject())
+                    .getOrCreate(key.getSource());
+            leaf.handlers = Collections.unmodifiableList(new ArrayList<>(e.getValue()));
+        }
+        snapshot = root;
+        return root;
+    }
+
+    /**
+     * Node of the index. Inner nodes map field values (null for the wildcard) to child nodes,
+     * leaves contain the handlers. Nodes are not modified after the snapshot has been published.
+     */
+    private static final class Node<T> {
+        private final Map<String, Node<T>> children = new HashMap<>();
+        private List<T>                    handlers;
+
+        Node<T> getOrCreate(String _key) {
+            return children.computeIfAbsent(_key, k -> new Node<>());
+        }
+
+        Node<T> child(String _key) {
+            return children.get(_key);
+        }
+    }
+
+    private static final class MergedList<T> extends ArrayList<T> {
+        private static final long serialVersionUID = 1L;
+
+        MergedList(List<T> _first) {
+            super(_first);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+   D-Bus Java Implementation
+   Copyright (c) 2017-2019 David M.
+
+   This program is free software; you can redistribute it and/or modify it
+   under the terms of either the GNU Lesser General Public License Version 2 or the
+   Academic Free Licence Version 2.1.
+
+   Full licence texts are included in the LICENSE file with this program.
+*/
+
+package org.freedesktop.dbus.connections;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hashed timer wheel used to expire method calls which did not receive a reply in time.
+ * <p>
+ * Timeouts are put into one of a fixed number of buckets based on their deadline, a single thread
+ * advances the wheel one bucket per tick and runs the expired timeouts. Scheduling and cancelling
+ * are O(1), so the wheel can handle a large number of outstanding calls.
+ * Timeouts are run at most one tick late and never early.
+ * </p>
+ * The thread is started on the first scheduled timeout and sleeps while the wheel is empty.
+ */
+public class TimeoutWheel {
+    /** Default tick duration in milliseconds. */
+    public static final long DEFAULT_TICK_DURATION = 100;
+    /** Default number of buckets, must be a power of two. */
+    public static final int  DEFAULT_WHEEL_SIZE    = 512;
+
+    private final Logger     logger                = LoggerFactory.getLogger(getClass());
+
+    private final String     threadName;
+    private final long       tickNanos;
+    private final Timeout[]  buckets;
+    private final int        mask;
+
+    private final AtomicLong expiredCount          = new AtomicLong();
+
+    private Thread           thread;
+    private boolean          running;
+    private long             currentTick;
+    private int              size;
+
+    public TimeoutWheel(String _threadName) {
+        this(_threadName, DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Create a new wheel.
+     *
+     * @param _threadName name of the thread running expired timeouts
+     * @param _tickDuration duration of one tick in milliseconds
+     * @param _wheelSize number of buckets, rounded up to the next power of two
+     */
+    public TimeoutWheel(String _threadName, long _tickDuration, int _wheelSize) {
+        if (_tickDuration <= 0) {
+            throw new IllegalArgumentException("Tick duration must be positive");
+        }
+        if (_wheelSize <= 0 || _wheelSize > 1 << 30) {
+            throw new IllegalArgumentException("Invalid wheel size " + _wheelSize);
+        }
+        int wheelSize = Integer.highestOneBit(_wheelSize);
+        if (wheelSize < _wheelSize) {
+            wheelSize <<= 1;
+        }
+        threadName = _threadName;
+        tickNanos = TimeUnit.MILLISECONDS.toNanos(_tickDuration);
+        buckets = new Timeout[wheelSize];
+        mask = wheelSize - 1;
+        running = true;
+    }
+
+    /**
+     * Schedule a task which is run by the wheel thread when the timeout expires.
+     * The task should be short, it delays all other expired timeouts.
+     *
+     * @param _task task to run
+     * @param _delay delay in milliseconds
+     * @return {@link Timeout} which can be used to cancel the task, null if the wheel was stopped
+     */
+    public Timeout schedule(Runnable _task, long _delay) {
+        long delayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, _delay));
+        // +1 as the current tick is already partially over
+        long ticks = (delayNanos + tickNanos - 1) / tickNanos + 1;
+
+        Timeout timeout = new Timeout(_task);
+        synchronized (this) {
+            if (!running) {
+                return null;
+            }
+            timeout.deadlineTick = currentTick + ticks;
+            link(timeout);
+            if (size++ == 0) {
+                if (thread == null) {
+                    thread = new Thread(this::run, threadName);
+                    thread.setDaemon(true);
+                    thread.start();
+                } else {
+                    notifyAll();
+                }
+            }
+        }
+        return timeout;
+    }
+
+    /**
+     * Stop the wheel thread. Remaining timeouts are discarded.
+     */
+    public synchronized void stop() {
+        running = false;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = null;
+        }
+        size = 0;
+        notifyAll();
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Number of timeouts which expired since the wheel was created.
+     * @return long
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    /**
+     * Number of currently scheduled timeouts.
+     * @return int
+     */
+    public synchronized int getPendingCount() {
+        return size;
+    }
+
+    private void run() {
+        long nextTick = System.nanoTime() + tickNanos;
+        while (true) {
+            synchronized (this) {
+                if (size == 0) {
+                    while (running && size == 0) {
+                        try {
+                            wait();
+                        } catch (InterruptedException _ex) {
+                            logger.debug("Interrupted while waiting for timeouts");
+                        }
+                    }
+                    nextTick = System.nanoTime() + tickNanos;
+                }
+                if (!running) {
+                    return;
+                }
+            }
+
+            long sleep;
+            while ((sleep = nextTick - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, sleep);
+                synchronized (this) {
+                    if (!running) {
+                        return;
+                    }
+                }
+            }
+            nextTick += tickNanos;
+
+            for (Timeout timeout : expire()) {
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException _ex) {
+                    logger.warn("Timeout task failed", _ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Advance the wheel by one tick and collect all expired timeouts of the reached bucket.
+     */
+    private synchronized List<Timeout> expire() {
+        currentTick++;
+        List<Timeout> expired = new ArrayList<>();
+        Timeout timeout = buckets[(int) (currentTick & mask)];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.deadlineTick <= currentTick) {
+                unlink(timeout);
+                size--;
+                expired.add(timeout);
+            }
+            timeout = next;
+        }
+        expiredCount.addAndGet(expired.size());
+        return expired;
+    }
+
+    private void link(Timeout _timeout) {
+        int index = (int) (_timeout.deadlineTick & mask);
+        _timeout.bucket = index;
+        _timeout.next = buckets[index];
+        if (buckets[index] != null) {
+            buckets[index].prev = _timeout;
+        }
+        buckets[index] = _timeout;
+    }
+
+    private void unlink(Timeout _timeout) {
+        if (_timeout.prev != null) {
+            _timeout.prev.next = _timeout.next;
+        } else {
+            buckets[_timeout.bucket] = _timeout.next;
+        }
+        if (_timeout.next != null) {
+            _timeout.next.prev = _timeout.prev;
+        }
+        _timeout.prev = null;
+        _timeout.next = null;
+        _timeout.bucket = -1;
+    }
+
+    /**
+     * Handle of a scheduled task.
+     */
+    public final class Timeout {
+        private final Runnable task;
+        private long           deadlineTick;
+        private int            bucket = -1;
+        private Timeout        prev;
+        private Timeout        next;
+
+        private Timeout(Runnable _task) {
+            task = _task;
+        }
+
+        /**
+         * Cancel the timeout. Does nothing if the timeout already expired.
+         * @return true if the timeout was cancelled
+         */
+        public boolean cancel() {
+            synchronized (TimeoutWheel.this) {
+                if (!running || bucket < 0) {
+                    return false;
+                }
+                unlink(this);
+                size--;
+                return true;
+            }
+        }
+    }
+}
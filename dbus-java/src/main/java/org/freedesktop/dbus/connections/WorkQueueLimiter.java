@@ -0,0 +1,252 @@
+/*
+   D-Bus Java Implementation
+   Copyright (c) 2017-2019 David M.
+
+   This program is free software; you can redistribute it and/or modify it
+   under the terms of either the GNU Lesser General Public License Version 2 or the
+   Academic Free Licence Version 2.1.
+
+   Full licence texts are included in the LICENSE file with this program.
+*/
+
+package org.freedesktop.dbus.connections;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+import org.freedesktop.dbus.messages.DBusSignal;
+import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.messages.MethodCall;
+
+/**
+ * Limits the number of tasks handling received messages which wait for a worker thread.
+ * <p>
+ * Each {@link Category} of messages can have its own capacity and {@link OverflowPolicy}.
+ * A task counts against the capacity from being admitted until it is started by a worker thread.
+ * Categories without a limit are unbounded.
+ * </p>
+ * Dropped tasks stay in the executor as empty placeholders until their turn comes. To keep the memory
+ * bounded, at most capacity placeholders are kept per category, further overflowing tasks are dropped directly.
+ */
+public class WorkQueueLimiter {
+    private final Limit[]      limits = new Limit[Category.values().length];
+    private final LongConsumer waitListener;
+
+    /**
+     * Create a new limiter.
+     *
+     * @param _waitListener called with the time in nanoseconds each task waited for a worker thread, may be null
+     */
+    public WorkQueueLimiter(LongConsumer _waitListener) {
+        waitListener = _waitListener;
+    }
+
+    /**
+     * Limit the number of waiting tasks of a category.
+     *
+     * @param _category category
+     * @param _capacity maximum number of waiting tasks, 0 or less for no limit
+     * @param _policy what to do if the limit is reached
+     */
+    public void setLimit(Category _category, int _capacity, OverflowPolicy _policy) {
+        if (_capacity > 0) {
+            _category.checkPolicy(_policy);
+            limits[_category.ordinal()] = new Limit(_capacity, _policy);
+        } else {
+            limits[_category.ordinal()] = null;
+        }
+    }
+
+    /**
+     * Admit a task. Depending on the policy this may block the calling thread or drop an older task.
+     *
+     * @param _category category of the message handled by the task
+     * @param _task task
+     * @return task to execute instead of the given one, null if the task was rejected or dropped
+     */
+    public Runnable admit(Category _category, Runnable _task) {
+        Limit limit = limits[_category.ordinal()];
+        if (null == limit) {
+            return null == waitListener ? _task : new Task(null, _task);
+        }
+        return limit.admit(_task);
+    }
+
+    /**
+     * Number of tasks of the given category which are waiting for a worker thread.
+     * Always 0 for categories without limit.
+     *
+     * @param _category category
+     * @return int
+     */
+    public int getQueuedCount(Category _category) {
+        Limit limit = limits[_category.ordinal()];
+        return null == limit ? 0 : limit.getQueuedCount();
+    }
+
+    /**
+     * Number of tasks of the given category which were dropped or rejected because the limit was reached.
+     *
+     * @param _category category
+     * @return long
+     */
+    public long getOverflowCount(Category _category) {
+        Limit limit = limits[_category.ordinal()];
+        return null == limit ? 0 : limit.overflowCount.get();
+    }
+
+    /**
+     * Kind of received message.
+     */
+    public enum Category {
+        /** Method calls to exported objects, allows {@link OverflowPolicy#BLOCK} and {@link OverflowPolicy#REJECT}. */
+        METHOD_CALL,
+        /** Signals, allows {@link OverflowPolicy#BLOCK} and {@link OverflowPolicy#DROP_OLDEST}. */
+        SIGNAL,
+        /** Replies handled by callbacks, allows {@link OverflowPolicy#BLOCK} only. */
+        CALLBACK;
+
+        /**
+         * Get the category of a received message.
+         *
+         * @param _message message
+         * @return category
+         */
+        public static Category of(Message _message) {
+            if (_message instanceof DBusSignal) {
+                return SIGNAL;
+            } else if (_message instanceof MethodCall) {
+                return METHOD_CALL;
+            }
+            return CALLBACK;
+        }
+
+        void checkPolicy(OverflowPolicy _policy) {
+            if (null == _policy
+                    || _policy == OverflowPolicy.DROP_OLDEST && this != SIGNAL
+                    || _policy == OverflowPolicy.REJECT && this != METHOD_CALL) {
+                throw new IllegalArgumentException("Policy " + _policy + " not supported for " + this);
+            }
+        }
+    }
+
+    /**
+     * What to do if the maximum number of waiting tasks is reached.
+     */
+    public enum OverflowPolicy {
+        /** Block the thread reading messages until a task was started. */
+        BLOCK,
+        /** Drop the oldest waiting task. */
+        DROP_OLDEST,
+        /** Reject the new task, method calls are answered with a LimitsExceeded error. */
+        REJECT;
+    }
+
+    private final class Limit {
+        private final int             capacity;
+        private final OverflowPolicy  policy;
+        private final ReentrantLock   lock          = new ReentrantLock();
+        private final Condition       notFull       = lock.newCondition();
+        /** Admitted tasks which neither started nor were dropped, oldest first. */
+        private final ArrayDeque<Task> queued       = new ArrayDeque<>();
+        private final AtomicLong      overflowCount = new AtomicLong();
+        /** Dropped tasks still waiting in the executor. */
+        private int                   dropped;
+
+        Limit(int _capacity, OverflowPolicy _policy) {
+            capacity = _capacity;
+            policy = _policy;
+        }
+
+        Runnable admit(Runnable _task) {
+            lock.lock();
+            try {
+                while (queued.size() >= capacity) {
+                    if (policy == OverflowPolicy.REJECT) {
+                        overflowCount.incrementAndGet();
+                        return null;
+                    } else if (policy == OverflowPolicy.DROP_OLDEST) {
+                        overflowCount.incrementAndGet();
+                        if (dropped >= capacity) {
+                            return null;
+                        }
+                        queued.poll().drop();
+                        dropped++;
+                    } else {
+                        try {
+                            notFull.await();
+                        } catch (InterruptedException _ex) {
+                            // admit the task anyway, it must not get lost
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                    }
+                }
+                Task task = new Task(this, _task);
+                queued.add(task);
+                return task;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Called when a worker thread starts the task.
+         * @return false if the task was dropped
+         */
+        boolean start(Task _task) {
+            lock.lock();
+            try {
+                if (null == _task.delegate) {
+                    dropped--;
+                    return false;
+                }
+                // tasks usually start in order, so this is the head of the queue
+                queued.remove(_task);
+                notFull.signal();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int getQueuedCount() {
+            lock.lock();
+            try {
+                return queued.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private final class Task implements Runnable {
+        private final Limit  limit;
+        private final long   admitted = System.nanoTime();
+        private Runnable     delegate;
+
+        Task(Limit _limit, Runnable _delegate) {
+            limit = _limit;
+            delegate = _delegate;
+        }
+
+        /** Called with the lock of the limit held. */
+        void drop() {
+            delegate = null;
+        }
+
+        @Override
+        public void run() {
+            if (null != limit && !limit.start(this)) {
+                return;
+            }
+            if (null != waitListener) {
+                waitListener.accept(System.nanoTime() - admitted);
+            }
+            delegate.run();
+        }
+    }
+}
@@ -17,9 +17,7 @@ import java.io.IOException;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
@@ -780,21 +778,14 @@ public final class DBusConnection extends AbstractConnection {
             throws DBusException {
 
         SignalTuple key = new SignalTuple(_rule.getInterface(), _rule.getMember(), _rule.getObject(), _rule.getSource());
-        synchronized (getHandledSignals()) {
-            List<DBusSigHandler<? extends DBusSignal>> v = getHandledSignals().get(key);
-            if (null != v) {
-                v.remove(_handler);
-                if (0 == v.size()) {
-                    getHandledSignals().remove(key);
-                    try {
-                        dbus.RemoveMatch(_rule.toString());
-                    } catch (NotConnected exNc) {
-                        logger.debug("No connection.", exNc);
-                    } catch (DBusExecutionException dbee) {
-                        logger.debug("", dbee);
-                        throw new DBusException(dbee);
-                    }
-                }
+        if (getHandledSignals().remove(key, _handler)) {
+            try {
+                dbus.RemoveMatch(_rule.toString());
+            } catch (NotConnected exNc) {
+                logger.debug("No connection.", exNc);
+            } catch (DBusExecutionException dbee) {
+                logger.debug("", dbee);
+                throw new DBusException(dbee);
             }
         }
     }
@@ -881,16 +872,7 @@ public final class DBusConnection extends AbstractConnection {
             throw new DBusException(dbee.getMessage());
         }
         SignalTuple key = new SignalTuple(_rule.getInterface(), _rule.getMember(), _rule.getObject(), _rule.getSource());
-        synchronized (getHandledSignals()) {
-            List<DBusSigHandler<? extends DBusSignal>> v = getHandledSignals().get(key);
-            if (null == v) {
-                v = new ArrayList<>();
-                v.add(_handler);
-                getHandledSignals().put(key, v);
-            } else {
-                v.add(_handler);
-            }
-        }
+        getHandledSignals().add(key, _handler);
     }
 
     /**
@@ -918,7 +900,7 @@ public final class DBusConnection extends AbstractConnection {
 	                                0, "s", new Object[] {
 	                                        "Disconnected"
 	                                });
-	                        cleanupPendingCalls(err, true);
+	                        cleanupPendingCalls(err);
 	
 	                        synchronized (getPendingErrorQueue()) {
 	                            getPendingErrorQueue().add(err);
@@ -972,46 +954,23 @@ public final class DBusConnection extends AbstractConnection {
 		disconnect();
 	}
 
-	private void cleanupPendingCalls(Error _err, boolean _clearPendingCalls) throws DBusException {
-
-        synchronized (getPendingCalls()) {
-            Iterator<Entry<Long, MethodCall>> iter = getPendingCalls().entrySet().iterator();
-            while (iter.hasNext()) {
-                Entry<Long, MethodCall> entry = iter.next();
-                if (entry.getKey() != -1) {
-                    MethodCall m = entry.getValue();
-
-                    iter.remove();
-
-                    if (m != null) {
-                        m.setReply(_err);
-                    }
-                }
-            }
-            if (_clearPendingCalls) {
-                getPendingCalls().clear();
-            }
+	private void cleanupPendingCalls(Error _err) throws DBusException {
+        for (MethodCall m : getPendingCalls().removeAll()) {
+            m.setReply(_err);
         }
     }
 
     @Override
     public void removeGenericSigHandler(DBusMatchRule _rule, DBusSigHandler<DBusSignal> _handler) throws DBusException {
         SignalTuple key = new SignalTuple(_rule.getInterface(), _rule.getMember(), _rule.getObject(), _rule.getSource());
-        synchronized (getGenericHandledSignals()) {
-            List<DBusSigHandler<DBusSignal>> v = getGenericHandledSignals().get(key);
-            if (null != v) {
-                v.remove(_handler);
-                if (0 == v.size()) {
-                    getGenericHandledSignals().remove(key);
-                    try {
-                        dbus.RemoveMatch(_rule.toString());
-                    } catch (NotConnected exNc) {
-                        logger.debug("No connection.", exNc);
-                    } catch (DBusExecutionException dbee) {
-                        logger.debug("", dbee);
-                        throw new DBusException(dbee);
-                    }
-                }
+        if (getGenericHandledSignals().remove(key, _handler)) {
+            try {
+                dbus.RemoveMatch(_rule.toString());
+            } catch (NotConnected exNc) {
+                logger.debug("No connection.", exNc);
+            } catch (DBusExecutionException dbee) {
+                logger.debug("", dbee);
+                throw new DBusException(dbee);
             }
         }
     }
@@ -1025,16 +984,7 @@ public final class DBusConnection extends AbstractConnection {
             throw new DBusException(dbee.getMessage());
         }
         SignalTuple key = new SignalTuple(_rule.getInterface(), _rule.getMember(), _rule.getObject(), _rule.getSource());
-        synchronized (getGenericHandledSignals()) {
-            List<DBusSigHandler<DBusSignal>> v = getGenericHandledSignals().get(key);
-            if (null == v) {
-                v = new ArrayList<>();
-                v.add(_handler);
-                getGenericHandledSignals().put(key, v);
-            } else {
-                v.add(_handler);
-            }
-        }
+        getGenericHandledSignals().add(key, _handler);
     }
 
     private class SigHandler implements DBusSigHandler<DBusSignal> {
@@ -1047,7 +997,7 @@ public final class DBusConnection extends AbstractConnection {
                             "s", new Object[] {
                                     "Disconnected"
                             });
-                    cleanupPendingCalls(err, false);
+                    cleanupPendingCalls(err);
 
                     synchronized (getPendingErrorQueue()) {
                         getPendingErrorQueue().add(err);
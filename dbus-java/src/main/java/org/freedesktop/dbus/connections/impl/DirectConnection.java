@@ -279,59 +279,25 @@ public class DirectConnection extends AbstractConnection {
     @Override
     protected <T extends DBusSignal> void removeSigHandler(DBusMatchRule rule, DBusSigHandler<T> handler) throws DBusException {
         SignalTuple key = new SignalTuple(rule.getInterface(), rule.getMember(), rule.getObject(), rule.getSource());
-        synchronized (getHandledSignals()) {
-            List<DBusSigHandler<? extends DBusSignal>> v = getHandledSignals().get(key);
-            if (null != v) {
-                v.remove(handler);
-                if (0 == v.size()) {
-                    getHandledSignals().remove(key);
-                }
-            }
-        }
+        getHandledSignals().remove(key, handler);
     }
 
     @Override
     protected <T extends DBusSignal> void addSigHandler(DBusMatchRule rule, DBusSigHandler<T> handler) throws DBusException {
         SignalTuple key = new SignalTuple(rule.getInterface(), rule.getMember(), rule.getObject(), rule.getSource());
-        synchronized (getHandledSignals()) {
-            List<DBusSigHandler<? extends DBusSignal>> v = getHandledSignals().get(key);
-            if (null == v) {
-                v = new ArrayList<>();
-                v.add(handler);
-                getHandledSignals().put(key, v);
-            } else {
-                v.add(handler);
-            }
-        }
+        getHandledSignals().add(key, handler);
     }
 
     @Override
     protected void removeGenericSigHandler(DBusMatchRule rule, DBusSigHandler<DBusSignal> handler) throws DBusException {
         SignalTuple key = new SignalTuple(rule.getInterface(), rule.getMember(), rule.getObject(), rule.getSource());
-        synchronized (getGenericHandledSignals()) {
-            List<DBusSigHandler<DBusSignal>> v = getGenericHandledSignals().get(key);
-            if (null != v) {
-                v.remove(handler);
-                if (0 == v.size()) {
-                    getGenericHandledSignals().remove(key);
-                }
-            }
-        }
+        getGenericHandledSignals().remove(key, handler);
     }
 
     @Override
     protected void addGenericSigHandler(DBusMatchRule rule, DBusSigHandler<DBusSignal> handler) throws DBusException {
         SignalTuple key = new SignalTuple(rule.getInterface(), rule.getMember(), rule.getObject(), rule.getSource());
-        synchronized (getGenericHandledSignals()) {
-            List<DBusSigHandler<DBusSignal>> v = getGenericHandledSignals().get(key);
-            if (null == v) {
-                v = new ArrayList<>();
-                v.add(handler);
-                getGenericHandledSignals().put(key, v);
-            } else {
-                v.add(handler);
-            }
-        }
+        getGenericHandledSignals().add(key, handler);
     }
 
     @Override
@@ -5,6 +5,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.util.Collection;
 
 import org.freedesktop.dbus.MessageReader;
 import org.freedesktop.dbus.MessageWriter;
@@ -32,6 +34,9 @@ public abstract class AbstractTransport implements Closeable {
     private MessageReader    inputReader;
     private MessageWriter    outputWriter;
 
+    private SocketChannel    channel;
+    private SelectorEventLoop eventLoop;
+
     AbstractTransport(BusAddress _address) {
         address = _address;
         
@@ -59,6 +64,20 @@ public abstract class AbstractTransport implements Closeable {
         }
     }
     
+    /**
+     * Write several messages to the underlying socket at once.
+     *
+     * @param _msgs messages to write
+     * @throws IOException on write error or if output was already closed or null
+     */
+    public void writeMessages(Collection<? extends Message> _msgs) throws IOException {
+        if (outputWriter != null && !outputWriter.isClosed()) {
+            outputWriter.writeMessages(_msgs);
+        } else {
+            throw new IOException("OutputWriter already closed or null");
+        }
+    }
+
     /**
      * Read a message from the underlying socket.
      * 
@@ -67,12 +86,53 @@ public abstract class AbstractTransport implements Closeable {
      * @throws DBusException when message could not be converted to a DBus message
      */
     public Message readMessage() throws IOException, DBusException {
+        if (eventLoop != null) {
+            throw new IOException("Transport is operated by a shared selector, messages cannot be read directly");
+        }
         if (inputReader != null && !inputReader.isClosed()) {
             return inputReader.readMessage();
         }
         throw new IOException("InputReader already closed or null");
     }
     
+    /**
+     * Whether this transport is backed by a {@link SocketChannel} and therefore can be
+     * used with {@link #listenNonBlocking(IMessageHandler)}.
+     *
+     * @return true if non-blocking mode is supported
+     */
+    public boolean isNonBlockingSupported() {
+        return channel != null;
+    }
+
+    /**
+     * Switch this transport to non-blocking mode.
+     * <p>
+     * The underlying channel is registered with a shared {@link SelectorEventLoop}, so no dedicated
+     * reader thread is required for this transport. Received messages are passed to the given handler
+     * on the event loop thread, {@link #readMessage()} can no longer be used.
+     * </p>
+     * Must be called after authentication and before the first message has been read.
+     *
+     * @param _handler handler receiving all incoming messages
+     * @throws IOException if the transport does not support non-blocking mode or the channel could not be switched
+     */
+    public void listenNonBlocking(IMessageHandler _handler) throws IOException {
+        if (channel == null) {
+            throw new IOException("Transport does not support non-blocking mode");
+        }
+        SelectorEventLoop loop = SelectorEventLoop.getEventLoop(channel.provider());
+
+        channel.configureBlocking(false);
+        // do not close the reader, this would close the channel as well
+        inputReader = null;
+        outputWriter = new MessageWriter(channel);
+        eventLoop = loop;
+        eventLoop.register(channel, new NonBlockingMessageReader(channel, _handler));
+
+        logger.debug("Transport for {} is now operated by shared selector", address);
+    }
+
     /**
      * Abstract method implemented by concrete sub classes to establish a connection 
      * using whatever transport type (e.g. TCP/Unix socket).
@@ -100,9 +160,29 @@ public abstract class AbstractTransport implements Closeable {
         outputWriter = new MessageWriter(_outputStream);        
     }
 
+    /**
+     * Write messages directly to the given channel.
+     * This allows writing each message using a single (gathering) write.
+     *
+     * @param _channel connected channel
+     */
+    protected void setOutputWriter(SocketChannel _channel) {
+        outputWriter = new MessageWriter(_channel);
+    }
+
     protected void setInputReader(InputStream _inputStream) {
         inputReader = new MessageReader(_inputStream);
     }
+
+    /**
+     * Set the channel this transport is based on.
+     * Only transports providing a channel can be switched to non-blocking mode.
+     *
+     * @param _channel connected channel
+     */
+    protected void setChannel(SocketChannel _channel) {
+        channel = _channel;
+    }
     
     protected int getSaslAuthMode() {
         return saslAuthMode;
@@ -130,8 +210,18 @@ public abstract class AbstractTransport implements Closeable {
 
     @Override
     public void close() throws IOException {
-        inputReader.close();
-        outputWriter.close();
+        if (eventLoop != null) {
+            eventLoop.unregister(channel);
+        }
+        if (inputReader != null) {
+            inputReader.close();
+        }
+        if (outputWriter != null) {
+            outputWriter.close();
+        }
+        if (channel != null && channel.isOpen()) {
+            channel.close();
+        }
     }
     
 }
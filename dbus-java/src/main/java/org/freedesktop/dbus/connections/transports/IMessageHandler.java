@@ -0,0 +1,38 @@
+/*
+   D-Bus Java Implementation
+   Copyright (c) 2017-2019 David M.
+
+   This program is free software; you can redistribute it and/or modify it
+   under the terms of either the GNU Lesser General Public License Version 2 or the
+   Academic Free Licence Version 2.1.
+
+   Full licence texts are included in the LICENSE file with this program.
+*/
+
+package org.freedesktop.dbus.connections.transports;
+
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.messages.Message;
+
+/**
+ * Receiver for messages read by a transport operating in non-blocking mode.
+ * All methods are called on the thread of the {@link SelectorEventLoop} owning the transport
+ * and therefore must not block.
+ */
+public interface IMessageHandler {
+    /**
+     * Called for every complete message read from the transport.
+     *
+     * @param _message received message
+     * @throws DBusException if the message could not be handled
+     */
+    void handleMessage(Message _message) throws DBusException;
+
+    /**
+     * Called when the transport could not be read any longer (e.g. EOF or broken framing).
+     * The transport is unregistered from its event loop before this method is called.
+     *
+     * @param _ex cause
+     */
+    void handleReadError(Exception _ex);
+}
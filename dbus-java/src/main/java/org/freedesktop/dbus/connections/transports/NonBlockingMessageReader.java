@@ -0,0 +1,148 @@
+/*
+   D-Bus Java Implementation
+   Copyright (c) 2017-2019 David M.
+
+   This program is free software; you can redistribute it and/or modify it
+   under the terms of either the GNU Lesser General Public License Version 2 or the
+   Academic Free Licence Version 2.1.
+
+   Full licence texts are included in the LICENSE file with this program.
+*/
+
+package org.freedesktop.dbus.connections.transports;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.exceptions.MessageTypeException;
+import org.freedesktop.dbus.interfaces.FatalException;
+import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.messages.MessageFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads D-Bus messages from a non-blocking {@link SocketChannel}.
+ * <p>
+ * Data is read into a single per-connection {@link ByteBuffer} which grows when a message
+ * does not fit and shrinks again once the large message has been consumed. Every read may contain several messages (or only a part of one), all complete
+ * messages are copied once into an array of their own size and passed to the {@link IMessageHandler}.
+ * </p>
+ * Used by {@link SelectorEventLoop} and by the event loops of the embedded daemon.
+ */
+public class NonBlockingMessageReader {
+    private static final int    INITIAL_BUFFER_SIZE = 8192;
+
+    private final Logger          logger = LoggerFactory.getLogger(getClass());
+
+    private final SocketChannel   channel;
+    private final IMessageHandler handler;
+
+    private ByteBuffer            readBuffer;
+
+    public NonBlockingMessageReader(SocketChannel _channel, IMessageHandler _handler) {
+        channel = _channel;
+        handler = _handler;
+        readBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    }
+
+    /**
+     * Fill the read buffer once from the channel and deliver all complete messages.
+     * <p>
+     * Only one read is done per call, so a client sending continuously can not keep the event loop
+     * from serving its other channels. Data left on the channel is read on the next readiness event.
+     * </p>
+     *
+     * @throws IOException when reading fails, the peer closed the connection or the stream is corrupted
+     */
+    public void readAvailable() throws IOException {
+        int read = channel.read(readBuffer);
+        if (read > 0) {
+            frameMessages();
+        } else if (read == -1) {
+            throw new EOFException("Underlying transport returned EOF");
+        }
+    }
+
+    /**
+     * Extract all complete messages from the read buffer.
+     * Afterwards the buffer is compacted and enlarged if the next message would not fit.
+     *
+     * @throws IOException when the data does not form a valid message
+     */
+    private void frameMessages() throws IOException {
+        readBuffer.flip();
+        int required = 0;
+        while (readBuffer.remaining() >= Message.FIXED_HEADER_LENGTH) {
+            int start = readBuffer.position();
+            long total = Message.getMessageLength(readBuffer.array(), readBuffer.arrayOffset() + start);
+            if (total > Message.MAXIMUM_MESSAGE_LENGTH) {
+                throw new IOException("Message of " + total + " bytes exceeds maximum message length");
+            }
+            if (readBuffer.remaining() < total) {
+                required = (int) total;
+                break;
+            }
+
+            byte[] data = new byte[(int) total];
+            readBuffer.get(data);
+
+            dispatch(data);
+        }
+        readBuffer.compact();
+
+        if (required > readBuffer.capacity()) {
+            logger.trace("Growing read buffer from {} to {} bytes", readBuffer.capacity(), required);
+            ByteBuffer larger = ByteBuffer.allocate(required);
+            readBuffer.flip();
+            larger.put(readBuffer);
+            readBuffer = larger;
+        } else if (readBuffer.capacity() > INITIAL_BUFFER_SIZE && readBuffer.position() == 0) {
+            // the oversized message has been consumed, do not keep the large buffer for the lifetime of the connection
+            logger.trace("Shrinking read buffer from {} to {} bytes", readBuffer.capacity(), INITIAL_BUFFER_SIZE);
+            readBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        }
+    }
+
+    /**
+     * Current size of the read buffer.
+     *
+     * @return capacity in bytes
+     */
+    int getBufferCapacity() {
+        return readBuffer.capacity();
+    }
+
+    /**
+     * Inform the handler that this reader has been removed from its event loop due to an error.
+     *
+     * @param _ex cause
+     */
+    void readFailed(Exception _ex) {
+        handler.handleReadError(_ex);
+    }
+
+    private void dispatch(byte[] _data) throws IOException {
+        Message m;
+        try {
+            m = MessageFactory.createMessage(_data);
+        } catch (DBusException | MessageTypeException | RuntimeException _ex) {
+            // message is already consumed, framing is still intact, so only this message is lost
+            logger.error("Unable to create message from received data.", _ex);
+            return;
+        }
+
+        logger.debug("=> {}", m);
+        try {
+            handler.handleMessage(m);
+        } catch (DBusException _ex) {
+            if (_ex instanceof FatalException) {
+                throw new IOException(_ex);
+            }
+            logger.error("Exception while handling message.", _ex);
+        }
+    }
+}
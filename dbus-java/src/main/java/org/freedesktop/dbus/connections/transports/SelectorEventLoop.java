@@ -0,0 +1,177 @@
+/*
+   D-Bus Java Implementation
+   Copyright (c) 2017-2019 David M.
+
+   This program is free software; you can redistribute it and/or modify it
+   under the terms of either the GNU Lesser General Public License Version 2 or the
+   Academic Free Licence Version 2.1.
+
+   Full licence texts are included in the LICENSE file with this program.
+*/
+
+package org.freedesktop.dbus.connections.transports;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Event loop reading from many non-blocking transports using a single {@link Selector} and a single thread.
+ * <p>
+ * Loops are shared by all connections of the JVM. Channels can only be registered with selectors
+ * of the same {@link SelectorProvider} (unix sockets use a different provider than TCP sockets),
+ * so loops are kept per provider. Each provider gets up to {@link #getLoopCount()} loops,
+ * transports are distributed round robin.
+ * </p>
+ * Loop threads are daemon threads and are started on first use.
+ */
+public final class SelectorEventLoop implements Runnable {
+    private static final Map<SelectorProvider, List<SelectorEventLoop>> LOOPS      = new HashMap<>();
+    private static final AtomicInteger                                  NEXT_LOOP  = new AtomicInteger();
+
+    /** Default number of event loop threads: the number of CPUs, but at most 4. Also used by the embedded daemon. */
+    public static final int                                             DEFAULT_LOOP_COUNT =
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private static int                                                  loopCount  = DEFAULT_LOOP_COUNT;
+
+    private final Logger          logger       = LoggerFactory.getLogger(getClass());
+
+    private final Selector        selector;
+    private final Thread          thread;
+    private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+
+    private SelectorEventLoop(SelectorProvider _provider, int _index) throws IOException {
+        selector = _provider.openSelector();
+        thread = new Thread(this, "DBus Selector Thread-" + _index);
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Set the maximum number of event loop threads used per selector provider.
+     * Only affects loops created after calling this method.
+     *
+     * @param _loopCount number of threads, at least 1
+     */
+    public static synchronized void setLoopCount(int _loopCount) {
+        if (_loopCount > 0) {
+            loopCount = _loopCount;
+        }
+    }
+
+    /**
+     * Get the maximum number of event loop threads used per selector provider.
+     * @return int
+     */
+    public static synchronized int getLoopCount() {
+        return loopCount;
+    }
+
+    /**
+     * Returns the event loop to use for a new channel of the given provider.
+     * New loops are created until the configured loop count is reached.
+     *
+     * @param _provider provider of the channel
+     * @return {@link SelectorEventLoop}
+     * @throws IOException if a selector could not be opened
+     */
+    static synchronized SelectorEventLoop getEventLoop(SelectorProvider _provider) throws IOException {
+        List<SelectorEventLoop> loops = LOOPS.get(_provider);
+        if (loops == null) {
+            loops = new ArrayList<>();
+            LOOPS.put(_provider, loops);
+        }
+        if (loops.size() < loopCount) {
+            SelectorEventLoop loop = new SelectorEventLoop(_provider, loops.size());
+            loops.add(loop);
+            loop.thread.start();
+            return loop;
+        }
+        return loops.get(Math.floorMod(NEXT_LOOP.getAndIncrement(), loops.size()));
+    }
+
+    /**
+     * Register a non-blocking channel for reading.
+     *
+     * @param _channel channel, must be in non-blocking mode
+     * @param _reader reader which will read and dispatch messages
+     */
+    void register(SocketChannel _channel, NonBlockingMessageReader _reader) {
+        execute(() -> {
+            try {
+                _channel.register(selector, SelectionKey.OP_READ, _reader);
+            } catch (ClosedChannelException _ex) {
+                _reader.readFailed(_ex);
+            }
+        });
+    }
+
+    /**
+     * Stop reading from the given channel.
+     *
+     * @param _channel channel
+     */
+    void unregister(SocketChannel _channel) {
+        execute(() -> {
+            SelectionKey key = _channel.keyFor(selector);
+            if (key != null) {
+                key.cancel();
+            }
+        });
+    }
+
+    private void execute(Runnable _task) {
+        pendingTasks.add(_task);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                selector.select();
+            } catch (IOException _ex) {
+                logger.error("Selector failed, stopping event loop.", _ex);
+                return;
+            }
+
+            Runnable task;
+            while ((task = pendingTasks.poll()) != null) {
+                task.run();
+            }
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (key.isValid() && key.isReadable()) {
+                    read(key);
+                }
+            }
+        }
+    }
+
+    private void read(SelectionKey _key) {
+        NonBlockingMessageReader reader = (NonBlockingMessageReader) _key.attachment();
+        try {
+            reader.readAvailable();
+        } catch (IOException | RuntimeException _ex) {
+            _key.cancel();
+            reader.readFailed(_ex);
+        }
+    }
+}
@@ -4,6 +4,8 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 
 import org.freedesktop.dbus.connections.BusAddress;
 import org.freedesktop.dbus.connections.SASL;
@@ -16,35 +18,66 @@ import org.freedesktop.dbus.connections.SASL;
  */
 public class TcpTransport extends AbstractTransport {
 
-    private Socket socket;
+    private Socket           socket;
     private final int        timeout;
+    private final boolean    useChannel;
 
     
     TcpTransport(BusAddress _address, int _timeout) {
+        this(_address, _timeout, false);
+    }
+
+    /**
+     * @param _address address
+     * @param _timeout connect timeout in milliseconds
+     * @param _useChannel connect using a {@link SocketChannel}, required for non-blocking mode
+     */
+    TcpTransport(BusAddress _address, int _timeout, boolean _useChannel) {
         super(_address);
         timeout = _timeout;
+        useChannel = _useChannel;
         setSaslAuthMode(SASL.AUTH_SHA);
     }
 
     /**
      * Connect to DBus using TCP.
+     * <p>
+     * In blocking mode a plain {@link Socket} is used: the streams of a socket created by a {@link SocketChannel}
+     * synchronize on the blocking lock of the channel (Java 8), so writing would wait for the reader thread.
+     * </p>
      * @throws IOException on error
      */
     void connect() throws IOException {
         
-        if (getAddress().isListeningSocket()) {
-            try (ServerSocket ss = new ServerSocket()) {
-                ss.bind(new InetSocketAddress(getAddress().getHost(), getAddress().getPort()));
-                socket = ss.accept();
+        if (useChannel) {
+            SocketChannel channel;
+            if (getAddress().isListeningSocket()) {
+                try (ServerSocketChannel ss = ServerSocketChannel.open()) {
+                    ss.bind(new InetSocketAddress(getAddress().getHost(), getAddress().getPort()));
+                    channel = ss.accept();
+                }
+            } else {
+                channel = SocketChannel.open();
+                getLogger().trace("Setting timeout to {} on Socket", timeout);
+                channel.socket().connect(new InetSocketAddress(getAddress().getHost(), getAddress().getPort()), timeout);
             }
+            socket = channel.socket();
+            setChannel(channel);
+            setOutputWriter(channel);
         } else {
-            socket = new Socket();
-            getLogger().trace("Setting timeout to {} on Socket", timeout);
-            socket.connect(new InetSocketAddress(getAddress().getHost(), getAddress().getPort()), timeout);
+            if (getAddress().isListeningSocket()) {
+                try (ServerSocket ss = new ServerSocket()) {
+                    ss.bind(new InetSocketAddress(getAddress().getHost(), getAddress().getPort()));
+                    socket = ss.accept();
+                }
+            } else {
+                socket = new Socket();
+                getLogger().trace("Setting timeout to {} on Socket", timeout);
+                socket.connect(new InetSocketAddress(getAddress().getHost(), getAddress().getPort()), timeout);
+            }
+            setOutputWriter(socket.getOutputStream());
         }
-        
         setInputReader(socket.getInputStream());
-        setOutputWriter(socket.getOutputStream());
 
         authenticate(socket.getOutputStream(), socket.getInputStream(), socket);
     }
@@ -57,4 +90,3 @@ public class TcpTransport extends AbstractTransport {
         super.close();
     }
 }
-
@@ -29,6 +29,24 @@ public final class TransportFactory {
      * @throws IOException when transport could not be created
      */
     public static AbstractTransport createTransport(BusAddress _address, int _timeout) throws IOException {
+        return createTransport(_address, _timeout, false);
+    }
+
+    /**
+     * Creates a new transport encapsulating connection to a unix socket or TCP socket.
+     * <p>
+     * TCP transports are only backed by a {@link java.nio.channels.SocketChannel} if non-blocking mode is requested,
+     * otherwise a plain {@link java.net.Socket} is used.
+     * </p>
+     *
+     * @param _address Address parameter
+     * @param _timeout timeout in milliseconds
+     * @param _nonBlocking true if the transport will be switched to non-blocking mode
+     *            ({@link AbstractTransport#listenNonBlocking(IMessageHandler)})
+     * @return {@link AbstractTransport}
+     * @throws IOException when transport could not be created
+     */
+    public static AbstractTransport createTransport(BusAddress _address, int _timeout, boolean _nonBlocking) throws IOException {
         LoggerFactory.getLogger(TransportFactory.class).debug("Connecting to {}", _address);
 
         AbstractTransport transport;
@@ -36,7 +54,7 @@ public final class TransportFactory {
         if (_address.getBusType() == AddressBusTypes.UNIX) {
             transport = new UnixSocketTransport(_address);
         } else if (_address.getBusType() == AddressBusTypes.TCP) {
-            transport = new TcpTransport(_address, _timeout);
+            transport = new TcpTransport(_address, _timeout, _nonBlocking);
         } else {
             throw new IOException("Unknown address type " + _address.getType());
         }
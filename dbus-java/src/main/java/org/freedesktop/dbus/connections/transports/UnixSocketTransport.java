@@ -58,7 +58,8 @@ public class UnixSocketTransport extends AbstractTransport {
             us.setOption(UnixSocketOptions.SO_PASSCRED, true);
         }
 
-        setOutputWriter(us.socket().getOutputStream());
+        setChannel(us);
+        setOutputWriter(us);
         setInputReader(us.socket().getInputStream());
         
         authenticate(us.socket().getOutputStream(), us.socket().getInputStream(), us.socket());
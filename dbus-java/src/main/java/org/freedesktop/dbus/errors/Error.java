@@ -89,8 +89,8 @@ public class Error extends Message {
             setArgs(args);
         }
 
-        byte[] blen = new byte[4];
-        appendBytes(blen);
+        int blen = (int) getByteCounter();
+        appendint(0, 4);
         append("ua(yv)", getSerial(), hargs.toArray());
         pad((byte) 8);
 
@@ -98,7 +98,7 @@ public class Error extends Message {
         if (null != sig) {
             append(sig, args);
         }
-        marshallint(getByteCounter() - c, blen, 0, 4);
+        marshallint(getByteCounter() - c, blen, 4);
     }
 
     public Error(String source, Message m, Throwable e) throws DBusException {
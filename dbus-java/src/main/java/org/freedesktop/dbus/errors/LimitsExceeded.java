@@ -0,0 +1,24 @@
+/*
+   D-Bus Java Implementation
+   Copyright (c) 2017-2019 David M.
+
+   This program is free software; you can redistribute it and/or modify it
+   under the terms of either the GNU Lesser General Public License Version 2 or the
+   Academic Free Licence Version 2.1.
+
+   Full licence texts are included in the LICENSE file with this program.
+*/
+
+package org.freedesktop.dbus.errors;
+
+import org.freedesktop.dbus.exceptions.DBusExecutionException;
+
+/**
+ * Thrown if a method call was rejected because too many calls are waiting to be handled
+ */
+@SuppressWarnings("serial")
+public class LimitsExceeded extends DBusExecutionException {
+    public LimitsExceeded(String message) {
+        super(message);
+    }
+}
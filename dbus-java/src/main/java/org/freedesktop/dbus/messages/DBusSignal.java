@@ -12,12 +12,8 @@
 
 package org.freedesktop.dbus.messages;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.GenericDeclaration;
 import java.lang.reflect.Type;
-import java.lang.reflect.TypeVariable;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -39,12 +35,6 @@ public class DBusSignal extends Message {
     private static final Map<String, Class<? extends DBusSignal>>                            CLASS_CACHE       =
             new ConcurrentHashMap<>();
 
-    private static final Map<Class<? extends DBusSignal>, Type[]>                            TYPE_CACHE        =
-            new ConcurrentHashMap<>();
-
-    private static final Map<Class<? extends DBusSignal>, Constructor<? extends DBusSignal>> CONSTRUCTOR_CACHE =
-            new ConcurrentHashMap<>();
-
     private static final Map<String, String>                                                 SIGNAL_NAMES      =
             new ConcurrentHashMap<>();
     private static final Map<String, String>                                                 INT_NAMES         =
@@ -55,7 +45,8 @@ public class DBusSignal extends Message {
 
     private Class<? extends DBusSignal>                                                      clazz;
     private boolean                                                                          bodydone          = false;
-    private byte[]                                                                           blen;
+    /** Position of the body length in the wire data. */
+    private int                                                                              blen;
 
     DBusSignal() {
     }
@@ -107,18 +98,16 @@ public class DBusSignal extends Message {
             setArgs(args);
         }
 
-        blen = new byte[4];
-        appendBytes(blen);
-        long newSerial = getSerial() + 1;
-        setSerial(newSerial);
-        append("ua(yv)", newSerial, hargs.toArray());
+        blen = (int) getByteCounter();
+        appendint(0, 4);
+        append("ua(yv)", getSerial(), hargs.toArray());
         pad((byte) 8);
 
         long counter = getByteCounter();
         if (null != sig) {
             append(sig, args);
         }
-        marshallint(getByteCounter() - counter, blen, 0, 4);
+        marshallint(getByteCounter() - counter, blen, 4);
         bodydone = true;
     }
 
@@ -159,21 +148,22 @@ public class DBusSignal extends Message {
         if (null != c) {
             return c;
         }
+        String className = name;
         do {
             try {
-                c = (Class<? extends DBusSignal>) Class.forName(name);
+                c = (Class<? extends DBusSignal>) Class.forName(className);
             } catch (ClassNotFoundException exCnf) {
             }
-            name = name.replaceAll("\\.([^\\.]*)$", "\\$$1");
-        } while (null == c && name.matches(".*\\..*"));
+            className = className.replaceAll("\\.([^\\.]*)$", "\\$$1");
+        } while (null == c && className.matches(".*\\..*"));
         if (null == c) {
             throw new DBusException("Could not create class from signal " + intname + '.' + signame);
         }
+        // cache under the name used for lookups, not the nested class name found
         CLASS_CACHE.put(name, c);
         return c;
     }
 
-    @SuppressWarnings("unchecked")
     public DBusSignal createReal(AbstractConnection conn) throws DBusException {
         String intname = INT_NAMES.get(getInterface());
         String signame = SIGNAL_NAMES.get(getName());
@@ -188,42 +178,13 @@ public class DBusSignal extends Message {
         }
 
         logger.debug("Converting signal to type: {}", clazz);
-        Type[] types = TYPE_CACHE.get(clazz);
-        Constructor<? extends DBusSignal> con = CONSTRUCTOR_CACHE.get(clazz);
-        if (null == types) {
-            con = (Constructor<? extends DBusSignal>) clazz.getDeclaredConstructors()[0];
-            CONSTRUCTOR_CACHE.put(clazz, con);
-            Type[] ts = con.getGenericParameterTypes();
-            types = new Type[ts.length - 1];
-            for (int i = 1; i < ts.length; i++) {
-                if (ts[i] instanceof TypeVariable) {
-                    for (Type b : ((TypeVariable<GenericDeclaration>) ts[i]).getBounds()) {
-                        types[i - 1] = b;
-                    }
-                } else {
-                    types[i - 1] = ts[i];
-                }
-            }
-            TYPE_CACHE.put(clazz, types);
-        }
-
         try {
-            DBusSignal s;
-            Object[] args = Marshalling.deSerializeParameters(getParameters(), types, conn);
-            if (null == args) {
-                s = con.newInstance(getPath());
-            } else {
-                Object[] params = new Object[args.length + 1];
-                params[0] = getPath();
-                System.arraycopy(args, 0, params, 1, args.length);
-
-                logger.debug("Creating signal of type {} with parameters {}", clazz, Arrays.deepToString(params));
-                s = con.newInstance(params);
-            }
+            DBusSignal s = SignalFactory.get(clazz).create(getPath(), getParameters(), conn);
             s.getHeaders().putAll(getHeaders());
             s.setWiredata(getWireData());
-            s.setByteCounter(getWireData().length);
             return s;
+        } catch (DBusException _ex) {
+            throw _ex;
         } catch (Exception _ex) {
             throw new DBusException(_ex);
         }
@@ -236,11 +197,10 @@ public class DBusSignal extends Message {
      * @param args The parameters of the signal.
      * @throws DBusException This is thrown if the subclass is incorrectly defined.
      */
-    @SuppressWarnings("unchecked")
     protected DBusSignal(String objectpath, Object... args) throws DBusException {
         super(DBusConnection.getEndianness(), Message.MessageType.SIGNAL, (byte) 0);
 
-        if (!objectpath.matches(AbstractConnection.OBJECT_REGEX)) {
+        if (!AbstractConnection.OBJECT_REGEX_PATTERN.matcher(objectpath).matches()) {
             throw new DBusException("Invalid object path: " + objectpath);
         }
 
@@ -286,23 +246,7 @@ public class DBusSignal extends Message {
         String sig = null;
         if (0 < args.length) {
             try {
-                Type[] types = TYPE_CACHE.get(tc);
-                if (null == types) {
-                    Constructor<? extends DBusSignal> con =
-                            (Constructor<? extends DBusSignal>) tc.getDeclaredConstructors()[0];
-                    CONSTRUCTOR_CACHE.put(tc, con);
-                    Type[] ts = con.getGenericParameterTypes();
-                    types = new Type[ts.length - 1];
-                    for (int i = 1; i <= types.length; i++) {
-                        if (ts[i] instanceof TypeVariable) {
-                            types[i - 1] = ((TypeVariable<GenericDeclaration>) ts[i]).getBounds()[0];
-                        } else {
-                            types[i - 1] = ts[i];
-                        }
-                    }
-                    TYPE_CACHE.put(tc, types);
-                }
-                sig = Marshalling.getDBusType(types);
+                sig = Marshalling.getDBusType(SignalFactory.get(tc).getParameterTypes());
                 hargs.add(new Object[] {
                         Message.HeaderField.SIGNATURE, new Object[] {
                                 ArgumentType.SIGNATURE_STRING, sig
@@ -316,11 +260,9 @@ public class DBusSignal extends Message {
             }
         }
 
-        blen = new byte[4];
-        appendBytes(blen);
-        long newSerial = getSerial() + 1;
-        setSerial(newSerial);
-        append("ua(yv)", newSerial, hargs.toArray());
+        blen = (int) getByteCounter();
+        appendint(0, 4);
+        append("ua(yv)", getSerial(), hargs.toArray());
         pad((byte) 8);
     }
 
@@ -329,8 +271,9 @@ public class DBusSignal extends Message {
             return;
         }
 
-        Type[] types = TYPE_CACHE.get(getClass());
-        Object[] args = Marshalling.convertParameters(getParameters(), types, conn);
+        Object[] parameters = getParameters();
+        Type[] types = null == parameters || 0 == parameters.length ? null : SignalFactory.get(getClass()).getParameterTypes();
+        Object[] args = Marshalling.convertParameters(parameters, types, conn);
         setArgs(args);
         String sig = getSig();
 
@@ -338,7 +281,7 @@ public class DBusSignal extends Message {
         if (null != args && 0 < args.length) {
             append(sig, args);
         }
-        marshallint(getByteCounter() - counter, blen, 0, 4);
+        marshallint(getByteCounter() - counter, blen, 4);
         bodydone = true;
     }
 
@@ -0,0 +1,165 @@
+/*
+   D-Bus Java Implementation
+   Copyright (c) 2017-2019 David M.
+
+   This program is free software; you can redistribute it and/or modify it
+   under the terms of either the GNU Lesser General Public License Version 2 or the
+   Academic Free Licence Version 2.1.
+
+   Full licence texts are included in the LICENSE file with this program.
+*/
+
+package org.freedesktop.dbus.messages;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+
+import org.freedesktop.dbus.Marshalling;
+import org.freedesktop.dbus.connections.AbstractConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A method of an {@link ExportedObject} which can be called remotely.
+ * <p>
+ * Everything which does not depend on the actual call (parameter types, reply signature and
+ * a {@link MethodHandle} to invoke the method) is computed once when the object is exported.
+ * </p>
+ */
+public class ExportedMethod {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExportedMethod.class);
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+    private static final Object[]   NO_PARAMETERS = new Object[0];
+
+    private final Method        method;
+    private final Type[]        parameterTypes;
+    private final Type          returnType;
+    private final Type[]        returnTypes;
+    private final boolean       voidReturn;
+    private final String        replySignature;
+    private final MethodHandle  invoker;
+
+    ExportedMethod(Method _method) {
+        method = _method;
+        parameterTypes = _method.getGenericParameterTypes();
+        returnType = _method.getGenericReturnType();
+        returnTypes = new Type[] {returnType};
+        voidReturn = Void.TYPE.equals(_method.getReturnType());
+        replySignature = voidReturn ? null : createReplySignature(returnType);
+        invoker = createInvoker(_method);
+    }
+
+    private static String createReplySignature(Type _returnType) {
+        try {
+            return buildSignature(_returnType);
+        } catch (DBusException _ex) {
+            // reported when the method is called
+            LOGGER.debug("Unable to compute reply signature for type {}", _returnType, _ex);
+            return null;
+        }
+    }
+
+    /**
+     * Create a method handle of type (Object target, Object[] args)Object for the given method.
+     * Returns null if the method is not accessible, reflection will be used in that case.
+     */
+    private static MethodHandle createInvoker(Method _method) {
+        try {
+            if (!_method.isAccessible()) {
+                _method.setAccessible(true);
+            }
+            return MethodHandles.lookup().unreflect(_method)
+                    .asSpreader(Object[].class, _method.getParameterCount())
+                    .asType(INVOKER_TYPE);
+        } catch (IllegalAccessException | RuntimeException _ex) {
+            LOGGER.debug("Unable to create method handle for {}, using reflection", _method, _ex);
+            return null;
+        }
+    }
+
+    /**
+     * Convert the parameters received on the bus to the parameter types of the method.
+     *
+     * @param _parameters parameters of the call
+     * @param _conn connection
+     * @return converted parameters
+     * @throws Exception if the parameters could not be converted
+     */
+    public Object[] deSerializeParameters(Object[] _parameters, AbstractConnection _conn) throws Exception {
+        return Marshalling.deSerializeParameters(_parameters, parameterTypes, _conn);
+    }
+
+    /**
+     * Invoke the method.
+     *
+     * @param _target object to invoke the method on
+     * @param _parameters converted parameters
+     * @return result, null for void methods
+     * @throws Throwable any exception thrown by the method
+     */
+    public Object invoke(Object _target, Object[] _parameters) throws Throwable {
+        if (null != invoker) {
+            Object[] parameters = null == _parameters ? NO_PARAMETERS : _parameters;
+            return (Object) invoker.invokeExact(_target, parameters);
+        }
+        try {
+            return method.invoke(_target, _parameters);
+        } catch (InvocationTargetException _ex) {
+            throw _ex.getCause();
+        }
+    }
+
+    /**
+     * Convert the result of the method to the parameters of the reply.
+     *
+     * @param _result result of {@link #invoke(Object, Object[])}
+     * @param _conn connection
+     * @return reply parameters
+     * @throws DBusException if the result could not be converted
+     */
+    public Object[] convertResult(Object _result, AbstractConnection _conn) throws DBusException {
+        return Marshalling.convertParameters(new Object[] {
+                _result
+        }, returnTypes, _conn);
+    }
+
+    /**
+     * Signature of the reply.
+     *
+     * @return signature, null for void methods
+     * @throws DBusException if the return type cannot be sent on the bus
+     */
+    public String getReplySignature() throws DBusException {
+        if (null == replySignature && !voidReturn) {
+            return buildSignature(returnType);
+        }
+        return replySignature;
+    }
+
+    private static String buildSignature(Type _type) throws DBusException {
+        StringBuilder sb = new StringBuilder();
+        for (String s : Marshalling.getDBusType(_type)) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    public boolean isVoid() {
+        return voidReturn;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    @Override
+    public String toString() {
+        return method.toString();
+    }
+}
@@ -22,6 +22,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -37,9 +38,23 @@ import org.freedesktop.dbus.exceptions.DBusExecutionException;
 import org.freedesktop.dbus.interfaces.DBusInterface;
 
 public class ExportedObject {
-    private Map<MethodTuple, Method> methods;
-    private Reference<DBusInterface> object;
-    private String                   introspectiondata;
+    /**
+     * Methods and introspection data of exported classes, shared by all objects of the same class.
+     * The data is attached to the class, so it does not keep classes or their class loaders alive.
+     */
+    private static final ClassValue<ExportedClass> CLASS_CACHE = new ClassValue<ExportedClass>() {
+        @Override
+        protected ExportedClass computeValue(Class<?> _clazz) {
+            try {
+                return new ExportedClass(_clazz);
+            } catch (DBusException _ex) {
+                throw new ExportFailedException(_ex);
+            }
+        }
+    };
+
+    private final ExportedClass            exportedClass;
+    private final Reference<DBusInterface> object;
 
     public ExportedObject(DBusInterface _object, boolean _weakreferences) throws DBusException {
         if (_weakreferences) {
@@ -47,17 +62,18 @@ public class ExportedObject {
         } else {
             this.object = new StrongReference<DBusInterface>(_object);
         }
-        introspectiondata = "";
-        methods = getExportedMethods(_object.getClass());
-        introspectiondata +=
-                " <interface name=\"org.freedesktop.DBus.Introspectable\">\n" + "  <method name=\"Introspect\">\n"
-                        + "   <arg type=\"s\" direction=\"out\"/>\n" + "  </method>\n" + " </interface>\n";
-        introspectiondata += " <interface name=\"org.freedesktop.DBus.Peer\">\n" + "  <method name=\"Ping\">\n"
-                + "  </method>\n" + " </interface>\n";
+        exportedClass = getExportedClass(_object.getClass());
+    }
+
+    private static ExportedClass getExportedClass(Class<?> _clazz) throws DBusException {
+        try {
+            return CLASS_CACHE.get(_clazz);
+        } catch (ExportFailedException _ex) {
+            throw _ex.getCause();
+        }
     }
 
-    private String getAnnotations(AnnotatedElement c) {
-        String ans = "";
+    private static void appendAnnotations(StringBuilder _sb, AnnotatedElement c) {
         for (Annotation a : c.getDeclaredAnnotations()) {
 
             if (!a.annotationType().isAssignableFrom(DBusInterface.class)) { // skip all interfaces not compatible with
@@ -76,13 +92,12 @@ public class ExportedObject {
                 // ignore
             }
 
-            ans += "  <annotation name=\"" + AbstractConnection.DOLLAR_PATTERN.matcher(t.getName()).replaceAll(".")
-                    + "\" value=\"" + value + "\" />\n";
+            _sb.append("  <annotation name=\"").append(AbstractConnection.DOLLAR_PATTERN.matcher(t.getName()).replaceAll("."))
+                    .append("\" value=\"").append(value).append("\" />\n");
         }
-        return ans;
     }
 
-    private Map<MethodTuple, Method> getExportedMethods(Class<?> c) throws DBusException {
+    private static Map<MethodTuple, Method> getExportedMethods(Class<?> c, StringBuilder _introspection) throws DBusException {
         if (DBusInterface.class.equals(c)) {
             return new HashMap<MethodTuple, Method>();
         }
@@ -92,7 +107,7 @@ public class ExportedObject {
                 // add this class's public methods
                 if (null != c.getAnnotation(DBusInterfaceName.class)) {
                     String name = c.getAnnotation(DBusInterfaceName.class).value();
-                    introspectiondata += " <interface name=\"" + name + "\">\n";
+                    _introspection.append(" <interface name=\"").append(name).append("\">\n");
                     DBusSignal.addInterfaceMap(c.getName(), name);
                 } else {
                     // don't let people export things which don't have a
@@ -105,14 +120,14 @@ public class ExportedObject {
                                 "Introspected interface name exceeds 255 characters. Cannot export objects of type "
                                         + c.getName());
                     } else {
-                        introspectiondata += " <interface name=\""
-                                + AbstractConnection.DOLLAR_PATTERN.matcher(c.getName()).replaceAll(".") + "\">\n";
+                        _introspection.append(" <interface name=\"")
+                                .append(AbstractConnection.DOLLAR_PATTERN.matcher(c.getName()).replaceAll(".")).append("\">\n");
                     }
                 }
-                introspectiondata += getAnnotations(c);
+                appendAnnotations(_introspection, c);
                 for (Method meth : c.getDeclaredMethods()) {
                     if (Modifier.isPublic(meth.getModifiers())) {
-                        String ms = "";
+                        StringBuilder ms = new StringBuilder();
                         String name;
                         if (meth.isAnnotationPresent(DBusMemberName.class)) {
                             name = meth.getAnnotation(DBusMemberName.class).value();
@@ -124,21 +139,19 @@ public class ExportedObject {
                                     "Introspected method name exceeds 255 characters. Cannot export objects with method "
                                             + name);
                         }
-                        introspectiondata += "  <method name=\"" + name + "\" >\n";
-                        introspectiondata += getAnnotations(meth);
+                        _introspection.append("  <method name=\"").append(name).append("\" >\n");
+                        appendAnnotations(_introspection, meth);
                         for (Class<?> ex : meth.getExceptionTypes()) {
                             if (DBusExecutionException.class.isAssignableFrom(ex)) {
-                                introspectiondata +=
-                                        "   <annotation name=\"org.freedesktop.DBus.Method.Error\" value=\""
-                                                + AbstractConnection.DOLLAR_PATTERN.matcher(ex.getName())
-                                                        .replaceAll(".")
-                                                + "\" />\n";
+                                _introspection.append("   <annotation name=\"org.freedesktop.DBus.Method.Error\" value=\"")
+                                        .append(AbstractConnection.DOLLAR_PATTERN.matcher(ex.getName()).replaceAll("."))
+                                        .append("\" />\n");
                             }
                         }
                         for (Type pt : meth.getGenericParameterTypes()) {
                             for (String s : Marshalling.getDBusType(pt)) {
-                                introspectiondata += "   <arg type=\"" + s + "\" direction=\"in\"/>\n";
-                                ms += s;
+                                _introspection.append("   <arg type=\"").append(s).append("\" direction=\"in\"/>\n");
+                                ms.append(s);
                             }
                         }
                         if (!Void.TYPE.equals(meth.getGenericReturnType())) {
@@ -149,7 +162,7 @@ public class ExportedObject {
                                 for (Type t : ts) {
                                     if (t != null) {
                                         for (String s : Marshalling.getDBusType(t)) {
-                                            introspectiondata += "   <arg type=\"" + s + "\" direction=\"out\"/>\n";
+                                            _introspection.append("   <arg type=\"").append(s).append("\" direction=\"out\"/>\n");
                                         }
                                     }
                                 }
@@ -157,12 +170,12 @@ public class ExportedObject {
                                 throw new DBusException("Return type of Object[] cannot be introspected properly");
                             } else {
                                 for (String s : Marshalling.getDBusType(meth.getGenericReturnType())) {
-                                    introspectiondata += "   <arg type=\"" + s + "\" direction=\"out\"/>\n";
+                                    _introspection.append("   <arg type=\"").append(s).append("\" direction=\"out\"/>\n");
                                 }
                             }
                         }
-                        introspectiondata += "  </method>\n";
-                        m.put(new MethodTuple(name, ms), meth);
+                        _introspection.append("  </method>\n");
+                        m.put(new MethodTuple(name, ms.toString()), meth);
                     }
                 }
                 for (Class<?> sig : c.getDeclaredClasses()) {
@@ -179,30 +192,46 @@ public class ExportedObject {
                                     "Introspected signal name exceeds 255 characters. Cannot export objects with signals of type "
                                             + name);
                         }
-                        introspectiondata += "  <signal name=\"" + name + "\">\n";
+                        _introspection.append("  <signal name=\"").append(name).append("\">\n");
                         Constructor<?> con = sig.getConstructors()[0];
                         Type[] ts = con.getGenericParameterTypes();
                         for (int j = 1; j < ts.length; j++) {
                             for (String s : Marshalling.getDBusType(ts[j])) {
-                                introspectiondata += "   <arg type=\"" + s + "\" direction=\"out\" />\n";
+                                _introspection.append("   <arg type=\"").append(s).append("\" direction=\"out\" />\n");
                             }
                         }
-                        introspectiondata += getAnnotations(sig);
-                        introspectiondata += "  </signal>\n";
+                        appendAnnotations(_introspection, sig);
+                        _introspection.append("  </signal>\n");
 
                     }
                 }
-                introspectiondata += " </interface>\n";
+                _introspection.append(" </interface>\n");
             } else {
                 // recurse
-                m.putAll(getExportedMethods(i));
+                m.putAll(getExportedMethods(i, _introspection));
             }
         }
         return m;
     }
 
+    /**
+     * Get the exported methods of the object.
+     * The map is shared by all objects of the same class and cannot be modified.
+     *
+     * @return methods by name and signature
+     */
     public Map<MethodTuple, Method> getMethods() {
-        return methods;
+        return exportedClass.methods;
+    }
+
+    /**
+     * Get the method with the given name and signature, prepared for invocation.
+     *
+     * @param _tuple name and signature
+     * @return {@link ExportedMethod} or null if there is no such method
+     */
+    public ExportedMethod getExportedMethod(MethodTuple _tuple) {
+        return exportedClass.exportedMethods.get(_tuple);
     }
 
     public Reference<DBusInterface> getObject() {
@@ -210,7 +239,53 @@ public class ExportedObject {
     }
 
     public String getIntrospectiondata() {
-        return introspectiondata;
+        return exportedClass.introspectiondata;
+    }
+
+    /**
+     * Everything of an exported object which only depends on its class.
+     */
+    private static final class ExportedClass {
+        private final Map<MethodTuple, Method>         methods;
+        private final Map<MethodTuple, ExportedMethod> exportedMethods;
+        private final String                           introspectiondata;
+
+        ExportedClass(Class<?> _clazz) throws DBusException {
+            StringBuilder introspection = new StringBuilder();
+            Map<MethodTuple, Method> m = getExportedMethods(_clazz, introspection);
+            Map<MethodTuple, ExportedMethod> em = new HashMap<>();
+            for (Map.Entry<MethodTuple, Method> e : m.entrySet()) {
+                em.put(e.getKey(), new ExportedMethod(e.getValue()));
+            }
+            introspection.append(" <interface name=\"org.freedesktop.DBus.Introspectable\">\n")
+                    .append("  <method name=\"Introspect\">\n")
+                    .append("   <arg type=\"s\" direction=\"out\"/>\n")
+                    .append("  </method>\n")
+                    .append(" </interface>\n");
+            introspection.append(" <interface name=\"org.freedesktop.DBus.Peer\">\n")
+                    .append("  <method name=\"Ping\">\n")
+                    .append("  </method>\n")
+                    .append(" </interface>\n");
+
+            methods = Collections.unmodifiableMap(m);
+            exportedMethods = em;
+            introspectiondata = introspection.toString();
+        }
     }
 
+    /**
+     * Carries the {@link DBusException} of a class which can not be exported out of {@link ClassValue#computeValue(Class)}.
+     */
+    private static final class ExportFailedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ExportFailedException(DBusException _cause) {
+            super(_cause);
+        }
+
+        @Override
+        public synchronized DBusException getCause() {
+            return (DBusException) super.getCause();
+        }
+    }
 }
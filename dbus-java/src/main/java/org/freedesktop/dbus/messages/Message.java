@@ -13,18 +13,21 @@
 package org.freedesktop.dbus.messages;
 
 import java.io.FileDescriptor;
-import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.freedesktop.Hexdump;
 import org.freedesktop.dbus.ArrayFrob;
@@ -35,6 +38,7 @@ import org.freedesktop.dbus.ObjectPath;
 import org.freedesktop.dbus.connections.AbstractConnection;
 import org.freedesktop.dbus.exceptions.DBusException;
 import org.freedesktop.dbus.exceptions.MarshallingException;
+import org.freedesktop.dbus.exceptions.MessageProtocolVersionException;
 import org.freedesktop.dbus.exceptions.UnknownTypeCodeException;
 import org.freedesktop.dbus.types.UInt16;
 import org.freedesktop.dbus.types.UInt32;
@@ -50,27 +54,32 @@ import org.slf4j.LoggerFactory;
 public class Message {
     /** The current protocol major version. */
     public static final byte PROTOCOL    = 1;
+    /** Maximum length of a message as defined by the D-Bus specification (128 MiB). */
+    public static final int  MAXIMUM_MESSAGE_LENGTH = 134217728;
+    /** Length of the fixed header including the length of the header field array. */
+    public static final int  FIXED_HEADER_LENGTH    = 16;
 
     /** Position of data offset in int array. */
     private static final int OFFSET_DATA = 1;
     /** Position of signature offset in int array. */
     private static final int OFFSET_SIG  = 0;
 
-    /** Keep a static reference to each size of padding array to prevent allocation. */
-    private static byte[][]  padding;
-    static {
-        padding = new byte[][] {
-                null, new byte[1], new byte[2], new byte[3], new byte[4], new byte[5], new byte[6], new byte[7]
-        };
-    }
-    /** Steps to increment the buffer array. */
-    private static final int  BUFFERINCREMENT = 20;
+    /** Signature of a variant, used to parse unknown header fields. */
+    private static final byte[] VARIANT_SIGNATURE = new byte[] {ArgumentType.VARIANT};
+    /** Strings of header fields of received messages. */
+    private static final StringCache HEADER_STRINGS = new StringCache(1024);
+    /** Signature of a signature, used to marshall the type of variants. */
+    private static final byte[] SIGNATURE_SIGNATURE = new byte[] {ArgumentType.SIGNATURE};
+    /** Initial size of the buffer a new message is marshalled to. */
+    private static final int  INITIAL_BUFFER_SIZE = 256;
 
     private final Logger      logger          = LoggerFactory.getLogger(getClass());
 
-    protected static long     globalserial    = 0;
+    /** Last serial handed out, serials are unsigned 32-bit values and wrap around. */
+    private static final AtomicInteger GLOBAL_SERIAL = new AtomicInteger();
 
-    private byte[][]          wiredata;
+    /** Wire format of the message, only the first {@link #bytecounter} bytes are used. */
+    private byte[]            wirebuf;
     private long              bytecounter;
     private Map<Byte, Object> headers;
 
@@ -82,11 +91,11 @@ public class Message {
     private boolean           big;
     private Object[]          args;
     private byte[]            body;
+    /** Position of the body in {@link #body}, the body may be a part of the complete message data. */
+    private int               bodyoffset      = 0;
     private long              bodylen         = 0;
-    private int               preallocated    = 0;
-    private int               paofs           = 0;
-    private byte[]            pabuf;
-    private int               bufferuse       = 0;
+    /** Positions of the parameters in {@link #body}, created when a single parameter is read first. */
+    private volatile ParameterIndex parameterIndex;
 
     /**
      * Returns the name of the given header field.
@@ -126,19 +135,16 @@ public class Message {
      * @throws DBusException on error
      */
     protected Message(byte endian, byte _type, byte _flags) throws DBusException {
-        wiredata = new byte[BUFFERINCREMENT][];
+        wirebuf = new byte[INITIAL_BUFFER_SIZE];
         headers = new HashMap<>();
         big = (Endian.BIG == endian);
         bytecounter = 0;
-        synchronized (Message.class) {
-            serial = ++globalserial;
-        }
+        serial = nextSerial();
 
         logger.debug("Creating message with serial {}", serial);
 
         this.type = _type;
         this.flags = _flags;
-        preallocate(4);
         append("yyyy", endian, _type, _flags, Message.PROTOCOL);
     }
 
@@ -146,7 +152,7 @@ public class Message {
      * Create a blank message. Only to be used when calling populate.
      */
     protected Message() {
-        wiredata = new byte[BUFFERINCREMENT][];
+        wirebuf = new byte[0];
         headers = new HashMap<>();
         bytecounter = 0;
     }
@@ -158,31 +164,130 @@ public class Message {
      * @param _headers D-Bus serialized data of type a(yv)
      * @param _body D-Bus serialized data of the signature defined in headers.
      */
-    @SuppressWarnings("unchecked")
     void populate(byte[] _msg, byte[] _headers, byte[] _body) throws DBusException {
+        // the header array contains the length of the header fields followed by 4 bytes of padding
+        byte[] data = new byte[_msg.length + _headers.length - 4 + _body.length];
+        System.arraycopy(_msg, 0, data, 0, _msg.length);
+        System.arraycopy(_headers, 0, data, _msg.length, 4);
+        System.arraycopy(_headers, 8, data, _msg.length + 4, _headers.length - 8);
+        System.arraycopy(_body, 0, data, _msg.length + _headers.length - 4, _body.length);
+        populate(data);
+    }
+
+    /**
+     * Create a message from the complete wire-format data of a message.
+     * The data is used as it is, header fields and body are parsed from their position in the given array.
+     *
+     * @param _msg D-Bus serialized message including fixed header, header fields and body
+     */
+    void populate(byte[] _msg) throws DBusException {
         big = (_msg[0] == Endian.BIG);
         type = _msg[1];
         flags = _msg[2];
         protover = _msg[3];
-        wiredata[0] = _msg;
-        wiredata[1] = _headers;
-        wiredata[2] = _body;
-        this.body = _body;
-        bufferuse = 3;
-        bodylen = ((Number) extract(Message.ArgumentType.UINT32_STRING, _msg, 4)[0]).longValue();
-        serial = ((Number) extract(Message.ArgumentType.UINT32_STRING, _msg, 8)[0]).longValue();
-        bytecounter = _msg.length + _headers.length + _body.length;
-
-        logger.trace("Message header: {}", Hexdump.toAscii(_headers));
-        Object[] hs = extract("a(yv)", _headers, 0);
+        wirebuf = _msg;
+        bodylen = demarshallint(_msg, 4, 4);
+        serial = demarshallint(_msg, 8, 4);
+        bytecounter = _msg.length;
+
+        long headerlen = demarshallint(_msg, 12, 4);
+        if (0 != headerlen % 8) {
+            headerlen += 8 - (headerlen % 8);
+        }
+        this.body = _msg;
+        bodyoffset = (int) (FIXED_HEADER_LENGTH + headerlen);
+
+        parseHeaderFields(_msg);
         if (logger.isTraceEnabled()) {
-            logger.trace(Arrays.deepToString(hs));
+            logger.trace("Header fields: {}", headers);
         }
-        for (Object o : (List<Object>) hs[0]) {
-            this.headers.put((Byte) ((Object[]) o)[0], ((Variant<Object>) ((Object[]) o)[1]).getValue());
+    }
+
+    /**
+     * Parses the header fields (signature a(yv)) of a received message.
+     * String values are taken from {@link #HEADER_STRINGS}, so the same instances are used by all messages
+     * of the same interface, member, path, sender or destination.
+     *
+     * @param _msg D-Bus serialized message
+     */
+    private void parseHeaderFields(byte[] _msg) throws DBusException {
+        int ofs = FIXED_HEADER_LENGTH;
+        int end = ofs + (int) demarshallint(_msg, 12, 4);
+        while (ofs < end) {
+            ofs = align(ofs, ArgumentType.STRUCT1);
+            byte field = _msg[ofs++];
+            Object value;
+            // single type variants (all defined header fields) are parsed directly
+            byte valueType = 1 == _msg[ofs] ? _msg[ofs + 1] : 0;
+            switch (valueType) {
+            case ArgumentType.STRING:
+            case ArgumentType.OBJECT_PATH:
+                ofs = align(ofs + 3, valueType);
+                int length = (int) demarshallint(_msg, ofs, 4);
+                ofs += 4;
+                String s = HEADER_STRINGS.get(_msg, ofs, length);
+                value = ArgumentType.STRING == valueType ? s : new ObjectPath(getSource(), s);
+                ofs += length + 1;
+                break;
+            case ArgumentType.SIGNATURE:
+                ofs += 3;
+                length = _msg[ofs] & 0xFF;
+                value = HEADER_STRINGS.get(_msg, ofs + 1, length);
+                ofs += length + 2;
+                break;
+            case ArgumentType.UINT32:
+                ofs = align(ofs + 3, valueType);
+                value = new UInt32(demarshallint(_msg, ofs, 4));
+                ofs += 4;
+                break;
+            default:
+                int[] offsets = new int[] {
+                        0, ofs
+                };
+                value = ((Variant<?>) extractOne(VARIANT_SIGNATURE, _msg, offsets, false)).getValue();
+                ofs = offsets[OFFSET_DATA];
+            }
+            headers.put(field, value);
         }
     }
 
+    /**
+     * Returns the total length of a message by reading its fixed header.
+     *
+     * @param _buf buffer containing at least {@link #FIXED_HEADER_LENGTH} bytes of the message
+     * @param _ofs offset of the message in the buffer
+     * @return length of the message in bytes
+     * @throws MessageProtocolVersionException if the protocol version is unsupported
+     */
+    public static long getMessageLength(byte[] _buf, int _ofs) throws MessageProtocolVersionException {
+        byte endian = _buf[_ofs];
+        byte protover = _buf[_ofs + 3];
+        if (protover > PROTOCOL) {
+            throw new MessageProtocolVersionException(String.format("Protocol version %s is unsupported", protover));
+        }
+        long bodylen = demarshallint(_buf, _ofs + 4, endian, 4);
+        long headerlen = demarshallint(_buf, _ofs + 12, endian, 4);
+        if (0 != headerlen % 8) {
+            headerlen += 8 - (headerlen % 8);
+        }
+        return FIXED_HEADER_LENGTH + headerlen + bodylen;
+    }
+
+    /**
+     * Returns the next message serial.
+     * Serials are unsigned 32-bit values, after 2^32 - 1 the counter wraps around.
+     * The value 0 is not allowed as serial and is skipped.
+     *
+     * @return serial between 1 and 2^32 - 1
+     */
+    static long nextSerial() {
+        int next;
+        do {
+            next = GLOBAL_SERIAL.incrementAndGet();
+        } while (0 == next);
+        return next & 0xFFFFFFFFL;
+    }
+
     protected Map<Byte, Object> getHeaders() {
         return headers;
     }
@@ -200,46 +305,58 @@ public class Message {
     }
 
     protected byte[][] getWiredata() {
-        return wiredata;
-    }
-
-    protected void setWiredata(byte[][] _wiredata) {
-        wiredata = _wiredata;
+        return getWireData();
     }
 
     /**
-     * Create a buffer of num bytes. Data is copied to this rather than added to the buffer list.
+     * Replace the wire format of this message.
+     * All fragments are joined to a single buffer.
+     *
+     * @param _wiredata fragments of the wire format, terminated by the end of the array or the first null
      */
-    private void preallocate(int num) {
-        preallocated = 0;
-        pabuf = new byte[num];
-        appendBytes(pabuf);
-        preallocated = num;
-        paofs = 0;
+    protected void setWiredata(byte[][] _wiredata) {
+        int length = 0;
+        for (byte[] buf : _wiredata) {
+            if (buf == null) {
+                break;
+            }
+            length += buf.length;
+        }
+        if (_wiredata.length > 0 && _wiredata[0] != null && _wiredata[0].length == length) {
+            wirebuf = _wiredata[0];
+        } else {
+            wirebuf = new byte[length];
+            int ofs = 0;
+            for (byte[] buf : _wiredata) {
+                if (buf == null) {
+                    break;
+                }
+                System.arraycopy(buf, 0, wirebuf, ofs, buf.length);
+                ofs += buf.length;
+            }
+        }
+        bytecounter = length;
     }
 
     /**
-     * Ensures there are enough free buffers.
+     * Ensures the buffer can take the given number of additional bytes.
+     * The buffer grows at least by doubling its size, so the number of allocations
+     * is logarithmic to the size of the message.
      *
-     * @param num number of free buffers to create.
+     * @param num number of bytes which will be appended
      */
-    private void ensureBuffers(int num) {
-        int increase = num - wiredata.length + bufferuse;
-        if (increase > 0) {
-            if (increase < BUFFERINCREMENT) {
-                increase = BUFFERINCREMENT;
-            }
-
-            logger.trace("Resizing {}", bufferuse);
-
-            byte[][] temp = new byte[wiredata.length + increase][];
-            System.arraycopy(wiredata, 0, temp, 0, wiredata.length);
-            wiredata = temp;
+    private void ensureCapacity(int num) {
+        long required = bytecounter + num;
+        if (required > wirebuf.length) {
+            int size = (int) Math.max(required, Math.min(2L * wirebuf.length, MAXIMUM_MESSAGE_LENGTH));
+            size = Math.max(size, INITIAL_BUFFER_SIZE);
+            logger.trace("Resizing wire buffer from {} to {} bytes", wirebuf.length, size);
+            wirebuf = Arrays.copyOf(wirebuf, size);
         }
     }
 
     /**
-     * Appends a buffer to the buffer list.
+     * Appends the content of a buffer to the message.
      *
      * @param buf buffer byte array
      */
@@ -247,49 +364,67 @@ public class Message {
         if (null == buf) {
             return;
         }
-        if (preallocated > 0) {
-            if (paofs + buf.length > pabuf.length) {
-                throw new ArrayIndexOutOfBoundsException(
-                        MessageFormat.format("Array index out of bounds, paofs={0}, pabuf.length={1}, buf.length={2}.",
-                                paofs, pabuf.length, buf.length));
-            }
-            System.arraycopy(buf, 0, pabuf, paofs, buf.length);
-            paofs += buf.length;
-            preallocated -= buf.length;
-        } else {
-            if (bufferuse == wiredata.length) {
-                logger.trace("Resizing {}", bufferuse);
-                byte[][] temp = new byte[wiredata.length + BUFFERINCREMENT][];
-                System.arraycopy(wiredata, 0, temp, 0, wiredata.length);
-                wiredata = temp;
+        appendBytes(buf, 0, buf.length);
+    }
+
+    /**
+     * Appends a part of a buffer to the message.
+     *
+     * @param buf buffer byte array
+     * @param ofs offset of the first byte to append
+     * @param len number of bytes to append
+     */
+    protected void appendBytes(byte[] buf, int ofs, int len) {
+        ensureCapacity(len);
+        System.arraycopy(buf, ofs, wirebuf, (int) bytecounter, len);
+        bytecounter += len;
+    }
+
+    /**
+     * Appends a string as UTF-8, preceded by its length and followed by a null byte.
+     * ASCII strings are copied to the buffer directly instead of encoding them to a new array first.
+     *
+     * @param _s string
+     */
+    private void appendString(String _s) {
+        int len = _s.length();
+        ensureCapacity(4 + len + 1);
+        int ofs = (int) bytecounter + 4;
+        for (int i = 0; i < len; i++) {
+            char c = _s.charAt(i);
+            if (c >= 0x80) {
+                byte[] payloadbytes = _s.getBytes(StandardCharsets.UTF_8);
+                logger.trace("Appending String of length {}", payloadbytes.length);
+                appendint(payloadbytes.length, 4);
+                appendBytes(payloadbytes);
+                appendByte((byte) 0);
+                return;
             }
-            wiredata[bufferuse++] = buf;
-            bytecounter += buf.length;
+            wirebuf[ofs + i] = (byte) c;
         }
+        logger.trace("Appending String of length {}", len);
+        appendint(len, 4);
+        bytecounter += len;
+        wirebuf[(int) bytecounter++] = 0;
     }
 
     /**
-     * Appends a byte to the buffer list.
+     * Appends a byte to the message.
      *
      * @param b byte
      */
     protected void appendByte(byte b) {
-        if (preallocated > 0) {
-            pabuf[paofs++] = b;
-            preallocated--;
-        } else {
-            if (bufferuse == wiredata.length) {
+        ensureCapacity(1);
+        wirebuf[(int) bytecounter++] = b;
+    }
 
-                logger.trace("Resizing {}", bufferuse);
-                byte[][] temp = new byte[wiredata.length + BUFFERINCREMENT][];
-                System.arraycopy(wiredata, 0, temp, 0, wiredata.length);
-                wiredata = temp;
-            }
-            wiredata[bufferuse++] = new byte[] {
-                    b
-            };
-            bytecounter++;
-        }
+    /**
+     * Returns the byte order of the message.
+     *
+     * @return byte order
+     */
+    private ByteOrder getByteOrder() {
+        return big ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
     }
 
     /**
@@ -361,9 +496,21 @@ public class Message {
      * @param width The byte-width of the int.
      */
     public void appendint(long l, int width) {
-        byte[] buf = new byte[width];
-        marshallint(l, buf, 0, width);
-        appendBytes(buf);
+        ensureCapacity(width);
+        marshallint(l, wirebuf, (int) bytecounter, width);
+        bytecounter += width;
+    }
+
+    /**
+     * Marshalls an integer of a given width to a position of the message which has already been written.
+     * Used to set length fields which are only known after appending the data following them.
+     *
+     * @param l The integer to marshall.
+     * @param ofs The position in the message to marshall to.
+     * @param width The byte-width of the int.
+     */
+    protected void marshallint(long l, int ofs, int width) {
+        marshallint(l, wirebuf, ofs, width);
     }
 
     /**
@@ -381,7 +528,9 @@ public class Message {
             marshallintLittle(l, buf, ofs, width);
         }
 
-        logger.trace("Marshalled int {} to {}", l, Hexdump.toHex(buf, ofs, width));
+        if (logger.isTraceEnabled()) {
+            logger.trace("Marshalled int {} to {}", l, Hexdump.toHex(buf, ofs, width));
+        }
     }
 
     /**
@@ -414,8 +563,46 @@ public class Message {
         }
     }
 
+    /**
+     * Returns the wire format of this message.
+     * The message is marshalled to a single buffer, so the returned array contains exactly one element.
+     * If the header of a received message was replaced by {@link #setSource(String)}, header and body are joined.
+     *
+     * @return wire data
+     */
     public byte[][] getWireData() {
-        return wiredata;
+        if (null != body && body != wirebuf) {
+            byte[] joined = Arrays.copyOf(wirebuf, (int) (bytecounter + bodylen));
+            System.arraycopy(body, bodyoffset, joined, (int) bytecounter, (int) bodylen);
+            bodyoffset = (int) bytecounter;
+            body = joined;
+            // positions of the parameters refer to the previous body buffer
+            parameterIndex = null;
+            wirebuf = joined;
+            bytecounter = joined.length;
+        } else if (wirebuf.length != bytecounter) {
+            wirebuf = Arrays.copyOf(wirebuf, (int) bytecounter);
+        }
+        return new byte[][] {wirebuf};
+    }
+
+    /**
+     * Returns the wire format of this message as buffers for a gathering write.
+     * For received messages with a header replaced by {@link #setSource(String)} the header and
+     * the unchanged body of the received data are returned as two buffers, the body is not copied.
+     * Each call returns new buffers, so the message can be written to several channels.
+     *
+     * @return buffers containing the complete message
+     */
+    public ByteBuffer[] getWireBuffers() {
+        if (null != body && body != wirebuf && 0 != bodylen) {
+            return new ByteBuffer[] {
+                    ByteBuffer.wrap(wirebuf, 0, (int) bytecounter), ByteBuffer.wrap(body, bodyoffset, (int) bodylen)
+            };
+        }
+        return new ByteBuffer[] {
+                ByteBuffer.wrap(getWireData()[0])
+        };
     }
 
     /**
@@ -513,8 +700,10 @@ public class Message {
     private int appendone(byte[] sigb, int sigofs, Object data) throws DBusException {
         try {
             int i = sigofs;
-            logger.trace("{}", bytecounter);
-            logger.trace("Appending type: {} value: {}", ((char) sigb[i]), data);
+            if (logger.isTraceEnabled()) {
+                logger.trace("{}", bytecounter);
+                logger.trace("Appending type: {} value: {}", ((char) sigb[i]), data);
+            }
 
             // pad to the alignment of this type.
             pad(sigb[i]);
@@ -565,32 +754,20 @@ public class Message {
             case ArgumentType.OBJECT_PATH:
                 // Strings are marshalled as a UInt32 with the length,
                 // followed by the String, followed by a null byte.
-                String payload = data.toString();
-                byte[] payloadbytes = null;
-                try {
-                    payloadbytes = payload.getBytes("UTF-8");
-                } catch (UnsupportedEncodingException uee) {
-                    logger.debug("System does not support UTF-8 encoding", uee);
-                    throw new DBusException("System does not support UTF-8 encoding");
-                }
-                logger.trace("Appending String of length {}", payloadbytes.length);
-                appendint(payloadbytes.length, 4);
-                appendBytes(payloadbytes);
-                appendBytes(padding[1]);
+                appendString(data.toString());
                 // pad(ArgumentType.STRING);? do we need this?
                 break;
             case ArgumentType.SIGNATURE:
                 // Signatures are marshalled as a byte with the length,
                 // followed by the String, followed by a null byte.
-                // Signatures are generally short, so preallocate the array
-                // for the string, length and null byte.
+                String payload;
                 if (data instanceof Type[]) {
                     payload = Marshalling.getDBusType((Type[]) data);
                 } else {
                     payload = (String) data;
                 }
                 byte[] pbytes = payload.getBytes();
-                preallocate(2 + pbytes.length);
+                ensureCapacity(2 + pbytes.length);
                 appendByte((byte) pbytes.length);
                 appendBytes(pbytes);
                 appendByte((byte) 0);
@@ -606,60 +783,70 @@ public class Message {
                     }
                 }
 
-                byte[] alen = new byte[4];
-                appendBytes(alen);
+                int alen = (int) bytecounter;
+                appendint(0, 4);
                 pad(sigb[++i]);
                 long c = bytecounter;
+                // lists of boxed numbers are marshalled like primitive arrays
+                Object primitives = data instanceof List ? PrimitiveArrayCodec.toPrimitiveArray((List<?>) data, sigb[i]) : null;
 
                 // optimise primitives
                 if (data.getClass().isArray() && data.getClass().getComponentType().isPrimitive()) {
-                    byte[] primbuf;
                     int algn = getAlignment(sigb[i]);
                     int len = Array.getLength(data);
-                    switch (sigb[i]) {
-                    case ArgumentType.BYTE:
-                        primbuf = (byte[]) data;
-                        break;
-                    case ArgumentType.INT16:
-                    case ArgumentType.INT32:
-                    case ArgumentType.INT64:
-                        primbuf = new byte[len * algn];
-                        for (int j = 0, k = 0; j < len; j++, k += algn) {
-                            marshallint(Array.getLong(data, j), primbuf, k, algn);
-                        }
-                        break;
-                    case ArgumentType.BOOLEAN:
-                        primbuf = new byte[len * algn];
-                        for (int j = 0, k = 0; j < len; j++, k += algn) {
-                            marshallint(Array.getBoolean(data, j) ? 1 : 0, primbuf, k, algn);
-                        }
-                        break;
-                    case ArgumentType.DOUBLE:
-                        primbuf = new byte[len * algn];
-                        if (data instanceof float[]) {
-                            for (int j = 0, k = 0; j < len; j++, k += algn) {
-                                marshallint(Double.doubleToRawLongBits(((float[]) data)[j]), primbuf, k, algn);
-                            }
+                    if (ArgumentType.BYTE == sigb[i]) {
+                        appendBytes((byte[]) data);
+                    } else {
+                        ensureCapacity(len * algn);
+                        int k = (int) bytecounter;
+                        int written = PrimitiveArrayCodec.encode(data, sigb[i], wirebuf, k, getByteOrder());
+                        if (written >= 0) {
+                            // copied in bulk
+                            k += written;
                         } else {
-                            for (int j = 0, k = 0; j < len; j++, k += algn) {
-                                marshallint(Double.doubleToRawLongBits(((double[]) data)[j]), primbuf, k, algn);
+                            switch (sigb[i]) {
+                            case ArgumentType.INT16:
+                            case ArgumentType.INT32:
+                            case ArgumentType.INT64:
+                                for (int j = 0; j < len; j++, k += algn) {
+                                    marshallint(Array.getLong(data, j), wirebuf, k, algn);
+                                }
+                                break;
+                            case ArgumentType.BOOLEAN:
+                                for (int j = 0; j < len; j++, k += algn) {
+                                    marshallint(Array.getBoolean(data, j) ? 1 : 0, wirebuf, k, algn);
+                                }
+                                break;
+                            case ArgumentType.DOUBLE:
+                                if (data instanceof float[]) {
+                                    for (int j = 0; j < len; j++, k += algn) {
+                                        marshallint(Double.doubleToRawLongBits(((float[]) data)[j]), wirebuf, k, algn);
+                                    }
+                                } else {
+                                    for (int j = 0; j < len; j++, k += algn) {
+                                        marshallint(Double.doubleToRawLongBits(((double[]) data)[j]), wirebuf, k, algn);
+                                    }
+                                }
+                                break;
+                            case ArgumentType.FLOAT:
+                                for (int j = 0; j < len; j++, k += algn) {
+                                    marshallint(Float.floatToRawIntBits(((float[]) data)[j]), wirebuf, k, algn);
+                                }
+                                break;
+                            default:
+                                throw new MarshallingException("Primitive array being sent as non-primitive array.");
                             }
                         }
-                        break;
-                    case ArgumentType.FLOAT:
-                        primbuf = new byte[len * algn];
-                        for (int j = 0, k = 0; j < len; j++, k += algn) {
-                            marshallint(Float.floatToRawIntBits(((float[]) data)[j]), primbuf, k, algn);
-                        }
-                        break;
-                    default:
-                        throw new MarshallingException("Primitive array being sent as non-primitive array.");
+                        bytecounter = k;
                     }
-                    appendBytes(primbuf);
+                } else if (null != primitives) {
+                    int len = Array.getLength(primitives) * getAlignment(sigb[i]);
+                    ensureCapacity(len);
+                    PrimitiveArrayCodec.encode(primitives, sigb[i], wirebuf, (int) bytecounter, getByteOrder());
+                    bytecounter += len;
                 } else if (data instanceof List) {
                     Object[] contents = ((List<?>) data).toArray();
                     int diff = i;
-                    ensureBuffers(contents.length * 4);
                     for (Object o : contents) {
                         diff = appendone(sigb, i, o);
                     }
@@ -670,7 +857,6 @@ public class Message {
                 } else if (data instanceof Map) {
                     int diff = i;
                     Map<Object, Object> map = (Map<Object, Object>) data;
-                    ensureBuffers(map.size() * 6);
                     for (Map.Entry<Object, Object> o : map.entrySet()) {
                         diff = appendone(sigb, i, o);
                     }
@@ -680,7 +866,6 @@ public class Message {
                     i = diff;
                 } else {
                     Object[] contents = (Object[]) data;
-                    ensureBuffers(contents.length * 4);
                     int diff = i;
                     for (Object o : contents) {
                         diff = appendone(sigb, i, o);
@@ -691,7 +876,7 @@ public class Message {
                     i = diff;
                 }
                 logger.trace("start: {} end: {} length: {}", c, bytecounter, (bytecounter - c));
-                marshallint(bytecounter - c, alen, 0, 4);
+                marshallint(bytecounter - c, alen, 4);
                 break;
             case ArgumentType.STRUCT1:
                 // Structs are aligned to 8 bytes
@@ -702,7 +887,6 @@ public class Message {
                 } else {
                     contents = (Object[]) data;
                 }
-                ensureBuffers(contents.length * 4);
                 int j = 0;
                 for (i++; sigb[i] != ArgumentType.STRUCT2; i++) {
                     i = appendone(sigb, i, contents[j++]);
@@ -729,21 +913,15 @@ public class Message {
                 // followed by the value.
                 if (data instanceof Variant) {
                     Variant<?> var = (Variant<?>) data;
-                    appendone(new byte[] {
-                            ArgumentType.SIGNATURE
-                    }, 0, var.getSig());
+                    appendone(SIGNATURE_SIGNATURE, 0, var.getSig());
                     appendone((var.getSig()).getBytes(), 0, var.getValue());
                 } else if (data instanceof Object[]) {
                     contents = (Object[]) data;
-                    appendone(new byte[] {
-                            ArgumentType.SIGNATURE
-                    }, 0, contents[0]);
+                    appendone(SIGNATURE_SIGNATURE, 0, contents[0]);
                     appendone(((String) contents[0]).getBytes(), 0, contents[1]);
                 } else {
                     String sig = Marshalling.getDBusType(data.getClass())[0];
-                    appendone(new byte[] {
-                            ArgumentType.SIGNATURE
-                    }, 0, sig);
+                    appendone(SIGNATURE_SIGNATURE, 0, sig);
                     appendone((sig).getBytes(), 0, data);
                 }
                 break;
@@ -763,22 +941,16 @@ public class Message {
      * @param _type type
      */
     public void pad(byte _type) {
-        logger.trace("padding for {}", (char) _type);
         int a = getAlignment(_type);
-        logger.trace("{} {} {} {}", preallocated, paofs, bytecounter, a);
-        int b = (int) ((bytecounter - preallocated) % a);
+        int b = (int) (bytecounter % a);
         if (0 == b) {
             return;
         }
         a = (a - b);
-        if (preallocated > 0) {
-            paofs += a;
-            preallocated -= a;
-        } else {
-            appendBytes(padding[a]);
+        ensureCapacity(a);
+        for (int i = 0; i < a; i++) {
+            wirebuf[(int) bytecounter++] = 0;
         }
-        logger.trace("{} {} {} {}", preallocated, paofs, bytecounter, a);
-
     }
 
     /**
@@ -832,7 +1004,9 @@ public class Message {
      * @throws DBusException on error
      */
     public void append(String sig, Object... data) throws DBusException {
-        logger.debug("Appending sig: {} data: {}", sig, Arrays.deepToString(data));
+        if (logger.isDebugEnabled()) {
+            logger.debug("Appending sig: {} data: {}", sig, Arrays.deepToString(data));
+        }
         byte[] sigb = sig.getBytes();
         int j = 0;
         for (int i = 0; i < sigb.length; i++) {
@@ -956,9 +1130,11 @@ public class Message {
             break;
         case ArgumentType.DICT_ENTRY1:
             Object[] decontents = new Object[2];
-            logger.trace("Extracting Dict Entry ({}) from: {}",
-                    Hexdump.toAscii(_signatureBuf, _offsets[OFFSET_SIG], _signatureBuf.length - _offsets[OFFSET_SIG]),
-                    Hexdump.toHex(_dataBuf, _offsets[OFFSET_DATA], _dataBuf.length - _offsets[OFFSET_DATA]));
+            if (logger.isTraceEnabled()) {
+                logger.trace("Extracting Dict Entry ({}) from: {}",
+                        Hexdump.toAscii(_signatureBuf, _offsets[OFFSET_SIG], _signatureBuf.length - _offsets[OFFSET_SIG]),
+                        Hexdump.toHex(_dataBuf, _offsets[OFFSET_DATA], _dataBuf.length - _offsets[OFFSET_DATA]));
+            }
             _offsets[OFFSET_SIG]++;
             decontents[0] = extractOne(_signatureBuf, _dataBuf, _offsets, true);
             _offsets[OFFSET_SIG]++;
@@ -982,23 +1158,18 @@ public class Message {
         case ArgumentType.STRING:
             length = (int) demarshallint(_dataBuf, _offsets[OFFSET_DATA], 4);
             _offsets[OFFSET_DATA] += 4;
-            try {
-                rv = new String(_dataBuf, _offsets[OFFSET_DATA], length, "UTF-8");
-            } catch (UnsupportedEncodingException uee) {
-                logger.debug("System does not support UTF-8 encoding", uee);
-                throw new DBusException("System does not support UTF-8 encoding");
-            }
+            rv = StringCache.decode(_dataBuf, _offsets[OFFSET_DATA], length);
             _offsets[OFFSET_DATA] += length + 1;
             break;
         case ArgumentType.OBJECT_PATH:
             length = (int) demarshallint(_dataBuf, _offsets[OFFSET_DATA], 4);
             _offsets[OFFSET_DATA] += 4;
-            rv = new ObjectPath(getSource(), new String(_dataBuf, _offsets[OFFSET_DATA], length));
+            rv = new ObjectPath(getSource(), StringCache.decode(_dataBuf, _offsets[OFFSET_DATA], length));
             _offsets[OFFSET_DATA] += length + 1;
             break;
         case ArgumentType.SIGNATURE:
             length = (_dataBuf[_offsets[OFFSET_DATA]++] & 0xFF);
-            rv = new String(_dataBuf, _offsets[OFFSET_DATA], length);
+            rv = StringCache.decode(_dataBuf, _offsets[OFFSET_DATA], length);
             _offsets[OFFSET_DATA] += length + 1;
             break;
         default:
@@ -1049,22 +1220,12 @@ public class Message {
             _offsets[OFFSET_DATA] += size;
             break;
         case ArgumentType.INT16:
-            rv = new short[length];
-            for (int j = 0; j < length; j++, _offsets[OFFSET_DATA] += algn) {
-                ((short[]) rv)[j] = (short) demarshallint(_dataBuf, _offsets[OFFSET_DATA], algn);
-            }
-            break;
         case ArgumentType.INT32:
-            rv = new int[length];
-            for (int j = 0; j < length; j++, _offsets[OFFSET_DATA] += algn) {
-                ((int[]) rv)[j] = (int) demarshallint(_dataBuf, _offsets[OFFSET_DATA], algn);
-            }
-            break;
         case ArgumentType.INT64:
-            rv = new long[length];
-            for (int j = 0; j < length; j++, _offsets[OFFSET_DATA] += algn) {
-                ((long[]) rv)[j] = demarshallint(_dataBuf, _offsets[OFFSET_DATA], algn);
-            }
+        case ArgumentType.FLOAT:
+        case ArgumentType.DOUBLE:
+            rv = PrimitiveArrayCodec.decode(_signatureBuf[_offsets[OFFSET_SIG]], _dataBuf, _offsets[OFFSET_DATA], length, getByteOrder());
+            _offsets[OFFSET_DATA] += length * algn;
             break;
         case ArgumentType.BOOLEAN:
             rv = new boolean[length];
@@ -1072,29 +1233,13 @@ public class Message {
                 ((boolean[]) rv)[j] = (1 == demarshallint(_dataBuf, _offsets[OFFSET_DATA], algn));
             }
             break;
-        case ArgumentType.FLOAT:
-            rv = new float[length];
-            for (int j = 0; j < length; j++, _offsets[OFFSET_DATA] += algn) {
-                ((float[]) rv)[j] = Float.intBitsToFloat((int) demarshallint(_dataBuf, _offsets[OFFSET_DATA], algn));
-            }
-            break;
-        case ArgumentType.DOUBLE:
-            rv = new double[length];
-            for (int j = 0; j < length; j++, _offsets[OFFSET_DATA] += algn) {
-                ((double[]) rv)[j] = Double.longBitsToDouble(demarshallint(_dataBuf, _offsets[OFFSET_DATA], algn));
-            }
-            break;
         case ArgumentType.DICT_ENTRY1:
             if (0 == size) {
                 // advance the type parser even on 0-size arrays.
-                List<Type> temp = new ArrayList<>();
-                byte[] temp2 = new byte[_signatureBuf.length - _offsets[OFFSET_SIG]];
-                System.arraycopy(_signatureBuf, _offsets[OFFSET_SIG], temp2, 0, temp2.length);
-                String temp3 = new String(temp2);
                 // ofs[OFFSET_SIG] gets incremented anyway. Leave one character on the stack
-                int temp4 = Marshalling.getJavaType(temp3, temp, 1) - 1;
-                _offsets[OFFSET_SIG] += temp4;
-                logger.trace("Aligned type: {} {} {}", temp3, temp4, _offsets[OFFSET_SIG]);
+                int skip = Marshalling.getSingleTypeLength(_signatureBuf, _offsets[OFFSET_SIG]) - 1;
+                _offsets[OFFSET_SIG] += skip;
+                logger.trace("Aligned type: {} {}", skip, _offsets[OFFSET_SIG]);
             }
             int ofssave = _offsets[OFFSET_SIG];
             long end = _offsets[OFFSET_DATA] + size;
@@ -1108,14 +1253,10 @@ public class Message {
         default:
             if (0 == size) {
                 // advance the type parser even on 0-size arrays.
-                List<Type> temp = new ArrayList<>();
-                byte[] temp2 = new byte[_signatureBuf.length - _offsets[OFFSET_SIG]];
-                System.arraycopy(_signatureBuf, _offsets[OFFSET_SIG], temp2, 0, temp2.length);
-                String temp3 = new String(temp2);
                 // ofs[OFFSET_SIG] gets incremented anyway. Leave one character on the stack
-                int temp4 = Marshalling.getJavaType(temp3, temp, 1) - 1;
-                _offsets[OFFSET_SIG] += temp4;
-                logger.trace("Aligned type: {} {} {}", temp3, temp4, _offsets[OFFSET_SIG]);
+                int skip = Marshalling.getSingleTypeLength(_signatureBuf, _offsets[OFFSET_SIG]) - 1;
+                _offsets[OFFSET_SIG] += skip;
+                logger.trace("Aligned type: {} {}", skip, _offsets[OFFSET_SIG]);
             }
             ofssave = _offsets[OFFSET_SIG];
             end = _offsets[OFFSET_DATA] + size;
@@ -1270,8 +1411,8 @@ public class Message {
     public Object[] getParameters() throws DBusException {
         if (null == args && null != body) {
             String sig = (String) headers.get(HeaderField.SIGNATURE);
-            if (null != sig && 0 != body.length) {
-                args = extract(sig, body, 0);
+            if (null != sig && 0 != bodylen) {
+                args = extract(sig, body, bodyoffset);
             } else {
                 args = new Object[0];
             }
@@ -1279,35 +1420,226 @@ public class Message {
         return args;
     }
 
+    /**
+     * Returns the number of parameters of this message without demarshalling them.
+     *
+     * @return number of parameters
+     * @throws DBusException on failure
+     */
+    public int getParameterCount() throws DBusException {
+        if (null != args || null == body) {
+            Object[] largs = getParameters();
+            return null == largs ? 0 : largs.length;
+        }
+        return getParameterIndex().count;
+    }
+
+    /**
+     * Demarshalls and returns a single parameter of this message.
+     * Preceding parameters are skipped without demarshalling them, so this is much cheaper than
+     * {@link #getParameters()} if only some parameters are needed (e.g. to filter signals by their first argument).
+     * The parameter is not cached, each call demarshalls it again.
+     *
+     * @param _index index of the parameter
+     * @return parameter, same as {@code getParameters()[_index]}
+     * @throws DBusException on failure
+     * @throws IndexOutOfBoundsException if the message has no parameter with the given index
+     */
+    public Object getParameter(int _index) throws DBusException {
+        if (null != args || null == body) {
+            return getParameters()[_index];
+        }
+        ParameterIndex index = getParameterIndex();
+        if (_index < 0 || _index >= index.count) {
+            throw new IndexOutOfBoundsException("Parameter " + _index + " requested, message has " + index.count + " parameters");
+        }
+        return extractOne(index.signature, body, new int[] {
+                index.offsets[_index * 2], index.offsets[_index * 2 + 1]
+        }, false);
+    }
+
+    /**
+     * Find the positions of all parameters by skipping through the body.
+     */
+    private ParameterIndex getParameterIndex() throws DBusException {
+        ParameterIndex index = parameterIndex;
+        if (null == index) {
+            String sig = getSig();
+            byte[] sigb = null == sig || 0 == bodylen ? new byte[0] : sig.getBytes();
+            int count = 0;
+            for (int i = 0; i < sigb.length; i += Marshalling.getSingleTypeLength(sigb, i)) {
+                count++;
+            }
+            int[] offsets = new int[count * 2];
+            int[] pos = new int[] {
+                    0, bodyoffset
+            };
+            for (int i = 0; i < count; i++, pos[OFFSET_SIG]++) {
+                offsets[i * 2] = pos[OFFSET_SIG];
+                offsets[i * 2 + 1] = pos[OFFSET_DATA];
+                if (i < count - 1) {
+                    skipOne(sigb, body, pos);
+                }
+            }
+            index = new ParameterIndex(sigb, count, offsets);
+            parameterIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Skip one value in a buffer without demarshalling it.
+     * The offsets are moved in the same way as {@link #extractOne(byte[], byte[], int[], boolean)} does.
+     *
+     * @param _signatureBuf A buffer of the D-Bus signature.
+     * @param _dataBuf The buffer containing the value.
+     * @param _offsets An array of two ints, which holds the position of the current signature offset and the current
+     *            offset of the data buffer.
+     */
+    private void skipOne(byte[] _signatureBuf, byte[] _dataBuf, int[] _offsets) throws DBusException {
+        _offsets[OFFSET_DATA] = align(_offsets[OFFSET_DATA], _signatureBuf[_offsets[OFFSET_SIG]]);
+        switch (_signatureBuf[_offsets[OFFSET_SIG]]) {
+        case ArgumentType.BYTE:
+            _offsets[OFFSET_DATA]++;
+            break;
+        case ArgumentType.INT16:
+        case ArgumentType.UINT16:
+            _offsets[OFFSET_DATA] += 2;
+            break;
+        case ArgumentType.INT32:
+        case ArgumentType.UINT32:
+        case ArgumentType.BOOLEAN:
+        case ArgumentType.FLOAT:
+        case ArgumentType.FILEDESCRIPTOR:
+            _offsets[OFFSET_DATA] += 4;
+            break;
+        case ArgumentType.INT64:
+        case ArgumentType.UINT64:
+        case ArgumentType.DOUBLE:
+            _offsets[OFFSET_DATA] += 8;
+            break;
+        case ArgumentType.STRING:
+        case ArgumentType.OBJECT_PATH:
+            int length = (int) demarshallint(_dataBuf, _offsets[OFFSET_DATA], 4);
+            _offsets[OFFSET_DATA] += 4 + length + 1;
+            break;
+        case ArgumentType.SIGNATURE:
+            length = _dataBuf[_offsets[OFFSET_DATA]] & 0xFF;
+            _offsets[OFFSET_DATA] += 1 + length + 1;
+            break;
+        case ArgumentType.ARRAY:
+            // arrays are skipped by their length, the elements are not looked at
+            long size = demarshallint(_dataBuf, _offsets[OFFSET_DATA], 4);
+            _offsets[OFFSET_DATA] += 4;
+            _offsets[OFFSET_DATA] = align(_offsets[OFFSET_DATA], _signatureBuf[++_offsets[OFFSET_SIG]]);
+            _offsets[OFFSET_DATA] += (int) size;
+            _offsets[OFFSET_SIG] += Marshalling.getSingleTypeLength(_signatureBuf, _offsets[OFFSET_SIG]) - 1;
+            break;
+        case ArgumentType.STRUCT1:
+            while (_signatureBuf[++_offsets[OFFSET_SIG]] != ArgumentType.STRUCT2) {
+                skipOne(_signatureBuf, _dataBuf, _offsets);
+            }
+            break;
+        case ArgumentType.DICT_ENTRY1:
+            _offsets[OFFSET_SIG]++;
+            skipOne(_signatureBuf, _dataBuf, _offsets);
+            _offsets[OFFSET_SIG]++;
+            skipOne(_signatureBuf, _dataBuf, _offsets);
+            _offsets[OFFSET_SIG]++;
+            break;
+        case ArgumentType.VARIANT:
+            length = _dataBuf[_offsets[OFFSET_DATA]] & 0xFF;
+            byte[] variantSig = Arrays.copyOfRange(_dataBuf, _offsets[OFFSET_DATA] + 1, _offsets[OFFSET_DATA] + 1 + length);
+            int[] newofs = new int[] {
+                    0, _offsets[OFFSET_DATA] + 1 + length + 1
+            };
+            skipOne(variantSig, _dataBuf, newofs);
+            _offsets[OFFSET_DATA] = newofs[OFFSET_DATA];
+            break;
+        default:
+            throw new UnknownTypeCodeException(_signatureBuf[_offsets[OFFSET_SIG]]);
+        }
+    }
+
     public void setArgs(Object[] _args) {
         this.args = _args;
     }
 
     /**
      * Warning, do not use this method unless you really know what you are doing.
+     * <p>
+     * Only received messages are changed. The header fields are copied to a new header with the SENDER field
+     * replaced or appended, the body stays in the received buffer and is not copied.
+     * Use {@link #getWireBuffers()} to write the message without joining header and body.
+     * </p>
      *
      * @param source string
      * @throws DBusException on error
      */
     public void setSource(String source) throws DBusException {
-        if (null != body) {
-            wiredata = new byte[BUFFERINCREMENT][];
-            bufferuse = 0;
-            bytecounter = 0;
-            preallocate(12);
-            append("yyyyuu", big ? Endian.BIG : Endian.LITTLE, type, flags, protover, bodylen, serial);
-            headers.put(HeaderField.SENDER, source);
-            Object[][] newhead = new Object[headers.size()][];
-            int i = 0;
-            for (Byte b : headers.keySet()) {
-                newhead[i] = new Object[2];
-                newhead[i][0] = b;
-                newhead[i][1] = headers.get(b);
-                i++;
+        if (null == body || source.equals(headers.get(HeaderField.SENDER))) {
+            return;
+        }
+        byte[] sender = source.getBytes(StandardCharsets.UTF_8);
+        int fieldsEnd = FIXED_HEADER_LENGTH + (int) demarshallint(wirebuf, 12, 4);
+        // fields are structs aligned to 8 bytes, the new SENDER field needs at most 8 bytes of alignment + ysu + string
+        byte[] header = new byte[fieldsEnd + 8 + 8 + sender.length + 1 + 8];
+        System.arraycopy(wirebuf, 0, header, 0, FIXED_HEADER_LENGTH);
+
+        int ofs = FIXED_HEADER_LENGTH;
+        int pos = FIXED_HEADER_LENGTH;
+        while (ofs < fieldsEnd) {
+            ofs = align(ofs, ArgumentType.STRUCT1);
+            int end = skipHeaderValue(wirebuf, ofs + 1);
+            if (HeaderField.SENDER != wirebuf[ofs]) {
+                // copied from and to 8 byte aligned positions, so the alignment inside the field is kept
+                pos = align(pos, ArgumentType.STRUCT1);
+                System.arraycopy(wirebuf, ofs, header, pos, end - ofs);
+                pos += end - ofs;
             }
-            append("a(yv)", (Object) newhead);
-            pad((byte) 8);
-            appendBytes(body);
+            ofs = end;
+        }
+
+        pos = align(pos, ArgumentType.STRUCT1);
+        header[pos++] = HeaderField.SENDER;
+        header[pos++] = 1;
+        header[pos++] = ArgumentType.STRING;
+        pos++;
+        marshallint(sender.length, header, pos, 4);
+        pos += 4;
+        System.arraycopy(sender, 0, header, pos, sender.length);
+        pos += sender.length + 1;
+        marshallint(pos - FIXED_HEADER_LENGTH, header, 12, 4);
+
+        wirebuf = header;
+        bytecounter = align(pos, ArgumentType.STRUCT1);
+        headers.put(HeaderField.SENDER, source);
+    }
+
+    /**
+     * Returns the position after a header field value.
+     *
+     * @param _msg D-Bus serialized message
+     * @param _ofs position of the variant signature of the value
+     * @return position after the value
+     */
+    private int skipHeaderValue(byte[] _msg, int _ofs) throws DBusException {
+        byte valueType = 1 == _msg[_ofs] ? _msg[_ofs + 1] : 0;
+        switch (valueType) {
+        case ArgumentType.STRING:
+        case ArgumentType.OBJECT_PATH:
+            int ofs = align(_ofs + 3, valueType);
+            return ofs + 4 + (int) demarshallint(_msg, ofs, 4) + 1;
+        case ArgumentType.SIGNATURE:
+            return _ofs + 3 + (_msg[_ofs + 3] & 0xFF) + 2;
+        case ArgumentType.UINT32:
+            return align(_ofs + 3, valueType) + 4;
+        default:
+            int[] offsets = new int[] {
+                    0, _ofs
+            };
+            skipOne(VARIANT_SIGNATURE, _msg, offsets);
+            return offsets[OFFSET_DATA];
         }
     }
 
@@ -1395,4 +1727,20 @@ public class Message {
         byte BIG    = 'B';
         byte LITTLE = 'l';
     }
-}
\ No newline at end of file
+
+    /**
+     * Signature and positions of the parameters of a received message.
+     */
+    private static final class ParameterIndex {
+        private final byte[] signature;
+        private final int    count;
+        /** Signature and data offset of each parameter. */
+        private final int[]  offsets;
+
+        ParameterIndex(byte[] _signature, int _count, int[] _offsets) {
+            signature = _signature;
+            count = _count;
+            offsets = _offsets;
+        }
+    }
+}
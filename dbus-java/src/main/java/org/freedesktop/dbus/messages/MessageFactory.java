@@ -12,6 +12,39 @@ public class MessageFactory {
     private static final Logger LOGGER = LoggerFactory.getLogger(MessageFactory.class);
 
     public static Message createMessage(byte _type, byte[] _buf, byte[] _header, byte[] _body) throws DBusException, MessageTypeException {
+        Message m = createBlankMessage(_type);
+
+        if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace(Hexdump.format(_buf));
+            LOGGER.trace(Hexdump.format(_header));
+            LOGGER.trace(Hexdump.format(_body));
+        }
+
+        m.populate(_buf, _header, _body);
+        return m;
+    }
+
+    /**
+     * Create a message from the complete wire-format data of a single message.
+     * The given array is used by the message without copying it.
+     *
+     * @param _msg message data (fixed header, header fields and body)
+     * @return message
+     * @throws DBusException if the message could not be parsed
+     * @throws MessageTypeException if the message type is unsupported
+     */
+    public static Message createMessage(byte[] _msg) throws DBusException, MessageTypeException {
+        Message m = createBlankMessage(_msg[1]);
+
+        if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace(Hexdump.format(_msg));
+        }
+
+        m.populate(_msg);
+        return m;
+    }
+
+    private static Message createBlankMessage(byte _type) throws MessageTypeException {
         Message m;
         switch (_type) {
             case Message.MessageType.METHOD_CALL:
@@ -29,14 +62,6 @@ public class MessageFactory {
             default:
                 throw new MessageTypeException(String.format("Message type %s unsupported", _type));
         }
-
-        if (LOGGER.isTraceEnabled()) {
-            LOGGER.trace(Hexdump.format(_buf));
-            LOGGER.trace(Hexdump.format(_header));
-            LOGGER.trace(Hexdump.format(_body));
-        }
-
-        m.populate(_buf, _header, _body);
         return m;
     }
 
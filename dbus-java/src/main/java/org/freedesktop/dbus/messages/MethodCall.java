@@ -14,8 +14,11 @@ package org.freedesktop.dbus.messages;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
-import org.freedesktop.Hexdump;
 import org.freedesktop.dbus.connections.impl.DBusConnection;
 import org.freedesktop.dbus.exceptions.DBusException;
 import org.freedesktop.dbus.exceptions.MessageFormatException;
@@ -94,8 +97,8 @@ public class MethodCall extends Message {
             setArgs(args);
         }
 
-        byte[] blen = new byte[4];
-        appendBytes(blen);
+        int blen = (int) getByteCounter();
+        appendint(0, 4);
         append("ua(yv)", getSerial(), hargs.toArray());
         pad((byte) 8);
 
@@ -104,8 +107,7 @@ public class MethodCall extends Message {
             append(sig, args);
         }
         logger.debug("Appended body, type: {} start: {} end: {} size: {}",sig, c, getByteCounter(), (getByteCounter() - c));
-        marshallint(getByteCounter() - c, blen, 0, 4);
-        logger.debug("marshalled size ({}): {}",blen, Hexdump.format(blen));
+        marshallint(getByteCounter() - c, blen, 4);
     }
 
     private static long REPLY_WAIT_TIMEOUT = 20000;
@@ -119,55 +121,156 @@ public class MethodCall extends Message {
         REPLY_WAIT_TIMEOUT = timeout;
     }
 
+    /**
+    * Get the default timeout for method calls.
+    * @return timeout in ms
+    */
+    public static long getDefaultTimeout() {
+        return REPLY_WAIT_TIMEOUT;
+    }
+
     // CHECKSTYLE:OFF
     Message reply = null;
     // CHECKSTYLE:ON
 
+    private CompletableFuture<Message> replyFuture;
+
+    /** Time in ms the connection waits for the reply before the call is expired, 0 to wait forever. */
+    private long timeout = REPLY_WAIT_TIMEOUT;
+    /** {@link System#nanoTime()} at which the call expires, only valid once the timeout was started. */
+    private long deadline;
+    private boolean timeoutStarted;
+
     public synchronized boolean hasReply() {
         return null != reply;
     }
 
     /**
     * Block (if neccessary) for a reply.
+    * Waiting does not hold any monitor, so virtual threads waiting for a reply do not block their carrier thread.
+    * If the call would expire before the given time, its timeout is extended, so the reply is not dropped while waiting for it.
     * @return The reply to this MethodCall, or null if a timeout happens.
-    * @param timeout The length of time to block before timing out (ms).
+    * @param _timeout The length of time to block before timing out (ms), 0 to wait forever.
     */
-    public synchronized Message getReply(long timeout) {
+    public Message getReply(long _timeout) {
         logger.trace("Blocking on {}", this);
-        if (null != reply) {
-            return reply;
+        CompletableFuture<Message> future;
+        synchronized (this) {
+            if (null != reply) {
+                return reply;
+            }
+            extendTimeout(_timeout);
+            future = getReplyFuture();
         }
         try {
-            wait(timeout);
-            return reply;
-        } catch (InterruptedException exI) {
-            return reply;
+            return _timeout > 0 ? future.get(_timeout, TimeUnit.MILLISECONDS) : future.get();
+        } catch (InterruptedException | ExecutionException | TimeoutException _ex) {
+            synchronized (this) {
+                return reply;
+            }
         }
     }
 
     /**
     * Block (if neccessary) for a reply.
-    * Default timeout is 20s, or can be configured with setDefaultTimeout()
+    * Waits for the timeout of this call, see {@link #setTimeout(long)}.
     * @return The reply to this MethodCall, or null if a timeout happens.
     */
-    public synchronized Message getReply() {
-        logger.trace("Blocking on {}", this);
+    public Message getReply() {
+        return getReply(getTimeout());
+    }
+
+    /**
+    * Get the time to wait for the reply before the call is expired.
+    * @return timeout in ms, 0 if the call never expires
+    */
+    public synchronized long getTimeout() {
+        return timeout;
+    }
+
+    /**
+    * Set the time to wait for the reply before the call is expired with a NoReply error.
+    * This has to be set before the call is sent, default is {@link #getDefaultTimeout()}.
+    * @param _timeout timeout in ms, 0 to never expire the call
+    */
+    public synchronized void setTimeout(long _timeout) {
+        timeout = Math.max(0, _timeout);
+    }
+
+    /**
+    * Start the timeout of this call, called by the connection when the call is sent.
+    * @return time in ms until the call expires, 0 if it never expires
+    */
+    public synchronized long startTimeout() {
+        timeoutStarted = true;
+        deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        return timeout;
+    }
 
-        if (null != reply) {
-            return reply;
+    /**
+    * Get the time left until this call expires.
+    * @return time in ms, 0 if the call is due, {@link Long#MAX_VALUE} if it never expires
+    */
+    public synchronized long getRemainingTime() {
+        if (0 == timeout) {
+            return Long.MAX_VALUE;
         }
-        try {
-            wait(REPLY_WAIT_TIMEOUT);
-            return reply;
-        } catch (InterruptedException exI) {
-            return reply;
+        if (!timeoutStarted) {
+            return timeout;
+        }
+        long remaining = deadline - System.nanoTime();
+        return remaining > 0 ? TimeUnit.NANOSECONDS.toMillis(remaining + TimeUnit.MILLISECONDS.toNanos(1) - 1) : 0;
+    }
+
+    /**
+    * Make sure the call does not expire before the given time from now has passed.
+    * @param _timeout time in ms, 0 to never expire
+    */
+    private void extendTimeout(long _timeout) {
+        if (0 == timeout) {
+            return;
+        }
+        if (_timeout <= 0) {
+            timeout = 0;
+        } else if (!timeoutStarted) {
+            timeout = Math.max(timeout, _timeout);
+        } else {
+            long wanted = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(_timeout);
+            if (wanted - deadline > 0) {
+                timeout += TimeUnit.NANOSECONDS.toMillis(wanted - deadline);
+                deadline = wanted;
+            }
         }
     }
 
-    public synchronized void setReply(Message _reply) {
+    /**
+    * Get a future which is completed as soon as the reply to this call is received.
+    * The future is completed by the thread handling the reply, so dependent actions
+    * should be short or use one of the async methods of {@link CompletableFuture}.
+    * @return future completed with the reply (method return or error)
+    */
+    public synchronized CompletableFuture<Message> getReplyFuture() {
+        if (null == replyFuture) {
+            replyFuture = new CompletableFuture<>();
+            if (null != reply) {
+                replyFuture.complete(reply);
+            }
+        }
+        return replyFuture;
+    }
+
+    public void setReply(Message _reply) {
         logger.trace("Setting reply to {} to {}", this, _reply);
-        this.reply = _reply;
-        notifyAll();
+        CompletableFuture<Message> future;
+        synchronized (this) {
+            this.reply = _reply;
+            notifyAll();
+            future = replyFuture;
+        }
+        // complete outside of the lock, dependent actions run in this thread
+        if (null != future) {
+            future.complete(_reply);
+        }
     }
 
 }
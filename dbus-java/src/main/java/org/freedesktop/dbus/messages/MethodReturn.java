@@ -69,8 +69,8 @@ public class MethodReturn extends Message {
             setArgs(args);
         }
 
-        byte[] blen = new byte[4];
-        appendBytes(blen);
+        int blen = (int) getByteCounter();
+        appendint(0, 4);
         append("ua(yv)", getSerial(), hargs.toArray());
         pad((byte) 8);
 
@@ -78,7 +78,7 @@ public class MethodReturn extends Message {
         if (null != sig) {
             append(sig, args);
         }
-        marshallint(getByteCounter() - c, blen, 0, 4);
+        marshallint(getByteCounter() - c, blen, 4);
     }
 
     public MethodReturn(MethodCall mc, String sig, Object... args) throws DBusException {
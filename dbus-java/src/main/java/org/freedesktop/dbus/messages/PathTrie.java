@@ -0,0 +1,221 @@
+/*
+   D-Bus Java Implementation
+   Copyright (c) 2017-2019 David M.
+
+   This program is free software; you can redistribute it and/or modify it
+   under the terms of either the GNU Lesser General Public License Version 2 or the
+   Academic Free Licence Version 2.1.
+
+   Full licence texts are included in the LICENSE file with this program.
+*/
+
+package org.freedesktop.dbus.messages;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Values stored by object path, organized as a tree with one node per path element.
+ * <p>
+ * Looking up a path (exactly or the value of its longest registered prefix) walks down one node per
+ * path element and does not lock. Paths are split without regular expressions and without creating arrays.
+ * Adding and removing values is synchronized; nodes which neither have a value nor children are removed.
+ * </p>
+ *
+ * @param <V> value type
+ */
+public class PathTrie<V> {
+    private final Node<V> root = new Node<>(null, "");
+
+    /**
+     * Store a value for a path.
+     *
+     * @param _path object path (e.g. /org/freedesktop/DBus)
+     * @param _value value, not null
+     * @return previous value of the path or null
+     */
+    public synchronized V put(String _path, V _value) {
+        Node<V> node = root;
+        int start = 1;
+        while (start < _path.length()) {
+            int end = nextSeparator(_path, start);
+            String name = _path.substring(start, end);
+            Node<V> child = node.getChild(name);
+            if (null == child) {
+                child = new Node<>(node, name);
+                node.addChild(child);
+            }
+            node = child;
+            start = end + 1;
+        }
+        V old = node.value;
+        node.value = _value;
+        return old;
+    }
+
+    /**
+     * Remove the value of a path.
+     *
+     * @param _path object path
+     * @return removed value or null
+     */
+    public synchronized V remove(String _path) {
+        Node<V> node = find(_path);
+        if (null == node) {
+            return null;
+        }
+        V old = node.value;
+        node.value = null;
+        // remove nodes which are no longer needed
+        while (null != node.parent && null == node.value && node.hasNoChildren()) {
+            node.parent.removeChild(node.name);
+            node = node.parent;
+        }
+        return old;
+    }
+
+    /**
+     * Get the value stored for exactly this path.
+     *
+     * @param _path object path
+     * @return value or null
+     */
+    public V get(String _path) {
+        Node<V> node = find(_path);
+        return null == node ? null : node.value;
+    }
+
+    /**
+     * Get the value of the longest path which is equal to the given path or one of its parents.
+     *
+     * @param _path object path
+     * @return value or null if neither the path nor one of its parents has a value
+     */
+    public V getLongestPrefix(String _path) {
+        Node<V> node = root;
+        V best = node.value;
+        int start = 1;
+        while (start < _path.length()) {
+            int end = nextSeparator(_path, start);
+            node = node.getChild(_path.substring(start, end));
+            if (null == node) {
+                break;
+            }
+            // read the volatile value once, it may be removed concurrently
+            V value = node.value;
+            if (null != value) {
+                best = value;
+            }
+            start = end + 1;
+        }
+        return best;
+    }
+
+    /**
+     * Whether the path has a value or is the parent of a path with a value.
+     *
+     * @param _path object path
+     * @return true if the path is known
+     */
+    public boolean contains(String _path) {
+        return null != find(_path);
+    }
+
+    /**
+     * Get the names of the direct children of a path, sorted by name.
+     *
+     * @param _path object path
+     * @return names of the children, empty if the path has no children or is unknown
+     */
+    public List<String> getChildNames(String _path) {
+        Node<V> node = find(_path);
+        if (null == node) {
+            return Collections.emptyList();
+        }
+        Map<String, Node<V>> children = node.children;
+        return null == children ? Collections.emptyList() : new ArrayList<>(children.keySet());
+    }
+
+    private Node<V> find(String _path) {
+        Node<V> node = root;
+        int start = 1;
+        while (null != node && start < _path.length()) {
+            int end = nextSeparator(_path, start);
+            node = node.getChild(_path.substring(start, end));
+            start = end + 1;
+        }
+        return node;
+    }
+
+    private static int nextSeparator(String _path, int _start) {
+        int end = _path.indexOf('/', _start);
+        return -1 == end ? _path.length() : end;
+    }
+
+    private void appendTo(StringBuilder _sb, Node<V> _node) {
+        _sb.append(_node.name);
+        if (null != _node.value) {
+            _sb.append('*');
+        }
+        Map<String, Node<V>> children = _node.children;
+        if (null != children && !children.isEmpty()) {
+            _sb.append("/{");
+            boolean first = true;
+            for (Node<V> child : children.values()) {
+                if (!first) {
+                    _sb.append(", ");
+                }
+                first = false;
+                appendTo(_sb, child);
+            }
+            _sb.append('}');
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        appendTo(sb, root);
+        return sb.toString();
+    }
+
+    private static final class Node<V> {
+        private final Node<V>                                  parent;
+        private final String                                   name;
+        /** Created when the first child is added. */
+        private volatile ConcurrentSkipListMap<String, Node<V>> children;
+        private volatile V                                     value;
+
+        Node(Node<V> _parent, String _name) {
+            parent = _parent;
+            name = _name;
+        }
+
+        Node<V> getChild(String _name) {
+            Map<String, Node<V>> c = children;
+            return null == c ? null : c.get(_name);
+        }
+
+        void addChild(Node<V> _child) {
+            if (null == children) {
+                children = new ConcurrentSkipListMap<>();
+            }
+            children.put(_child.name, _child);
+        }
+
+        void removeChild(String _name) {
+            Map<String, Node<V>> c = children;
+            if (null != c) {
+                c.remove(_name);
+            }
+        }
+
+        boolean hasNoChildren() {
+            Map<String, Node<V>> c = children;
+            return null == c || c.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+   D-Bus Java Implementation
+   Copyright (c) 2017-2019 David M.
+
+   This program is free software; you can redistribute it and/or modify it
+   under the terms of either the GNU Lesser General Public License Version 2 or the
+   Academic Free Licence Version 2.1.
+
+   Full licence texts are included in the LICENSE file with this program.
+*/
+
+package org.freedesktop.dbus.messages;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+import org.freedesktop.dbus.messages.Message.ArgumentType;
+
+/**
+ * Marshalls and demarshalls arrays of fixed size numbers in bulk.
+ * <p>
+ * The values are copied between Java primitive arrays and the message buffer using typed views
+ * of a {@link ByteBuffer} in the byte order of the message, instead of converting each element separately.
+ * </p>
+ */
+final class PrimitiveArrayCodec {
+
+    private PrimitiveArrayCodec() {
+    }
+
+    /**
+     * Marshalls a primitive array if its component type matches the DBus type exactly.
+     *
+     * @param _array primitive array
+     * @param _type DBus type of the elements
+     * @param _buf buffer to write to, must be large enough
+     * @param _ofs offset to write to
+     * @param _order byte order of the message
+     * @return number of bytes written, -1 if the array has to be marshalled element by element
+     */
+    static int encode(Object _array, byte _type, byte[] _buf, int _ofs, ByteOrder _order) {
+        int length;
+        switch (_type) {
+        case ArgumentType.INT16:
+            if (!(_array instanceof short[])) {
+                return -1;
+            }
+            length = ((short[]) _array).length * 2;
+            view(_buf, _ofs, length, _order).asShortBuffer().put((short[]) _array);
+            return length;
+        case ArgumentType.INT32:
+            if (!(_array instanceof int[])) {
+                return -1;
+            }
+            length = ((int[]) _array).length * 4;
+            view(_buf, _ofs, length, _order).asIntBuffer().put((int[]) _array);
+            return length;
+        case ArgumentType.INT64:
+            if (!(_array instanceof long[])) {
+                return -1;
+            }
+            length = ((long[]) _array).length * 8;
+            view(_buf, _ofs, length, _order).asLongBuffer().put((long[]) _array);
+            return length;
+        case ArgumentType.DOUBLE:
+            if (!(_array instanceof double[])) {
+                return -1;
+            }
+            length = ((double[]) _array).length * 8;
+            view(_buf, _ofs, length, _order).asDoubleBuffer().put((double[]) _array);
+            return length;
+        case ArgumentType.FLOAT:
+            if (!(_array instanceof float[])) {
+                return -1;
+            }
+            length = ((float[]) _array).length * 4;
+            view(_buf, _ofs, length, _order).asFloatBuffer().put((float[]) _array);
+            return length;
+        default:
+            return -1;
+        }
+    }
+
+    /**
+     * Demarshalls an array of fixed size numbers to a primitive array.
+     *
+     * @param _type DBus type of the elements
+     * @param _buf buffer to read from
+     * @param _ofs offset of the first element
+     * @param _length number of elements
+     * @param _order byte order of the message
+     * @return primitive array, null if the type is not supported
+     */
+    static Object decode(byte _type, byte[] _buf, int _ofs, int _length, ByteOrder _order) {
+        switch (_type) {
+        case ArgumentType.INT16:
+            short[] shorts = new short[_length];
+            view(_buf, _ofs, _length * 2, _order).asShortBuffer().get(shorts);
+            return shorts;
+        case ArgumentType.INT32:
+            int[] ints = new int[_length];
+            view(_buf, _ofs, _length * 4, _order).asIntBuffer().get(ints);
+            return ints;
+        case ArgumentType.INT64:
+            long[] longs = new long[_length];
+            view(_buf, _ofs, _length * 8, _order).asLongBuffer().get(longs);
+            return longs;
+        case ArgumentType.DOUBLE:
+            double[] doubles = new double[_length];
+            view(_buf, _ofs, _length * 8, _order).asDoubleBuffer().get(doubles);
+            return doubles;
+        case ArgumentType.FLOAT:
+            float[] floats = new float[_length];
+            view(_buf, _ofs, _length * 4, _order).asFloatBuffer().get(floats);
+            return floats;
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Copies a list of boxed numbers to a primitive array matching the DBus type, so it can be marshalled in bulk.
+     *
+     * @param _list list
+     * @param _type DBus type of the elements
+     * @return primitive array, null if the list is empty or contains other values than the type requires
+     */
+    static Object toPrimitiveArray(List<?> _list, byte _type) {
+        int size = _list.size();
+        if (0 == size) {
+            return null;
+        }
+        switch (_type) {
+        case ArgumentType.INT16:
+            short[] shorts = new short[size];
+            for (int i = 0; i < size; i++) {
+                Object o = _list.get(i);
+                if (!(o instanceof Short)) {
+                    return null;
+                }
+                shorts[i] = (Short) o;
+            }
+            return shorts;
+        case ArgumentType.INT32:
+            int[] ints = new int[size];
+            for (int i = 0; i < size; i++) {
+                Object o = _list.get(i);
+                if (!(o instanceof Integer)) {
+                    return null;
+                }
+                ints[i] = (Integer) o;
+            }
+            return ints;
+        case ArgumentType.INT64:
+            long[] longs = new long[size];
+            for (int i = 0; i < size; i++) {
+                Object o = _list.get(i);
+                if (!(o instanceof Long)) {
+                    return null;
+                }
+                longs[i] = (Long) o;
+            }
+            return longs;
+        case ArgumentType.DOUBLE:
+            double[] doubles = new double[size];
+            for (int i = 0; i < size; i++) {
+                Object o = _list.get(i);
+                if (!(o instanceof Double)) {
+                    return null;
+                }
+                doubles[i] = (Double) o;
+            }
+            return doubles;
+        default:
+            return null;
+        }
+    }
+
+    private static ByteBuffer view(byte[] _buf, int _ofs, int _length, ByteOrder _order) {
+        return ByteBuffer.wrap(_buf, _ofs, _length).order(_order);
+    }
+}
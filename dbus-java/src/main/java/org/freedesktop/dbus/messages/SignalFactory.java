@@ -0,0 +1,210 @@
+/*
+   D-Bus Java Implementation
+   Copyright (c) 2017-2019 David M.
+
+   This program is free software; you can redistribute it and/or modify it
+   under the terms of either the GNU Lesser General Public License Version 2 or the
+   Academic Free Licence Version 2.1.
+
+   Full licence texts are included in the LICENSE file with this program.
+*/
+
+package org.freedesktop.dbus.messages;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.GenericDeclaration;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.freedesktop.dbus.Marshalling;
+import org.freedesktop.dbus.Tuple;
+import org.freedesktop.dbus.connections.AbstractConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBusSerializable;
+import org.freedesktop.dbus.types.UInt16;
+import org.freedesktop.dbus.types.UInt32;
+import org.freedesktop.dbus.types.UInt64;
+import org.freedesktop.dbus.types.Variant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates instances of a signal class from received signals.
+ * <p>
+ * The constructor, the parameter types and how each parameter has to be converted are determined once
+ * per signal class. Signals are created through a {@link MethodHandle} of the constructor. Parameters
+ * which are received as they are expected by the constructor (strings, numbers, booleans, variants)
+ * are passed without any conversion, all other parameters are converted by {@link Marshalling}.
+ * </p>
+ */
+final class SignalFactory {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SignalFactory.class);
+
+    private static final Map<Class<? extends DBusSignal>, SignalFactory> FACTORIES   = new ConcurrentHashMap<>();
+
+    private static final MethodType                                      CREATOR_TYPE = MethodType.methodType(DBusSignal.class, Object[].class);
+
+    private final Constructor<? extends DBusSignal>                      constructor;
+    private final MethodHandle                                           creator;
+    /** Types of the signal parameters, without the object path. */
+    private final Type[]                                                 parameterTypes;
+    /** Type of each parameter as single element array, used to convert one parameter at a time. */
+    private final Type[][]                                               singleTypes;
+    /** Parameters which do not need a conversion if they are received as plain values. */
+    private final boolean[]                                              passThrough;
+    /** True if the parameters can only be converted all together (serializable classes, tuples). */
+    private final boolean                                                convertAll;
+
+    @SuppressWarnings("unchecked")
+    private SignalFactory(Class<? extends DBusSignal> _clazz) {
+        constructor = (Constructor<? extends DBusSignal>) _clazz.getDeclaredConstructors()[0];
+        Type[] ts = constructor.getGenericParameterTypes();
+        parameterTypes = new Type[Math.max(0, ts.length - 1)];
+        for (int i = 1; i < ts.length; i++) {
+            if (ts[i] instanceof TypeVariable) {
+                parameterTypes[i - 1] = ((TypeVariable<GenericDeclaration>) ts[i]).getBounds()[0];
+            } else {
+                parameterTypes[i - 1] = ts[i];
+            }
+        }
+
+        singleTypes = new Type[parameterTypes.length][];
+        passThrough = new boolean[parameterTypes.length];
+        boolean all = false;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            singleTypes[i] = new Type[] {parameterTypes[i]};
+            passThrough[i] = !needsConversion(parameterTypes[i]);
+            all |= isCompound(parameterTypes[i]);
+        }
+        convertAll = all;
+        creator = createCreator(constructor);
+    }
+
+    /**
+     * Get the factory of a signal class.
+     *
+     * @param _clazz signal class
+     * @return factory
+     */
+    static SignalFactory get(Class<? extends DBusSignal> _clazz) {
+        SignalFactory factory = FACTORIES.get(_clazz);
+        if (null == factory) {
+            factory = new SignalFactory(_clazz);
+            FACTORIES.putIfAbsent(_clazz, factory);
+        }
+        return factory;
+    }
+
+    /**
+     * Create a method handle of type (Object[] args)DBusSignal for the constructor.
+     * Returns null if the constructor is not accessible, reflection will be used in that case.
+     */
+    private static MethodHandle createCreator(Constructor<? extends DBusSignal> _constructor) {
+        try {
+            if (!_constructor.isAccessible()) {
+                _constructor.setAccessible(true);
+            }
+            return MethodHandles.lookup().unreflectConstructor(_constructor)
+                    .asSpreader(Object[].class, _constructor.getParameterCount())
+                    .asType(CREATOR_TYPE);
+        } catch (IllegalAccessException | RuntimeException _ex) {
+            LOGGER.debug("Unable to create method handle for {}, using reflection", _constructor, _ex);
+            return null;
+        }
+    }
+
+    /**
+     * Whether a value received for a parameter of the given type may have to be converted.
+     * Values for other types are passed as they are, if they were received as {@link #isPlainValue(Object) plain values}.
+     */
+    private static boolean needsConversion(Type _type) {
+        if (!(_type instanceof Class)) {
+            return !(_type instanceof ParameterizedType && Variant.class.equals(((ParameterizedType) _type).getRawType()));
+        }
+        Class<?> clz = (Class<?>) _type;
+        if (clz.isPrimitive()) {
+            return Float.TYPE.equals(clz);
+        }
+        return !(CharSequence.class.isAssignableFrom(clz) || Boolean.class.equals(clz) || Byte.class.equals(clz)
+                || Short.class.equals(clz) || Integer.class.equals(clz) || Long.class.equals(clz) || Double.class.equals(clz)
+                || UInt16.class.equals(clz) || UInt32.class.equals(clz) || UInt64.class.equals(clz)
+                || Variant.class.equals(clz) || Object.class.equals(clz));
+    }
+
+    /**
+     * Whether a parameter of the given type is created from several received values.
+     */
+    private static boolean isCompound(Type _type) {
+        Type raw = _type instanceof ParameterizedType ? ((ParameterizedType) _type).getRawType() : _type;
+        return raw instanceof Class && (DBusSerializable.class.isAssignableFrom((Class<?>) raw) || Tuple.class.isAssignableFrom((Class<?>) raw));
+    }
+
+    /**
+     * Values which are passed unchanged by {@link Marshalling#deSerializeParameters(Object[], Type[], AbstractConnection)}.
+     */
+    private static boolean isPlainValue(Object _value) {
+        return _value instanceof String || _value instanceof Number || _value instanceof Boolean || _value instanceof Variant;
+    }
+
+    /**
+     * Types of the signal parameters, without the object path.
+     *
+     * @return types
+     */
+    Type[] getParameterTypes() {
+        return parameterTypes;
+    }
+
+    /**
+     * Create a signal from the parameters of a received signal.
+     * The given parameters are not modified.
+     *
+     * @param _path object path of the signal
+     * @param _parameters received parameters, may be null
+     * @param _conn connection
+     * @return signal
+     * @throws Exception if the parameters could not be converted or the signal could not be created
+     */
+    DBusSignal create(String _path, Object[] _parameters, AbstractConnection _conn) throws Exception {
+        Object[] params;
+        if (null == _parameters) {
+            params = new Object[] {_path};
+        } else if (convertAll) {
+            Object[] args = Marshalling.deSerializeParameters(_parameters.clone(), parameterTypes, _conn);
+            params = new Object[args.length + 1];
+            params[0] = _path;
+            System.arraycopy(args, 0, params, 1, args.length);
+        } else {
+            if (_parameters.length > parameterTypes.length) {
+                throw new DBusException("Error deserializing message: number of parameters didn't match receiving signature");
+            }
+            params = new Object[_parameters.length + 1];
+            params[0] = _path;
+            for (int i = 0; i < _parameters.length; i++) {
+                Object value = _parameters[i];
+                if (null != value && !(passThrough[i] && isPlainValue(value))) {
+                    value = Marshalling.deSerializeParameters(new Object[] {value}, singleTypes[i], _conn)[0];
+                }
+                params[i + 1] = value;
+            }
+        }
+
+        if (null != creator) {
+            try {
+                return (DBusSignal) creator.invokeExact(params);
+            } catch (Exception | Error _ex) {
+                throw _ex;
+            } catch (Throwable _ex) {
+                throw new InvocationTargetException(_ex);
+            }
+        }
+        return constructor.newInstance(params);
+    }
+}
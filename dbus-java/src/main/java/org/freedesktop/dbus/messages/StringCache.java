@@ -0,0 +1,103 @@
+/*
+   D-Bus Java Implementation
+   Copyright (c) 2017-2019 David M.
+
+   This program is free software; you can redistribute it and/or modify it
+   under the terms of either the GNU Lesser General Public License Version 2 or the
+   Academic Free Licence Version 2.1.
+
+   Full licence texts are included in the LICENSE file with this program.
+*/
+
+package org.freedesktop.dbus.messages;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes strings of received messages, returning the same instance for strings which were decoded before.
+ * <p>
+ * Used for header fields like interface, member, path, sender and destination, which are repeated
+ * in most messages of a connection. The cache is a fixed size hash table indexed by the hash of the
+ * encoded bytes, so looking up a string does not allocate anything. Colliding strings replace each other.
+ * Only ASCII strings are cached; other strings are decoded as UTF-8 every time.
+ * </p>
+ */
+final class StringCache {
+    /** Strings longer than this are not cached. */
+    private static final int MAX_LENGTH = 255;
+
+    /** Written and read without locking, which is fine as Strings are immutable. */
+    private final String[]   table;
+    private final int        mask;
+
+    /**
+     * Create a cache.
+     *
+     * @param _size number of entries, rounded up to a power of two
+     */
+    StringCache(int _size) {
+        int size = Integer.highestOneBit(Math.max(1, _size - 1)) << 1;
+        table = new String[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Decodes a UTF-8 string.
+     *
+     * @param _buf buffer
+     * @param _ofs offset of the first byte
+     * @param _length number of bytes
+     * @return string, possibly a cached instance
+     */
+    String get(byte[] _buf, int _ofs, int _length) {
+        if (_length > MAX_LENGTH) {
+            return decode(_buf, _ofs, _length);
+        }
+        int hash = 0;
+        for (int i = _ofs; i < _ofs + _length; i++) {
+            if (_buf[i] < 0) {
+                // not ASCII
+                return new String(_buf, _ofs, _length, StandardCharsets.UTF_8);
+            }
+            hash = 31 * hash + _buf[i];
+        }
+        // same as String.hashCode() for ASCII strings
+        int idx = (hash ^ (hash >>> 16)) & mask;
+        String cached = table[idx];
+        if (null != cached && matches(cached, _buf, _ofs, _length)) {
+            return cached;
+        }
+        String s = new String(_buf, _ofs, _length, StandardCharsets.ISO_8859_1);
+        table[idx] = s;
+        return s;
+    }
+
+    /**
+     * Decodes a UTF-8 string, using a cheaper conversion if it only contains ASCII characters.
+     *
+     * @param _buf buffer
+     * @param _ofs offset of the first byte
+     * @param _length number of bytes
+     * @return new string
+     */
+    static String decode(byte[] _buf, int _ofs, int _length) {
+        for (int i = _ofs; i < _ofs + _length; i++) {
+            if (_buf[i] < 0) {
+                return new String(_buf, _ofs, _length, StandardCharsets.UTF_8);
+            }
+        }
+        return new String(_buf, _ofs, _length, StandardCharsets.ISO_8859_1);
+    }
+
+    private static boolean matches(String _s, byte[] _buf, int _ofs, int _length) {
+        if (_s.length() != _length) {
+            return false;
+        }
+        for (int i = 0; i < _length; i++) {
+            if (_s.charAt(i) != _buf[_ofs + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,88 @@
+package org.freedesktop.dbus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Method;
+
+import org.freedesktop.dbus.annotations.DBusInterfaceName;
+import org.freedesktop.dbus.annotations.DBusMemberName;
+import org.freedesktop.dbus.annotations.MethodNoReply;
+import org.freedesktop.dbus.interfaces.DBusInterface;
+import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.types.UInt32;
+import org.freedesktop.dbus.types.Variant;
+import org.junit.jupiter.api.Test;
+
+public class RemoteCallPlanTest {
+
+    @Test
+    public void testPlanIsCached() throws Exception {
+        RemoteObject ro = new RemoteObject("foo.bar.Test", "/Planned", Planned.class, true);
+        Method method = Planned.class.getMethod("string", String.class);
+
+        RemoteCallPlan plan = ro.getCallPlan(method);
+        assertSame(plan, ro.getCallPlan(method));
+        assertNotSame(plan, ro.getCallPlan(Planned.class.getMethod("number", UInt32.class)));
+        // plans depend on the remote object (e.g. autostart), they are not shared between proxies
+        assertNotSame(plan, new RemoteObject("foo.bar.Test", "/Planned", Planned.class, true).getCallPlan(method));
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        RemoteObject ro = new RemoteObject("foo.bar.Test", "/Planned", Planned.class, true);
+
+        RemoteCallPlan string = ro.getCallPlan(Planned.class.getMethod("string", String.class));
+        assertEquals("s", string.getSignature());
+        assertEquals("org.freedesktop.dbus.test.Planned", string.getInterfaceName());
+        assertEquals("string", string.getMember());
+        assertEquals(0, string.getFlags());
+        assertFalse(string.isNoReply());
+
+        RemoteCallPlan renamed = ro.getCallPlan(Planned.class.getMethod("renamed"));
+        assertNull(renamed.getSignature());
+        assertEquals("OtherName", renamed.getMember());
+
+        RemoteCallPlan noReply = new RemoteObject("foo.bar.Test", "/Planned", Planned.class, false)
+                .getCallPlan(Planned.class.getMethod("noReply", int[].class));
+        assertTrue(noReply.isNoReply());
+        assertEquals(Message.Flags.NO_REPLY_EXPECTED | Message.Flags.NO_AUTO_START, noReply.getFlags());
+    }
+
+    @Test
+    public void testArgumentsConvertedOnlyIfNeeded() throws Exception {
+        RemoteObject ro = new RemoteObject("foo.bar.Test", "/Planned", Planned.class, true);
+
+        // final, primitive and array types are sent as they are
+        Object[] args = new Object[] {"value"};
+        assertSame(args, ro.getCallPlan(Planned.class.getMethod("string", String.class)).convertArguments(args, null));
+        args = new Object[] {new UInt32(1)};
+        assertSame(args, ro.getCallPlan(Planned.class.getMethod("number", UInt32.class)).convertArguments(args, null));
+        args = new Object[] {new int[] {1, 2}};
+        assertSame(args, ro.getCallPlan(Planned.class.getMethod("noReply", int[].class)).convertArguments(args, null));
+
+        // parameters which may hold variants are converted
+        args = new Object[] {"value"};
+        Object[] converted = ro.getCallPlan(Planned.class.getMethod("variant", Object.class)).convertArguments(args, null);
+        assertTrue(converted[0] instanceof Variant, "Expected a variant, got " + converted[0]);
+    }
+
+    @DBusInterfaceName("org.freedesktop.dbus.test.Planned")
+    public interface Planned extends DBusInterface {
+        void string(String s);
+
+        void number(UInt32 u);
+
+        <T> void variant(T t);
+
+        @DBusMemberName("OtherName")
+        void renamed();
+
+        @MethodNoReply
+        void noReply(int[] a);
+    }
+}
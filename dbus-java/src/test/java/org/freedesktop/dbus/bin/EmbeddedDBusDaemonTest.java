@@ -1,16 +1,32 @@
 package org.freedesktop.dbus.bin;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.freedesktop.DBus;
+import org.freedesktop.dbus.connections.AbstractConnection;
+import org.freedesktop.dbus.connections.SASL;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
 import org.freedesktop.dbus.connections.impl.DirectConnection;
+import org.freedesktop.dbus.interfaces.Peer;
+import org.freedesktop.dbus.interfaces.Properties;
+import org.freedesktop.dbus.types.Variant;
 import org.junit.jupiter.api.Test;
 
 /**
  *
  */
 public class EmbeddedDBusDaemonTest {
+    private static final int CLIENTS = 50;
+    private static final int CALLS   = 20;
 
     @Test
     public void test_start_stop() throws Exception {
@@ -39,4 +55,63 @@ public class EmbeddedDBusDaemonTest {
             assertEquals(null, exception.get()); // assertEquals() gives a better error message
         }
     }
+
+    @Test
+    public void test_many_clients() throws Exception {
+        String address = DirectConnection.createDynamicTCPSession();
+        boolean sharedSelector = AbstractConnection.isSharedSelector();
+        AbstractConnection.setSharedSelector(true);
+        List<DBusConnection> clients = new ArrayList<>();
+        try (EmbeddedDBusDaemon daemon = new EmbeddedDBusDaemon()) {
+            daemon.setAddress(address);
+            daemon.setAuthTypes(SASL.AUTH_SHA);
+            daemon.setEventLoopCount(2);
+            daemon.startInBackground();
+            Thread.sleep(500);
+
+            try {
+                runClients(address, clients);
+            } finally {
+                for (DBusConnection client : clients) {
+                    client.disconnect();
+                }
+            }
+        } finally {
+            AbstractConnection.setSharedSelector(sharedSelector);
+        }
+    }
+
+    private void runClients(String _address, List<DBusConnection> _clients) throws Exception {
+        for (int i = 0; i < CLIENTS; i++) {
+            _clients.add(DBusConnection.getConnection(_address, true, false));
+        }
+
+        List<String> names = Arrays.asList(_clients.get(0).getRemoteObject("org.freedesktop.DBus", "/org/freedesktop/DBus", DBus.class).ListNames());
+        for (DBusConnection client : _clients) {
+            assertTrue(names.contains(client.getUniqueName()));
+        }
+
+        // every client calls the next one through the daemon
+        List<Peer> peers = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            String next = _clients.get((i + 1) % CLIENTS).getUniqueName();
+            peers.add(_clients.get(i).getRemoteObject(next, "/", Peer.class));
+        }
+        for (int n = 0; n < CALLS; n++) {
+            for (Peer peer : peers) {
+                peer.Ping();
+            }
+        }
+
+        CountDownLatch received = new CountDownLatch(CLIENTS - 1);
+        for (DBusConnection client : _clients.subList(1, CLIENTS)) {
+            client.addSigHandler(Properties.PropertiesChanged.class, s -> received.countDown());
+        }
+        _clients.get(0).sendMessage(new Properties.PropertiesChanged("/org/freedesktop/dbus/test", "org.freedesktop.dbus.test",
+                Collections.singletonMap("Value", new Variant<>(1)), Collections.emptyList()));
+        assertTrue(received.await(30, TimeUnit.SECONDS));
+
+        long loopThreads = Thread.getAllStackTraces().keySet().stream().filter(t -> t.getName().startsWith("DBusDaemon Loop")).count();
+        assertTrue(loopThreads <= 2, "Too many event loop threads: " + loopThreads);
+    }
 }
@@ -0,0 +1,124 @@
+package org.freedesktop.dbus.bin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.bin.DBusDaemon.Connstruct;
+import org.freedesktop.dbus.errors.MatchRuleInvalid;
+import org.freedesktop.dbus.messages.DBusSignal;
+import org.junit.jupiter.api.Test;
+
+public class MatchRuleIndexTest {
+    private static final int              SUBSCRIBERS = 10000;
+
+    private final Map<String, Connstruct> names       = new ConcurrentHashMap<>();
+
+    private Connstruct connection(String _name) {
+        Connstruct c = new Connstruct(_name);
+        names.put(_name, c);
+        return c;
+    }
+
+    private static DBusSignal signal(String _source, String _path, String _iface, String _member, String _sig, Object... _args) throws Exception {
+        DBusSignal s = new DBusSignal(null, _path, _iface, _member, _sig, _args);
+        s.setSource(_source);
+        return s;
+    }
+
+    @Test
+    public void testParse() {
+        assertEquals("type='signal',interface='org.test',member='Changed'",
+                MatchRule.parse("type='signal',member='Changed',interface='org.test'").toString());
+        assertEquals(MatchRule.parse("type='signal',member='Changed'"), MatchRule.parse(" member=Changed, type='signal'"));
+        // apostrophes are escaped outside of quotes
+        assertEquals(MatchRule.parse("arg0=it\\'s"), MatchRule.parse("arg0='it'\\''s'"));
+        assertEquals("arg0namespace='org.test',arg2='x',arg1path='/a/'", MatchRule.parse("arg1path='/a/',arg2='x',arg0namespace='org.test'").toString());
+
+        assertThrows(MatchRuleInvalid.class, () -> MatchRule.parse("type='signals'"));
+        assertThrows(MatchRuleInvalid.class, () -> MatchRule.parse("foo='bar'"));
+        assertThrows(MatchRuleInvalid.class, () -> MatchRule.parse("arg64='x'"));
+        assertThrows(MatchRuleInvalid.class, () -> MatchRule.parse("member='unterminated"));
+        assertThrows(MatchRuleInvalid.class, () -> MatchRule.parse("path='/a',path_namespace='/a'"));
+    }
+
+    @Test
+    public void testMatch() throws Exception {
+        DBusSignal sig = signal(":1.1", "/org/test/obj", "org.test.Iface", "Changed", "sos", "org.test.Name", new DBusPath("/a/b"), "value");
+
+        assertTrue(MatchRule.parse(null).matches(sig));
+        assertTrue(MatchRule.parse("type='signal',interface='org.test.Iface',member='Changed',path='/org/test/obj'").matches(sig));
+        assertFalse(MatchRule.parse("type='method_call'").matches(sig));
+        assertFalse(MatchRule.parse("member='Other'").matches(sig));
+        assertTrue(MatchRule.parse("path_namespace='/org/test'").matches(sig));
+        assertTrue(MatchRule.parse("path_namespace='/'").matches(sig));
+        assertFalse(MatchRule.parse("path_namespace='/org/te'").matches(sig));
+        assertTrue(MatchRule.parse("arg0='org.test.Name',arg2='value'").matches(sig));
+        assertFalse(MatchRule.parse("arg2='other'").matches(sig));
+        assertFalse(MatchRule.parse("arg3='value'").matches(sig));
+        assertTrue(MatchRule.parse("arg0namespace='org.test'").matches(sig));
+        assertFalse(MatchRule.parse("arg0namespace='org.te'").matches(sig));
+        assertTrue(MatchRule.parse("arg1path='/a/'").matches(sig));
+        assertTrue(MatchRule.parse("arg1path='/a/b'").matches(sig));
+        assertFalse(MatchRule.parse("arg1path='/a'").matches(sig));
+    }
+
+    @Test
+    public void testIndex() throws Exception {
+        MatchRuleIndex index = new MatchRuleIndex(names);
+        Connstruct sender = connection(":1.1");
+        names.put("org.test.Service", sender);
+        Connstruct byMember = connection(":1.2");
+        Connstruct byInterface = connection(":1.3");
+        Connstruct bySender = connection(":1.4");
+        Connstruct other = connection(":1.5");
+
+        MatchRule memberRule = MatchRule.parse("type='signal',interface='org.test.Iface',member='Changed'");
+        index.add(byMember, memberRule);
+        index.add(byMember, memberRule);
+        index.add(byMember, MatchRule.parse("type='signal'"));
+        index.add(byInterface, MatchRule.parse("interface='org.test.Iface'"));
+        index.add(bySender, MatchRule.parse("sender='org.test.Service'"));
+        index.add(other, MatchRule.parse("interface='org.test.Other'"));
+
+        DBusSignal sig = signal(":1.1", "/", "org.test.Iface", "Changed", "");
+        assertEquals(new HashSet<>(Arrays.asList(byMember, byInterface, bySender)), index.findMatches(sig, sender));
+        assertEquals(new HashSet<>(Arrays.asList(byMember, byInterface)), index.findMatches(sig, other));
+
+        // rules are reference counted
+        assertTrue(index.remove(byMember, memberRule));
+        assertTrue(index.remove(byMember, MatchRule.parse("type='signal'")));
+        assertTrue(index.findMatches(sig, sender).contains(byMember));
+        assertTrue(index.remove(byMember, memberRule));
+        assertFalse(index.remove(byMember, memberRule));
+        assertFalse(index.findMatches(sig, sender).contains(byMember));
+
+        index.removeAll(byInterface);
+        index.removeAll(bySender);
+        assertEquals(Collections.emptySet(), index.findMatches(sig, sender));
+    }
+
+    @Test
+    public void testManySubscribers() throws Exception {
+        MatchRuleIndex index = new MatchRuleIndex(names);
+        Connstruct sender = connection(":1.0");
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            index.add(connection(":2." + i), MatchRule.parse("type='signal',interface='org.test.Iface" + i + "',member='Changed'"));
+        }
+        Connstruct interested = connection(":3.0");
+        index.add(interested, MatchRule.parse("type='signal',interface='org.test.Iface0',member='Changed'"));
+
+        DBusSignal sig = signal(":1.0", "/", "org.test.Iface0", "Changed", "");
+        assertEquals(new HashSet<>(Arrays.asList(names.get(":2.0"), interested)), index.findMatches(sig, sender));
+        sig = signal(":1.0", "/", "org.test.Iface" + (SUBSCRIBERS - 1), "Changed", "");
+        assertEquals(Collections.singleton(names.get(":2." + (SUBSCRIBERS - 1))), index.findMatches(sig, sender));
+    }
+}
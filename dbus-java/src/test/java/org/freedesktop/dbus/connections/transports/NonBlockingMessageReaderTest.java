@@ -0,0 +1,204 @@
+package org.freedesktop.dbus.connections.transports;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.freedesktop.dbus.messages.DBusSignal;
+import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.types.UInt32;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class NonBlockingMessageReaderTest {
+    private SocketChannel         client;
+    private SocketChannel         server;
+
+    private final List<Message>   received = new CopyOnWriteArrayList<>();
+    private final IMessageHandler handler  = new IMessageHandler() {
+        @Override
+        public void handleMessage(Message _message) {
+            received.add(_message);
+        }
+
+        @Override
+        public void handleReadError(Exception _ex) {
+            readError.complete(_ex);
+        }
+    };
+    private final CompletableFuture<Exception> readError = new CompletableFuture<>();
+
+    @BeforeEach
+    public void connect() throws IOException {
+        try (ServerSocketChannel ss = ServerSocketChannel.open()) {
+            ss.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            client = SocketChannel.open(ss.getLocalAddress());
+            server = ss.accept();
+        }
+        server.configureBlocking(false);
+    }
+
+    @AfterEach
+    public void close() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void testSeveralMessagesInOneRead() throws Exception {
+        List<Message> sent = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            sent.add(new DBusSignal(null, "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Reader", "Tick", "us", new UInt32(i), "signal" + i));
+        }
+        write(serialize(sent));
+
+        NonBlockingMessageReader reader = new NonBlockingMessageReader(server, handler);
+        readUntil(reader, sent.size());
+        for (int i = 0; i < sent.size(); i++) {
+            assertEquals(sent.get(i).getSerial(), received.get(i).getSerial());
+            assertEquals("signal" + i, received.get(i).getParameters()[1]);
+        }
+    }
+
+    @Test
+    public void testOneReadPerCall() throws Exception {
+        List<Message> sent = new ArrayList<>();
+        char[] text = new char[1000];
+        Arrays.fill(text, 'x');
+        for (int i = 0; i < 20; i++) {
+            sent.add(new DBusSignal(null, "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Reader", "Tick", "s", new String(text)));
+        }
+        write(serialize(sent));
+        Thread.sleep(100);
+
+        // a single call must not drain the channel, the remaining messages are read by later calls
+        NonBlockingMessageReader reader = new NonBlockingMessageReader(server, handler);
+        reader.readAvailable();
+        assertTrue(received.size() < sent.size(), "Read " + received.size() + " messages at once");
+        readUntil(reader, sent.size());
+    }
+
+    @Test
+    public void testMessageSplitAcrossReads() throws Exception {
+        byte[] data = serialize(Arrays.asList(
+                new DBusSignal(null, "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Reader", "Large", "ay", new byte[100000])));
+        NonBlockingMessageReader reader = new NonBlockingMessageReader(server, handler);
+
+        // only the fixed header, then the rest of the header, then the body
+        int[] splits = new int[] {10, Message.FIXED_HEADER_LENGTH + 20, data.length};
+        int start = 0;
+        for (int end : splits) {
+            write(Arrays.copyOfRange(data, start, end));
+            if (end < data.length) {
+                waitAvailable(reader);
+                assertEquals(0, received.size());
+            }
+            start = end;
+        }
+        readUntil(reader, 1);
+        assertEquals(100000, ((byte[]) received.get(0).getParameters()[0]).length);
+    }
+
+    @Test
+    public void testBufferShrinksAfterLargeMessage() throws Exception {
+        NonBlockingMessageReader reader = new NonBlockingMessageReader(server, handler);
+        int initial = reader.getBufferCapacity();
+        write(serialize(Arrays.asList(
+                new DBusSignal(null, "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Reader", "Large", "ay", new byte[1024 * 1024]))));
+        readUntil(reader, 1);
+        assertEquals(initial, reader.getBufferCapacity());
+
+        write(serialize(Arrays.asList(
+                new DBusSignal(null, "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Reader", "Small", "s", "small"))));
+        readUntil(reader, 2);
+        assertEquals(initial, reader.getBufferCapacity());
+    }
+
+    @Test
+    public void testEndOfStream() throws Exception {
+        byte[] data = serialize(Arrays.asList(
+                new DBusSignal(null, "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Reader", "Last", "s", "last")));
+        write(data);
+        client.close();
+
+        NonBlockingMessageReader reader = new NonBlockingMessageReader(server, handler);
+        // messages received before the end of the stream are still delivered
+        assertThrows(EOFException.class, () -> {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (System.nanoTime() < deadline) {
+                reader.readAvailable();
+                Thread.sleep(10);
+            }
+        });
+        assertEquals(1, received.size());
+    }
+
+    @Test
+    public void testEventLoopReportsEndOfStream() throws Exception {
+        SelectorEventLoop loop = SelectorEventLoop.getEventLoop(server.provider());
+        loop.register(server, new NonBlockingMessageReader(server, handler));
+
+        write(serialize(Arrays.asList(
+                new DBusSignal(null, "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Reader", "Tick", "s", "loop"))));
+        client.close();
+
+        Exception ex = readError.get(5, TimeUnit.SECONDS);
+        assertNotNull(ex);
+        assertTrue(ex instanceof EOFException);
+        assertEquals(1, received.size());
+        assertEquals("loop", received.get(0).getParameters()[0]);
+    }
+
+    private void write(byte[] _data) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(_data);
+        while (buf.hasRemaining()) {
+            client.write(buf);
+        }
+    }
+
+    private void readUntil(NonBlockingMessageReader _reader, int _count) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.size() < _count && System.nanoTime() < deadline) {
+            _reader.readAvailable();
+            Thread.sleep(1);
+        }
+        assertEquals(_count, received.size());
+    }
+
+    /** Give the data written so far some time to arrive and read it. */
+    private void waitAvailable(NonBlockingMessageReader _reader) throws Exception {
+        for (int i = 0; i < 20; i++) {
+            _reader.readAvailable();
+            Thread.sleep(5);
+        }
+    }
+
+    private static byte[] serialize(List<Message> _messages) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Message m : _messages) {
+            for (byte[] part : m.getWireData()) {
+                if (null != part) {
+                    out.write(part, 0, part.length);
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+}
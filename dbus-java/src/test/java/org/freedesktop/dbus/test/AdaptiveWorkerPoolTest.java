@@ -0,0 +1,67 @@
+package org.freedesktop.dbus.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.freedesktop.dbus.connections.AdaptiveWorkerPool;
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveWorkerPoolTest {
+
+    @Test
+    public void testGrowAndShrink() throws Exception {
+        AdaptiveWorkerPool adaptive = new AdaptiveWorkerPool(1, 4, Executors.defaultThreadFactory());
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(8);
+            for (int i = 0; i < 8; i++) {
+                adaptive.getExecutor().execute(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException _ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    done.countDown();
+                });
+            }
+
+            // all threads are blocked while tasks are waiting
+            for (int i = 0; i < 10 && adaptive.getExecutor().getCorePoolSize() < 4; i++) {
+                adaptive.adjust();
+                Thread.sleep(50);
+            }
+            assertEquals(4, adaptive.getExecutor().getCorePoolSize());
+            assertEquals(4, adaptive.getExecutor().getActiveCount());
+
+            release.countDown();
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+
+            for (int i = 0; i < 10; i++) {
+                adaptive.adjust();
+            }
+            assertEquals(1, adaptive.getExecutor().getCorePoolSize());
+        } finally {
+            adaptive.getExecutor().shutdownNow();
+        }
+    }
+
+    @Test
+    public void testGrowOnWaitTime() {
+        AdaptiveWorkerPool adaptive = new AdaptiveWorkerPool(2, 8, Executors.defaultThreadFactory());
+        try {
+            adaptive.accept(TimeUnit.MILLISECONDS.toNanos(100));
+            adaptive.adjust();
+            assertEquals(3, adaptive.getExecutor().getCorePoolSize());
+
+            // nothing waited since the last adjustment
+            adaptive.adjust();
+            assertEquals(2, adaptive.getExecutor().getCorePoolSize());
+        } finally {
+            adaptive.getExecutor().shutdownNow();
+        }
+    }
+}
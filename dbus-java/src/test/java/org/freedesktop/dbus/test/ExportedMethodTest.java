@@ -0,0 +1,105 @@
+package org.freedesktop.dbus.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.freedesktop.dbus.MethodTuple;
+import org.freedesktop.dbus.interfaces.DBusInterface;
+import org.freedesktop.dbus.messages.ExportedMethod;
+import org.freedesktop.dbus.messages.ExportedObject;
+import org.freedesktop.dbus.test.helper.SampleException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Invokes methods of an exported object the same way incoming method calls are dispatched
+ * and compares the results with plain reflection.
+ */
+public class ExportedMethodTest {
+
+    @Test
+    public void testInvoke() throws Throwable {
+        ExportedObject eo = new ExportedObject(new CalculatorImpl(), false);
+
+        ExportedMethod add = eo.getExportedMethod(new MethodTuple("add", "ii"));
+        assertEquals("i", add.getReplySignature());
+        assertEquals(5, add.invoke(new CalculatorImpl(), new Object[] {2, 3}));
+
+        ExportedMethod reset = eo.getExportedMethod(new MethodTuple("reset", ""));
+        assertTrue(reset.isVoid());
+        assertNull(reset.getReplySignature());
+        assertNull(reset.invoke(new CalculatorImpl(), null));
+
+        ExportedMethod names = eo.getExportedMethod(new MethodTuple("names", "as"));
+        assertEquals("as", names.getReplySignature());
+
+        ExportedMethod fail = eo.getExportedMethod(new MethodTuple("fail", "s"));
+        SampleException ex = assertThrows(SampleException.class, () -> fail.invoke(new CalculatorImpl(), new Object[] {"expected"}));
+        assertEquals("expected", ex.getMessage());
+    }
+
+    @Test
+    public void testSameResultAsReflection() throws Throwable {
+        ExportedObject eo = new ExportedObject(new CalculatorImpl(), false);
+        MethodTuple tuple = new MethodTuple("add", "ii");
+        ExportedMethod add = eo.getExportedMethod(tuple);
+        Method method = Calculator.class.getMethod("add", int.class, int.class);
+
+        // the method handle is created when the object is exported, not per call
+        assertSame(add, eo.getExportedMethod(tuple));
+        assertEquals(method, add.getMethod());
+
+        // the handle is not bound to the exported instance
+        CalculatorImpl other = new CalculatorImpl();
+        for (int i = -1000; i <= 1000; i += 7) {
+            Object[] args = new Object[] {i, 3 * i};
+            assertEquals(method.invoke(other, args), add.invoke(other, args));
+        }
+    }
+
+    public interface Calculator extends DBusInterface {
+        int add(int a, int b);
+
+        void reset();
+
+        List<String> names(List<String> n);
+
+        String fail(String message) throws SampleException;
+    }
+
+    public static class CalculatorImpl implements Calculator {
+        @Override
+        public int add(int _a, int _b) {
+            return _a + _b;
+        }
+
+        @Override
+        public void reset() {
+        }
+
+        @Override
+        public List<String> names(List<String> _n) {
+            return _n;
+        }
+
+        @Override
+        public String fail(String _message) throws SampleException {
+            throw new SampleException(_message);
+        }
+
+        @Override
+        public boolean isRemote() {
+            return false;
+        }
+
+        @Override
+        public String getObjectPath() {
+            return "/Calculator";
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.freedesktop.dbus.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.freedesktop.dbus.MethodTuple;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBusInterface;
+import org.freedesktop.dbus.messages.ExportedObject;
+import org.freedesktop.dbus.test.ExportedMethodTest.Calculator;
+import org.freedesktop.dbus.test.ExportedMethodTest.CalculatorImpl;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that exported objects share the data which only depends on their class.
+ */
+public class ExportedObjectTest {
+
+    @Test
+    public void testClassDataShared() throws Exception {
+        ExportedObject first = new ExportedObject(new CalculatorImpl(), false);
+        ExportedObject second = new ExportedObject(new CalculatorImpl(), true);
+
+        assertSame(first.getIntrospectiondata(), second.getIntrospectiondata());
+        assertSame(first.getMethods(), second.getMethods());
+        assertSame(first.getExportedMethod(new MethodTuple("add", "ii")), second.getExportedMethod(new MethodTuple("add", "ii")));
+        assertNotNull(first.getExportedMethod(new MethodTuple("names", "as")));
+        assertTrue(first.getIntrospectiondata().contains("<method name=\"add\" >"));
+        assertTrue(first.getIntrospectiondata().contains("<interface name=\"org.freedesktop.DBus.Peer\">"));
+        assertThrows(UnsupportedOperationException.class, () -> first.getMethods().clear());
+    }
+
+    @Test
+    public void testClassDataPerClass() throws Exception {
+        ExportedObject calculator = new ExportedObject(new CalculatorImpl(), false);
+        ExportedObject subclass = new ExportedObject(new OtherCalculator(), false);
+
+        assertNotSame(calculator.getMethods(), subclass.getMethods());
+        assertEquals(calculator.getMethods().keySet(), subclass.getMethods().keySet());
+    }
+
+    @Test
+    public void testUnexportableClassFailsEachTime() {
+        // failures are not cached, every export reports the error
+        for (int i = 0; i < 2; i++) {
+            assertThrows(DBusException.class, () -> new ExportedObject(new UnexportableImpl(), false));
+        }
+    }
+
+    public static class OtherCalculator extends CalculatorImpl implements Calculator {
+    }
+
+    public interface Unexportable extends DBusInterface {
+        void take(Object o);
+    }
+
+    public static class UnexportableImpl implements Unexportable {
+        @Override
+        public void take(Object _o) {
+        }
+
+        @Override
+        public boolean isRemote() {
+            return false;
+        }
+
+        @Override
+        public String getObjectPath() {
+            return null;
+        }
+    }
+}
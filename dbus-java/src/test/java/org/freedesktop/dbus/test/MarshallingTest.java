@@ -6,12 +6,17 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.GenericDeclaration;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.freedesktop.dbus.DBusPath;
 import org.freedesktop.dbus.Marshalling;
@@ -25,6 +30,7 @@ import org.freedesktop.dbus.messages.DBusSignal;
 import org.freedesktop.dbus.messages.Message;
 import org.freedesktop.dbus.messages.MessageFactory;
 import org.freedesktop.dbus.types.DBusListType;
+import org.freedesktop.dbus.types.DBusStructType;
 import org.freedesktop.dbus.types.Variant;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -49,6 +55,110 @@ public class MarshallingTest {
 		Assertions.assertEquals(8, parsedCharsCount);
 	}
 
+	@Test
+	public void parseCachedSignatureReturnsSameTypes() throws DBusException {
+		for (int i = 0; i < 3; i++) {
+			List<Type> temp = new ArrayList<>();
+			Assertions.assertEquals(11, Marshalling.getJavaType("a(oa{sv})ao", temp, -1));
+			Assertions.assertEquals(2, temp.size());
+
+			temp = new ArrayList<>();
+			Assertions.assertEquals(8, Marshalling.getJavaType("(oa{sv})ao", temp, 1));
+			Assertions.assertEquals(1, temp.size());
+			Assertions.assertTrue(temp.get(0) instanceof DBusStructType);
+		}
+	}
+
+	@Test
+	public void parseLimitCountsExistingTypes() throws DBusException {
+		List<Type> temp = new ArrayList<>();
+		temp.add(String.class);
+		Assertions.assertEquals(2, Marshalling.getJavaType("siu", temp, 3));
+		Assertions.assertEquals(3, temp.size());
+		Assertions.assertEquals(0, Marshalling.getJavaType("siu", temp, 3));
+		Assertions.assertEquals(3, temp.size());
+	}
+
+	@Test
+	public void parseTruncatedSignatureFails() {
+		for (int i = 0; i < 2; i++) {
+			Assertions.assertThrows(DBusException.class, () -> Marshalling.getJavaType("(ii", new ArrayList<>(), -1));
+			Assertions.assertThrows(DBusException.class, () -> Marshalling.getJavaType("(a)", new ArrayList<>(), -1));
+			Assertions.assertThrows(DBusException.class, () -> Marshalling.getJavaType("a", new ArrayList<>(), 1));
+		}
+	}
+
+	@Test
+	public void singleTypeLength() throws DBusException {
+		Assertions.assertEquals(1, Marshalling.getSingleTypeLength("i".getBytes(), 0));
+		Assertions.assertEquals(5, Marshalling.getSingleTypeLength("a{sv}i".getBytes(), 0));
+		Assertions.assertEquals(4, Marshalling.getSingleTypeLength("a{sv}i".getBytes(), 1));
+		Assertions.assertEquals(8, Marshalling.getSingleTypeLength("(ia(ss))x".getBytes(), 0));
+		Assertions.assertEquals(3, Marshalling.getSingleTypeLength("aaas".getBytes(), 1));
+		Assertions.assertThrows(DBusException.class, () -> Marshalling.getSingleTypeLength("a(ii".getBytes(), 0));
+	}
+
+	@Test
+	public void parseSignaturesConcurrently() throws Exception {
+		// more distinct signatures than the caches hold, so entries are evicted while other threads use them
+		String[] signatures = new String[3000];
+		for (int i = 0; i < signatures.length; i++) {
+			signatures[i] = "a{s" + uniqueStruct(i) + "}as";
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				int offset = t * signatures.length / 4;
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 2 * signatures.length; i++) {
+						String sig = signatures[(offset + i) % signatures.length];
+						List<Type> temp = new ArrayList<>();
+						Assertions.assertEquals(sig.length(), Marshalling.getJavaType(sig, temp, -1));
+						Assertions.assertEquals(2, temp.size(), sig);
+						Type struct = ((ParameterizedType) temp.get(0)).getActualTypeArguments()[1];
+						assertStructMembers(sig.substring(4, sig.length() - 4), struct);
+						Assertions.assertEquals("ai", Marshalling.getDBusType(int[].class)[0]);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// evicted signatures are parsed again
+		List<Type> temp = new ArrayList<>();
+		Assertions.assertEquals(signatures[0].length(), Marshalling.getJavaType(signatures[0], temp, -1));
+		assertStructMembers("y", ((ParameterizedType) temp.get(0)).getActualTypeArguments()[1]);
+	}
+
+	/**
+	 * Struct signature built from the digits of the given number in base 8, unique for each number.
+	 */
+	private static String uniqueStruct(int _number) {
+		StringBuilder sb = new StringBuilder("(");
+		int n = _number;
+		do {
+			sb.append("ybnqiuxt".charAt(n % 8));
+			n /= 8;
+		} while (n > 0);
+		return sb.append(')').toString();
+	}
+
+	private static void assertStructMembers(String _members, Type _struct) throws DBusException {
+		Type[] actual = ((ParameterizedType) _struct).getActualTypeArguments();
+		Assertions.assertEquals(_members.length(), actual.length, _members);
+		for (int i = 0; i < actual.length; i++) {
+			List<Type> expected = new ArrayList<>();
+			Marshalling.getJavaType(_members.substring(i, i + 1), expected, -1);
+			Assertions.assertEquals(expected.get(0), actual[i], _members);
+		}
+	}
+
     private static byte[] streamReader(String _file) throws IOException {
        return Files.readAllBytes(new File(_file).toPath());
     }
@@ -0,0 +1,316 @@
+package org.freedesktop.dbus.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.freedesktop.dbus.DBusMatchRule;
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.connections.AbstractConnection;
+import org.freedesktop.dbus.interfaces.Properties;
+import org.freedesktop.dbus.messages.DBusSignal;
+import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.messages.MessageFactory;
+import org.freedesktop.dbus.messages.MethodCall;
+import org.freedesktop.dbus.types.UInt32;
+import org.freedesktop.dbus.types.UInt64;
+import org.freedesktop.dbus.types.Variant;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Marshalls messages with typical a{sv} payloads, verifies the wire format
+ * and limits the number of bytes allocated per message.
+ */
+public class MessageMarshallingTest {
+    private static final int ITERATIONS                 = 20000;
+    /** Upper bound of bytes allocated to create and marshall the method call used by {@link #testAllocationsPerMessage()}. */
+    private static final int MAX_ALLOCATION_PER_MESSAGE = 8192;
+
+    @Test
+    public void testMarshallDictionary() throws Exception {
+        Map<String, Variant<?>> props = createProperties();
+
+        Message sent = new DBusSignal(null, "/org/freedesktop/dbus/test", "org.freedesktop.DBus.Properties", "PropertiesChanged",
+                "sa{sv}as", "org.freedesktop.dbus.test.Marshalling", props, new String[] {"Removed"});
+        byte[][] wiredata = sent.getWireData();
+        assertEquals(1, wiredata.length);
+
+        Message received = MessageFactory.createMessage(wiredata[0]);
+        assertEquals(sent.getSerial(), received.getSerial());
+        assertEquals("sa{sv}as", received.getSig());
+        Object[] params = received.getParameters();
+        assertEquals("org.freedesktop.dbus.test.Marshalling", params[0]);
+        assertEquals(props, params[1]);
+    }
+
+    @Test
+    public void testSingleParameters() throws Exception {
+        Map<String, Variant<?>> props = createProperties();
+        Object[] args = new Object[] {"org.freedesktop.dbus.test.Marshalling", props, new String[] {"Removed", "Gone"},
+                new Object[] {7, new Variant<>("struct")}, new byte[] {1, 2, 3}, new Variant<>(new UInt32(5)), new UInt64(9), 1.5d};
+        Message sent = new DBusSignal(null, "/org/freedesktop/dbus/test", "org.freedesktop.DBus.Properties", "PropertiesChanged",
+                "sa{sv}as(iv)ayvtd", args);
+        byte[] wiredata = sent.getWireData()[0];
+
+        Object[] expected = MessageFactory.createMessage(wiredata).getParameters();
+        assertEquals(args.length, expected.length);
+
+        Message received = MessageFactory.createMessage(wiredata);
+        assertEquals(args.length, received.getParameterCount());
+        // read backwards, each parameter is found by skipping the preceding ones
+        for (int i = args.length - 1; i >= 0; i--) {
+            assertTrue(Objects.deepEquals(expected[i], received.getParameter(i)), "Parameter " + i + " differs");
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> received.getParameter(args.length));
+    }
+
+    @Test
+    public void testFirstParameterOfLargeMessage() throws Exception {
+        Map<String, Variant<?>> props = new LinkedHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            props.put("Property" + i, new Variant<>("Value" + i));
+        }
+        byte[] wiredata = new DBusSignal(null, "/org/freedesktop/dbus/test", "org.freedesktop.DBus.Properties", "PropertiesChanged",
+                "sa{sv}as", "org.freedesktop.dbus.test.Marshalling", props, new String[0]).getWireData()[0];
+
+        Message m = MessageFactory.createMessage(wiredata);
+        assertEquals(3, m.getParameterCount());
+        assertEquals("org.freedesktop.dbus.test.Marshalling", m.getParameter(0));
+        assertEquals(0, ((List<?>) m.getParameter(2)).size());
+        assertEquals(m.getParameter(0), MessageFactory.createMessage(wiredata).getParameters()[0]);
+
+        // the properties in between are skipped, not demarshalled
+        int iterations = ITERATIONS / 100;
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        long allocated = getAllocatedBytes(threadBean);
+        for (int i = 0; i < iterations; i++) {
+            MessageFactory.createMessage(wiredata).getParameters();
+        }
+        long all = getAllocatedBytes(threadBean) - allocated;
+
+        allocated = getAllocatedBytes(threadBean);
+        for (int i = 0; i < iterations; i++) {
+            Message single = MessageFactory.createMessage(wiredata);
+            single.getParameter(0);
+            single.getParameter(2);
+        }
+        long single = getAllocatedBytes(threadBean) - allocated;
+
+        if (allocated >= 0) {
+            assertTrue(single * 10 < all, single / iterations + " bytes allocated with getParameter(), "
+                    + all / iterations + " bytes with getParameters()");
+        }
+    }
+
+    @Test
+    public void testPrimitiveArrays() throws Exception {
+        byte endianness = AbstractConnection.getEndianness();
+        try {
+            for (byte endian : new byte[] {Message.Endian.BIG, Message.Endian.LITTLE}) {
+                AbstractConnection.setEndianness(endian);
+                short[] shorts = {1, -2, Short.MAX_VALUE};
+                int[] ints = {0x01020304, -1, Integer.MIN_VALUE};
+                long[] longs = {1L, -1L, Long.MAX_VALUE};
+                double[] doubles = {0.5, -1e300, Double.NaN};
+                float[] floats = {0.25f, -3f};
+                boolean[] booleans = {true, false, true};
+                List<Integer> boxed = Arrays.asList(5, 6, 7);
+
+                Message sent = new MethodCall("org.freedesktop.dbus.test", "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Marshalling",
+                        "Arrays", (byte) 0, "anaiaxadafabai", shorts, ints, longs, doubles, floats, booleans, boxed);
+                byte[] wiredata = sent.getWireData()[0];
+
+                byte[] expected = endian == Message.Endian.BIG ? new byte[] {1, 2, 3, 4} : new byte[] {4, 3, 2, 1};
+                assertTrue(Collections.indexOfSubList(toList(wiredata), toList(expected)) > 0, "Int not marshalled in message byte order");
+
+                Object[] params = MessageFactory.createMessage(wiredata).getParameters();
+                assertArrayEquals(shorts, (short[]) params[0]);
+                assertArrayEquals(ints, (int[]) params[1]);
+                assertArrayEquals(longs, (long[]) params[2]);
+                assertArrayEquals(doubles, (double[]) params[3]);
+                assertArrayEquals(floats, (float[]) params[4]);
+                assertArrayEquals(booleans, (boolean[]) params[5]);
+                assertArrayEquals(new int[] {5, 6, 7}, (int[]) params[6]);
+            }
+        } finally {
+            AbstractConnection.setEndianness(endianness);
+        }
+    }
+
+    @Test
+    public void testLargeIntArray() throws Exception {
+        int[] values = new int[100000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i * 31;
+        }
+        Message sent = new MethodCall("org.freedesktop.dbus.test", "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Marshalling",
+                "Samples", (byte) 0, "ai", values);
+        int[] received = (int[]) MessageFactory.createMessage(sent.getWireData()[0]).getParameters()[0];
+        assertArrayEquals(values, received);
+    }
+
+    private static List<Byte> toList(byte[] _bytes) {
+        List<Byte> list = new ArrayList<>();
+        for (byte b : _bytes) {
+            list.add(b);
+        }
+        return list;
+    }
+
+    @Test
+    public void testHeaderStringsShared() throws Exception {
+        Message sent = new DBusSignal(":1.42", "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Marshalling", "Changed", "s", "value");
+        byte[] wiredata = sent.getWireData()[0];
+
+        Message first = MessageFactory.createMessage(wiredata);
+        Message second = MessageFactory.createMessage(wiredata);
+        assertEquals("org.freedesktop.dbus.test.Marshalling", second.getInterface());
+        assertEquals("Changed", second.getName());
+        assertEquals("/org/freedesktop/dbus/test", second.getPath());
+        assertEquals(":1.42", second.getSource());
+        assertTrue(first.getInterface() == second.getInterface(), "Interface not shared");
+        assertTrue(first.getName() == second.getName(), "Member not shared");
+        assertTrue(first.getSource() == second.getSource(), "Sender not shared");
+        assertEquals(sent.getSerial(), second.getSerial());
+    }
+
+    @Test
+    public void testStringEncoding() throws Exception {
+        String[] strings = {"", "ascii only", "Gr\u00fc\u00dfe", "\u65e5\u672c\u8a9e", "emoji \ud83d\ude00 end", "\u007f\u0080"};
+        Message sent = new MethodCall("org.freedesktop.dbus.test", "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Marshalling",
+                "Strings", (byte) 0, "sssssso", strings[0], strings[1], strings[2], strings[3], strings[4], strings[5],
+                new DBusPath("/org/freedesktop/dbus/test/path"));
+        Object[] params = MessageFactory.createMessage(sent.getWireData()[0]).getParameters();
+        for (int i = 0; i < strings.length; i++) {
+            assertEquals(strings[i], params[i]);
+        }
+        assertEquals("/org/freedesktop/dbus/test/path", params[6].toString());
+    }
+
+    @Test
+    public void testAllocationsPerMessage() throws Exception {
+        Map<String, Variant<?>> props = createProperties();
+
+        // the message is marshalled into a single array of the exact message length
+        byte[][] wiredata = createCall(props).getWireData();
+        assertEquals(1, wiredata.length);
+        Message parsed = MessageFactory.createMessage(wiredata[0]);
+        assertEquals(props, parsed.getParameters()[0]);
+        assertEquals(wiredata[0].length, parsed.getWireData()[0].length);
+
+        // warm up
+        for (int i = 0; i < ITERATIONS; i++) {
+            createCall(props);
+        }
+
+        long allocated = getAllocatedBytes(ManagementFactory.getThreadMXBean());
+        for (int i = 0; i < ITERATIONS; i++) {
+            createCall(props);
+        }
+        if (allocated >= 0) {
+            // marshalling into one array per field allocated about 13 KB for this message
+            long perMessage = (getAllocatedBytes(ManagementFactory.getThreadMXBean()) - allocated) / ITERATIONS;
+            assertTrue(perMessage < MAX_ALLOCATION_PER_MESSAGE, perMessage + " bytes allocated per message");
+        }
+    }
+
+    @Test
+    public void testCreateTypedSignal() throws Exception {
+        Map<String, Variant<?>> props = createProperties();
+        DBusSignal sent = new Properties.PropertiesChanged("/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Marshalling",
+                props, Arrays.asList("Removed", "Gone"));
+        sent.appendbody(null);
+        byte[] wiredata = sent.getWireData()[0];
+
+        // registers the signal class like adding a signal handler does
+        new DBusMatchRule(Properties.PropertiesChanged.class);
+
+        DBusSignal received = (DBusSignal) MessageFactory.createMessage(wiredata);
+        Object[] params = received.getParameters();
+        Object removed = params[2];
+
+        for (int i = 0; i < 2; i++) {
+            DBusSignal real = received.createReal(null);
+            assertTrue(real instanceof Properties.PropertiesChanged);
+            Properties.PropertiesChanged changed = (Properties.PropertiesChanged) real;
+            assertEquals("/org/freedesktop/dbus/test", changed.getPath());
+            assertEquals("org.freedesktop.dbus.test.Marshalling", changed.getInterfaceName());
+            assertEquals(props, changed.getPropertiesChanged());
+            assertEquals(Arrays.asList("Removed", "Gone"), changed.getPropertiesRemoved());
+            assertEquals(received.getInterface(), real.getInterface());
+        }
+        // parameters of the received signal are not replaced by the converted values
+        assertTrue(removed == received.getParameters()[2]);
+    }
+
+    @Test
+    public void testSetSourceKeepsBody() throws Exception {
+        byte[] payload = new byte[1024 * 1024];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+        Message sent = new MethodCall("org.freedesktop.dbus.test", "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Marshalling",
+                "Upload", (byte) 0, "say", "first", payload);
+        byte[] wiredata = sent.getWireData()[0];
+
+        Message routed = MessageFactory.createMessage(wiredata);
+        routed.setSource(":1.5");
+        // an existing sender is replaced
+        routed.setSource(":1.42");
+        ByteBuffer[] buffers = routed.getWireBuffers();
+        assertEquals(2, buffers.length);
+        assertSame(wiredata, buffers[1].array());
+
+        ByteBuffer joined = ByteBuffer.allocate(buffers[0].remaining() + buffers[1].remaining());
+        for (ByteBuffer buf : buffers) {
+            joined.put(buf);
+        }
+        Message received = MessageFactory.createMessage(joined.array());
+        assertEquals(":1.42", received.getSource());
+        assertEquals(sent.getSerial(), received.getSerial());
+        assertEquals("org.freedesktop.dbus.test", received.getDestination());
+        assertEquals("Upload", received.getName());
+        assertEquals("first", received.getParameter(0));
+        assertArrayEquals(payload, (byte[]) received.getParameter(1));
+        assertArrayEquals(joined.array(), routed.getWireData()[0]);
+        assertArrayEquals(payload, (byte[]) routed.getParameter(1));
+    }
+
+    private static Message createCall(Map<String, Variant<?>> _props) throws Exception {
+        Message m = new MethodCall("org.freedesktop.dbus.test", "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Marshalling",
+                "Update", (byte) 0, "a{sv}", _props);
+        m.getWireData();
+        return m;
+    }
+
+    private static Map<String, Variant<?>> createProperties() {
+        Map<String, Variant<?>> props = new LinkedHashMap<>();
+        props.put("Name", new Variant<>("dbus-java"));
+        props.put("Enabled", new Variant<>(true));
+        props.put("Count", new Variant<>(new UInt32(42)));
+        props.put("Offset", new Variant<>(-12L));
+        props.put("Ratio", new Variant<>(0.5d));
+        props.put("Path", new Variant<>("/org/freedesktop/dbus/test/object"));
+        return props;
+    }
+
+    private static long getAllocatedBytes(ThreadMXBean _threadBean) {
+        if (_threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) _threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
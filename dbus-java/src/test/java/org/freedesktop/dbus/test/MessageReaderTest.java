@@ -0,0 +1,103 @@
+package org.freedesktop.dbus.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.freedesktop.dbus.MessageReader;
+import org.freedesktop.dbus.MessageWriter;
+import org.freedesktop.dbus.messages.DBusSignal;
+import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.types.UInt32;
+import org.junit.jupiter.api.Test;
+
+public class MessageReaderTest {
+
+    @Test
+    public void testReadMultipleMessagesFromSingleRead() throws Exception {
+        List<Message> sent = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            sent.add(new DBusSignal(null, "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Reader", "Tick", "us", new UInt32(i), "signal" + i));
+        }
+
+        MessageReader reader = new MessageReader(new ByteArrayInputStream(serialize(sent)));
+        for (Message expected : sent) {
+            Message m = reader.readMessage();
+            assertNotNull(m);
+            assertMessageEquals(expected, m);
+        }
+        assertThrows(EOFException.class, () -> reader.readMessage());
+    }
+
+    @Test
+    public void testReadFragmentedMessages() throws Exception {
+        List<Message> sent = new ArrayList<>();
+        sent.add(new DBusSignal(null, "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Reader", "Small", "s", "small"));
+        sent.add(new DBusSignal(null, "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Reader", "Large", "ay", new byte[100000]));
+        sent.add(new DBusSignal(null, "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Reader", "Empty", null));
+
+        // return only a few bytes per read
+        MessageReader reader = new MessageReader(new ByteArrayInputStream(serialize(sent)) {
+            @Override
+            public synchronized int read(byte[] _b, int _off, int _len) {
+                return super.read(_b, _off, Math.min(_len, 13));
+            }
+        });
+
+        List<Message> received = new ArrayList<>();
+        while (received.size() < sent.size()) {
+            Message m = reader.readMessage();
+            if (m != null) {
+                received.add(m);
+            }
+        }
+        for (int i = 0; i < sent.size(); i++) {
+            assertMessageEquals(sent.get(i), received.get(i));
+        }
+        assertArrayEquals(new byte[100000], (byte[]) received.get(1).getParameters()[0]);
+    }
+
+    @Test
+    public void testIncompleteMessage() throws Exception {
+        List<Message> sent = new ArrayList<>();
+        sent.add(new DBusSignal(null, "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Reader", "Tick", "s", "incomplete"));
+        byte[] data = serialize(sent);
+        byte[] partial = new byte[data.length - 1];
+        System.arraycopy(data, 0, partial, 0, partial.length);
+
+        MessageReader reader = new MessageReader(new ByteArrayInputStream(partial));
+        assertNull(reader.readMessage());
+        assertThrows(EOFException.class, () -> reader.readMessage());
+    }
+
+    private static byte[] serialize(List<Message> _messages) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MessageWriter writer = new MessageWriter(out)) {
+            for (Message m : _messages) {
+                writer.writeMessage(m);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void assertMessageEquals(Message _expected, Message _actual) throws Exception {
+        assertEquals(_expected.getClass(), _actual.getClass());
+        assertEquals(_expected.getSerial(), _actual.getSerial());
+        assertEquals(_expected.getPath(), _actual.getPath());
+        assertEquals(_expected.getInterface(), _actual.getInterface());
+        assertEquals(_expected.getName(), _actual.getName());
+        assertEquals(_expected.getSig(), _actual.getSig());
+        if (_expected.getSig() != null && !"ay".equals(_expected.getSig())) {
+            assertArrayEquals(_expected.getParameters(), _actual.getParameters());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.freedesktop.dbus.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.messages.MethodCall;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies serial generation, also when messages are created by several threads at once.
+ */
+public class MessageSerialTest {
+    private static final int THREADS             = 4;
+    private static final int MESSAGES_PER_THREAD = 20000;
+
+    @Test
+    public void testSerialWrapsAround() throws Exception {
+        Field field = Message.class.getDeclaredField("GLOBAL_SERIAL");
+        field.setAccessible(true);
+        AtomicInteger counter = (AtomicInteger) field.get(null);
+        int old = counter.get();
+        try {
+            counter.set(-3); // 0xFFFFFFFD
+            assertEquals(0xFFFFFFFEL, createCall().getSerial());
+            assertEquals(0xFFFFFFFFL, createCall().getSerial());
+            // 0 is not a valid serial
+            assertEquals(1L, createCall().getSerial());
+            assertEquals(2L, createCall().getSerial());
+        } finally {
+            counter.set(old);
+        }
+    }
+
+    @Test
+    public void testConcurrentCreation() throws Exception {
+        Set<Long> serials = ConcurrentHashMap.newKeySet();
+        createMessages(THREADS, serials);
+        assertEquals(THREADS * MESSAGES_PER_THREAD, serials.size(), "Serials must be unique");
+    }
+
+    private void createMessages(int _threads, Set<Long> _serials) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(_threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?>[] futures = new Future<?>[_threads];
+            for (int i = 0; i < _threads; i++) {
+                futures[i] = executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < MESSAGES_PER_THREAD; j++) {
+                        _serials.add(createCall().getSerial());
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private static MethodCall createCall() throws Exception {
+        return new MethodCall("org.freedesktop.dbus.test", "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Serial",
+                "Ping", (byte) 0, null);
+    }
+}
@@ -0,0 +1,279 @@
+package org.freedesktop.dbus.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketOption;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.freedesktop.dbus.MessageWriter;
+import org.freedesktop.dbus.messages.DBusSignal;
+import org.freedesktop.dbus.messages.Message;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the number of write calls (each resulting in a system call on a real socket)
+ * required to send small signals using the stream based and the channel based {@link MessageWriter}.
+ */
+public class MessageWriterTest {
+    private static final int MESSAGE_COUNT = 1000;
+
+    private final Logger     logger        = LoggerFactory.getLogger(getClass());
+
+    @Test
+    public void testWritesPerMessage() throws Exception {
+        CountingOutputStream stream = new CountingOutputStream();
+        CountingChannel channel = new CountingChannel(Integer.MAX_VALUE);
+
+        try (MessageWriter streamWriter = new MessageWriter(stream);
+                MessageWriter channelWriter = new MessageWriter(channel)) {
+            for (int i = 0; i < MESSAGE_COUNT; i++) {
+                Message m = createSignal(i);
+                streamWriter.writeMessage(m);
+                channelWriter.writeMessage(m);
+            }
+        }
+
+        double streamWrites = (double) stream.writes / MESSAGE_COUNT;
+        double channelWrites = (double) channel.writes / MESSAGE_COUNT;
+        logger.info("Writes per message: stream={}, channel={}", streamWrites, channelWrites);
+
+        assertArrayEquals(stream.data.toByteArray(), channel.data.toByteArray());
+        assertEquals(MESSAGE_COUNT, channel.writes, "Every message should be written using a single write");
+    }
+
+    @Test
+    public void testPartialWrites() throws Exception {
+        CountingOutputStream stream = new CountingOutputStream();
+        CountingChannel channel = new CountingChannel(7);
+
+        try (MessageWriter streamWriter = new MessageWriter(stream);
+                MessageWriter channelWriter = new MessageWriter(channel)) {
+            for (int i = 0; i < 10; i++) {
+                Message m = createSignal(i);
+                streamWriter.writeMessage(m);
+                channelWriter.writeMessage(m);
+            }
+        }
+
+        assertArrayEquals(stream.data.toByteArray(), channel.data.toByteArray());
+    }
+
+    @Test
+    public void testBatchWrite() throws Exception {
+        CountingOutputStream stream = new CountingOutputStream();
+        CountingChannel channel = new CountingChannel(Integer.MAX_VALUE);
+
+        List<Message> batch = new ArrayList<>();
+        try (MessageWriter streamWriter = new MessageWriter(stream);
+                MessageWriter channelWriter = new MessageWriter(channel)) {
+            for (int i = 0; i < MESSAGE_COUNT; i++) {
+                Message m = createSignal(i);
+                batch.add(m);
+                streamWriter.writeMessage(m);
+            }
+            channelWriter.writeMessages(batch);
+        }
+
+        logger.info("Writes for {} messages: one by one={}, batch={}", MESSAGE_COUNT, stream.writes, channel.writes);
+
+        assertArrayEquals(stream.data.toByteArray(), channel.data.toByteArray());
+        assertEquals(1, channel.writes, "All messages should be written using a single write");
+    }
+
+    @Test
+    public void testCloseWhileWaitingForPeer() throws Exception {
+        try (ServerSocketChannel ss = ServerSocketChannel.open()) {
+            ss.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            try (SocketChannel client = SocketChannel.open(ss.getLocalAddress());
+                    SocketChannel peer = ss.accept()) {
+                client.configureBlocking(false);
+                MessageWriter writer = new MessageWriter(client);
+                // the peer never reads, so the writer has to wait for the channel
+                Message large = new DBusSignal(null, "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Writer", "Large", "ay",
+                        new byte[32 * 1024 * 1024]);
+                CompletableFuture<Throwable> result = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        writer.writeMessage(large);
+                        return null;
+                    } catch (Throwable _ex) {
+                        return _ex;
+                    }
+                });
+
+                Thread.sleep(200);
+                assertFalse(result.isDone());
+                writer.close();
+                assertTrue(result.get(5, TimeUnit.SECONDS) instanceof IOException);
+                assertTrue(writer.isClosed());
+                assertThrows(IOException.class, () -> writer.writeMessage(createSignal(1)));
+            }
+        }
+    }
+
+    private static Message createSignal(int _num) throws Exception {
+        return new DBusSignal(null, "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Writer", "Tick", "us",
+                _num, "signal" + _num);
+    }
+
+    /**
+     * Stream counting every write and flush call.
+     */
+    private static class CountingOutputStream extends OutputStream {
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        private int                         writes;
+
+        @Override
+        public void write(int _b) throws IOException {
+            writes++;
+            data.write(_b);
+        }
+
+        @Override
+        public void write(byte[] _b, int _off, int _len) throws IOException {
+            writes++;
+            data.write(_b, _off, _len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writes++;
+        }
+    }
+
+    /**
+     * Channel counting every write call, accepting at most the given number of bytes per call.
+     */
+    private static class CountingChannel extends SocketChannel {
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        private final int                   maxBytesPerWrite;
+        private int                         writes;
+
+        CountingChannel(int _maxBytesPerWrite) {
+            super(SelectorProvider.provider());
+            maxBytesPerWrite = _maxBytesPerWrite;
+        }
+
+        @Override
+        public int write(ByteBuffer _src) throws IOException {
+            return (int) write(new ByteBuffer[] {_src}, 0, 1);
+        }
+
+        @Override
+        public long write(ByteBuffer[] _srcs, int _offset, int _length) throws IOException {
+            writes++;
+            int written = 0;
+            for (int i = _offset; i < _offset + _length && written < maxBytesPerWrite; i++) {
+                while (_srcs[i].hasRemaining() && written < maxBytesPerWrite) {
+                    data.write(_srcs[i].get());
+                    written++;
+                }
+            }
+            return written;
+        }
+
+        @Override
+        public int read(ByteBuffer _dst) throws IOException {
+            return -1;
+        }
+
+        @Override
+        public long read(ByteBuffer[] _dsts, int _offset, int _length) throws IOException {
+            return -1;
+        }
+
+        @Override
+        public SocketChannel bind(SocketAddress _local) throws IOException {
+            return this;
+        }
+
+        @Override
+        public <T> SocketChannel setOption(SocketOption<T> _name, T _value) throws IOException {
+            return this;
+        }
+
+        @Override
+        public <T> T getOption(SocketOption<T> _name) throws IOException {
+            return null;
+        }
+
+        @Override
+        public Set<SocketOption<?>> supportedOptions() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public SocketChannel shutdownInput() throws IOException {
+            return this;
+        }
+
+        @Override
+        public SocketChannel shutdownOutput() throws IOException {
+            return this;
+        }
+
+        @Override
+        public Socket socket() {
+            return null;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public boolean isConnectionPending() {
+            return false;
+        }
+
+        @Override
+        public boolean connect(SocketAddress _remote) throws IOException {
+            return true;
+        }
+
+        @Override
+        public boolean finishConnect() throws IOException {
+            return true;
+        }
+
+        @Override
+        public SocketAddress getRemoteAddress() throws IOException {
+            return null;
+        }
+
+        @Override
+        public SocketAddress getLocalAddress() throws IOException {
+            return null;
+        }
+
+        @Override
+        protected void implCloseSelectableChannel() throws IOException {
+        }
+
+        @Override
+        protected void implConfigureBlocking(boolean _block) throws IOException {
+        }
+    }
+}
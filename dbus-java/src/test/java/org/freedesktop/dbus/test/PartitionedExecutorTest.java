@@ -0,0 +1,117 @@
+package org.freedesktop.dbus.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.freedesktop.dbus.connections.PartitionedExecutor;
+import org.freedesktop.dbus.connections.PartitionedExecutor.PartitionKey;
+import org.freedesktop.dbus.messages.DBusSignal;
+import org.junit.jupiter.api.Test;
+
+public class PartitionedExecutorTest {
+    private static final int KEYS          = 100;
+    private static final int TASKS_PER_KEY = 1000;
+
+    @Test
+    public void testOrderPerKey() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            PartitionedExecutor executor = new PartitionedExecutor(pool, 16);
+            List<List<Integer>> results = new ArrayList<>();
+            AtomicInteger[] running = new AtomicInteger[KEYS];
+            for (int k = 0; k < KEYS; k++) {
+                results.add(new ArrayList<>());
+                running[k] = new AtomicInteger();
+            }
+            AtomicInteger concurrentRuns = new AtomicInteger();
+            CountDownLatch done = new CountDownLatch(KEYS * TASKS_PER_KEY);
+
+            for (int i = 0; i < TASKS_PER_KEY; i++) {
+                for (int k = 0; k < KEYS; k++) {
+                    final int key = k;
+                    final int seq = i;
+                    executor.execute(":1." + key, () -> {
+                        if (running[key].incrementAndGet() > 1) {
+                            concurrentRuns.incrementAndGet();
+                        }
+                        // no synchronization needed, tasks of one key never run concurrently
+                        results.get(key).add(seq);
+                        running[key].decrementAndGet();
+                        done.countDown();
+                    });
+                }
+            }
+
+            assertTrue(done.await(30, TimeUnit.SECONDS), "Not all tasks were executed");
+            assertEquals(0, concurrentRuns.get(), "Tasks with the same key must not run concurrently");
+            for (int k = 0; k < KEYS; k++) {
+                List<Integer> seqs = results.get(k);
+                assertEquals(TASKS_PER_KEY, seqs.size());
+                for (int i = 0; i < TASKS_PER_KEY; i++) {
+                    assertEquals(i, seqs.get(i).intValue(), "Tasks of key " + k + " executed out of order");
+                }
+            }
+            assertEquals(0, executor.getQueuedTaskCount());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRemainingTasksAfterShutdown() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(1);
+        PartitionedExecutor executor = new PartitionedExecutor(pool, 1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        AtomicInteger executed = new AtomicInteger();
+
+        executor.execute("key", () -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException _ex) {
+                Thread.currentThread().interrupt();
+            }
+            executed.incrementAndGet();
+        });
+        for (int i = 0; i < 100; i++) {
+            executor.execute("key", executed::incrementAndGet);
+        }
+
+        pool.shutdown();
+        blocked.countDown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(101, executed.get());
+    }
+
+    @Test
+    public void testFailingTask() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(1);
+        try {
+            PartitionedExecutor executor = new PartitionedExecutor(pool, 1);
+            CountDownLatch done = new CountDownLatch(1);
+            executor.execute("key", () -> {
+                throw new AssertionError("expected");
+            });
+            executor.execute("key", done::countDown);
+            assertTrue(done.await(10, TimeUnit.SECONDS), "Lane stopped after failing task");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPartitionKey() throws Exception {
+        DBusSignal signal = new DBusSignal(null, "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Partition", "Tick", "");
+
+        assertEquals("/org/freedesktop/dbus/test", PartitionKey.OBJECT_PATH.getKey(signal));
+        assertEquals("org.freedesktop.dbus.test.Partition", PartitionKey.INTERFACE.getKey(signal));
+        assertEquals(null, PartitionKey.NONE.getKey(signal));
+    }
+}
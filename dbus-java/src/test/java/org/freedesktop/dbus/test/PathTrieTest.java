@@ -0,0 +1,95 @@
+package org.freedesktop.dbus.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.freedesktop.dbus.messages.ObjectTree;
+import org.freedesktop.dbus.messages.PathTrie;
+import org.junit.jupiter.api.Test;
+
+public class PathTrieTest {
+    private static final int OBJECTS = 100000;
+
+    @Test
+    public void testExactAndPrefixLookup() {
+        PathTrie<String> trie = new PathTrie<>();
+        assertNull(trie.put("/org/freedesktop", "fd"));
+        assertNull(trie.put("/org/freedesktop/dbus/test", "test"));
+        assertEquals("fd", trie.put("/org/freedesktop", "freedesktop"));
+
+        assertEquals("freedesktop", trie.get("/org/freedesktop"));
+        assertNull(trie.get("/org/freedesktop/dbus"));
+        assertNull(trie.get("/org/free"));
+        assertTrue(trie.contains("/org/freedesktop/dbus"));
+        assertTrue(trie.contains("/"));
+
+        assertEquals("freedesktop", trie.getLongestPrefix("/org/freedesktop/dbus"));
+        assertEquals("test", trie.getLongestPrefix("/org/freedesktop/dbus/test/sub/path"));
+        // only whole path elements match
+        assertNull(trie.getLongestPrefix("/org/freedesktopX"));
+        assertNull(trie.getLongestPrefix("/"));
+
+        trie.put("/", "root");
+        assertEquals("root", trie.getLongestPrefix("/com/example"));
+        assertEquals("root", trie.get("/"));
+    }
+
+    @Test
+    public void testRemove() {
+        PathTrie<String> trie = new PathTrie<>();
+        trie.put("/a/b/c", "c");
+        trie.put("/a", "a");
+
+        assertEquals(Arrays.asList("b"), trie.getChildNames("/a"));
+        assertEquals("c", trie.remove("/a/b/c"));
+        // empty intermediate nodes are removed
+        assertFalse(trie.contains("/a/b"));
+        assertEquals(Collections.emptyList(), trie.getChildNames("/a"));
+        assertEquals("a", trie.getLongestPrefix("/a/b/c"));
+
+        assertNull(trie.remove("/x/y"));
+        assertEquals("a", trie.remove("/a"));
+        assertNull(trie.getLongestPrefix("/a/b/c"));
+        assertEquals(Collections.emptyList(), trie.getChildNames("/"));
+    }
+
+    @Test
+    public void testIntrospect() {
+        ObjectTree tree = new ObjectTree();
+        tree.add("/org/test/b", null, "<b/>\n");
+        tree.add("/org/test/a", null, "<a/>\n");
+        tree.add("/org/test", null, "<test/>\n");
+
+        assertEquals("<node name=\"/org/test\">\n<test/>\n<node name=\"a\"/>\n<node name=\"b\"/>\n</node>", tree.Introspect("/org/test"));
+        assertEquals("<node name=\"/org\">\n<node name=\"test\"/>\n</node>", tree.Introspect("/org"));
+        assertNull(tree.Introspect("/org/other"));
+
+        tree.remove("/org/test/a");
+        assertNull(tree.Introspect("/org/test/a"));
+        assertEquals("<node name=\"/org/test\">\n<test/>\n<node name=\"b\"/>\n</node>", tree.Introspect("/org/test"));
+    }
+
+    @Test
+    public void testManyChildren() {
+        ObjectTree tree = new ObjectTree();
+        PathTrie<String> fallbacks = new PathTrie<>();
+        for (int i = 0; i < OBJECTS; i++) {
+            tree.add("/org/freedesktop/dbus/test/object" + i, null, "");
+        }
+        fallbacks.put("/org/freedesktop/dbus/test", "fallback");
+
+        assertEquals("fallback", fallbacks.getLongestPrefix("/org/freedesktop/dbus/test/object0/child"));
+        assertEquals("fallback", fallbacks.getLongestPrefix("/org/freedesktop/dbus/test/object99999/child"));
+
+        String intro = tree.Introspect("/org/freedesktop/dbus/test");
+        assertEquals(OBJECTS, intro.split("<node name=\"object").length - 1);
+        // children are sorted by name
+        assertTrue(intro.indexOf("<node name=\"object10\"/>") < intro.indexOf("<node name=\"object2\"/>"));
+        assertTrue(intro.contains("<node name=\"object99999\"/>"));
+    }
+}
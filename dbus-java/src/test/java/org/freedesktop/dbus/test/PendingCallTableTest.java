@@ -0,0 +1,125 @@
+package org.freedesktop.dbus.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.freedesktop.dbus.connections.PendingCallTable;
+import org.freedesktop.dbus.messages.MethodCall;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies the {@link PendingCallTable} against a {@link HashMap} and under concurrent access.
+ */
+public class PendingCallTableTest {
+    private static final int OPERATIONS = 200000;
+
+    @Test
+    public void testRandomOperations() throws Exception {
+        MethodCall[] calls = new MethodCall[64];
+        for (int i = 0; i < calls.length; i++) {
+            calls[i] = createCall();
+        }
+
+        PendingCallTable table = new PendingCallTable();
+        Map<Long, MethodCall> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < OPERATIONS; i++) {
+            long serial = 1 + random.nextInt(5000);
+            MethodCall call = calls[random.nextInt(calls.length)];
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    table.put(serial, call);
+                    expected.put(serial, call);
+                    break;
+                case 2:
+                    assertSame(expected.remove(serial), table.remove(serial));
+                    break;
+                default:
+                    assertEquals(expected.remove(serial, call), table.remove(serial, call));
+                    break;
+            }
+            assertSame(expected.get(serial), table.get(serial));
+        }
+        assertEquals(expected.size(), table.size());
+        for (Map.Entry<Long, MethodCall> e : expected.entrySet()) {
+            assertSame(e.getValue(), table.get(e.getKey()));
+        }
+
+        assertEquals(expected.size(), table.removeAll().size());
+        assertTrue(table.isEmpty());
+        assertNull(table.get(expected.keySet().iterator().next()));
+    }
+
+    @Test
+    public void testShrinkAfterBurst() throws Exception {
+        MethodCall call = createCall();
+        PendingCallTable table = new PendingCallTable();
+        for (long serial = 1; serial <= 100000; serial++) {
+            table.put(serial, call);
+        }
+        for (long serial = 1; serial <= 100000; serial++) {
+            assertSame(call, table.remove(serial));
+        }
+        assertTrue(table.isEmpty());
+        assertFalse(table.remove(1, call));
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        MethodCall call = createCall();
+        PendingCallTable table = new PendingCallTable();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long first = 1 + (long) t * OPERATIONS;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    // keep some calls pending, so the table has to grow and shrink while others read it
+                    for (long serial = first; serial < first + OPERATIONS / threads; serial++) {
+                        table.put(serial, call);
+                        assertSame(call, table.get(serial));
+                        if (serial - first >= 100) {
+                            assertSame(call, table.remove(serial - 100), "Lost call " + (serial - 100));
+                        }
+                    }
+                    for (long serial = first + OPERATIONS / threads - 100; serial < first + OPERATIONS / threads; serial++) {
+                        assertTrue(table.remove(serial, call), "Lost call " + serial);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertTrue(table.isEmpty());
+        assertEquals(0, table.size());
+    }
+
+    private static MethodCall createCall() throws Exception {
+        return new MethodCall("org.freedesktop.dbus.test", "/org/freedesktop/dbus/test", "org.freedesktop.dbus.test.Pending",
+                "Ping", (byte) 0, null);
+    }
+}
@@ -0,0 +1,137 @@
+package org.freedesktop.dbus.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.freedesktop.dbus.SignalTuple;
+import org.freedesktop.dbus.connections.SignalHandlerIndex;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the {@link SignalHandlerIndex} with the map based lookup previously used to dispatch signals.
+ */
+public class SignalHandlerIndexTest {
+    private static final String[] INTERFACES = {null, "org.foo.Iface", "org.bar.Iface"};
+    private static final String[] MEMBERS    = {null, "Changed", "Removed"};
+    private static final String[] PATHS      = {null, "/a", "/b", "/c"};
+    private static final String[] SOURCES    = {null, ":1.1", ":1.2"};
+
+    private static final int      HANDLERS   = 10000;
+
+    @Test
+    public void testAddRemove() {
+        SignalHandlerIndex<String> index = new SignalHandlerIndex<>(false);
+        SignalTuple key = new SignalTuple("org.foo.Iface", "Changed", null, null);
+
+        assertTrue(index.add(key, "h1"));
+        assertFalse(index.add(key, "h2"));
+        assertEquals(2, index.getHandlers("org.foo.Iface", "Changed", "/a", ":1.1").size());
+
+        assertFalse(index.remove(key, "h3"));
+        assertFalse(index.remove(key, "h1"));
+        assertEquals(1, index.getHandlers("org.foo.Iface", "Changed", "/a", ":1.1").size());
+        assertTrue(index.remove(key, "h2"));
+        assertTrue(index.getHandlers("org.foo.Iface", "Changed", "/a", ":1.1").isEmpty());
+    }
+
+    @Test
+    public void testSameHandlersAsTupleLookup() {
+        Random rnd = new Random(42);
+        for (boolean generic : new boolean[] {false, true}) {
+            SignalHandlerIndex<String> index = new SignalHandlerIndex<>(generic);
+            Map<SignalTuple, List<String>> map = new HashMap<>();
+
+            for (int i = 0; i < 200; i++) {
+                SignalTuple key = new SignalTuple(pick(rnd, INTERFACES), pick(rnd, MEMBERS), pick(rnd, PATHS), pick(rnd, SOURCES));
+                String handler = "handler" + i;
+                index.add(key, handler);
+                map.computeIfAbsent(key, k -> new ArrayList<>()).add(handler);
+
+                String iface = pick(rnd, INTERFACES);
+                String member = pick(rnd, MEMBERS);
+                String path = pick(rnd, PATHS);
+                String source = pick(rnd, SOURCES);
+                // signals always have an interface, member and path, signals received from a bus also have a source
+                if (iface == null || member == null || path == null || source == null) {
+                    continue;
+                }
+                Set<String> expected = new HashSet<>(generic ? genericLookup(map, iface, member, path, source)
+                        : lookup(map, iface, member, path, source));
+                List<String> found = index.getHandlers(iface, member, path, source);
+                assertEquals(expected, new HashSet<>(found));
+                assertEquals(expected.size(), found.size(), "No handler should be found twice");
+            }
+        }
+    }
+
+    @Test
+    public void testLookupDoesNotCopy() {
+        SignalHandlerIndex<String> index = new SignalHandlerIndex<>(false);
+        for (int i = 0; i < HANDLERS; i++) {
+            index.add(new SignalTuple("org.foo.Iface" + i % 10, "Changed", "/obj/" + i % 100, null), "handler" + i);
+        }
+
+        List<String> found = index.getHandlers("org.foo.Iface0", "Changed", "/obj/0", ":1.1");
+        assertEquals(HANDLERS / 100, found.size());
+        assertTrue(found.stream().allMatch(h -> Integer.parseInt(h.substring("handler".length())) % 100 == 0));
+        // handlers of a single rule are returned as they are, without locking or copying
+        assertSame(found, index.getHandlers("org.foo.Iface0", "Changed", "/obj/0", ":1.1"));
+        assertThrows(UnsupportedOperationException.class, () -> found.add("modified"));
+
+        // changes are visible to the next lookup, handler lists returned before are not modified
+        index.add(new SignalTuple("org.foo.Iface0", "Changed", "/obj/0", null), "added");
+        List<String> changed = index.getHandlers("org.foo.Iface0", "Changed", "/obj/0", ":1.1");
+        assertNotSame(found, changed);
+        assertEquals(HANDLERS / 100 + 1, changed.size());
+        assertEquals(HANDLERS / 100, found.size());
+    }
+
+    private static String pick(Random _rnd, String[] _values) {
+        return _values[_rnd.nextInt(_values.length)];
+    }
+
+    /**
+     * Lookup of typed signal handlers as done before the index was introduced.
+     */
+    private static List<String> lookup(Map<SignalTuple, List<String>> _map, String _iface, String _member, String _path, String _source) {
+        List<String> handlers = new ArrayList<>();
+        Set<SignalTuple> tuples = new HashSet<>();
+        tuples.add(new SignalTuple(_iface, _member, null, null));
+        tuples.add(new SignalTuple(_iface, _member, _path, null));
+        tuples.add(new SignalTuple(_iface, _member, null, _source));
+        tuples.add(new SignalTuple(_iface, _member, _path, _source));
+        for (SignalTuple tuple : tuples) {
+            List<String> t = _map.get(tuple);
+            if (null != t) {
+                handlers.addAll(t);
+            }
+        }
+        return handlers;
+    }
+
+    /**
+     * Lookup of generic signal handlers as done before the index was introduced.
+     */
+    private static List<String> genericLookup(Map<SignalTuple, List<String>> _map, String _iface, String _member, String _path, String _source) {
+        List<String> handlers = new ArrayList<>();
+        for (SignalTuple tuple : SignalTuple.getAllPossibleTuples(_iface, _member, _path, _source)) {
+            List<String> t = _map.get(tuple);
+            if (null != t) {
+                handlers.addAll(t);
+            }
+        }
+        return handlers;
+    }
+}
@@ -16,6 +16,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -26,6 +27,9 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.freedesktop.DBus;
 import org.freedesktop.dbus.DBusAsyncReply;
@@ -49,6 +53,7 @@ import org.freedesktop.dbus.test.helper.SampleException;
 import org.freedesktop.dbus.test.helper.SampleNewInterfaceClass;
 import org.freedesktop.dbus.test.helper.SampleSerializable;
 import org.freedesktop.dbus.test.helper.callbacks.handler.CallbackHandlerImpl;
+import org.freedesktop.dbus.test.helper.interfaces.SampleAsyncRemoteInterface;
 import org.freedesktop.dbus.test.helper.interfaces.SampleNewInterface;
 import org.freedesktop.dbus.test.helper.interfaces.SampleRemoteInterface;
 import org.freedesktop.dbus.test.helper.interfaces.SampleRemoteInterface2;
@@ -805,4 +810,42 @@ public class TestAll {
         assertEquals(struct, structReply.getReply(), "struct did not match" );
     }
 
+    @Test
+    public void testNestedListsFuture() throws Exception {
+        SampleRemoteInterface2 tri2 = clientconn.getRemoteObject("foo.bar.Test", TEST_OBJECT_PATH, SampleRemoteInterface2.class);
+        List<List<Integer>> lli = new ArrayList<>();
+        List<Integer> li = new ArrayList<>();
+        li.add(31);
+        lli.add(li);
+
+        CompletableFuture<List<List<Integer>>> checklistFuture = clientconn.callMethodAsFuture(tri2, "checklist", lli);
+
+        assertIterableEquals(lli, checklistFuture.get(5, TimeUnit.SECONDS), "did not get back the same as sent in async" );
+    }
+
+    @Test
+    public void testFutureError() throws Exception {
+        SampleRemoteInterface tri = clientconn.getRemoteObject("foo.bar.Test", TEST_OBJECT_PATH, SampleRemoteInterface.class);
+
+        CompletableFuture<String> nameFuture = clientconn.callMethodAsFuture(tri, "getNameAndThrow");
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> nameFuture.get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof SampleException, "Unexpected exception " + ex.getCause());
+    }
+
+    @Test
+    public void testProxyFutures() throws Exception {
+        SampleAsyncRemoteInterface tri = clientconn.getRemoteObject("foo.bar.Test", TEST_OBJECT_PATH, SampleAsyncRemoteInterface.class);
+
+        List<CompletableFuture<SampleStruct>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(tri.returnSamplestruct(new SampleStruct("future" + i, new UInt32(i), new Variant<Integer>(i))));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(new SampleStruct("future" + i, new UInt32(i), new Variant<Integer>(i)), futures.get(i).get(5, TimeUnit.SECONDS),
+                    "struct did not match");
+        }
+    }
+
 }
@@ -1,11 +1,18 @@
 package org.freedesktop.dbus.test;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.freedesktop.dbus.bin.EmbeddedDBusDaemon;
+import org.freedesktop.dbus.connections.impl.DirectConnection;
 import org.freedesktop.dbus.connections.impl.DBusConnection;
 import org.freedesktop.dbus.connections.impl.DBusConnection.DBusBusType;
 import org.freedesktop.dbus.exceptions.DBusException;
 import org.freedesktop.dbus.exceptions.NotConnected;
+import org.freedesktop.dbus.messages.DBusSignal;
 import org.freedesktop.dbus.test.helper.SampleClass;
 import org.freedesktop.dbus.test.helper.interfaces.SampleRemoteInterface;
 import org.junit.jupiter.api.Test;
@@ -41,4 +48,35 @@ public class TestDisconnectStuff {
         } catch (NotConnected exnc) {
         }
     }
+
+    @Test
+    public void testConnectionLostWhileSending() throws Exception {
+        String address = DirectConnection.createDynamicTCPSession();
+        EmbeddedDBusDaemon daemon = new EmbeddedDBusDaemon();
+        daemon.setAddress(address);
+        daemon.startInBackground();
+        Thread.sleep(500);
+
+        DBusConnection connection = DBusConnection.getConnection(address, true, false);
+        // keep the sender thread busy writing large batches
+        Thread sender = new Thread(() -> {
+            try {
+                while (connection.isConnected()) {
+                    connection.sendMessage(new DBusSignal(null, "/Test", "foo.bar.Disconnect", "Large", "ay", new byte[256 * 1024]));
+                }
+            } catch (DBusException _ex) {
+                // connection lost
+            }
+        });
+        sender.start();
+        Thread.sleep(500);
+
+        // the reader and the sender thread see the connection break at the same time
+        daemon.close();
+
+        CompletableFuture<Void> disconnected = CompletableFuture.runAsync(connection::disconnect);
+        disconnected.get(30, TimeUnit.SECONDS);
+        sender.join(TimeUnit.SECONDS.toMillis(30));
+        assertTrue(!sender.isAlive(), "Sending thread did not stop");
+    }
 }
@@ -0,0 +1,76 @@
+package org.freedesktop.dbus.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.freedesktop.dbus.DBusMatchRule;
+import org.freedesktop.dbus.connections.AbstractConnection;
+import org.freedesktop.dbus.connections.PartitionedExecutor.PartitionKey;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.connections.impl.DBusConnection.DBusBusType;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.freedesktop.dbus.messages.DBusSignal;
+import org.freedesktop.dbus.types.UInt32;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that signals of one sender are handled in the order they were sent when partitioning by sender.
+ */
+public class TestOrderedDispatch {
+    private static final int SIGNAL_COUNT = 2000;
+
+    private DBusConnection   senderconn;
+    private DBusConnection   receiverconn;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        AbstractConnection.setPartitionKey(PartitionKey.SENDER);
+        try {
+            senderconn = DBusConnection.newConnection(DBusBusType.SESSION);
+            receiverconn = DBusConnection.newConnection(DBusBusType.SESSION);
+        } finally {
+            AbstractConnection.setPartitionKey(PartitionKey.NONE);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        senderconn.disconnect();
+        receiverconn.disconnect();
+    }
+
+    @Test
+    public void testSignalsInOrder() throws Exception {
+        List<Long> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(SIGNAL_COUNT);
+        DBusSigHandler<DBusSignal> handler = s -> {
+            try {
+                received.add(((UInt32) s.getParameters()[0]).longValue());
+            } catch (Exception _ex) {
+                received.add(-1L);
+            }
+            done.countDown();
+        };
+
+        DBusMatchRule rule = new DBusMatchRule("signal", "org.freedesktop.dbus.test.Ordered", "Tick", "/Ordered");
+        receiverconn.addGenericSigHandler(rule, handler);
+
+        for (int i = 0; i < SIGNAL_COUNT; i++) {
+            senderconn.sendMessage(new DBusSignal(null, "/Ordered", "org.freedesktop.dbus.test.Ordered", "Tick", "u", new UInt32(i)));
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS), "Not all signals received");
+        for (int i = 0; i < SIGNAL_COUNT; i++) {
+            assertEquals(i, received.get(i).longValue(), "Signal handled out of order");
+        }
+        receiverconn.removeGenericSigHandler(rule, handler);
+    }
+}
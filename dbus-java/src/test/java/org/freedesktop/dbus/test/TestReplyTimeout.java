@@ -0,0 +1,109 @@
+package org.freedesktop.dbus.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.freedesktop.dbus.annotations.DBusInterfaceName;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.connections.impl.DBusConnection.DBusBusType;
+import org.freedesktop.dbus.errors.Error;
+import org.freedesktop.dbus.errors.NoReply;
+import org.freedesktop.dbus.interfaces.DBusInterface;
+import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.messages.MethodCall;
+import org.freedesktop.dbus.messages.MethodReturn;
+import org.freedesktop.dbus.test.helper.SampleClass;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that calls which do not receive a reply in time are completed with a {@link NoReply} error.
+ */
+public class TestReplyTimeout {
+
+    private DBusConnection serverconn;
+    private DBusConnection clientconn;
+    private long           defaultTimeout;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        defaultTimeout = MethodCall.getDefaultTimeout();
+        MethodCall.setDefaultTimeout(200);
+
+        serverconn = DBusConnection.getConnection(DBusBusType.SESSION);
+        clientconn = DBusConnection.getConnection(DBusBusType.SESSION);
+        serverconn.requestBusName("foo.bar.ReplyTimeoutTest");
+        serverconn.exportObject("/ReplyTimeoutTest", new SampleClass(serverconn));
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        MethodCall.setDefaultTimeout(defaultTimeout);
+        clientconn.disconnect();
+        serverconn.releaseBusName("foo.bar.ReplyTimeoutTest");
+        serverconn.disconnect();
+    }
+
+    @Test
+    public void testFutureExpires() throws Exception {
+        SlowInterface slow = clientconn.getRemoteObject("foo.bar.ReplyTimeoutTest", "/ReplyTimeoutTest", SlowInterface.class);
+
+        CompletableFuture<Void> future = slow.waitawhile();
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof NoReply, "Unexpected exception " + ex.getCause());
+        assertEquals(1, clientconn.getExpiredCallCount());
+    }
+
+    @Test
+    public void testWaitLongerThanDefault() throws Exception {
+        MethodCall call = waitawhile();
+        clientconn.sendMessage(call);
+
+        Message reply = call.getReply(5000);
+        assertTrue(reply instanceof MethodReturn, "Unexpected reply " + reply);
+        assertEquals(0, clientconn.getExpiredCallCount());
+    }
+
+    @Test
+    public void testCallTimeout() throws Exception {
+        MethodCall call = waitawhile();
+        call.setTimeout(5000);
+        clientconn.sendMessage(call);
+
+        Message reply = call.getReplyFuture().get(10, TimeUnit.SECONDS);
+        assertFalse(reply instanceof Error, "Unexpected error " + reply);
+        assertEquals(0, clientconn.getExpiredCallCount());
+    }
+
+    @Test
+    public void testCallWithoutTimeout() throws Exception {
+        MethodCall call = waitawhile();
+        call.setTimeout(0);
+        clientconn.sendMessage(call);
+
+        Message reply = call.getReplyFuture().get(10, TimeUnit.SECONDS);
+        assertFalse(reply instanceof Error, "Unexpected error " + reply);
+        assertEquals(0, clientconn.getExpiredCallCount());
+    }
+
+    private static MethodCall waitawhile() throws Exception {
+        return new MethodCall("foo.bar.ReplyTimeoutTest", "/ReplyTimeoutTest",
+                "org.freedesktop.dbus.test.helper.interfaces.SampleRemoteInterface", "waitawhile", (byte) 0, null);
+    }
+
+    /**
+     * Calls {@link SampleClass#waitawhile()} (which sleeps for a second) expecting a reply.
+     */
+    @DBusInterfaceName("org.freedesktop.dbus.test.helper.interfaces.SampleRemoteInterface")
+    public interface SlowInterface extends DBusInterface {
+        CompletableFuture<Void> waitawhile();
+    }
+}
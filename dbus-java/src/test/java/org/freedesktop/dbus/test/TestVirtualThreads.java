@@ -0,0 +1,122 @@
+package org.freedesktop.dbus.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.freedesktop.dbus.annotations.DBusInterfaceName;
+import org.freedesktop.dbus.connections.AbstractConnection;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.connections.impl.DBusConnection.DBusBusType;
+import org.freedesktop.dbus.exceptions.DBusExecutionException;
+import org.freedesktop.dbus.interfaces.DBusInterface;
+import org.freedesktop.dbus.test.helper.SampleClass;
+import org.freedesktop.dbus.test.helper.interfaces.SampleRemoteInterface;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Handles blocking method calls on a connection using virtual threads (if supported by the JVM).
+ */
+public class TestVirtualThreads {
+    private static final int SLOW_CALLS      = 20;
+    private static final int BARRIER_TIMEOUT = 10;
+
+    private DBusConnection   serverconn;
+    private DBusConnection   clientconn;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        AbstractConnection.setVirtualThreads(true);
+        try {
+            serverconn = DBusConnection.newConnection(DBusBusType.SESSION);
+        } finally {
+            AbstractConnection.setVirtualThreads(false);
+        }
+        clientconn = DBusConnection.newConnection(DBusBusType.SESSION);
+        serverconn.requestBusName("foo.bar.VirtualThreadsTest");
+        serverconn.exportObject("/VirtualThreadsTest", new SampleClass(serverconn));
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        clientconn.disconnect();
+        serverconn.releaseBusName("foo.bar.VirtualThreadsTest");
+        serverconn.disconnect();
+    }
+
+    @Test
+    public void testCallInfo() throws Exception {
+        SampleRemoteInterface tri = clientconn.getRemoteObject("foo.bar.VirtualThreadsTest", "/VirtualThreadsTest", SampleRemoteInterface.class);
+        // overload() uses the call info to find the called interface
+        assertEquals(4, tri.overload());
+        assertEquals(null, AbstractConnection.getCallInfo());
+    }
+
+    @Test
+    public void testBlockingCalls() throws Exception {
+        // without virtual threads the calls queue up behind a fixed pool and can never all meet at the barrier
+        assumeTrue(AbstractConnection.isVirtualThreadsSupported(), "Virtual threads not supported by this JVM");
+
+        serverconn.exportObject("/VirtualThreadsTest/Barrier", new BarrierObject(SLOW_CALLS));
+        AsyncBarrierInterface barrier = clientconn.getRemoteObject("foo.bar.VirtualThreadsTest", "/VirtualThreadsTest/Barrier", AsyncBarrierInterface.class);
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < SLOW_CALLS; i++) {
+            futures.add(barrier.rendezvous());
+        }
+        // each call only returns once all of them are blocked on the server at the same time
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(60, TimeUnit.SECONDS);
+    }
+
+    @DBusInterfaceName("org.freedesktop.dbus.test.VirtualThreadsBarrier")
+    public interface BarrierInterface extends DBusInterface {
+        void rendezvous();
+    }
+
+    @DBusInterfaceName("org.freedesktop.dbus.test.VirtualThreadsBarrier")
+    public interface AsyncBarrierInterface extends DBusInterface {
+        CompletableFuture<Void> rendezvous();
+    }
+
+    /**
+     * Blocks every caller until the given number of calls are waiting.
+     */
+    public static class BarrierObject implements BarrierInterface {
+        private final CyclicBarrier barrier;
+
+        public BarrierObject(int _parties) {
+            barrier = new CyclicBarrier(_parties);
+        }
+
+        @Override
+        public void rendezvous() {
+            try {
+                barrier.await(BARRIER_TIMEOUT, TimeUnit.SECONDS);
+            } catch (InterruptedException _ex) {
+                Thread.currentThread().interrupt();
+                throw new DBusExecutionException("Interrupted while waiting at the barrier");
+            } catch (BrokenBarrierException | TimeoutException _ex) {
+                throw new DBusExecutionException("Calls were not handled concurrently");
+            }
+        }
+
+        @Override
+        public boolean isRemote() {
+            return false;
+        }
+
+        @Override
+        public String getObjectPath() {
+            return null;
+        }
+    }
+}
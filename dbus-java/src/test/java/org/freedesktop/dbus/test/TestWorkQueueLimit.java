@@ -0,0 +1,76 @@
+package org.freedesktop.dbus.test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.freedesktop.dbus.connections.AbstractConnection;
+import org.freedesktop.dbus.connections.WorkQueueLimiter.Category;
+import org.freedesktop.dbus.connections.WorkQueueLimiter.OverflowPolicy;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.connections.impl.DBusConnection.DBusBusType;
+import org.freedesktop.dbus.errors.LimitsExceeded;
+import org.freedesktop.dbus.test.TestReplyTimeout.SlowInterface;
+import org.freedesktop.dbus.test.helper.SampleClass;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that method calls exceeding the work queue limit are answered with a {@link LimitsExceeded} error.
+ */
+public class TestWorkQueueLimit {
+    private static final int CALLS = 20;
+
+    private DBusConnection   serverconn;
+    private DBusConnection   clientconn;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        AbstractConnection.setWorkQueueLimit(Category.METHOD_CALL, 1, OverflowPolicy.REJECT);
+        try {
+            serverconn = DBusConnection.newConnection(DBusBusType.SESSION);
+        } finally {
+            AbstractConnection.setWorkQueueLimit(Category.METHOD_CALL, 0, null);
+        }
+        clientconn = DBusConnection.newConnection(DBusBusType.SESSION);
+        serverconn.requestBusName("foo.bar.WorkQueueLimitTest");
+        serverconn.exportObject("/WorkQueueLimitTest", new SampleClass(serverconn));
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        clientconn.disconnect();
+        serverconn.releaseBusName("foo.bar.WorkQueueLimitTest");
+        serverconn.disconnect();
+    }
+
+    @Test
+    public void testRejectCalls() throws Exception {
+        SlowInterface slow = clientconn.getRemoteObject("foo.bar.WorkQueueLimitTest", "/WorkQueueLimitTest", SlowInterface.class);
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < CALLS; i++) {
+            futures.add(slow.waitawhile());
+        }
+
+        int replied = 0;
+        int rejected = 0;
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.get(30, TimeUnit.SECONDS);
+                replied++;
+            } catch (ExecutionException _ex) {
+                assertTrue(_ex.getCause() instanceof LimitsExceeded, "Unexpected exception " + _ex.getCause());
+                rejected++;
+            }
+        }
+        // the worker threads and the single queue slot are busy with the first calls
+        assertTrue(replied > 0, "No call was handled");
+        assertTrue(rejected > 0, "No call was rejected");
+    }
+}
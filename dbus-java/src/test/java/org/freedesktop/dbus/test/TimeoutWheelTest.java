@@ -0,0 +1,61 @@
+package org.freedesktop.dbus.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.freedesktop.dbus.connections.TimeoutWheel;
+import org.junit.jupiter.api.Test;
+
+public class TimeoutWheelTest {
+
+    @Test
+    public void testExpire() throws Exception {
+        TimeoutWheel wheel = new TimeoutWheel("Test Timeout Thread", 10, 8);
+        try {
+            CountDownLatch latch = new CountDownLatch(3);
+            long start = System.nanoTime();
+            wheel.schedule(latch::countDown, 20);
+            wheel.schedule(latch::countDown, 50);
+            // longer than one rotation of the wheel
+            wheel.schedule(latch::countDown, 150);
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS), "Timeouts did not expire");
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150), "Timeout expired too early");
+            assertEquals(3, wheel.getExpiredCount());
+            assertEquals(0, wheel.getPendingCount());
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        TimeoutWheel wheel = new TimeoutWheel("Test Timeout Thread", 10, 8);
+        try {
+            AtomicInteger expired = new AtomicInteger();
+            TimeoutWheel.Timeout[] timeouts = new TimeoutWheel.Timeout[10000];
+            for (int i = 0; i < timeouts.length; i++) {
+                timeouts[i] = wheel.schedule(expired::incrementAndGet, 100);
+            }
+            assertEquals(timeouts.length, wheel.getPendingCount());
+            for (TimeoutWheel.Timeout timeout : timeouts) {
+                assertTrue(timeout.cancel());
+            }
+            assertFalse(timeouts[0].cancel());
+            assertEquals(0, wheel.getPendingCount());
+
+            CountDownLatch latch = new CountDownLatch(1);
+            wheel.schedule(latch::countDown, 200);
+            assertTrue(latch.await(5, TimeUnit.SECONDS), "Timeout did not expire");
+            assertEquals(0, expired.get(), "Cancelled timeouts must not run");
+            assertEquals(1, wheel.getExpiredCount());
+        } finally {
+            wheel.stop();
+        }
+    }
+}
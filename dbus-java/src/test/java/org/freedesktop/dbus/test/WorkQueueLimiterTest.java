@@ -0,0 +1,125 @@
+package org.freedesktop.dbus.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.freedesktop.dbus.connections.AbstractConnection;
+import org.freedesktop.dbus.connections.WorkQueueLimiter;
+import org.freedesktop.dbus.connections.WorkQueueLimiter.Category;
+import org.freedesktop.dbus.connections.WorkQueueLimiter.OverflowPolicy;
+import org.junit.jupiter.api.Test;
+
+public class WorkQueueLimiterTest {
+
+    @Test
+    public void testUnbounded() {
+        WorkQueueLimiter limiter = new WorkQueueLimiter(null);
+        Runnable task = () -> { };
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(task == limiter.admit(Category.SIGNAL, task), "Task should not be wrapped");
+        }
+        assertEquals(0, limiter.getQueuedCount(Category.SIGNAL));
+    }
+
+    @Test
+    public void testRejectMethodCalls() {
+        WorkQueueLimiter limiter = new WorkQueueLimiter(null);
+        limiter.setLimit(Category.METHOD_CALL, 2, OverflowPolicy.REJECT);
+
+        List<String> executed = new ArrayList<>();
+        Runnable first = limiter.admit(Category.METHOD_CALL, () -> executed.add("first"));
+        assertNotNull(limiter.admit(Category.METHOD_CALL, () -> executed.add("second")));
+        assertNull(limiter.admit(Category.METHOD_CALL, () -> executed.add("third")));
+        assertEquals(1, limiter.getOverflowCount(Category.METHOD_CALL));
+
+        first.run();
+        assertNotNull(limiter.admit(Category.METHOD_CALL, () -> executed.add("fourth")));
+        assertEquals(2, limiter.getQueuedCount(Category.METHOD_CALL));
+        assertEquals(1, executed.size());
+    }
+
+    @Test
+    public void testDropOldestSignals() {
+        WorkQueueLimiter limiter = new WorkQueueLimiter(null);
+        limiter.setLimit(Category.SIGNAL, 2, OverflowPolicy.DROP_OLDEST);
+
+        List<Integer> executed = new ArrayList<>();
+        List<Runnable> submitted = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final int num = i;
+            Runnable task = limiter.admit(Category.SIGNAL, () -> executed.add(num));
+            if (null != task) {
+                submitted.add(task);
+            }
+        }
+        // 2 waiting signals plus at most 2 placeholders of dropped signals
+        assertEquals(4, submitted.size());
+        assertEquals(8, limiter.getOverflowCount(Category.SIGNAL));
+
+        for (Runnable task : submitted) {
+            task.run();
+        }
+        assertEquals(2, executed.size());
+        assertTrue(executed.get(0) < executed.get(1), "Signals executed out of order");
+        assertEquals(0, limiter.getQueuedCount(Category.SIGNAL));
+
+        // placeholders are gone, the limit applies again
+        assertNotNull(limiter.admit(Category.SIGNAL, () -> executed.add(10)));
+    }
+
+    @Test
+    public void testBlock() throws Exception {
+        AtomicLong waited = new AtomicLong();
+        WorkQueueLimiter limiter = new WorkQueueLimiter(waited::addAndGet);
+        limiter.setLimit(Category.CALLBACK, 1, OverflowPolicy.BLOCK);
+
+        Runnable first = limiter.admit(Category.CALLBACK, () -> { });
+        CountDownLatch admitted = new CountDownLatch(1);
+        Thread reader = new Thread(() -> {
+            limiter.admit(Category.CALLBACK, () -> { });
+            admitted.countDown();
+        });
+        reader.start();
+
+        assertFalse(admitted.await(200, TimeUnit.MILLISECONDS), "Second task should wait for a free slot");
+        first.run();
+        assertTrue(admitted.await(5, TimeUnit.SECONDS), "Second task should be admitted after the first started");
+        assertTrue(waited.get() >= TimeUnit.MILLISECONDS.toNanos(200), "Waiting time should be reported");
+        reader.join();
+    }
+
+    @Test
+    public void testInvalidPolicy() {
+        WorkQueueLimiter limiter = new WorkQueueLimiter(null);
+        assertThrows(IllegalArgumentException.class, () -> limiter.setLimit(Category.CALLBACK, 1, OverflowPolicy.DROP_OLDEST));
+        assertThrows(IllegalArgumentException.class, () -> limiter.setLimit(Category.SIGNAL, 1, OverflowPolicy.REJECT));
+    }
+
+    @Test
+    public void testNoBlockingWithSharedSelector() {
+        try {
+            AbstractConnection.setSharedSelector(true);
+            assertThrows(IllegalArgumentException.class, () -> AbstractConnection.setWorkQueueLimit(Category.SIGNAL, 10, OverflowPolicy.BLOCK));
+            AbstractConnection.setWorkQueueLimit(Category.SIGNAL, 10, OverflowPolicy.DROP_OLDEST);
+            AbstractConnection.setWorkQueueLimit(Category.SIGNAL, 0, null);
+
+            AbstractConnection.setSharedSelector(false);
+            AbstractConnection.setWorkQueueLimit(Category.CALLBACK, 10, OverflowPolicy.BLOCK);
+            assertThrows(IllegalStateException.class, () -> AbstractConnection.setSharedSelector(true));
+            assertFalse(AbstractConnection.isSharedSelector());
+        } finally {
+            AbstractConnection.setWorkQueueLimit(Category.CALLBACK, 0, null);
+            AbstractConnection.setSharedSelector(false);
+        }
+    }
+}
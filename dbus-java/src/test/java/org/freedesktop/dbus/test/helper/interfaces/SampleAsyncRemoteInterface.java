@@ -0,0 +1,31 @@
+/*
+   D-Bus Java Implementation
+   Copyright (c) 2005-2006 Matthew Johnson
+   Copyright (c) 2017-2019 David M.
+
+   This program is free software; you can redistribute it and/or modify it
+   under the terms of either the GNU Lesser General Public License Version 2 or the
+   Academic Free Licence Version 2.1.
+
+   Full licence texts are included in the LICENSE file with this program.
+*/
+
+package org.freedesktop.dbus.test.helper.interfaces;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.freedesktop.dbus.annotations.DBusInterfaceName;
+import org.freedesktop.dbus.interfaces.DBusInterface;
+import org.freedesktop.dbus.test.helper.structs.SampleStruct;
+
+/**
+ * Client side view of {@link SampleRemoteInterface2} using futures for the replies.
+ */
+@DBusInterfaceName("org.freedesktop.dbus.test.AlternateTestInterface")
+public interface SampleAsyncRemoteInterface extends DBusInterface {
+
+    CompletableFuture<List<List<Integer>>> checklist(List<List<Integer>> lli);
+
+    CompletableFuture<SampleStruct> returnSamplestruct(SampleStruct struct);
+}